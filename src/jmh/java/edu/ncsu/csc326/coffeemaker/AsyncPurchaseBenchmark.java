@@ -0,0 +1,99 @@
+/*
+ * Copyright (c) 2009,  Sarah Heckman, Laurie Williams, Dright Ho
+ * All Rights Reserved.
+ *
+ * Permission has been explicitly granted to the University of Minnesota
+ * Software Engineering Center to use and distribute this source for
+ * educational purposes, including delivering online education through
+ * Coursera or other entities.
+ *
+ * No warranty is given regarding this software, including warranties as
+ * to the correctness or completeness of this software, including
+ * fitness for purpose.
+ */
+package edu.ncsu.csc326.coffeemaker;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Purchase throughput on every available thread of the blocking
+ * CoffeeMaker.makeCoffee compared with AsyncCoffeeMaker, both waiting
+ * for each purchase and keeping PIPELINE purchases in flight.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(Threads.MAX)
+public class AsyncPurchaseBenchmark {
+
+	/** Purchases queued before waiting for any of them */
+	private static final int PIPELINE = 16;
+
+	private Inventory inventory;
+	private CoffeeMaker coffeeMaker;
+	private AsyncCoffeeMaker asyncCoffeeMaker;
+
+	@Setup
+	public void setUp() {
+		inventory = new Inventory();
+		coffeeMaker = new CoffeeMaker(inventory);
+		coffeeMaker.addRecipe(BenchmarkRecipes.recipe("Coffee", 50, 1, 1, 1, 1));
+		BenchmarkRecipes.refill(inventory);
+		asyncCoffeeMaker = new AsyncCoffeeMaker(coffeeMaker, 4096, true);
+	}
+
+	@TearDown
+	public void tearDown() {
+		asyncCoffeeMaker.close();
+	}
+
+	@Benchmark
+	public int purchaseBlocking() {
+		return refillIfOut(coffeeMaker.makeCoffee(0, 60));
+	}
+
+	@Benchmark
+	public int purchaseAsync() {
+		return refillIfOut(asyncCoffeeMaker.makeCoffeeAsync(0, 60).join());
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(PIPELINE)
+	public int purchaseAsyncPipelined() {
+		@SuppressWarnings("unchecked")
+		CompletableFuture<Integer>[] purchases = new CompletableFuture[PIPELINE];
+		for (int i = 0; i < PIPELINE; i++) {
+			purchases[i] = asyncCoffeeMaker.makeCoffeeAsync(0, 60);
+		}
+		int change = 0;
+		for (int i = 0; i < PIPELINE; i++) {
+			change = refillIfOut(purchases[i].join());
+		}
+		return change;
+	}
+
+	private int refillIfOut(int change) {
+		if (change == 60) {
+			BenchmarkRecipes.refill(inventory);
+		}
+		return change;
+	}
+}
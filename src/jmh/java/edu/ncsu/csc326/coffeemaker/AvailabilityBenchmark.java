@@ -0,0 +1,99 @@
+/*
+ * Copyright (c) 2009,  Sarah Heckman, Laurie Williams, Dright Ho
+ * All Rights Reserved.
+ *
+ * Permission has been explicitly granted to the University of Minnesota
+ * Software Engineering Center to use and distribute this source for
+ * educational purposes, including delivering online education through
+ * Coursera or other entities.
+ *
+ * No warranty is given regarding this software, including warranties as
+ * to the correctness or completeness of this software, including
+ * fitness for purpose.
+ */
+package edu.ncsu.csc326.coffeemaker;
+
+import java.util.BitSet;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Cost of finding the recipes a coffee maker can make now, with
+ * CoffeeMaker.availableRecipes, an AvailabilityCache or by calling
+ * enoughIngredients for every recipe, at menus of a few to thousands
+ * of recipes.  cachedAfterPurchase buys a recipe before each read,
+ * so the cache has one level change per ingredient to apply.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AvailabilityBenchmark {
+
+	@Param({"4", "64", "4096"})
+	public int menuSize;
+
+	@Param({"locked", "lockfree"})
+	public String engine;
+
+	private Inventory inventory;
+	private CoffeeMaker coffeeMaker;
+	private AvailabilityCache cache;
+
+	@Setup
+	public void setUp() {
+		inventory = BenchmarkRecipes.inventory(engine);
+		coffeeMaker = new CoffeeMaker(new IndexedRecipeBook(), inventory);
+		for (int i = 0; i < menuSize; i++) {
+			coffeeMaker.addRecipe(BenchmarkRecipes.recipe("Recipe " + i, 50, i % 4, i % 7, i % 3, i % 11));
+		}
+		inventory.setCoffee(2);
+		inventory.setMilk(5);
+		inventory.setSugar(2);
+		inventory.setChocolate(9);
+		cache = new AvailabilityCache(coffeeMaker);
+	}
+
+	@Benchmark
+	public RecipeAvailability availableRecipes() {
+		return coffeeMaker.availableRecipes();
+	}
+
+	@Benchmark
+	public BitSet enoughIngredients() {
+		Recipe [] recipes = coffeeMaker.getRecipes();
+		BitSet available = new BitSet(recipes.length);
+		for (int i = 0; i < recipes.length; i++) {
+			if (recipes[i] != null && inventory.enoughIngredients(recipes[i])) {
+				available.set(i);
+			}
+		}
+		return available;
+	}
+
+	@Benchmark
+	public int cached() {
+		return cache.getAvailableCount();
+	}
+
+	@Benchmark
+	public int cachedAfterPurchase() {
+		inventory.setChocolate(9);
+		inventory.setMilk(5);
+		coffeeMaker.makeCoffee(1, 50);
+		return cache.getAvailableCount();
+	}
+}
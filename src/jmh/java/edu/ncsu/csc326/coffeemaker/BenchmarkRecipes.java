@@ -0,0 +1,70 @@
+/*
+ * Copyright (c) 2009,  Sarah Heckman, Laurie Williams, Dright Ho
+ * All Rights Reserved.
+ *
+ * Permission has been explicitly granted to the University of Minnesota
+ * Software Engineering Center to use and distribute this source for
+ * educational purposes, including delivering online education through
+ * Coursera or other entities.
+ *
+ * No warranty is given regarding this software, including warranties as
+ * to the correctness or completeness of this software, including
+ * fitness for purpose.
+ */
+package edu.ncsu.csc326.coffeemaker;
+
+import edu.ncsu.csc326.coffeemaker.exceptions.RecipeException;
+
+/**
+ * Recipes and inventories shared by the benchmarks.
+ */
+final class BenchmarkRecipes {
+
+	private BenchmarkRecipes() {
+	}
+
+	/**
+	 * Returns a recipe with the given name, price and amounts.
+	 */
+	static Recipe recipe(String name, int price, int coffee, int milk, int sugar, int chocolate) {
+		Recipe r = new Recipe();
+		r.setName(name);
+		try {
+			r.setPrice(String.valueOf(price));
+			r.setAmtCoffee(String.valueOf(coffee));
+			r.setAmtMilk(String.valueOf(milk));
+			r.setAmtSugar(String.valueOf(sugar));
+			r.setAmtChocolate(String.valueOf(chocolate));
+		} catch (RecipeException e) {
+			throw new IllegalArgumentException(e);
+		}
+		return r;
+	}
+
+	/**
+	 * Returns a new inventory of the given engine, "locked" for
+	 * Inventory, "lockfree" for LockFreeInventory or "striped"
+	 * for StripedInventory.
+	 */
+	static Inventory inventory(String engine) {
+		if ("lockfree".equals(engine)) {
+			return new LockFreeInventory();
+		} else if ("striped".equals(engine)) {
+			return new StripedInventory();
+		} else if ("locked".equals(engine)) {
+			return new Inventory();
+		}
+		throw new IllegalArgumentException("Unknown inventory engine " + engine);
+	}
+
+	/**
+	 * Fills every ingredient of the inventory to the largest
+	 * amount all engines can hold.
+	 */
+	static void refill(Inventory inventory) {
+		inventory.setCoffee(LockFreeInventory.MAX_UNITS);
+		inventory.setMilk(LockFreeInventory.MAX_UNITS);
+		inventory.setSugar(LockFreeInventory.MAX_UNITS);
+		inventory.setChocolate(LockFreeInventory.MAX_UNITS);
+	}
+}
@@ -0,0 +1,84 @@
+/*
+ * Copyright (c) 2009,  Sarah Heckman, Laurie Williams, Dright Ho
+ * All Rights Reserved.
+ *
+ * Permission has been explicitly granted to the University of Minnesota
+ * Software Engineering Center to use and distribute this source for
+ * educational purposes, including delivering online education through
+ * Coursera or other entities.
+ *
+ * No warranty is given regarding this software, including warranties as
+ * to the correctness or completeness of this software, including
+ * fitness for purpose.
+ */
+package edu.ncsu.csc326.coffeemaker;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Cost and allocation of the inventory report polled by monitoring.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class InventoryReportBenchmark {
+
+	@Param({"locked", "lockfree"})
+	public String engine;
+
+	private Inventory inventory;
+	private CoffeeMaker coffeeMaker;
+	private StringBuilder buf;
+	private ByteBuffer bytes;
+	private int[] levels;
+
+	@Setup
+	public void setUp() {
+		inventory = BenchmarkRecipes.inventory(engine);
+		coffeeMaker = new CoffeeMaker(inventory);
+		buf = new StringBuilder(64);
+		bytes = ByteBuffer.allocateDirect(64);
+		levels = new int[4];
+	}
+
+	@Benchmark
+	public String checkInventory() {
+		return coffeeMaker.checkInventory();
+	}
+
+	@Benchmark
+	public StringBuilder appendTo() {
+		buf.setLength(0);
+		inventory.appendTo(buf);
+		return buf;
+	}
+
+	@Benchmark
+	public ByteBuffer writeTo() {
+		bytes.clear();
+		inventory.writeTo(bytes);
+		return bytes;
+	}
+
+	@Benchmark
+	public int[] getLevels() {
+		coffeeMaker.getInventoryLevels(levels);
+		return levels;
+	}
+}
@@ -0,0 +1,91 @@
+/*
+ * Copyright (c) 2009,  Sarah Heckman, Laurie Williams, Dright Ho
+ * All Rights Reserved.
+ *
+ * Permission has been explicitly granted to the University of Minnesota
+ * Software Engineering Center to use and distribute this source for
+ * educational purposes, including delivering online education through
+ * Coursera or other entities.
+ *
+ * No warranty is given regarding this software, including warranties as
+ * to the correctness or completeness of this software, including
+ * fitness for purpose.
+ */
+package edu.ncsu.csc326.coffeemaker;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Purchases per second of a CoffeeMaker journaled by a
+ * CoffeeMakerJournal at different commit intervals.  Every purchase
+ * writes its record; an interval of 1 also wakes the flusher to
+ * force every record to disk on its own.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JournalBenchmark {
+
+	@Param({"1", "16", "256", "4096"})
+	public int commitInterval;
+
+	private Path file;
+	private Inventory inventory;
+	private CoffeeMaker coffeeMaker;
+	private CoffeeMakerJournal journal;
+
+	@Setup
+	public void setUp() throws IOException {
+		file = Files.createTempFile("coffeemaker", ".journal");
+		inventory = new Inventory();
+		coffeeMaker = new CoffeeMaker(inventory);
+		journal = CoffeeMakerJournal.open(file, coffeeMaker, commitInterval);
+		coffeeMaker.addRecipe(BenchmarkRecipes.recipe("Coffee", 50, 1, 1, 1, 1));
+		BenchmarkRecipes.refill(inventory);
+	}
+
+	@TearDown
+	public void tearDown() throws IOException {
+		journal.close();
+		Files.delete(file);
+	}
+
+	@Benchmark
+	@Threads(1)
+	public int purchase() {
+		return refillIfOut(coffeeMaker.makeCoffee(0, 60));
+	}
+
+	@Benchmark
+	@Threads(Threads.MAX)
+	public int purchaseContended() {
+		return refillIfOut(coffeeMaker.makeCoffee(0, 60));
+	}
+
+	private int refillIfOut(int change) {
+		if (change == 60) {
+			BenchmarkRecipes.refill(inventory);
+		}
+		return change;
+	}
+}
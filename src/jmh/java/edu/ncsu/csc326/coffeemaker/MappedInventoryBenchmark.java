@@ -0,0 +1,107 @@
+/*
+ * Copyright (c) 2009,  Sarah Heckman, Laurie Williams, Dright Ho
+ * All Rights Reserved.
+ *
+ * Permission has been explicitly granted to the University of Minnesota
+ * Software Engineering Center to use and distribute this source for
+ * educational purposes, including delivering online education through
+ * Coursera or other entities.
+ *
+ * No warranty is given regarding this software, including warranties as
+ * to the correctness or completeness of this software, including
+ * fitness for purpose.
+ */
+package edu.ncsu.csc326.coffeemaker;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Purchases on randomly chosen machines of a large fleet, comparing
+ * a LockFreeInventory object per machine with slots of a
+ * MappedInventoryStore, and the time to open a store that already
+ * holds the whole fleet.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MappedInventoryBenchmark {
+
+	@Param({"100000"})
+	public int machines;
+
+	@Param({"lockfree", "mapped"})
+	public String engine;
+
+	private Path file;
+	private MappedInventoryStore store;
+	private Inventory [] inventories;
+	private CompactRecipe coffee;
+
+	@Setup
+	public void setUp() throws IOException {
+		file = Files.createTempFile("coffeemaker", ".inventory");
+		store = new MappedInventoryStore(file, machines);
+		inventories = new Inventory[machines];
+		for (int i = 0; i < machines; i++) {
+			inventories[i] = "mapped".equals(engine) ? store.getInventory(i) : BenchmarkRecipes.inventory(engine);
+			BenchmarkRecipes.refill(inventories[i]);
+		}
+		coffee = CompactRecipe.of(BenchmarkRecipes.recipe("Coffee", 50, 3, 1, 1, 0));
+	}
+
+	@TearDown
+	public void tearDown() throws IOException {
+		store.close();
+		Files.deleteIfExists(file);
+	}
+
+	@Benchmark
+	@Threads(1)
+	public boolean purchaseUncontended() {
+		return purchase();
+	}
+
+	@Benchmark
+	@Threads(Threads.MAX)
+	public boolean purchaseContended() {
+		return purchase();
+	}
+
+	@Benchmark
+	@BenchmarkMode(Mode.AverageTime)
+	public MappedInventoryStore reopen() throws IOException {
+		MappedInventoryStore reopened = new MappedInventoryStore(file, machines);
+		reopened.close();
+		return reopened;
+	}
+
+	private boolean purchase() {
+		Inventory inventory = inventories[ThreadLocalRandom.current().nextInt(machines)];
+		if (inventory.useIngredients(coffee)) {
+			return true;
+		}
+		BenchmarkRecipes.refill(inventory);
+		return false;
+	}
+}
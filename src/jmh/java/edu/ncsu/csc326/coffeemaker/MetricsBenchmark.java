@@ -0,0 +1,82 @@
+/*
+ * Copyright (c) 2009,  Sarah Heckman, Laurie Williams, Dright Ho
+ * All Rights Reserved.
+ *
+ * Permission has been explicitly granted to the University of Minnesota
+ * Software Engineering Center to use and distribute this source for
+ * educational purposes, including delivering online education through
+ * Coursera or other entities.
+ *
+ * No warranty is given regarding this software, including warranties as
+ * to the correctness or completeness of this software, including
+ * fitness for purpose.
+ */
+package edu.ncsu.csc326.coffeemaker;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Cost of recording CoffeeMakerMetrics on the purchase path: the same
+ * purchases with metrics disabled and enabled, on one thread and on
+ * every available thread.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MetricsBenchmark {
+
+	@Param({"false", "true"})
+	public boolean metrics;
+
+	@Param({"locked", "lockfree"})
+	public String engine;
+
+	private Inventory inventory;
+	private CoffeeMaker coffeeMaker;
+
+	@Setup
+	public void setUp() {
+		inventory = BenchmarkRecipes.inventory(engine);
+		coffeeMaker = new CoffeeMaker(inventory);
+		coffeeMaker.addRecipe(BenchmarkRecipes.recipe("Coffee", 50, 1, 1, 1, 1));
+		BenchmarkRecipes.refill(inventory);
+		if (metrics) {
+			coffeeMaker.setMetrics(new CoffeeMakerMetrics());
+		}
+	}
+
+	@Benchmark
+	@Threads(1)
+	public int purchase() {
+		return refillIfOut(coffeeMaker.makeCoffee(0, 60));
+	}
+
+	@Benchmark
+	@Threads(Threads.MAX)
+	public int purchaseContended() {
+		return refillIfOut(coffeeMaker.makeCoffee(0, 60));
+	}
+
+	private int refillIfOut(int change) {
+		if (change == 60) {
+			BenchmarkRecipes.refill(inventory);
+		}
+		return change;
+	}
+}
@@ -0,0 +1,123 @@
+/*
+ * Copyright (c) 2009,  Sarah Heckman, Laurie Williams, Dright Ho
+ * All Rights Reserved.
+ *
+ * Permission has been explicitly granted to the University of Minnesota
+ * Software Engineering Center to use and distribute this source for
+ * educational purposes, including delivering online education through
+ * Coursera or other entities.
+ *
+ * No warranty is given regarding this software, including warranties as
+ * to the correctness or completeness of this software, including
+ * fitness for purpose.
+ */
+package edu.ncsu.csc326.coffeemaker;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Purchase throughput of CoffeeMaker.makeCoffee and makeCoffeeBatch
+ * on one thread and on every available thread, comparing the lock
+ * based {@link Inventory} with the {@link LockFreeInventory}, and
+ * mutable recipes with frozen ones bought in their compact form.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PurchaseBenchmark {
+
+	/** Orders in each makeCoffeeBatch call */
+	private static final int BATCH_SIZE = 16;
+
+	@Param({"locked", "lockfree"})
+	public String engine;
+
+	@Param({"mutable", "frozen"})
+	public String recipes;
+
+	private Inventory inventory;
+	private CoffeeMaker coffeeMaker;
+	private int[] batchRecipes;
+	private int[] batchPayments;
+
+	@Setup
+	public void setUp() {
+		inventory = BenchmarkRecipes.inventory(engine);
+		coffeeMaker = new CoffeeMaker(inventory);
+		Recipe coffee = BenchmarkRecipes.recipe("Coffee", 50, 1, 1, 1, 1);
+		Recipe latte = BenchmarkRecipes.recipe("Latte", 100, 1, 2, 1, 0);
+		if ("frozen".equals(recipes)) {
+			RecipeFactory factory = new RecipeFactory();
+			coffee = factory.intern(coffee);
+			latte = factory.intern(latte);
+		}
+		coffeeMaker.addRecipe(coffee);
+		coffeeMaker.addRecipe(latte);
+		BenchmarkRecipes.refill(inventory);
+		batchRecipes = new int[BATCH_SIZE];
+		batchPayments = new int[BATCH_SIZE];
+		for (int i = 0; i < BATCH_SIZE; i++) {
+			batchRecipes[i] = i % 2;
+			batchPayments[i] = 100;
+		}
+	}
+
+	@Benchmark
+	@Threads(1)
+	public int purchaseUncontended() {
+		return purchase();
+	}
+
+	@Benchmark
+	@Threads(Threads.MAX)
+	public int purchaseContended() {
+		return purchase();
+	}
+
+	@Benchmark
+	@Threads(1)
+	@OperationsPerInvocation(BATCH_SIZE)
+	public int[] purchaseBatchUncontended() {
+		return purchaseBatch();
+	}
+
+	@Benchmark
+	@Threads(Threads.MAX)
+	@OperationsPerInvocation(BATCH_SIZE)
+	public int[] purchaseBatchContended() {
+		return purchaseBatch();
+	}
+
+	private int purchase() {
+		int change = coffeeMaker.makeCoffee(0, 60);
+		if (change == 60) {
+			BenchmarkRecipes.refill(inventory);
+		}
+		return change;
+	}
+
+	private int[] purchaseBatch() {
+		int[] results = coffeeMaker.makeCoffeeBatch(batchRecipes, batchPayments);
+		if (results[2 * BATCH_SIZE - 1] == CoffeeMaker.INSUFFICIENT_INGREDIENTS) {
+			BenchmarkRecipes.refill(inventory);
+		}
+		return results;
+	}
+}
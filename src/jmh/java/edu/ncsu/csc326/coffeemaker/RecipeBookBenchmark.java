@@ -0,0 +1,119 @@
+/*
+ * Copyright (c) 2009,  Sarah Heckman, Laurie Williams, Dright Ho
+ * All Rights Reserved.
+ *
+ * Permission has been explicitly granted to the University of Minnesota
+ * Software Engineering Center to use and distribute this source for
+ * educational purposes, including delivering online education through
+ * Coursera or other entities.
+ *
+ * No warranty is given regarding this software, including warranties as
+ * to the correctness or completeness of this software, including
+ * fitness for purpose.
+ */
+package edu.ncsu.csc326.coffeemaker;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Cost of adding, editing, deleting and reading recipes in the
+ * fixed RecipeBook and the IndexedRecipeBook.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RecipeBookBenchmark {
+
+	/**
+	 * Recipes used to fill a new book of either kind.
+	 */
+	@State(Scope.Thread)
+	public static class NewBook {
+		@Param({"fixed", "indexed"})
+		public String kind;
+
+		Recipe[] recipes;
+		Recipe edited;
+		RecipeBook filled;
+
+		@Setup
+		public void setUp() {
+			recipes = new Recipe[] {
+					BenchmarkRecipes.recipe("Coffee", 50, 3, 1, 1, 0),
+					BenchmarkRecipes.recipe("Mocha", 75, 3, 1, 1, 2),
+					BenchmarkRecipes.recipe("Latte", 100, 3, 3, 1, 0)};
+			edited = BenchmarkRecipes.recipe("", 60, 3, 1, 1, 0);
+			filled = newBook();
+			for (Recipe r : recipes) {
+				filled.addRecipe(r);
+			}
+		}
+
+		RecipeBook newBook() {
+			return "indexed".equals(kind) ? new IndexedRecipeBook() : new RecipeBook();
+		}
+	}
+
+	/**
+	 * An indexed recipe book already holding a large menu.
+	 */
+	@State(Scope.Thread)
+	public static class LargeMenu {
+		@Param({"10", "100", "1000"})
+		public int menuSize;
+
+		IndexedRecipeBook book;
+		Recipe seasonal;
+
+		@Setup
+		public void setUp() {
+			book = new IndexedRecipeBook();
+			for (int i = 0; i < menuSize; i++) {
+				book.addRecipe(BenchmarkRecipes.recipe("Drink " + i, 50, 1, 1, 1, 1));
+			}
+			seasonal = BenchmarkRecipes.recipe("Seasonal", 80, 2, 2, 1, 1);
+		}
+	}
+
+	/**
+	 * Adds three recipes to a new book, edits one and deletes one.
+	 */
+	@Benchmark
+	public long crudCycle(NewBook state) {
+		RecipeBook book = state.newBook();
+		for (Recipe r : state.recipes) {
+			book.addRecipe(r);
+		}
+		book.editRecipe(1, state.edited);
+		book.deleteRecipe(2);
+		return book.getVersion();
+	}
+
+	@Benchmark
+	public Recipe[] getRecipes(NewBook state) {
+		return state.filled.getRecipes();
+	}
+
+	/**
+	 * Adds a recipe to a large menu, finds it by name and deletes it.
+	 */
+	@Benchmark
+	public String addLookupDelete(LargeMenu state) {
+		state.book.addRecipe(state.seasonal);
+		return state.book.deleteRecipe(state.book.indexOf("Seasonal"));
+	}
+}
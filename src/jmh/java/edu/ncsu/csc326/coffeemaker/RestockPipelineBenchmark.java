@@ -0,0 +1,104 @@
+/*
+ * Copyright (c) 2009,  Sarah Heckman, Laurie Williams, Dright Ho
+ * All Rights Reserved.
+ *
+ * Permission has been explicitly granted to the University of Minnesota
+ * Software Engineering Center to use and distribute this source for
+ * educational purposes, including delivering online education through
+ * Coursera or other entities.
+ *
+ * No warranty is given regarding this software, including warranties as
+ * to the correctness or completeness of this software, including
+ * fitness for purpose.
+ */
+package edu.ncsu.csc326.coffeemaker;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import edu.ncsu.csc326.coffeemaker.exceptions.InventoryException;
+
+/**
+ * Purchase latency while bursts of restocks arrive, with the restocks
+ * added directly through CoffeeMaker.addInventory or submitted to a
+ * RestockPipeline.  Three threads purchase while one submits bursts of
+ * BURST_SIZE string restocks; sample time mode reports the p99 of
+ * purchase next to the cost of each burst.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RestockPipelineBenchmark {
+
+	/** Restocks in each burst */
+	private static final int BURST_SIZE = 32;
+
+	@Param({"direct", "pipeline"})
+	public String restocks;
+
+	@Param({"locked", "lockfree"})
+	public String engine;
+
+	private Inventory inventory;
+	private CoffeeMaker coffeeMaker;
+	private RestockPipeline pipeline;
+
+	@Setup
+	public void setUp() {
+		inventory = BenchmarkRecipes.inventory(engine);
+		coffeeMaker = new CoffeeMaker(inventory);
+		coffeeMaker.addRecipe(BenchmarkRecipes.recipe("Coffee", 50, 1, 1, 0, 1));
+		if ("pipeline".equals(restocks)) {
+			pipeline = new RestockPipeline();
+		}
+	}
+
+	@TearDown
+	public void tearDown() {
+		if (pipeline != null) {
+			pipeline.close();
+		}
+	}
+
+	@Benchmark
+	@Group("burst")
+	@GroupThreads(3)
+	public int purchase() {
+		return coffeeMaker.makeCoffee(0, 60);
+	}
+
+	@Benchmark
+	@Group("burst")
+	@GroupThreads(1)
+	public void restockBurst() throws InventoryException {
+		if (inventory.getCoffee() > LockFreeInventory.MAX_UNITS / 2 || inventory.getMilk() > LockFreeInventory.MAX_UNITS / 2) {
+			inventory.setCoffee(15);
+			inventory.setMilk(15);
+			inventory.setChocolate(15);
+		}
+		for (int i = 0; i < BURST_SIZE; i++) {
+			if (pipeline == null) {
+				coffeeMaker.addInventory("2", "1", "0", "1");
+			} else {
+				pipeline.submit(coffeeMaker, "2", "1", "0", "1");
+			}
+		}
+	}
+}
@@ -0,0 +1,77 @@
+/*
+ * Copyright (c) 2009,  Sarah Heckman, Laurie Williams, Dright Ho
+ * All Rights Reserved.
+ *
+ * Permission has been explicitly granted to the University of Minnesota
+ * Software Engineering Center to use and distribute this source for
+ * educational purposes, including delivering online education through
+ * Coursera or other entities.
+ *
+ * No warranty is given regarding this software, including warranties as
+ * to the correctness or completeness of this software, including
+ * fitness for purpose.
+ */
+package edu.ncsu.csc326.coffeemaker;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Cost of recording a sale in a SalesLedger, on one thread and on
+ * every available thread, and of reading the current minute while
+ * sales are recorded.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SalesLedgerBenchmark {
+
+	/** Recipes sold */
+	private static final int RECIPES = 32;
+
+	private SalesLedger ledger;
+	private Recipe [] recipes;
+
+	@Setup
+	public void setUp() {
+		ledger = new SalesLedger();
+		recipes = new Recipe[RECIPES];
+		for (int i = 0; i < RECIPES; i++) {
+			recipes[i] = BenchmarkRecipes.recipe("Recipe " + i, 50 + i, 1, 1, 1, 0);
+			ledger.coffeeMade(recipes[i]);
+		}
+	}
+
+	@Benchmark
+	@Threads(1)
+	public void recordUncontended() {
+		ledger.coffeeMade(recipes[ThreadLocalRandom.current().nextInt(RECIPES)]);
+	}
+
+	@Benchmark
+	@Threads(Threads.MAX)
+	public void recordContended() {
+		ledger.coffeeMade(recipes[ThreadLocalRandom.current().nextInt(RECIPES)]);
+	}
+
+	@Benchmark
+	@Threads(1)
+	public SalesWindow currentMinute() {
+		return ledger.getWindow(SalesLedger.MINUTE, 0);
+	}
+}
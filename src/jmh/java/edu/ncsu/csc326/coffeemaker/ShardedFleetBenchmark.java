@@ -0,0 +1,104 @@
+/*
+ * Copyright (c) 2009,  Sarah Heckman, Laurie Williams, Dright Ho
+ * All Rights Reserved.
+ *
+ * Permission has been explicitly granted to the University of Minnesota
+ * Software Engineering Center to use and distribute this source for
+ * educational purposes, including delivering online education through
+ * Coursera or other entities.
+ *
+ * No warranty is given regarding this software, including warranties as
+ * to the correctness or completeness of this software, including
+ * fitness for purpose.
+ */
+package edu.ncsu.csc326.coffeemaker;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Purchase throughput of a ShardedFleet as the number of shards
+ * grows, with every available thread keeping PIPELINE purchases on
+ * random machines in flight.  Throughput should grow close to
+ * linearly up to one shard per core; beyond that the shards only
+ * share the cores.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(Threads.MAX)
+public class ShardedFleetBenchmark {
+
+	/** Purchases queued before waiting for any of them */
+	private static final int PIPELINE = 16;
+
+	@Param({"1", "2", "4", "8", "16"})
+	public int shards;
+
+	@Param({"4096"})
+	public int machines;
+
+	private ShardedFleet fleet;
+	private String [] machineIds;
+
+	@Setup
+	public void setUp() {
+		fleet = new ShardedFleet(shards, () -> new CoffeeMaker(new LockFreeInventory()), 4096, true);
+		Recipe coffee = BenchmarkRecipes.recipe("Coffee", 50, 1, 1, 1, 1);
+		machineIds = new String[machines];
+		for (int i = 0; i < machines; i++) {
+			machineIds[i] = "machine-" + i;
+			fleet.addMachine(machineIds[i]);
+			fleet.addRecipe(machineIds[i], coffee);
+		}
+		fleet.getTotals().join();
+	}
+
+	@TearDown
+	public void tearDown() {
+		fleet.close();
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(PIPELINE)
+	public int purchase() {
+		ThreadLocalRandom random = ThreadLocalRandom.current();
+		String [] ids = new String[PIPELINE];
+		@SuppressWarnings("unchecked")
+		CompletableFuture<Integer> [] purchases = new CompletableFuture[PIPELINE];
+		for (int i = 0; i < PIPELINE; i++) {
+			ids[i] = machineIds[random.nextInt(machineIds.length)];
+			purchases[i] = fleet.makeCoffee(ids[i], 0, 60);
+		}
+		int change = 0;
+		for (int i = 0; i < PIPELINE; i++) {
+			change = purchases[i].join();
+			if (change == 60) {
+				fleet.execute(ids[i], coffeeMaker -> {
+					BenchmarkRecipes.refill(coffeeMaker.getInventory());
+					return null;
+				});
+			}
+		}
+		return change;
+	}
+}
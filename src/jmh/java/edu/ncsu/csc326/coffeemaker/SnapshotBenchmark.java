@@ -0,0 +1,83 @@
+/*
+ * Copyright (c) 2009,  Sarah Heckman, Laurie Williams, Dright Ho
+ * All Rights Reserved.
+ *
+ * Permission has been explicitly granted to the University of Minnesota
+ * Software Engineering Center to use and distribute this source for
+ * educational purposes, including delivering online education through
+ * Coursera or other entities.
+ *
+ * No warranty is given regarding this software, including warranties as
+ * to the correctness or completeness of this software, including
+ * fitness for purpose.
+ */
+package edu.ncsu.csc326.coffeemaker;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Time to save and to load a SnapshotFile of a fleet where every
+ * machine has a full recipe book.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgs = {"-Xmx2g"})
+public class SnapshotBenchmark {
+
+	@Param({"100000"})
+	public int machines;
+
+	private CoffeeMakerFleet fleet;
+	private Path file;
+
+	@Setup
+	public void setUp() throws IOException {
+		fleet = new CoffeeMakerFleet();
+		for (int i = 0; i < machines; i++) {
+			CoffeeMaker coffeeMaker = fleet.addMachine("machine-" + i);
+			coffeeMaker.addRecipe(BenchmarkRecipes.recipe("Coffee", 50, 3, 1, 1, 0));
+			coffeeMaker.addRecipe(BenchmarkRecipes.recipe("Latte", 100, 1, 3, 1, 0));
+			coffeeMaker.addRecipe(BenchmarkRecipes.recipe("Mocha", 75, 2, 1, 1, 2));
+			coffeeMaker.addRecipe(BenchmarkRecipes.recipe("Hot Chocolate", 60, 0, 2, 1, 3));
+		}
+		file = Files.createTempFile("coffeemaker", ".snapshot");
+		SnapshotFile.write(fleet, 0, file);
+	}
+
+	@TearDown
+	public void tearDown() throws IOException {
+		Files.deleteIfExists(file);
+	}
+
+	@Benchmark
+	public Path save() throws IOException {
+		SnapshotFile.write(fleet, 0, file);
+		return file;
+	}
+
+	@Benchmark
+	public CoffeeMakerFleet load() throws IOException {
+		CoffeeMakerFleet loaded = new CoffeeMakerFleet();
+		SnapshotFile.read(file, loaded);
+		return loaded;
+	}
+}
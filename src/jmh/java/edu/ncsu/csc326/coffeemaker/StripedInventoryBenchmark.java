@@ -0,0 +1,93 @@
+/*
+ * Copyright (c) 2009,  Sarah Heckman, Laurie Williams, Dright Ho
+ * All Rights Reserved.
+ *
+ * Permission has been explicitly granted to the University of Minnesota
+ * Software Engineering Center to use and distribute this source for
+ * educational purposes, including delivering online education through
+ * Coursera or other entities.
+ *
+ * No warranty is given regarding this software, including warranties as
+ * to the correctness or completeness of this software, including
+ * fitness for purpose.
+ */
+package edu.ncsu.csc326.coffeemaker;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import edu.ncsu.csc326.coffeemaker.exceptions.InventoryException;
+
+/**
+ * Scalability of a mixed workload where purchases of a recipe needing
+ * only coffee and chocolate run next to restocks of milk and sugar.
+ * Every group has three purchasing threads and one restocking thread;
+ * -Pjmh.threads=n runs n / 4 groups against the same inventory, so
+ * runs with 4, 8, 16 and 32 threads, plus purchaseAlone for one
+ * thread, give the scaling curve of each engine.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StripedInventoryBenchmark {
+
+	@Param({"locked", "lockfree", "striped"})
+	public String engine;
+
+	private Inventory inventory;
+	private CoffeeMaker coffeeMaker;
+
+	@Setup
+	public void setUp() {
+		inventory = BenchmarkRecipes.inventory(engine);
+		coffeeMaker = new CoffeeMaker(inventory);
+		coffeeMaker.addRecipe(BenchmarkRecipes.recipe("Mocha", 50, 1, 0, 0, 1));
+		BenchmarkRecipes.refill(inventory);
+	}
+
+	@Benchmark
+	@Threads(1)
+	public int purchaseAlone() {
+		return purchase();
+	}
+
+	@Benchmark
+	@Group("mixed")
+	@GroupThreads(3)
+	public int purchase() {
+		int change = coffeeMaker.makeCoffee(0, 60);
+		if (change == 60) {
+			inventory.setCoffee(LockFreeInventory.MAX_UNITS);
+			inventory.setChocolate(LockFreeInventory.MAX_UNITS);
+		}
+		return change;
+	}
+
+	@Benchmark
+	@Group("mixed")
+	@GroupThreads(1)
+	public void restock() throws InventoryException {
+		if (inventory.getMilk() > LockFreeInventory.MAX_UNITS / 2) {
+			inventory.setMilk(15);
+			inventory.setSugar(15);
+		}
+		coffeeMaker.addInventory(0, 1, 1, 0);
+	}
+}
@@ -0,0 +1,126 @@
+/*
+ * Copyright (c) 2009,  Sarah Heckman, Laurie Williams, Dright Ho
+ * All Rights Reserved.
+ *
+ * Permission has been explicitly granted to the University of Minnesota
+ * Software Engineering Center to use and distribute this source for
+ * educational purposes, including delivering online education through
+ * Coursera or other entities.
+ *
+ * No warranty is given regarding this software, including warranties as
+ * to the correctness or completeness of this software, including
+ * fitness for purpose.
+ */
+package edu.ncsu.csc326.coffeemaker;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Non-blocking front end for a CoffeeMaker.  Every operation is queued
+ * to a single event loop thread and returns a future instead of
+ * waiting, so callers are never held up by other purchases.  Because
+ * only the loop thread touches the coffee maker, its inventory and
+ * recipe book locks are never contended.
+ *
+ * The queue is bounded.  When it is full an operation either fails at
+ * once with a RejectedExecutionException or waits for room, as chosen
+ * at construction.  Other threads must not change the wrapped coffee
+ * maker directly while it is in use here.
+ */
+public class AsyncCoffeeMaker implements AutoCloseable {
+
+	/** Queue capacity of the default constructor */
+	public static final int DEFAULT_CAPACITY = 1024;
+
+	private final CoffeeMaker coffeeMaker;
+	private final CommandLoop loop;
+
+	/**
+	 * Wraps a new CoffeeMaker, rejecting operations when
+	 * DEFAULT_CAPACITY operations are already queued.
+	 */
+	public AsyncCoffeeMaker() {
+		this(new CoffeeMaker(), DEFAULT_CAPACITY, false);
+	}
+
+	/**
+	 * Wraps the given coffee maker.
+	 * @param coffeeMaker
+	 * @param capacity largest number of queued operations
+	 * @param waitWhenFull true to wait for room when the queue is
+	 *        full, false to reject the operation
+	 */
+	public AsyncCoffeeMaker(CoffeeMaker coffeeMaker, int capacity, boolean waitWhenFull) {
+		this.coffeeMaker = coffeeMaker;
+		this.loop = new CommandLoop("coffee-maker-loop", capacity, waitWhenFull);
+	}
+
+	/**
+	 * Returns the wrapped coffee maker.
+	 * @return CoffeeMaker
+	 */
+	public CoffeeMaker getCoffeeMaker() {
+		return coffeeMaker;
+	}
+
+	/**
+	 * Returns a future of the user's change, completed once the
+	 * beverage has been made or refused.
+	 * @param recipeToPurchase
+	 * @param amtPaid
+	 * @return CompletableFuture
+	 */
+	public CompletableFuture<Integer> makeCoffeeAsync(int recipeToPurchase, int amtPaid) {
+		return loop.submit(() -> coffeeMaker.makeCoffee(recipeToPurchase, amtPaid));
+	}
+
+	/**
+	 * Returns a future completed once the inventory has been added,
+	 * or failed with an InventoryException if an amount is invalid.
+	 * @param amtCoffee
+	 * @param amtMilk
+	 * @param amtSugar
+	 * @param amtChocolate
+	 * @return CompletableFuture
+	 */
+	public CompletableFuture<Void> addInventoryAsync(String amtCoffee, String amtMilk, String amtSugar, String amtChocolate) {
+		return loop.submit(() -> {
+			coffeeMaker.addInventory(amtCoffee, amtMilk, amtSugar, amtChocolate);
+			return null;
+		});
+	}
+
+	/**
+	 * Returns a future completed once the inventory has been added,
+	 * or failed with an InventoryException if an amount is negative.
+	 * @param amtCoffee
+	 * @param amtMilk
+	 * @param amtSugar
+	 * @param amtChocolate
+	 * @return CompletableFuture
+	 */
+	public CompletableFuture<Void> addInventoryAsync(int amtCoffee, int amtMilk, int amtSugar, int amtChocolate) {
+		return loop.submit(() -> {
+			coffeeMaker.addInventory(amtCoffee, amtMilk, amtSugar, amtChocolate);
+			return null;
+		});
+	}
+
+	/**
+	 * Returns a future of the inventory report, taken after every
+	 * operation queued before it.
+	 * @return CompletableFuture
+	 */
+	public CompletableFuture<String> checkInventoryAsync() {
+		return loop.submit(coffeeMaker::checkInventory);
+	}
+
+	/**
+	 * Runs every operation already queued, then stops the
+	 * event loop.  Operations requested afterwards fail.
+	 */
+	@Override
+	public void close() {
+		loop.close();
+	}
+}
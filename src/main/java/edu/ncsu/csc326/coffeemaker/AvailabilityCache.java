@@ -0,0 +1,279 @@
+/*
+ * Copyright (c) 2009,  Sarah Heckman, Laurie Williams, Dright Ho
+ * All Rights Reserved.
+ *
+ * Permission has been explicitly granted to the University of Minnesota
+ * Software Engineering Center to use and distribute this source for
+ * educational purposes, including delivering online education through
+ * Coursera or other entities.
+ *
+ * No warranty is given regarding this software, including warranties as
+ * to the correctness or completeness of this software, including
+ * fitness for purpose.
+ */
+package edu.ncsu.csc326.coffeemaker;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * Makeable recipes of a coffee maker kept up to date incrementally,
+ * so asking whether a recipe can be made is O(1) while nothing has
+ * changed.  Each read compares the inventory levels and the recipe
+ * snapshot with the ones the cache was worked out for and applies
+ * only the difference, so purchases, restocks, setters and journal
+ * replay are all seen without hooks into the inventory.
+ *
+ * For each ingredient the recipes are kept sorted by the amount they
+ * need.  When a level moves from old to new, only the recipes needing
+ * between the two amounts change whether that ingredient is enough,
+ * and only they are looked at.  When the recipe book changes, only
+ * the slots holding a different Recipe object are looked at, so like
+ * availableRecipes the cache does not see a recipe changed through
+ * its setters after it was added.  The few recipes that also need
+ * ingredients after chocolate have those checked on every read.
+ */
+public class AvailabilityCache {
+
+	private final CoffeeMaker coffeeMaker;
+	/** Levels the cache was worked out for, by Inventory.COFFEE etc. */
+	private final int [] levels = new int[4];
+	/** Levels read by the latest refresh */
+	private final int [] latest = new int[4];
+	/** Recipes the cache was worked out for */
+	private RecipeSnapshot recipes;
+	/** Amounts of each slot by ingredient, from recipes */
+	private int [][] amounts;
+	/** Slots holding a recipe, as amount << 32 | slot, sorted per ingredient */
+	private long [][] byAmount;
+	/** Number of entries in each byAmount array */
+	private int entries;
+	/** Bit i of satisfied[k] is set if there is enough of ingredient k for slot i */
+	private long [][] satisfied;
+	/** Bit i is set if slot i needs no ingredient after chocolate or there is enough of them */
+	private long [] extrasEnough;
+	/** Slots whose recipes need ingredients after chocolate */
+	private int [] extraSlots;
+	/** Bit i is set if slot i can be made */
+	private long [] available;
+	/** Number of bits set in available */
+	private int availableCount;
+
+	/**
+	 * Creates a cache of the recipes the given coffee
+	 * maker can make.
+	 * @param coffeeMaker
+	 */
+	public AvailabilityCache(CoffeeMaker coffeeMaker) {
+		this.coffeeMaker = coffeeMaker;
+		this.recipes = new RecipeSnapshot(new Recipe[0], -1);
+		this.amounts = amounts(recipes);
+		this.byAmount = new long[4][8];
+		this.satisfied = new long[4][0];
+		this.extrasEnough = new long[0];
+		this.extraSlots = recipes.getAmounts().extraSlots;
+		this.available = new long[0];
+	}
+
+	/**
+	 * Returns true if the recipe in the given slot can be made.
+	 * @param index
+	 * @return boolean
+	 */
+	public synchronized boolean isAvailable(int index) {
+		refresh();
+		return index >= 0 && index < recipes.size() && get(available, index);
+	}
+
+	/**
+	 * Returns the number of recipes that can be made.
+	 * @return int
+	 */
+	public synchronized int getAvailableCount() {
+		refresh();
+		return availableCount;
+	}
+
+	/**
+	 * Returns the slots of the recipes that can be made as a new
+	 * BitSet.
+	 * @return BitSet
+	 */
+	public synchronized BitSet getAvailable() {
+		refresh();
+		return BitSet.valueOf(available);
+	}
+
+	/**
+	 * Brings the cache up to date with the recipes and inventory
+	 * levels of the coffee maker.
+	 */
+	private void refresh() {
+		RecipeSnapshot current = coffeeMaker.getRecipeSnapshot();
+		if (current != recipes) {
+			updateRecipes(current);
+		}
+		coffeeMaker.getInventoryLevels(latest);
+		for (int k = 0; k < levels.length; k++) {
+			if (latest[k] != levels[k]) {
+				updateLevel(k, latest[k]);
+			}
+		}
+		for (int slot : extraSlots) {
+			boolean enough = hasExtras(recipes.getRecipe(slot));
+			if (enough != get(extrasEnough, slot)) {
+				set(extrasEnough, slot, enough);
+				updateAvailable(slot);
+			}
+		}
+	}
+
+	/**
+	 * Replaces the entries of every slot whose recipe changed and
+	 * works out whether the new recipe can be made.
+	 */
+	private void updateRecipes(RecipeSnapshot current) {
+		int size = current.size();
+		if (size > satisfied[0].length * 64) {
+			int words = (size + 63) >>> 6;
+			for (int k = 0; k < satisfied.length; k++) {
+				satisfied[k] = Arrays.copyOf(satisfied[k], words);
+			}
+			extrasEnough = Arrays.copyOf(extrasEnough, words);
+			available = Arrays.copyOf(available, words);
+		}
+		int [][] currentAmounts = amounts(current);
+		for (int slot = 0; slot < Math.max(size, recipes.size()); slot++) {
+			Recipe before = slot < recipes.size() ? recipes.getRecipe(slot) : null;
+			Recipe after = slot < size ? current.getRecipe(slot) : null;
+			if (before == after) {
+				continue;
+			}
+			if (before != null) {
+				for (int k = 0; k < byAmount.length; k++) {
+					remove(k, amounts[k][slot], slot);
+				}
+				entries--;
+			}
+			if (after != null) {
+				if (entries == byAmount[0].length) {
+					for (int k = 0; k < byAmount.length; k++) {
+						byAmount[k] = Arrays.copyOf(byAmount[k], entries * 2);
+					}
+				}
+				for (int k = 0; k < byAmount.length; k++) {
+					insert(k, currentAmounts[k][slot], slot);
+				}
+				entries++;
+			}
+			for (int k = 0; k < satisfied.length; k++) {
+				set(satisfied[k], slot, after != null && levels[k] >= currentAmounts[k][slot]);
+			}
+			set(extrasEnough, slot, after != null && hasExtras(after));
+			updateAvailable(slot);
+		}
+		recipes = current;
+		amounts = currentAmounts;
+		extraSlots = current.getAmounts().extraSlots;
+	}
+
+	/**
+	 * Changes the level of ingredient k, looking only at the slots
+	 * needing more than the lower and at most the higher level.
+	 */
+	private void updateLevel(int k, int level) {
+		int from = Math.min(levels[k], level);
+		int to = Math.max(levels[k], level);
+		boolean enough = level > levels[k];
+		levels[k] = level;
+		long [] sorted = byAmount[k];
+		for (int i = countAtMost(sorted, from), end = countAtMost(sorted, to); i < end; i++) {
+			int slot = (int) sorted[i];
+			set(satisfied[k], slot, enough);
+			updateAvailable(slot);
+		}
+	}
+
+	/**
+	 * Works out whether the slot can be made from the ingredients
+	 * found enough for it.
+	 */
+	private void updateAvailable(int slot) {
+		boolean wasAvailable = get(available, slot);
+		boolean isAvailable = get(satisfied[Inventory.COFFEE], slot) && get(satisfied[Inventory.MILK], slot)
+				&& get(satisfied[Inventory.SUGAR], slot) && get(satisfied[Inventory.CHOCOLATE], slot)
+				&& get(extrasEnough, slot);
+		if (isAvailable != wasAvailable) {
+			set(available, slot, isAvailable);
+			availableCount += isAvailable ? 1 : -1;
+		}
+	}
+
+	/**
+	 * Returns true if the inventory holds enough of every
+	 * ingredient after chocolate the recipe needs.
+	 */
+	private boolean hasExtras(Recipe r) {
+		int [] needed = r.amounts();
+		Inventory inventory = coffeeMaker.getInventory();
+		for (int id = Inventory.CHOCOLATE + 1; id < needed.length; id++) {
+			if (needed[id] > 0 && inventory.getLevel(id) < needed[id]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Returns the number of entries needing at most the given amount.
+	 */
+	private int countAtMost(long [] sorted, int amount) {
+		int low = 0;
+		int high = entries;
+		while (low < high) {
+			int mid = (low + high) >>> 1;
+			if ((int) (sorted[mid] >>> 32) <= amount) {
+				low = mid + 1;
+			} else {
+				high = mid;
+			}
+		}
+		return low;
+	}
+
+	private void insert(int k, int amount, int slot) {
+		long [] sorted = byAmount[k];
+		long entry = entry(amount, slot);
+		int i = Arrays.binarySearch(sorted, 0, entries, entry);
+		i = -(i + 1);
+		System.arraycopy(sorted, i, sorted, i + 1, entries - i);
+		sorted[i] = entry;
+	}
+
+	private void remove(int k, int amount, int slot) {
+		long [] sorted = byAmount[k];
+		int i = Arrays.binarySearch(sorted, 0, entries, entry(amount, slot));
+		System.arraycopy(sorted, i + 1, sorted, i, entries - i - 1);
+	}
+
+	private static long entry(int amount, int slot) {
+		return ((long) amount << 32) | slot;
+	}
+
+	private static int [][] amounts(RecipeSnapshot recipes) {
+		RecipeAmounts amounts = recipes.getAmounts();
+		return new int [][] { amounts.coffee, amounts.milk, amounts.sugar, amounts.chocolate };
+	}
+
+	private static boolean get(long [] bits, int index) {
+		return (bits[index >>> 6] & (1L << index)) != 0;
+	}
+
+	private static void set(long [] bits, int index, boolean value) {
+		if (value) {
+			bits[index >>> 6] |= 1L << index;
+		} else {
+			bits[index >>> 6] &= ~(1L << index);
+		}
+	}
+}
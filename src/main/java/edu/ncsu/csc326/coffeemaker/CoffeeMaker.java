@@ -13,24 +13,67 @@
  */
 package edu.ncsu.csc326.coffeemaker;
 
+import java.io.IOException;
+import java.util.Objects;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
 import edu.ncsu.csc326.coffeemaker.exceptions.InventoryException;
 
 /**
  * @author Sarah Heckman
  */
 public class CoffeeMaker {
+	/** Purchase outcome: the beverage was made */
+	public static final int PURCHASED = 0;
+	/** Purchase outcome: there is no recipe at the selected index */
+	public static final int NO_RECIPE = 1;
+	/** Purchase outcome: the amount paid is less than the price */
+	public static final int INSUFFICIENT_FUNDS = 2;
+	/** Purchase outcome: there are not enough ingredients */
+	public static final int INSUFFICIENT_INGREDIENTS = 3;
+	
+	/** Listener used when none is set */
+	private static final CoffeeMakerListener NO_LISTENER = new CoffeeMakerListener() { };
+	
 	/** Array of recipes in coffee maker */
-	private static RecipeBook recipeBook;
+	private final RecipeBook recipeBook;
 	/** Inventory of the coffee maker */
-    private static Inventory inventory;
+    private final Inventory inventory;
+    /** Told about every change to the coffee maker */
+    private volatile CoffeeMakerListener listener = NO_LISTENER;
+    /** Purchase metrics, or null if they are not recorded */
+    private volatile CoffeeMakerMetrics metrics;
+    /** Lock every change holds for reading once changes can be paused, or null */
+    private volatile ReadWriteLock changeLock;
 	
     /**
      * Constructor for the coffee maker
      *
      */
 	public CoffeeMaker() {
-	    recipeBook = new RecipeBook();
-		inventory = new Inventory();
+	    this(new Inventory());
+	}
+	
+	/**
+	 * Constructor for a coffee maker that keeps its ingredients
+	 * in the given inventory, e.g. a {@link LockFreeInventory}.
+	 * @param inventory
+	 */
+	public CoffeeMaker(Inventory inventory) {
+	    this(new RecipeBook(), inventory);
+	}
+	
+	/**
+	 * Constructor for a coffee maker with the given recipe book,
+	 * e.g. an {@link IndexedRecipeBook}, and inventory.
+	 * @param recipeBook
+	 * @param inventory
+	 */
+	public CoffeeMaker(RecipeBook recipeBook, Inventory inventory) {
+	    this.recipeBook = recipeBook;
+	    this.inventory = inventory;
 	}
 	
 	/**
@@ -41,7 +84,18 @@ public class CoffeeMaker {
 	 * @return boolean
 	 */
 	public boolean addRecipe(Recipe r) {
-		return recipeBook.addRecipe(r);
+		Lock change = beginChange();
+		try {
+			synchronized (recipeBook) {
+				boolean added = recipeBook.addRecipe(r);
+				if (added) {
+					listener.recipeAdded(r);
+				}
+				return added;
+			}
+		} finally {
+			endChange(change);
+		}
 	}
 	
 	/**
@@ -52,7 +106,18 @@ public class CoffeeMaker {
 	 * @return String
 	 */
 	public String deleteRecipe(int recipeToDelete) {
-		return recipeBook.deleteRecipe(recipeToDelete);
+		Lock change = beginChange();
+		try {
+			synchronized (recipeBook) {
+				String recipeName = recipeBook.deleteRecipe(recipeToDelete);
+				if (recipeName != null) {
+					listener.recipeDeleted(recipeToDelete);
+				}
+				return recipeName;
+			}
+		} finally {
+			endChange(change);
+		}
 	}
 	
 	/**
@@ -63,47 +128,202 @@ public class CoffeeMaker {
 	 * @return String
 	 */
 	public String editRecipe(int recipeToEdit, Recipe r) {
-		return recipeBook.editRecipe(recipeToEdit, r);
+		Lock change = beginChange();
+		try {
+			synchronized (recipeBook) {
+				String recipeName = recipeBook.editRecipe(recipeToEdit, r);
+				if (recipeName != null) {
+					listener.recipeEdited(recipeToEdit, r);
+				}
+				return recipeName;
+			}
+		} finally {
+			endChange(change);
+		}
 	}
     
     /**
-     * Returns true if inventory was successfully added
+     * Adds inventory to the coffee maker.  All four amounts are
+     * checked before any is added, so an invalid amount adds nothing.
      * @param amtCoffee
      * @param amtMilk
      * @param amtSugar
      * @param amtChocolate
-     * @return boolean
+     * @throws InventoryException
      */
-    public synchronized void addInventory(String amtCoffee, String amtMilk, String amtSugar, String amtChocolate) throws InventoryException {
-	    inventory.addCoffee(amtCoffee);
-	    inventory.addMilk(amtMilk);
-	    inventory.addSugar(amtSugar);
-	    inventory.addChocolate(amtChocolate);
+    public void addInventory(String amtCoffee, String amtMilk, String amtSugar, String amtChocolate) throws InventoryException {
+	    addIngredients(Inventory.parseCoffee(amtCoffee), Inventory.parseMilk(amtMilk),
+	    		Inventory.parseSugar(amtSugar), Inventory.parseChocolate(amtChocolate));
+    }
+    
+    /**
+     * Adds inventory to the coffee maker in one step without
+     * parsing or allocating.  A LockFreeInventory holds at most
+     * LockFreeInventory.MAX_UNITS units of each ingredient, so there
+     * a restock past it adds nothing and throws.
+     * @param amtCoffee
+     * @param amtMilk
+     * @param amtSugar
+     * @param amtChocolate
+     * @throws InventoryException if an amount is negative or a total
+     *         would exceed the capacity of the inventory
+     */
+    public void addInventory(int amtCoffee, int amtMilk, int amtSugar, int amtChocolate) throws InventoryException {
+	    Inventory.checkRestock(amtCoffee, amtMilk, amtSugar, amtChocolate);
+	    addIngredients(amtCoffee, amtMilk, amtSugar, amtChocolate);
+    }
+    
+    /**
+     * Adds units of the ingredient with the given IngredientRegistry
+     * id, telling the listener like the other restocks, so ingredients
+     * registered after chocolate are journaled too.
+     * @param ingredient
+     * @param units
+     * @throws InventoryException if the units are negative or the
+     *         total would exceed the capacity of the inventory
+     * @throws IllegalArgumentException if no ingredient has the id
+     */
+    public void addInventory(int ingredient, int units) throws InventoryException {
+	    String name = IngredientRegistry.getName(ingredient);
+	    switch (ingredient) {
+	    case Inventory.COFFEE:
+	    	addInventory(units, 0, 0, 0);
+	    	break;
+	    case Inventory.MILK:
+	    	addInventory(0, units, 0, 0);
+	    	break;
+	    case Inventory.SUGAR:
+	    	addInventory(0, 0, units, 0);
+	    	break;
+	    case Inventory.CHOCOLATE:
+	    	addInventory(0, 0, 0, units);
+	    	break;
+	    default:
+	    	if (units < 0) {
+	    		throw new InventoryException("Units of " + name + " must be a positive integer");
+	    	}
+	    	Lock change = beginChange();
+	    	try {
+	    		listener.ingredientAdding(ingredient, units);
+	    		inventory.addIngredient(ingredient, units);
+	    	} finally {
+	    		endChange(change);
+	    	}
+	    }
+    }
+    
+    /**
+     * Tells the listener about validated units before adding them,
+     * so a journal never misses units a purchase may have used.
+     */
+    private void addIngredients(int amtCoffee, int amtMilk, int amtSugar, int amtChocolate) throws InventoryException {
+	    Lock change = beginChange();
+	    try {
+	    	listener.inventoryAdding(amtCoffee, amtMilk, amtSugar, amtChocolate);
+	    	inventory.addIngredients(amtCoffee, amtMilk, amtSugar, amtChocolate);
+	    } finally {
+	    	endChange(change);
+	    }
     }
     
     /**
      * Returns the inventory of the coffee maker
      * @return Inventory
      */
-    public synchronized String checkInventory() {
+    public String checkInventory() {
         return inventory.toString();
     }
     
+    /**
+     * Appends the inventory of the coffee maker to the given
+     * output without creating any objects.
+     * @param out
+     * @throws IOException
+     */
+    public void checkInventory(Appendable out) throws IOException {
+        inventory.appendTo(out);
+    }
+    
+    /**
+     * Copies the units of coffee, milk, sugar and chocolate, read
+     * at the same moment, into levels at the indexes
+     * Inventory.COFFEE, MILK, SUGAR and CHOCOLATE.
+     * @param levels
+     */
+    public void getInventoryLevels(int[] levels) {
+        inventory.getLevels(levels);
+    }
+    
+    /**
+     * Returns the units of coffee, milk, sugar and chocolate,
+     * all read at the same moment, without blocking purchases.
+     * @return InventorySnapshot
+     */
+    public InventorySnapshot getInventorySnapshot() {
+        return inventory.getSnapshot();
+    }
+    
+    /**
+     * Returns which recipes can be made now and how many servings
+     * of each, all checked against one snapshot of the inventory.
+     * Recipes must be changed through editRecipe, not their setters,
+     * for the change to be seen here.
+     * @return RecipeAvailability
+     */
+    public RecipeAvailability availableRecipes() {
+        return new RecipeAvailability(recipeBook.getSnapshot(), inventory.getSnapshot());
+    }
+    
     /**
      * Returns the change of a user's beverage purchase, or
-     * the user's money if the beverage cannot be made
+     * the user's money if the beverage cannot be made.  The
+     * inventory is responsible for removing the ingredients
+     * atomically, so no coffee maker lock is held here.  Frozen
+     * recipes are passed to it in their compact form.  An index
+     * with no recipe slot is refunded like an empty slot.
      * @param r
      * @param amtPaid
      * @return int
      */
-    public synchronized int makeCoffee(int recipeToPurchase, int amtPaid) {
+    public int makeCoffee(int recipeToPurchase, int amtPaid) {
+        return makeCoffee(recipeBook.getSnapshot(), recipeToPurchase, amtPaid);
+    }
+    
+    /**
+     * Returns the change of a purchase like makeCoffee, buying the
+     * recipe in the given slot of a snapshot taken earlier with
+     * getRecipeSnapshot.  The caller then knows which recipe was
+     * bought even if the slot is edited or deleted meanwhile.
+     * @param recipes
+     * @param recipeToPurchase
+     * @param amtPaid
+     * @return int
+     */
+    public int makeCoffee(RecipeSnapshot recipes, int recipeToPurchase, int amtPaid) {
+        Lock change = beginChange();
+        try {
+        	CoffeeMakerMetrics metrics = this.metrics;
+        	return metrics != null ? makeCoffee(recipes, recipeToPurchase, amtPaid, metrics)
+        			: makeCoffee(recipes, recipeToPurchase, amtPaid, getRecipe(recipes, recipeToPurchase));
+        } finally {
+        	endChange(change);
+        }
+    }
+    
+    /**
+     * Returns the change of a purchase of the given recipe from
+     * the snapshot like makeCoffee, without recording metrics.
+     */
+    private int makeCoffee(RecipeSnapshot recipes, int recipeToPurchase, int amtPaid, Recipe recipe) {
         int change = 0;
         
-        if (getRecipes()[recipeToPurchase] == null) {
+        if (recipe == null) {
         	change = amtPaid;
-        } else if (getRecipes()[recipeToPurchase].getPrice() <= amtPaid) {
-        	if (inventory.useIngredients(getRecipes()[recipeToPurchase])) {
-        		change = amtPaid - getRecipes()[recipeToPurchase].getPrice();
+        } else if (recipe.getPrice() <= amtPaid) {
+        	CompactRecipe compact = recipes.getCompactRecipe(recipeToPurchase);
+        	if (compact != null ? inventory.useIngredients(compact) : inventory.useIngredients(recipe)) {
+        		listener.coffeeMade(recipe);
+        		change = amtPaid - recipe.getPrice();
         	} else {
         		change = amtPaid;
         	}
@@ -113,12 +333,272 @@ public class CoffeeMaker {
         
         return change;
     }
+    
+    /**
+     * Returns the change of a purchase like makeCoffee, recording
+     * its outcome and latencies in the given metrics.
+     */
+    private int makeCoffee(RecipeSnapshot recipes, int recipeToPurchase, int amtPaid, CoffeeMakerMetrics metrics) {
+        boolean timed = metrics.sample();
+        long start = timed ? System.nanoTime() : 0;
+        int change = amtPaid;
+        int outcome;
+        Recipe recipe = getRecipe(recipes, recipeToPurchase);
+        
+        if (recipe == null) {
+        	outcome = NO_RECIPE;
+        } else if (recipe.getPrice() <= amtPaid) {
+        	CompactRecipe compact = recipes.getCompactRecipe(recipeToPurchase);
+        	long inventoryStart = timed ? System.nanoTime() : 0;
+        	boolean used = compact != null ? inventory.useIngredients(compact) : inventory.useIngredients(recipe);
+        	if (timed) {
+        		metrics.recordInventoryLatency(System.nanoTime() - inventoryStart);
+        	}
+        	if (used) {
+        		listener.coffeeMade(recipe);
+        		change = amtPaid - recipe.getPrice();
+        		outcome = PURCHASED;
+        	} else {
+        		outcome = INSUFFICIENT_INGREDIENTS;
+        	}
+        } else {
+        	outcome = INSUFFICIENT_FUNDS;
+        }
+        
+        metrics.recordOutcome(recipe, outcome);
+        if (timed) {
+        	metrics.recordPurchaseLatency(System.nanoTime() - start);
+        }
+        return change;
+    }
+
+    /**
+     * Returns the recipe in the given slot of the snapshot, or
+     * null if the slot is empty or there is no such slot.
+     */
+    private static Recipe getRecipe(RecipeSnapshot recipes, int index) {
+    	return index >= 0 && index < recipes.size() ? recipes.getRecipe(index) : null;
+    }
+
+    /**
+     * Makes a batch of orders, where order i buys recipe
+     * recipesToPurchase[i] paying amtsPaid[i].  The ingredients of
+     * the whole batch are removed in one atomic step of the inventory,
+     * with the same outcomes as calling makeCoffee for each order in
+     * turn: every order is looked up in one recipe snapshot, and
+     * shared recipes are removed through their compact form.  An index with no recipe slot is refunded like an empty slot.
+     * 
+     * Returns two ints per order: element 2i is the change of order i
+     * and element 2i+1 is its outcome, e.g. PURCHASED.
+     * @param recipesToPurchase
+     * @param amtsPaid
+     * @return int []
+     */
+    public int[] makeCoffeeBatch(int[] recipesToPurchase, int[] amtsPaid) {
+    	if (recipesToPurchase.length != amtsPaid.length) {
+    		throw new IllegalArgumentException("Each order needs one recipe and one payment");
+    	}
+    	Lock change = beginChange();
+    	try {
+    		return makeBatch(recipesToPurchase, amtsPaid);
+    	} finally {
+    		endChange(change);
+    	}
+    }
+    
+    private int[] makeBatch(int[] recipesToPurchase, int[] amtsPaid) {
+    	int orders = recipesToPurchase.length;
+    	RecipeSnapshot recipes = recipeBook.getSnapshot();
+    	Recipe [] toMake = new Recipe[orders];
+    	CompactRecipe [] compacts = new CompactRecipe[orders];
+    	int [] results = new int[orders * 2];
+    	for (int i = 0; i < orders; i++) {
+    		Recipe recipe = getRecipe(recipes, recipesToPurchase[i]);
+    		if (recipe == null) {
+    			results[2 * i + 1] = NO_RECIPE;
+    		} else if (recipe.getPrice() <= amtsPaid[i]) {
+    			toMake[i] = recipe;
+    			compacts[i] = recipes.getCompactRecipe(recipesToPurchase[i]);
+    		} else {
+    			results[2 * i + 1] = INSUFFICIENT_FUNDS;
+    		}
+    	}
+    	
+    	CoffeeMakerMetrics metrics = this.metrics;
+    	boolean timed = metrics != null && metrics.sample();
+    	long inventoryStart = timed ? System.nanoTime() : 0;
+    	boolean [] used = new boolean[orders];
+    	inventory.useIngredients(toMake, compacts, used);
+    	if (timed) {
+    		metrics.recordInventoryLatency(System.nanoTime() - inventoryStart);
+    	}
+    	
+    	CoffeeMakerListener listener = this.listener;
+    	for (int i = 0; i < orders; i++) {
+    		if (used[i]) {
+    			listener.coffeeMade(toMake[i]);
+    			results[2 * i] = amtsPaid[i] - toMake[i].getPrice();
+    			results[2 * i + 1] = PURCHASED;
+    		} else {
+    			results[2 * i] = amtsPaid[i];
+    			if (toMake[i] != null) {
+    				results[2 * i + 1] = INSUFFICIENT_INGREDIENTS;
+    			}
+    		}
+    	}
+    	if (metrics != null) {
+    		for (int i = 0; i < orders; i++) {
+    			metrics.recordOutcome(toMake[i], results[2 * i + 1]);
+    		}
+    	}
+    	return results;
+    }
 
 	/**
-	 * Returns the list of Recipes in the RecipeBook.
+	 * Returns the list of Recipes in the RecipeBook.  The
+	 * array is shared and must not be modified.
 	 * @return Recipe []
 	 */
-	public synchronized Recipe[] getRecipes() {
+	public Recipe[] getRecipes() {
 		return recipeBook.getRecipes();
 	}
+	
+	/**
+	 * Returns the latest snapshot of the recipes, whose version
+	 * changes whenever a recipe is added, deleted or edited.
+	 * @return RecipeSnapshot
+	 */
+	public RecipeSnapshot getRecipeSnapshot() {
+		return recipeBook.getSnapshot();
+	}
+	
+	/**
+	 * Sets the listener told about every recipe change, inventory
+	 * addition and beverage made, replacing every listener added
+	 * before, or removes them all if listener is null.
+	 * @param listener
+	 */
+	public synchronized void setListener(CoffeeMakerListener listener) {
+		this.listener = listener == null ? NO_LISTENER : listener;
+	}
+	
+	/**
+	 * Adds a listener told about every recipe change, inventory
+	 * addition and beverage made, after the listeners added before.
+	 * @param listener
+	 */
+	public synchronized void addListener(CoffeeMakerListener listener) {
+		this.listener = CoffeeMakerListeners.with(this.listener, Objects.requireNonNull(listener), NO_LISTENER);
+	}
+	
+	/**
+	 * Removes a listener added before, so it is no longer told
+	 * about changes.  Returns false if it was not a listener.
+	 * @param listener
+	 * @return boolean
+	 */
+	public synchronized boolean removeListener(CoffeeMakerListener listener) {
+		CoffeeMakerListener current = this.listener;
+		this.listener = CoffeeMakerListeners.without(current, listener, NO_LISTENER);
+		return this.listener != current;
+	}
+	
+	/**
+	 * Starts recording purchases in the given metrics, or
+	 * stops recording them if metrics is null.
+	 * @param metrics
+	 */
+	public void setMetrics(CoffeeMakerMetrics metrics) {
+		this.metrics = metrics;
+	}
+	
+	/**
+	 * Returns the metrics purchases are recorded in,
+	 * or null if they are not recorded.
+	 * @return CoffeeMakerMetrics
+	 */
+	public CoffeeMakerMetrics getMetrics() {
+		return metrics;
+	}
+	
+	/**
+	 * Returns the listener told about changes, which does
+	 * nothing if none was set.
+	 * @return CoffeeMakerListener
+	 */
+	CoffeeMakerListener getListener() {
+		return listener;
+	}
+	
+	/**
+	 * Returns the lock every change made through the coffee maker
+	 * holds for reading from now on, so holding its write lock waits
+	 * for the changes in progress and holds up new ones, e.g. while
+	 * a checkpoint is taken.  Changes take no lock until it was
+	 * asked for.
+	 * @return ReadWriteLock
+	 */
+	synchronized ReadWriteLock getChangeLock() {
+		if (changeLock == null) {
+			changeLock = new ReentrantReadWriteLock();
+		}
+		return changeLock;
+	}
+	
+	/**
+	 * Removes the ingredients of a beverage made from the recipe and
+	 * tells the listener, like a purchase of it, e.g. when replaying
+	 * a journal.  Returns false, changing nothing, if there are not
+	 * enough ingredients.
+	 * @param r
+	 * @return boolean
+	 */
+	boolean useIngredients(Recipe r) {
+		Lock change = beginChange();
+		try {
+			if (!inventory.useIngredients(r)) {
+				return false;
+			}
+			listener.coffeeMade(r);
+			return true;
+		} finally {
+			endChange(change);
+		}
+	}
+	
+	/**
+	 * Holds the change lock for reading, if changes can be paused,
+	 * and returns it, or returns null.
+	 */
+	private Lock beginChange() {
+		ReadWriteLock changeLock = this.changeLock;
+		if (changeLock == null) {
+			return null;
+		}
+		Lock change = changeLock.readLock();
+		change.lock();
+		return change;
+	}
+	
+	private static void endChange(Lock change) {
+		if (change != null) {
+			change.unlock();
+		}
+	}
+	
+	/**
+	 * Returns the inventory of the coffee maker.
+	 * @return Inventory
+	 */
+	Inventory getInventory() {
+		return inventory;
+	}
+	
+	/**
+	 * Returns the recipe book of the coffee maker.
+	 * @return RecipeBook
+	 */
+	RecipeBook getRecipeBook() {
+		return recipeBook;
+	}
 }
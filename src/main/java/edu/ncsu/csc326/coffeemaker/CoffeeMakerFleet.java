@@ -0,0 +1,151 @@
+/*
+ * Copyright (c) 2009,  Sarah Heckman, Laurie Williams, Dright Ho
+ * All Rights Reserved.
+ *
+ * Permission has been explicitly granted to the University of Minnesota
+ * Software Engineering Center to use and distribute this source for
+ * educational purposes, including delivering online education through
+ * Coursera or other entities.
+ *
+ * No warranty is given regarding this software, including warranties as
+ * to the correctness or completeness of this software, including
+ * fitness for purpose.
+ */
+package edu.ncsu.csc326.coffeemaker;
+
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+import edu.ncsu.csc326.coffeemaker.exceptions.InventoryException;
+
+/**
+ * Registry of independent coffee makers hosted in one process.
+ * Requests are routed to a machine by its id; the registry itself
+ * takes no global lock, so purchases on different machines only
+ * contend on their own coffee maker.
+ */
+public class CoffeeMakerFleet {
+
+	/** Coffee makers in the fleet by machine id */
+	private final ConcurrentHashMap<String, CoffeeMaker> machines;
+	/** Creates the coffee maker for a newly added machine */
+	private final Supplier<CoffeeMaker> factory;
+
+	/**
+	 * Creates an empty fleet of coffee makers using the
+	 * default inventory.
+	 */
+	public CoffeeMakerFleet() {
+		this(CoffeeMaker::new);
+	}
+
+	/**
+	 * Creates an empty fleet whose machines are built by the
+	 * given factory, e.g. to select a {@link LockFreeInventory}.
+	 * @param factory
+	 */
+	public CoffeeMakerFleet(Supplier<CoffeeMaker> factory) {
+		this.machines = new ConcurrentHashMap<String, CoffeeMaker>();
+		this.factory = factory;
+	}
+
+	/**
+	 * Returns the coffee maker with the given id, adding a new
+	 * one to the fleet if there is none yet.
+	 * @param machineId
+	 * @return CoffeeMaker
+	 */
+	public CoffeeMaker addMachine(String machineId) {
+		return machines.computeIfAbsent(machineId, id -> factory.get());
+	}
+
+	/**
+	 * Returns the coffee maker with the given id or null
+	 * if the fleet has no such machine.
+	 * @param machineId
+	 * @return CoffeeMaker
+	 */
+	public CoffeeMaker getMachine(String machineId) {
+		return machines.get(machineId);
+	}
+
+	/**
+	 * Returns the removed coffee maker with the given id or
+	 * null if the fleet has no such machine.
+	 * @param machineId
+	 * @return CoffeeMaker
+	 */
+	public CoffeeMaker removeMachine(String machineId) {
+		return machines.remove(machineId);
+	}
+
+	/**
+	 * Returns the ids of the machines in the fleet.
+	 * @return Set
+	 */
+	public Set<String> getMachineIds() {
+		return Collections.unmodifiableSet(machines.keySet());
+	}
+
+	/**
+	 * Returns the number of machines in the fleet.
+	 * @return int
+	 */
+	public int size() {
+		return machines.size();
+	}
+
+	/**
+	 * Returns true if the recipe is added to the given machine.
+	 * @param machineId
+	 * @param r
+	 * @return boolean
+	 */
+	public boolean addRecipe(String machineId, Recipe r) {
+		return machine(machineId).addRecipe(r);
+	}
+
+	/**
+	 * Adds inventory to the given machine.
+	 * @param machineId
+	 * @param amtCoffee
+	 * @param amtMilk
+	 * @param amtSugar
+	 * @param amtChocolate
+	 * @throws InventoryException
+	 */
+	public void addInventory(String machineId, String amtCoffee, String amtMilk, String amtSugar, String amtChocolate) throws InventoryException {
+		machine(machineId).addInventory(amtCoffee, amtMilk, amtSugar, amtChocolate);
+	}
+
+	/**
+	 * Returns the inventory of the given machine.
+	 * @param machineId
+	 * @return String
+	 */
+	public String checkInventory(String machineId) {
+		return machine(machineId).checkInventory();
+	}
+
+	/**
+	 * Returns the change of a purchase on the given machine, or
+	 * the user's money if the beverage cannot be made.
+	 * @param machineId
+	 * @param recipeToPurchase
+	 * @param amtPaid
+	 * @return int
+	 */
+	public int makeCoffee(String machineId, int recipeToPurchase, int amtPaid) {
+		return machine(machineId).makeCoffee(recipeToPurchase, amtPaid);
+	}
+
+	private CoffeeMaker machine(String machineId) {
+		CoffeeMaker coffeeMaker = machines.get(machineId);
+		if (coffeeMaker == null) {
+			throw new IllegalArgumentException("No coffee maker with id " + machineId);
+		}
+		return coffeeMaker;
+	}
+}
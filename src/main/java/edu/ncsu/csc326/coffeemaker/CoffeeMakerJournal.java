@@ -0,0 +1,605 @@
+/*
+ * Copyright (c) 2009,  Sarah Heckman, Laurie Williams, Dright Ho
+ * All Rights Reserved.
+ *
+ * Permission has been explicitly granted to the University of Minnesota
+ * Software Engineering Center to use and distribute this source for
+ * educational purposes, including delivering online education through
+ * Coursera or other entities.
+ *
+ * No warranty is given regarding this software, including warranties as
+ * to the correctness or completeness of this software, including
+ * fitness for purpose.
+ */
+package edu.ncsu.csc326.coffeemaker;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.locks.Lock;
+import java.util.zip.CRC32;
+
+import edu.ncsu.csc326.coffeemaker.exceptions.InventoryException;
+import edu.ncsu.csc326.coffeemaker.exceptions.RecipeException;
+
+/**
+ * Write-ahead journal of the changes made through a CoffeeMaker.  Every
+ * recipe added, deleted or edited, every inventory addition and every
+ * beverage made is appended to a file, so the state of the coffee maker
+ * can be rebuilt after a restart by replaying the file.
+ *
+ * Each record is written to the file as the change is reported, so it
+ * survives a crash of the JVM.  Forcing the records to disk is left to
+ * a flusher thread, so no change waits for an fsync: it forces every
+ * record written once commitInterval of them are pending or
+ * MAX_COMMIT_DELAY milliseconds after the first one, whichever comes
+ * first (group commit).  A crash of the machine may lose the records
+ * not yet forced; commit forces them out at once.
+ *
+ * A change is never failed by the journal, since it is only told about
+ * a change once it was made, e.g. after the ingredients of a beverage
+ * were removed.  If a record cannot be written or forced, the journal
+ * instead stops recording, so the file keeps only complete records of
+ * the changes up to then, and commit, checkpoint and close throw the
+ * IOException.
+ *
+ * Every record is replayed through the coffee maker, so listeners it
+ * already has are told about replayed changes like any other.  A
+ * journaled beverage that can no longer be made means the journal
+ * does not belong to the state it is replayed on, and open fails.
+ *
+ * A journal can continue a SnapshotFile: it then only holds the changes
+ * made after the snapshot, and checkpoint writes a new snapshot and
+ * empties the journal.  Both files carry a generation so a journal is
+ * only replayed on the snapshot it continues.
+ *
+ * The file starts with MAGIC, VERSION and the generation.  Each record is its length,
+ * the CRC32 of its contents and its contents: a type byte followed by
+ * the fields of the change.  A record cut short by a crash fails its
+ * check and ends the replay; it is removed before new records are
+ * appended.  A recipe that needs ingredients after chocolate lists them
+ * by name at the end of its record, since IngredientRegistry ids may
+ * differ after a restart, and restocks of those ingredients are
+ * recorded by name as well.
+ */
+public final class CoffeeMakerJournal implements CoffeeMakerListener, Closeable {
+
+	/** First int of a journal file */
+	public static final int MAGIC = 0x434D4A4C;
+	/** Format version written after MAGIC */
+	public static final int VERSION = 1;
+	/** Most milliseconds a written record waits to be forced to disk */
+	public static final long MAX_COMMIT_DELAY = 50;
+
+	private static final byte RECIPE_ADDED = 1;
+	private static final byte RECIPE_DELETED = 2;
+	private static final byte RECIPE_EDITED = 3;
+	private static final byte INVENTORY_ADDED = 4;
+	private static final byte COFFEE_MADE = 5;
+	private static final byte INGREDIENT_ADDED = 6;
+
+	/** Bytes of MAGIC, VERSION and the generation */
+	private static final int HEADER_SIZE = 16;
+	/** Bytes of the length and checksum before each record */
+	private static final int RECORD_HEADER = 8;
+	/** Bytes of the recipe fields after the name */
+	private static final int RECIPE_FIELDS = 20;
+	/** Initial size of the record buffer */
+	private static final int BUFFER_SIZE = 256;
+
+	private final CoffeeMaker coffeeMaker;
+	private final FileChannel channel;
+	private final int commitInterval;
+	private final CRC32 crc = new CRC32();
+	private final Thread flusher;
+	/** Record being written */
+	private ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+	/** Number of records written but not yet forced to disk */
+	private int pending;
+	/** File position after the last complete record */
+	private long end;
+	/** Why the journal stopped recording, or null */
+	private IOException failure;
+	private boolean closed;
+	/** Snapshot written by checkpoint, or null */
+	private final Path snapshotFile;
+	/** Generation of the snapshot the journal continues */
+	private long generation;
+
+	private CoffeeMakerJournal(CoffeeMaker coffeeMaker, FileChannel channel, int commitInterval,
+			Path snapshotFile, long generation, long end) {
+		this.coffeeMaker = coffeeMaker;
+		this.channel = channel;
+		this.commitInterval = commitInterval;
+		this.snapshotFile = snapshotFile;
+		this.generation = generation;
+		this.end = end;
+		flusher = new Thread(this::runFlusher, "journal-flusher");
+		flusher.setDaemon(true);
+		flusher.start();
+	}
+
+	/**
+	 * Opens the journal in the given file, creating it if it does not
+	 * exist.  The changes already in the journal are replayed on the
+	 * coffee maker, which should be new, and the journal then records
+	 * every further change made through it, next to the listeners the
+	 * coffee maker already has.
+	 * @param file
+	 * @param coffeeMaker
+	 * @param commitInterval number of pending records that start an fsync
+	 *        before MAX_COMMIT_DELAY has passed
+	 * @return CoffeeMakerJournal
+	 * @throws IOException if the file cannot be read or is not a journal
+	 */
+	public static CoffeeMakerJournal open(Path file, CoffeeMaker coffeeMaker, int commitInterval) throws IOException {
+		return open(file, null, coffeeMaker, commitInterval);
+	}
+
+	/**
+	 * Opens the journal in the given file like open without a snapshot,
+	 * but first loads the coffee maker from the snapshot file if there
+	 * is one and only replays the changes made after it.  If any
+	 * changes were replayed a checkpoint is taken, so the next start
+	 * has nothing to replay.
+	 * @param file
+	 * @param snapshotFile
+	 * @param coffeeMaker
+	 * @param commitInterval number of pending records that start an fsync
+	 *        before MAX_COMMIT_DELAY has passed
+	 * @return CoffeeMakerJournal
+	 * @throws IOException if a file cannot be read or is not valid
+	 */
+	public static CoffeeMakerJournal open(Path file, Path snapshotFile, CoffeeMaker coffeeMaker, int commitInterval) throws IOException {
+		if (commitInterval < 1) {
+			throw new IllegalArgumentException("Commit interval must be a positive integer");
+		}
+		long generation = 0;
+		if (snapshotFile != null && Files.exists(snapshotFile)) {
+			generation = SnapshotFile.read(snapshotFile, coffeeMaker);
+		}
+		FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+				StandardOpenOption.READ, StandardOpenOption.WRITE);
+		long end = 0;
+		try {
+			ByteBuffer in = readFully(channel);
+			// a shorter file is empty or its header was cut short when it was created
+			if (in.remaining() >= HEADER_SIZE) {
+				if (in.getInt() != MAGIC || in.getInt() != VERSION) {
+					throw new IOException("Not a coffee maker journal of version " + VERSION + ": " + file);
+				}
+				long journalGeneration = in.getLong();
+				if (journalGeneration > generation) {
+					throw new IOException("Journal of generation " + journalGeneration
+							+ " is newer than its snapshot of generation " + generation);
+				}
+				if (journalGeneration == generation) {
+					end = replay(in, coffeeMaker);
+				}
+				// an older journal only holds changes the snapshot already has
+			}
+			if (end == 0) {
+				writeHeader(channel, generation);
+			} else {
+				channel.truncate(end);
+				channel.position(end);
+			}
+		} catch (IOException | RuntimeException e) {
+			channel.close();
+			throw e;
+		}
+		if (snapshotFile != null) {
+			// from now on a checkpoint can pause the changes of the coffee maker
+			coffeeMaker.getChangeLock();
+		}
+		CoffeeMakerJournal journal = new CoffeeMakerJournal(coffeeMaker, channel, commitInterval,
+				snapshotFile, generation, end == 0 ? HEADER_SIZE : end);
+		if (snapshotFile != null && end > HEADER_SIZE) {
+			try {
+				journal.checkpoint();
+			} catch (IOException | RuntimeException e) {
+				try {
+					journal.close();
+				} catch (IOException t) {
+					e.addSuppressed(t);
+				}
+				throw e;
+			}
+		}
+		coffeeMaker.addListener(journal);
+		return journal;
+	}
+
+	/**
+	 * Returns the whole file.
+	 */
+	private static ByteBuffer readFully(FileChannel channel) throws IOException {
+		long size = channel.size();
+		if (size > Integer.MAX_VALUE) {
+			throw new IOException("Journal is too large to replay: " + size + " bytes");
+		}
+		ByteBuffer in = ByteBuffer.allocateDirect((int) size);
+		while (in.hasRemaining()) {
+			if (channel.read(in, in.position()) < 0) {
+				throw new IOException("Journal ended while reading it");
+			}
+		}
+		return in.flip();
+	}
+
+	/**
+	 * Replaces the whole file with a header of the given generation.
+	 */
+	private static void writeHeader(FileChannel channel, long generation) throws IOException {
+		channel.truncate(0);
+		channel.position(0);
+		ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).putInt(MAGIC).putInt(VERSION).putLong(generation);
+		writeFully(channel, header.flip());
+		channel.force(true);
+	}
+
+	/**
+	 * Applies every complete record after the header to the coffee
+	 * maker and returns the file position after the last one.
+	 */
+	private static long replay(ByteBuffer in, CoffeeMaker coffeeMaker) throws IOException {
+		CRC32 crc = new CRC32();
+		while (in.remaining() >= RECORD_HEADER) {
+			int start = in.position();
+			int length = in.getInt();
+			int checksum = in.getInt();
+			if (length < 1 || length > in.remaining()) {
+				in.position(start);
+				break;
+			}
+			ByteBuffer record = in.slice();
+			record.limit(length);
+			crc.reset();
+			crc.update(record.duplicate());
+			if ((int) crc.getValue() != checksum) {
+				in.position(start);
+				break;
+			}
+			try {
+				apply(record, coffeeMaker);
+			} catch (RecipeException | RuntimeException e) {
+				throw new IOException("Corrupt journal record at " + start, e);
+			}
+			in.position(start + RECORD_HEADER + length);
+		}
+		return in.position();
+	}
+
+	private static void apply(ByteBuffer record, CoffeeMaker coffeeMaker) throws RecipeException {
+		switch (record.get()) {
+		case RECIPE_ADDED:
+			coffeeMaker.addRecipe(getRecipe(record));
+			break;
+		case RECIPE_DELETED:
+			coffeeMaker.deleteRecipe(record.getInt());
+			break;
+		case RECIPE_EDITED:
+			int recipeToEdit = record.getInt();
+			coffeeMaker.editRecipe(recipeToEdit, getRecipe(record));
+			break;
+		case INVENTORY_ADDED:
+			try {
+				coffeeMaker.addInventory(record.getInt(), record.getInt(), record.getInt(), record.getInt());
+			} catch (InventoryException e) {
+				// the inventory could not hold the units when they were journaled either
+			}
+			break;
+		case COFFEE_MADE:
+			if (!coffeeMaker.useIngredients(getRecipe(record))) {
+				throw new IllegalStateException("Journaled beverage can no longer be made");
+			}
+			break;
+		case INGREDIENT_ADDED:
+			int ingredient = IngredientRegistry.register(getString(record));
+			try {
+				coffeeMaker.addInventory(ingredient, record.getInt());
+			} catch (InventoryException | UnsupportedOperationException e) {
+				// the inventory could not hold the units when they were journaled either
+			}
+			break;
+		default:
+			throw new IllegalStateException("Unknown record type");
+		}
+	}
+
+	@Override
+	public synchronized void recipeAdded(Recipe r) {
+		byte [] name = r.getName().getBytes(StandardCharsets.UTF_8);
+		ByteBuffer extras = extras(r);
+		int start = begin(RECIPE_ADDED, 4 + name.length + RECIPE_FIELDS + extras.remaining());
+		putRecipe(name, r, extras);
+		end(start);
+	}
+
+	@Override
+	public synchronized void recipeDeleted(int recipeToDelete) {
+		int start = begin(RECIPE_DELETED, 4);
+		buffer.putInt(recipeToDelete);
+		end(start);
+	}
+
+	@Override
+	public synchronized void recipeEdited(int recipeToEdit, Recipe r) {
+		byte [] name = r.getName().getBytes(StandardCharsets.UTF_8);
+		ByteBuffer extras = extras(r);
+		int start = begin(RECIPE_EDITED, 8 + name.length + RECIPE_FIELDS + extras.remaining());
+		buffer.putInt(recipeToEdit);
+		putRecipe(name, r, extras);
+		end(start);
+	}
+
+	@Override
+	public synchronized void inventoryAdding(int amtCoffee, int amtMilk, int amtSugar, int amtChocolate) {
+		int start = begin(INVENTORY_ADDED, 16);
+		buffer.putInt(amtCoffee).putInt(amtMilk).putInt(amtSugar).putInt(amtChocolate);
+		end(start);
+	}
+
+	@Override
+	public synchronized void ingredientAdding(int ingredient, int units) {
+		byte [] name = IngredientRegistry.getName(ingredient).getBytes(StandardCharsets.UTF_8);
+		int start = begin(INGREDIENT_ADDED, 8 + name.length);
+		buffer.putInt(name.length).put(name).putInt(units);
+		end(start);
+	}
+
+	@Override
+	public synchronized void coffeeMade(Recipe r) {
+		byte [] name = r.getName().getBytes(StandardCharsets.UTF_8);
+		ByteBuffer extras = extras(r);
+		int start = begin(COFFEE_MADE, 4 + name.length + RECIPE_FIELDS + extras.remaining());
+		putRecipe(name, r, extras);
+		end(start);
+	}
+
+	/**
+	 * Forces every record written so far to disk.
+	 * @throws IOException if the journal stopped recording
+	 */
+	public synchronized void commit() throws IOException {
+		if (failure != null) {
+			throw new IOException("Journal stopped recording", failure);
+		}
+		if (pending > 0) {
+			try {
+				channel.force(false);
+			} catch (IOException e) {
+				fail(e);
+				throw e;
+			}
+			pending = 0;
+		}
+	}
+
+	/**
+	 * Saves the coffee maker to the snapshot file and empties the
+	 * journal, so a restart has nothing to replay.  The snapshot and
+	 * journal get the next generation; if a crash comes between
+	 * writing them, the older journal is ignored on the next start.
+	 * Changes made through the coffee maker are paused meanwhile,
+	 * after the ones in progress end, so each change is either in the
+	 * snapshot or in the emptied journal and is replayed once.  Must
+	 * not be called by a listener of the coffee maker.
+	 * @throws IOException
+	 */
+	public void checkpoint() throws IOException {
+		if (snapshotFile == null) {
+			throw new IllegalStateException("Journal was opened without a snapshot file");
+		}
+		Lock pause = coffeeMaker.getChangeLock().writeLock();
+		pause.lock();
+		try {
+			synchronized (this) {
+				commit();
+				SnapshotFile.write(coffeeMaker, generation + 1, snapshotFile);
+				generation++;
+				try {
+					writeHeader(channel, generation);
+				} catch (IOException e) {
+					fail(e);
+					throw e;
+				}
+				end = HEADER_SIZE;
+			}
+		} finally {
+			pause.unlock();
+		}
+	}
+
+	/**
+	 * Stops journaling the coffee maker, commits the
+	 * pending records and closes the file.
+	 * @throws IOException if the journal stopped recording
+	 */
+	@Override
+	public void close() throws IOException {
+		coffeeMaker.removeListener(this);
+		synchronized (this) {
+			closed = true;
+			notifyAll();
+		}
+		boolean interrupted = false;
+		while (flusher.isAlive()) {
+			try {
+				flusher.join();
+			} catch (InterruptedException e) {
+				interrupted = true;
+			}
+		}
+		if (interrupted) {
+			Thread.currentThread().interrupt();
+		}
+		synchronized (this) {
+			try {
+				commit();
+			} finally {
+				channel.close();
+			}
+		}
+	}
+
+	/**
+	 * Forces the written records to disk, MAX_COMMIT_DELAY after
+	 * the first one or once commitInterval of them are pending,
+	 * without holding the journal lock, until the journal is closed.
+	 */
+	private void runFlusher() {
+		try {
+			while (true) {
+				synchronized (this) {
+					while (!closed && (pending == 0 || failure != null)) {
+						wait();
+					}
+					if (!closed && pending < commitInterval) {
+						wait(MAX_COMMIT_DELAY);
+					}
+					if (closed) {
+						return;
+					}
+					if (pending == 0 || failure != null) {
+						continue;
+					}
+					pending = 0;
+				}
+				try {
+					channel.force(false);
+				} catch (IOException e) {
+					synchronized (this) {
+						fail(e);
+					}
+				}
+			}
+		} catch (InterruptedException e) {
+			// close forces whatever is still pending
+		}
+	}
+
+	/**
+	 * Starts a record of the given type in the empty buffer and
+	 * returns its position.
+	 */
+	private int begin(byte type, int fieldBytes) {
+		int recordBytes = RECORD_HEADER + 1 + fieldBytes;
+		if (buffer.capacity() < recordBytes) {
+			buffer = ByteBuffer.allocateDirect(recordBytes);
+		}
+		int start = buffer.position();
+		buffer.putInt(1 + fieldBytes).putInt(0).put(type);
+		return start;
+	}
+
+	/**
+	 * Fills in the checksum of the record at start, writes it to
+	 * the file and wakes the flusher if enough records are pending.
+	 * The buffer is left empty even if the write fails.
+	 */
+	private void end(int start) {
+		if (failure != null || closed) {
+			buffer.clear();
+			return;
+		}
+		ByteBuffer record = buffer.duplicate();
+		record.limit(buffer.position()).position(start + RECORD_HEADER);
+		crc.reset();
+		crc.update(record);
+		buffer.putInt(start + 4, (int) crc.getValue());
+		buffer.flip();
+		try {
+			writeFully(channel, buffer);
+			end += buffer.limit();
+		} catch (IOException e) {
+			fail(e);
+			return;
+		} finally {
+			buffer.clear();
+		}
+		if (++pending == 1 || pending >= commitInterval) {
+			notifyAll();
+		}
+	}
+
+	/**
+	 * Stops recording after the given failure, cutting off any part
+	 * of a record that was written.
+	 */
+	private void fail(IOException e) {
+		if (failure == null) {
+			failure = e;
+			try {
+				channel.truncate(end);
+			} catch (IOException t) {
+				e.addSuppressed(t);
+			}
+		}
+	}
+
+	private void putRecipe(byte [] name, Recipe r, ByteBuffer extras) {
+		buffer.putInt(name.length).put(name);
+		buffer.putInt(r.getPrice()).putInt(r.getAmtCoffee()).putInt(r.getAmtMilk())
+				.putInt(r.getAmtSugar()).putInt(r.getAmtChocolate());
+		buffer.put(extras);
+	}
+
+	/**
+	 * Returns the ingredients after chocolate the recipe needs, their
+	 * number and then the name and units of each, or no bytes if it
+	 * needs none, so such records stay as they always were.
+	 */
+	private static ByteBuffer extras(Recipe r) {
+		if (Inventory.needsOnlyStandard(r)) {
+			return ByteBuffer.allocate(0);
+		}
+		int [] amounts = r.amounts();
+		byte [][] names = new byte[amounts.length][];
+		int count = 0;
+		int size = 4;
+		for (int id = Inventory.CHOCOLATE + 1; id < amounts.length; id++) {
+			if (amounts[id] > 0) {
+				names[id] = IngredientRegistry.getName(id).getBytes(StandardCharsets.UTF_8);
+				size += 8 + names[id].length;
+				count++;
+			}
+		}
+		ByteBuffer extras = ByteBuffer.allocate(size).putInt(count);
+		for (int id = Inventory.CHOCOLATE + 1; id < amounts.length; id++) {
+			if (names[id] != null) {
+				extras.putInt(names[id].length).put(names[id]).putInt(amounts[id]);
+			}
+		}
+		extras.flip();
+		return extras;
+	}
+
+	private static Recipe getRecipe(ByteBuffer record) throws RecipeException {
+		Recipe r = new Recipe(getString(record), record.getInt(), record.getInt(),
+				record.getInt(), record.getInt(), record.getInt());
+		if (record.hasRemaining()) {
+			for (int count = record.getInt(); count > 0; count--) {
+				r.setAmount(IngredientRegistry.register(getString(record)), record.getInt());
+			}
+		}
+		return r;
+	}
+
+	private static String getString(ByteBuffer record) {
+		byte [] bytes = new byte[record.getInt()];
+		record.get(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	private static void writeFully(FileChannel channel, ByteBuffer bytes) throws IOException {
+		while (bytes.hasRemaining()) {
+			channel.write(bytes);
+		}
+	}
+}
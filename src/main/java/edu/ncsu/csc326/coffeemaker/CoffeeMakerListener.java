@@ -0,0 +1,75 @@
+/*
+ * Copyright (c) 2009,  Sarah Heckman, Laurie Williams, Dright Ho
+ * All Rights Reserved.
+ *
+ * Permission has been explicitly granted to the University of Minnesota
+ * Software Engineering Center to use and distribute this source for
+ * educational purposes, including delivering online education through
+ * Coursera or other entities.
+ *
+ * No warranty is given regarding this software, including warranties as
+ * to the correctness or completeness of this software, including
+ * fitness for purpose.
+ */
+package edu.ncsu.csc326.coffeemaker;
+
+/**
+ * Told about every change made through a CoffeeMaker, e.g. to journal
+ * it.  Recipe changes are reported holding the lock of the recipe book,
+ * in the order they were made.  Inventory additions are reported after
+ * the units are validated but before they are added, and beverages
+ * after their ingredients were removed.  Every method does nothing by
+ * default.
+ */
+public interface CoffeeMakerListener {
+
+	/**
+	 * Called after a recipe was added.
+	 * @param r
+	 */
+	default void recipeAdded(Recipe r) {
+	}
+
+	/**
+	 * Called after the recipe at the given index was deleted.
+	 * @param recipeToDelete
+	 */
+	default void recipeDeleted(int recipeToDelete) {
+	}
+
+	/**
+	 * Called after the recipe at the given index was replaced.
+	 * @param recipeToEdit
+	 * @param r the new recipe
+	 */
+	default void recipeEdited(int recipeToEdit, Recipe r) {
+	}
+
+	/**
+	 * Called before the given units are added to the inventory.
+	 * Adding them may still fail if the inventory cannot hold them.
+	 * @param amtCoffee
+	 * @param amtMilk
+	 * @param amtSugar
+	 * @param amtChocolate
+	 */
+	default void inventoryAdding(int amtCoffee, int amtMilk, int amtSugar, int amtChocolate) {
+	}
+
+	/**
+	 * Called before the given units of an ingredient registered after
+	 * chocolate are added to the inventory.  Adding them may still
+	 * fail if the inventory does not stock the ingredient.
+	 * @param ingredient IngredientRegistry id
+	 * @param units
+	 */
+	default void ingredientAdding(int ingredient, int units) {
+	}
+
+	/**
+	 * Called after the ingredients of a beverage were removed.
+	 * @param r
+	 */
+	default void coffeeMade(Recipe r) {
+	}
+}
@@ -0,0 +1,116 @@
+/*
+ * Copyright (c) 2009,  Sarah Heckman, Laurie Williams, Dright Ho
+ * All Rights Reserved.
+ *
+ * Permission has been explicitly granted to the University of Minnesota
+ * Software Engineering Center to use and distribute this source for
+ * educational purposes, including delivering online education through
+ * Coursera or other entities.
+ *
+ * No warranty is given regarding this software, including warranties as
+ * to the correctness or completeness of this software, including
+ * fitness for purpose.
+ */
+package edu.ncsu.csc326.coffeemaker;
+
+import java.util.Arrays;
+
+/**
+ * Tells every one of two or more listeners about each change, in the
+ * order they were added.  The array is never changed: adding or
+ * removing a listener builds a new one, so a coffee maker can read
+ * its listeners with one volatile read on every change.
+ */
+final class CoffeeMakerListeners implements CoffeeMakerListener {
+	private final CoffeeMakerListener [] listeners;
+
+	private CoffeeMakerListeners(CoffeeMakerListener [] listeners) {
+		this.listeners = listeners;
+	}
+
+	/**
+	 * Returns the listener telling current, then added, about
+	 * every change.
+	 * @param current the listeners so far, or none
+	 * @param added
+	 * @param none the listener that does nothing
+	 * @return CoffeeMakerListener
+	 */
+	static CoffeeMakerListener with(CoffeeMakerListener current, CoffeeMakerListener added, CoffeeMakerListener none) {
+		if (current == none) {
+			return added;
+		}
+		CoffeeMakerListener [] listeners = toArray(current);
+		listeners = Arrays.copyOf(listeners, listeners.length + 1);
+		listeners[listeners.length - 1] = added;
+		return new CoffeeMakerListeners(listeners);
+	}
+
+	/**
+	 * Returns the listener telling current, except the first listener
+	 * that is removed, about every change, or current itself if
+	 * removed is not one of its listeners.
+	 * @param current the listeners so far, or none
+	 * @param removed
+	 * @param none the listener that does nothing
+	 * @return CoffeeMakerListener
+	 */
+	static CoffeeMakerListener without(CoffeeMakerListener current, CoffeeMakerListener removed, CoffeeMakerListener none) {
+		CoffeeMakerListener [] listeners = toArray(current);
+		for (int i = 0; i < listeners.length; i++) {
+			if (listeners[i] == removed) {
+				if (listeners.length == 1) {
+					return none;
+				} else if (listeners.length == 2) {
+					return listeners[1 - i];
+				}
+				CoffeeMakerListener [] rest = new CoffeeMakerListener[listeners.length - 1];
+				System.arraycopy(listeners, 0, rest, 0, i);
+				System.arraycopy(listeners, i + 1, rest, i, rest.length - i);
+				return new CoffeeMakerListeners(rest);
+			}
+		}
+		return current;
+	}
+
+	private static CoffeeMakerListener [] toArray(CoffeeMakerListener listener) {
+		return listener instanceof CoffeeMakerListeners ? ((CoffeeMakerListeners) listener).listeners
+				: new CoffeeMakerListener[] { listener };
+	}
+
+	public void recipeAdded(Recipe r) {
+		for (CoffeeMakerListener listener : listeners) {
+			listener.recipeAdded(r);
+		}
+	}
+
+	public void recipeDeleted(int recipeToDelete) {
+		for (CoffeeMakerListener listener : listeners) {
+			listener.recipeDeleted(recipeToDelete);
+		}
+	}
+
+	public void recipeEdited(int recipeToEdit, Recipe r) {
+		for (CoffeeMakerListener listener : listeners) {
+			listener.recipeEdited(recipeToEdit, r);
+		}
+	}
+
+	public void inventoryAdding(int amtCoffee, int amtMilk, int amtSugar, int amtChocolate) {
+		for (CoffeeMakerListener listener : listeners) {
+			listener.inventoryAdding(amtCoffee, amtMilk, amtSugar, amtChocolate);
+		}
+	}
+
+	public void ingredientAdding(int ingredient, int units) {
+		for (CoffeeMakerListener listener : listeners) {
+			listener.ingredientAdding(ingredient, units);
+		}
+	}
+
+	public void coffeeMade(Recipe r) {
+		for (CoffeeMakerListener listener : listeners) {
+			listener.coffeeMade(r);
+		}
+	}
+}
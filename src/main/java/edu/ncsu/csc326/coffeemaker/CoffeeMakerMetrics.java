@@ -0,0 +1,231 @@
+/*
+ * Copyright (c) 2009,  Sarah Heckman, Laurie Williams, Dright Ho
+ * All Rights Reserved.
+ *
+ * Permission has been explicitly granted to the University of Minnesota
+ * Software Engineering Center to use and distribute this source for
+ * educational purposes, including delivering online education through
+ * Coursera or other entities.
+ *
+ * No warranty is given regarding this software, including warranties as
+ * to the correctness or completeness of this software, including
+ * fitness for purpose.
+ */
+package edu.ncsu.csc326.coffeemaker;
+
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Purchase counters and latency histograms of a CoffeeMaker, enabled
+ * with CoffeeMaker.setMetrics.  Each purchase is counted by outcome and
+ * each beverage made by recipe name.  Purchase latency covers the whole
+ * of makeCoffee; inventory latency covers removing the ingredients, the
+ * only step that waits for other purchases, whether on the inventory
+ * lock or by retrying its compare-and-set.
+ *
+ * Counters are LongAdders, so purchases on many threads do not contend
+ * on them.  Reading the clock costs more than the rest of a purchase, so
+ * by default only a random sample of purchases is timed; the counters
+ * always count every purchase.  The metrics can be published through
+ * JMX with register.
+ */
+public class CoffeeMakerMetrics implements CoffeeMakerMetricsMXBean {
+
+	/** JMX domain of registered metrics */
+	public static final String DOMAIN = "edu.ncsu.csc326.coffeemaker";
+
+	/** Purchases timed by the default constructor, one in this many */
+	public static final int DEFAULT_SAMPLE_INTERVAL = 16;
+
+	/** Refunded purchases by outcome, indexed by CoffeeMaker.NO_RECIPE etc. */
+	private final LongAdder [] outcomes = new LongAdder[4];
+	/** Beverages made by recipe name */
+	private final ConcurrentHashMap<String, LongAdder> recipes = new ConcurrentHashMap<String, LongAdder>();
+	private final LatencyHistogram purchaseLatency = new LatencyHistogram();
+	private final LatencyHistogram inventoryLatency = new LatencyHistogram();
+	/** Sample interval - 1 */
+	private final int sampleMask;
+
+	/**
+	 * Creates metrics with every counter at 0, timing one
+	 * in DEFAULT_SAMPLE_INTERVAL purchases.
+	 */
+	public CoffeeMakerMetrics() {
+		this(DEFAULT_SAMPLE_INTERVAL);
+	}
+
+	/**
+	 * Creates metrics with every counter at 0, timing one in
+	 * sampleInterval purchases at random.
+	 * @param sampleInterval a power of two; 1 times every purchase
+	 */
+	public CoffeeMakerMetrics(int sampleInterval) {
+		if (sampleInterval < 1 || Integer.bitCount(sampleInterval) != 1) {
+			throw new IllegalArgumentException("Sample interval must be a power of two");
+		}
+		this.sampleMask = sampleInterval - 1;
+		for (int i = 0; i < outcomes.length; i++) {
+			outcomes[i] = new LongAdder();
+		}
+	}
+
+	/**
+	 * Returns true if the latencies of the next purchase
+	 * should be recorded.
+	 * @return boolean
+	 */
+	boolean sample() {
+		return (ThreadLocalRandom.current().nextInt() & sampleMask) == 0;
+	}
+
+	/**
+	 * Counts a purchase of the given outcome.  The recipe
+	 * is only used if the beverage was made.
+	 * @param r
+	 * @param outcome e.g. CoffeeMaker.PURCHASED
+	 */
+	void recordOutcome(Recipe r, int outcome) {
+		if (outcome == CoffeeMaker.PURCHASED) {
+			LongAdder made = recipes.get(r.getName());
+			if (made == null) {
+				made = recipes.computeIfAbsent(r.getName(), name -> new LongAdder());
+			}
+			made.increment();
+		} else {
+			outcomes[outcome].increment();
+		}
+	}
+
+	/**
+	 * Records the latency of a purchase.
+	 * @param nanos
+	 */
+	void recordPurchaseLatency(long nanos) {
+		purchaseLatency.record(nanos);
+	}
+
+	/**
+	 * Records the time spent removing ingredients.
+	 * @param nanos
+	 */
+	void recordInventoryLatency(long nanos) {
+		inventoryLatency.record(nanos);
+	}
+
+	/**
+	 * Returns the histogram of purchase latencies.
+	 * @return LatencyHistogram
+	 */
+	public LatencyHistogram getPurchaseLatency() {
+		return purchaseLatency;
+	}
+
+	/**
+	 * Returns the histogram of the time spent removing ingredients.
+	 * @return LatencyHistogram
+	 */
+	public LatencyHistogram getInventoryLatency() {
+		return inventoryLatency;
+	}
+
+	@Override
+	public long getPurchased() {
+		long purchased = 0;
+		for (LongAdder made : recipes.values()) {
+			purchased += made.sum();
+		}
+		return purchased;
+	}
+
+	@Override
+	public long getNoRecipe() {
+		return outcomes[CoffeeMaker.NO_RECIPE].sum();
+	}
+
+	@Override
+	public long getInsufficientFunds() {
+		return outcomes[CoffeeMaker.INSUFFICIENT_FUNDS].sum();
+	}
+
+	@Override
+	public long getInsufficientIngredients() {
+		return outcomes[CoffeeMaker.INSUFFICIENT_INGREDIENTS].sum();
+	}
+
+	@Override
+	public Map<String, Long> getPurchasedByRecipe() {
+		Map<String, Long> made = new TreeMap<String, Long>();
+		for (Map.Entry<String, LongAdder> entry : recipes.entrySet()) {
+			made.put(entry.getKey(), entry.getValue().sum());
+		}
+		return made;
+	}
+
+	@Override
+	public long getPurchaseLatencyP50() {
+		return purchaseLatency.getValueAtPercentile(50);
+	}
+
+	@Override
+	public long getPurchaseLatencyP99() {
+		return purchaseLatency.getValueAtPercentile(99);
+	}
+
+	@Override
+	public long getPurchaseLatencyMax() {
+		return purchaseLatency.getMax();
+	}
+
+	@Override
+	public long getInventoryLatencyP50() {
+		return inventoryLatency.getValueAtPercentile(50);
+	}
+
+	@Override
+	public long getInventoryLatencyP99() {
+		return inventoryLatency.getValueAtPercentile(99);
+	}
+
+	@Override
+	public long getInventoryLatencyMax() {
+		return inventoryLatency.getMax();
+	}
+
+	/**
+	 * Publishes the metrics on the platform MBean server under
+	 * DOMAIN with type CoffeeMakerMetrics and the given name, and
+	 * returns the name they were registered with.
+	 * @param name e.g. a machine id
+	 * @return ObjectName
+	 * @throws JMException if the name is taken or invalid
+	 */
+	public ObjectName register(String name) throws JMException {
+		ObjectName objectName = objectName(name);
+		ManagementFactory.getPlatformMBeanServer().registerMBean(this, objectName);
+		return objectName;
+	}
+
+	/**
+	 * Removes the metrics registered with the given name
+	 * from the platform MBean server.
+	 * @param name
+	 * @throws JMException if no metrics have that name
+	 */
+	public static void unregister(String name) throws JMException {
+		MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+		server.unregisterMBean(objectName(name));
+	}
+
+	private static ObjectName objectName(String name) throws JMException {
+		return new ObjectName(DOMAIN + ":type=CoffeeMakerMetrics,name=" + ObjectName.quote(name));
+	}
+}
@@ -0,0 +1,95 @@
+/*
+ * Copyright (c) 2009,  Sarah Heckman, Laurie Williams, Dright Ho
+ * All Rights Reserved.
+ *
+ * Permission has been explicitly granted to the University of Minnesota
+ * Software Engineering Center to use and distribute this source for
+ * educational purposes, including delivering online education through
+ * Coursera or other entities.
+ *
+ * No warranty is given regarding this software, including warranties as
+ * to the correctness or completeness of this software, including
+ * fitness for purpose.
+ */
+package edu.ncsu.csc326.coffeemaker;
+
+import java.util.Map;
+
+/**
+ * Management interface of CoffeeMakerMetrics.  Latencies are
+ * in nanoseconds.
+ */
+public interface CoffeeMakerMetricsMXBean {
+
+	/**
+	 * Returns the number of beverages made.
+	 * @return long
+	 */
+	long getPurchased();
+
+	/**
+	 * Returns the number of purchases refunded because
+	 * there was no recipe.
+	 * @return long
+	 */
+	long getNoRecipe();
+
+	/**
+	 * Returns the number of purchases refunded because
+	 * the amount paid was less than the price.
+	 * @return long
+	 */
+	long getInsufficientFunds();
+
+	/**
+	 * Returns the number of purchases refunded because
+	 * there were not enough ingredients.
+	 * @return long
+	 */
+	long getInsufficientIngredients();
+
+	/**
+	 * Returns the number of beverages made by recipe name.
+	 * @return Map
+	 */
+	Map<String, Long> getPurchasedByRecipe();
+
+	/**
+	 * Returns the median latency of a purchase.
+	 * @return long
+	 */
+	long getPurchaseLatencyP50();
+
+	/**
+	 * Returns the 99th percentile latency of a purchase.
+	 * @return long
+	 */
+	long getPurchaseLatencyP99();
+
+	/**
+	 * Returns the largest latency of a purchase.
+	 * @return long
+	 */
+	long getPurchaseLatencyMax();
+
+	/**
+	 * Returns the median time spent waiting for and
+	 * holding the inventory to remove ingredients.
+	 * @return long
+	 */
+	long getInventoryLatencyP50();
+
+	/**
+	 * Returns the 99th percentile time spent waiting for
+	 * and holding the inventory to remove ingredients.
+	 * @return long
+	 */
+	long getInventoryLatencyP99();
+
+	/**
+	 * Returns the largest time spent waiting for and
+	 * holding the inventory to remove ingredients.
+	 * @return long
+	 */
+	long getInventoryLatencyMax();
+}
@@ -0,0 +1,314 @@
+/*
+ * Copyright (c) 2009,  Sarah Heckman, Laurie Williams, Dright Ho
+ * All Rights Reserved.
+ *
+ * Permission has been explicitly granted to the University of Minnesota
+ * Software Engineering Center to use and distribute this source for
+ * educational purposes, including delivering online education through
+ * Coursera or other entities.
+ *
+ * No warranty is given regarding this software, including warranties as
+ * to the correctness or completeness of this software, including
+ * fitness for purpose.
+ */
+package edu.ncsu.csc326.coffeemaker;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import edu.ncsu.csc326.coffeemaker.exceptions.InventoryException;
+import edu.ncsu.csc326.coffeemaker.exceptions.RecipeException;
+
+/**
+ * Serves the operations of the console menu to many clients at once
+ * over TCP.  Each request is one line of words separated by spaces and
+ * each response is one line starting with OK or ERR:
+ *
+ * <pre>
+ * ADD price coffee milk sugar chocolate name  add a recipe
+ * DELETE recipe                               delete a recipe
+ * EDIT recipe price coffee milk sugar chocolate  edit a recipe
+ * INVENTORY coffee milk sugar chocolate       add inventory
+ * CHECK                                       check inventory
+ * RECIPES                                     list the recipes
+ * BUY recipe paid                             make coffee
+ * QUIT                                        close the connection
+ * </pre>
+ *
+ * Recipes are numbered from 1 as in the menu.  Each connection is
+ * handled on its own virtual thread when the runtime has them, or on
+ * a pooled platform thread otherwise.  All connections share one
+ * CoffeeMaker.
+ */
+public class CoffeeMakerServer implements AutoCloseable {
+
+	private final CoffeeMaker coffeeMaker;
+	private final ServerSocket serverSocket;
+	private final ExecutorService connections;
+	/** Sockets of the open connections, closed with the server */
+	private final Set<Socket> sockets = ConcurrentHashMap.newKeySet();
+	private final Thread acceptor;
+
+	/**
+	 * Creates a server for the coffee maker listening on the given
+	 * port, or on any free port if port is 0.  Connections are
+	 * accepted once start is called.
+	 * @param coffeeMaker
+	 * @param port
+	 * @throws IOException if the port cannot be opened
+	 */
+	public CoffeeMakerServer(CoffeeMaker coffeeMaker, int port) throws IOException {
+		this.coffeeMaker = coffeeMaker;
+		this.serverSocket = new ServerSocket(port, 1024);
+		this.connections = newConnectionExecutor();
+		this.acceptor = new Thread(this::acceptConnections, "coffee-maker-server");
+	}
+
+	/**
+	 * Returns the port the server listens on.
+	 * @return int
+	 */
+	public int getPort() {
+		return serverSocket.getLocalPort();
+	}
+
+	/**
+	 * Returns the address the server listens on.
+	 * @return InetAddress
+	 */
+	public InetAddress getAddress() {
+		return serverSocket.getInetAddress();
+	}
+
+	/**
+	 * Starts accepting connections on a new thread.
+	 */
+	public void start() {
+		acceptor.start();
+	}
+
+	/**
+	 * Stops accepting connections and closes every open connection.
+	 */
+	@Override
+	public void close() throws IOException {
+		serverSocket.close();
+		for (Socket socket : sockets) {
+			socket.close();
+		}
+		connections.shutdownNow();
+	}
+
+	/**
+	 * Returns the response line to the given request line,
+	 * or null if the connection should be closed.
+	 * @param line
+	 * @return String
+	 */
+	String execute(String line) {
+		String [] words = line.trim().split(" +");
+		String command = words[0].toUpperCase();
+		try {
+			switch (command) {
+			case "ADD":
+				return addRecipe(line, words);
+			case "DELETE":
+				return deleteRecipe(words);
+			case "EDIT":
+				return editRecipe(words);
+			case "INVENTORY":
+				return addInventory(words);
+			case "CHECK":
+				return checkInventory();
+			case "RECIPES":
+				return listRecipes();
+			case "BUY":
+				return makeCoffee(words);
+			case "QUIT":
+				return null;
+			default:
+				return "ERR Unknown command " + words[0];
+			}
+		} catch (NumberFormatException e) {
+			return "ERR Please enter a positive integer";
+		} catch (RecipeException | InventoryException e) {
+			return "ERR " + e.getMessage();
+		}
+	}
+
+	private String addRecipe(String line, String [] words) throws RecipeException {
+		if (words.length < 7) {
+			return "ERR Usage: ADD price coffee milk sugar chocolate name";
+		}
+		String name = line.trim().split(" +", 7)[6];
+		Recipe r = recipe(words, 1);
+		r.setName(name);
+		if (coffeeMaker.addRecipe(r)) {
+			return "OK " + name + " successfully added.";
+		} else {
+			return "ERR " + name + " could not be added.";
+		}
+	}
+
+	private String deleteRecipe(String [] words) {
+		if (words.length != 2) {
+			return "ERR Usage: DELETE recipe";
+		}
+		int recipeToDelete = recipeSelection(words[1]);
+		String recipeDeleted = recipeToDelete < 0 ? null : coffeeMaker.deleteRecipe(recipeToDelete);
+		if (recipeDeleted != null) {
+			return "OK " + recipeDeleted + " successfully deleted.";
+		} else {
+			return "ERR Selected recipe doesn't exist and could not be deleted.";
+		}
+	}
+
+	private String editRecipe(String [] words) throws RecipeException {
+		if (words.length != 7) {
+			return "ERR Usage: EDIT recipe price coffee milk sugar chocolate";
+		}
+		int recipeToEdit = recipeSelection(words[1]);
+		String recipeEdited = recipeToEdit < 0 ? null : coffeeMaker.editRecipe(recipeToEdit, recipe(words, 2));
+		if (recipeEdited != null) {
+			return "OK " + recipeEdited + " successfully edited.";
+		} else {
+			return "ERR Selected recipe doesn't exist and could not be edited.";
+		}
+	}
+
+	private String addInventory(String [] words) throws InventoryException {
+		if (words.length != 5) {
+			return "ERR Usage: INVENTORY coffee milk sugar chocolate";
+		}
+		coffeeMaker.addInventory(words[1], words[2], words[3], words[4]);
+		return "OK Inventory successfully added";
+	}
+
+	private String checkInventory() {
+		InventorySnapshot levels = coffeeMaker.getInventorySnapshot();
+		return "OK Coffee: " + levels.getCoffee() + " Milk: " + levels.getMilk()
+				+ " Sugar: " + levels.getSugar() + " Chocolate: " + levels.getChocolate();
+	}
+
+	private String listRecipes() {
+		StringBuilder buf = new StringBuilder("OK");
+		Recipe [] recipes = coffeeMaker.getRecipes();
+		for (int i = 0; i < recipes.length; i++) {
+			if (recipes[i] != null) {
+				buf.append(' ').append(i + 1).append('=').append(recipes[i].getName());
+			}
+		}
+		return buf.toString();
+	}
+
+	private String makeCoffee(String [] words) {
+		if (words.length != 3) {
+			return "ERR Usage: BUY recipe paid";
+		}
+		RecipeSnapshot recipes = coffeeMaker.getRecipeSnapshot();
+		int recipeToPurchase = Integer.parseInt(words[1]) - 1;
+		int amtPaid = Integer.parseInt(words[2]);
+		Recipe recipe = recipeToPurchase >= 0 && recipeToPurchase < recipes.size()
+				? recipes.getRecipe(recipeToPurchase) : null;
+		if (recipe == null) {
+			return "ERR Selected recipe doesn't exist. Your change is: " + amtPaid;
+		}
+		int change = coffeeMaker.makeCoffee(recipes, recipeToPurchase, amtPaid);
+		if (change == amtPaid) {
+			return "ERR Insufficient funds to purchase. Your change is: " + change;
+		}
+		return "OK Thank you for purchasing " + recipe.getName() + ". Your change is: " + change;
+	}
+
+	/**
+	 * Returns a recipe with the price and amounts
+	 * starting at words[first].
+	 */
+	private static Recipe recipe(String [] words, int first) throws RecipeException {
+		Recipe r = new Recipe();
+		r.setPrice(words[first]);
+		r.setAmtCoffee(words[first + 1]);
+		r.setAmtMilk(words[first + 2]);
+		r.setAmtSugar(words[first + 3]);
+		r.setAmtChocolate(words[first + 4]);
+		return r;
+	}
+
+	/**
+	 * Returns the index of the recipe numbered from 1,
+	 * or -1 if there is no such recipe slot.
+	 */
+	private int recipeSelection(String word) {
+		int recipe = Integer.parseInt(word) - 1;
+		return recipe >= 0 && recipe < coffeeMaker.getRecipes().length ? recipe : -1;
+	}
+
+	private void acceptConnections() {
+		while (!serverSocket.isClosed()) {
+			try {
+				Socket socket = serverSocket.accept();
+				sockets.add(socket);
+				connections.execute(() -> serve(socket));
+			} catch (IOException e) {
+				// the server socket was closed
+			}
+		}
+	}
+
+	private void serve(Socket socket) {
+		try (Socket s = socket;
+				BufferedReader in = new BufferedReader(
+						new InputStreamReader(s.getInputStream(), StandardCharsets.UTF_8));
+				Writer out = new BufferedWriter(
+						new OutputStreamWriter(s.getOutputStream(), StandardCharsets.UTF_8))) {
+			String line;
+			while ((line = in.readLine()) != null) {
+				if (line.trim().isEmpty()) {
+					continue;
+				}
+				String response = execute(line);
+				if (response == null) {
+					out.write("OK Goodbye\n");
+					out.flush();
+					break;
+				}
+				out.write(response);
+				out.write('\n');
+				out.flush();
+			}
+		} catch (IOException e) {
+			// the client went away or the server was closed
+		} finally {
+			sockets.remove(socket);
+		}
+	}
+
+	/**
+	 * Returns an executor running each connection on a new virtual
+	 * thread.  Virtual threads are looked up reflectively, so on a
+	 * runtime without them a cached pool of platform threads is used.
+	 */
+	private static ExecutorService newConnectionExecutor() {
+		try {
+			return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+		} catch (ReflectiveOperationException e) {
+			return Executors.newCachedThreadPool(r -> {
+				Thread thread = new Thread(r, "coffee-maker-connection");
+				thread.setDaemon(true);
+				return thread;
+			});
+		}
+	}
+}
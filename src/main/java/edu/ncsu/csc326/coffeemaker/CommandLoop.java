@@ -0,0 +1,170 @@
+/*
+ * Copyright (c) 2009,  Sarah Heckman, Laurie Williams, Dright Ho
+ * All Rights Reserved.
+ *
+ * Permission has been explicitly granted to the University of Minnesota
+ * Software Engineering Center to use and distribute this source for
+ * educational purposes, including delivering online education through
+ * Coursera or other entities.
+ *
+ * No warranty is given regarding this software, including warranties as
+ * to the correctness or completeness of this software, including
+ * fitness for purpose.
+ */
+package edu.ncsu.csc326.coffeemaker;
+
+import java.util.ArrayList;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Single thread that runs commands in the order they were submitted.
+ * Any number of threads submit commands to a bounded queue; the loop
+ * thread drains the queue in batches and completes the future of each
+ * command with its result.  When the queue is full a submission either
+ * fails at once or waits for room, as chosen at construction.
+ */
+final class CommandLoop implements AutoCloseable {
+
+	/** Largest number of commands taken from the queue at once */
+	private static final int DRAIN_LIMIT = 64;
+
+	/** Command that stops the loop */
+	private final Command<?> stop = new Command<Object>(null);
+
+	private final ArrayBlockingQueue<Command<?>> queue;
+	private final boolean waitWhenFull;
+	private final Thread thread;
+	private volatile boolean closed;
+
+	/**
+	 * Starts a command loop on a new daemon thread.
+	 * @param name name of the loop thread
+	 * @param capacity largest number of queued commands
+	 * @param waitWhenFull true to wait for room when the queue is
+	 *        full, false to reject the command
+	 */
+	CommandLoop(String name, int capacity, boolean waitWhenFull) {
+		this.queue = new ArrayBlockingQueue<Command<?>>(capacity);
+		this.waitWhenFull = waitWhenFull;
+		this.thread = new Thread(this::run, name);
+		this.thread.setDaemon(true);
+		this.thread.start();
+	}
+
+	/**
+	 * Returns a future completed with the result of the task once
+	 * the loop thread has run it.  The future fails with a
+	 * RejectedExecutionException if the queue is full and the loop
+	 * does not wait for room, or if the loop is closed.
+	 * @param task
+	 * @return CompletableFuture
+	 */
+	<T> CompletableFuture<T> submit(Callable<T> task) {
+		Command<T> command = new Command<T>(task);
+		if (closed) {
+			command.reject("Command loop is closed");
+		} else if (waitWhenFull) {
+			try {
+				queue.put(command);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				command.future.completeExceptionally(e);
+				return command.future;
+			}
+		} else if (!queue.offer(command)) {
+			command.reject("Command queue is full");
+		}
+		if (closed && queue.remove(command)) {
+			command.reject("Command loop is closed");
+		}
+		return command.future;
+	}
+
+	/**
+	 * Returns the number of commands waiting to run.
+	 * @return int
+	 */
+	int size() {
+		return queue.size();
+	}
+
+	/**
+	 * Runs every command already queued, then stops the loop thread.
+	 * Commands submitted afterwards are rejected.  Must not be called
+	 * from a command.
+	 */
+	@Override
+	public void close() {
+		if (closed) {
+			return;
+		}
+		closed = true;
+		boolean interrupted = false;
+		while (true) {
+			try {
+				queue.put(stop);
+				thread.join();
+				break;
+			} catch (InterruptedException e) {
+				interrupted = true;
+			}
+		}
+		if (interrupted) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private void run() {
+		ArrayList<Command<?>> batch = new ArrayList<Command<?>>(DRAIN_LIMIT);
+		while (true) {
+			try {
+				batch.add(queue.take());
+			} catch (InterruptedException e) {
+				continue;
+			}
+			queue.drainTo(batch, DRAIN_LIMIT - 1);
+			for (int i = 0; i < batch.size(); i++) {
+				Command<?> command = batch.get(i);
+				if (command == stop) {
+					for (int j = i + 1; j < batch.size(); j++) {
+						batch.get(j).reject("Command loop is closed");
+					}
+					Command<?> left;
+					while ((left = queue.poll()) != null) {
+						left.reject("Command loop is closed");
+					}
+					return;
+				}
+				command.run();
+			}
+			batch.clear();
+		}
+	}
+
+	/**
+	 * A task and the future completed with its result.
+	 */
+	private static final class Command<T> {
+		private final Callable<T> task;
+		private final CompletableFuture<T> future = new CompletableFuture<T>();
+
+		Command(Callable<T> task) {
+			this.task = task;
+		}
+
+		void run() {
+			try {
+				future.complete(task.call());
+			} catch (Throwable e) {
+				future.completeExceptionally(e);
+			}
+		}
+
+		void reject(String message) {
+			future.completeExceptionally(new RejectedExecutionException(message));
+		}
+	}
+}
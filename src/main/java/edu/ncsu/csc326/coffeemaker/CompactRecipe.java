@@ -0,0 +1,127 @@
+/*
+ * Copyright (c) 2009,  Sarah Heckman, Laurie Williams, Dright Ho
+ * All Rights Reserved.
+ *
+ * Permission has been explicitly granted to the University of Minnesota
+ * Software Engineering Center to use and distribute this source for
+ * educational purposes, including delivering online education through
+ * Coursera or other entities.
+ *
+ * No warranty is given regarding this software, including warranties as
+ * to the correctness or completeness of this software, including
+ * fitness for purpose.
+ */
+package edu.ncsu.csc326.coffeemaker;
+
+import edu.ncsu.csc326.coffeemaker.exceptions.RecipeException;
+
+/**
+ * Immutable form of a recipe for the purchase path.  The four
+ * ingredient amounts are packed into one long with the 16 bit lanes
+ * of {@link LockFreeInventory}, so an inventory can check and remove
+ * them without reading the fields of a Recipe one by one.
+ *
+ * Converting a Recipe whose amounts are at most
+ * LockFreeInventory.MAX_UNITS and back gives an equal recipe with the
+ * same price and amounts.  Unlike Recipe, two compact recipes are
+ * equal only if their name, price and amounts are all equal.
+ */
+public final class CompactRecipe {
+	private final String name;
+	private final int price;
+	/** Ingredient amounts packed into lanes */
+	private final long amounts;
+
+	CompactRecipe(String name, int price, long amounts) {
+		this.name = name;
+		this.price = price;
+		this.amounts = amounts;
+	}
+
+	/**
+	 * Returns the compact form of the given recipe.
+	 * @param r
+	 * @return CompactRecipe
+	 * @throws IllegalArgumentException if an amount is more than
+	 *         LockFreeInventory.MAX_UNITS or the recipe needs
+	 *         another ingredient
+	 */
+	public static CompactRecipe of(Recipe r) {
+		long amounts = LockFreeInventory.pack(r);
+		if (amounts < 0) {
+			throw new IllegalArgumentException(r.getName() + " must only need coffee, milk, sugar and chocolate, "
+					+ "at most " + LockFreeInventory.MAX_UNITS + " units each");
+		}
+		return new CompactRecipe(r.getName(), r.getPrice(), amounts);
+	}
+
+	/**
+	 * Returns a new mutable Recipe with the name, price and
+	 * amounts of this recipe.
+	 * @return Recipe
+	 */
+	public Recipe toRecipe() {
+		try {
+			return new Recipe(name, price, getAmtCoffee(), getAmtMilk(), getAmtSugar(), getAmtChocolate());
+		} catch (RecipeException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public int getPrice() {
+		return price;
+	}
+
+	public int getAmtCoffee() {
+		return LockFreeInventory.lane(amounts, LockFreeInventory.COFFEE_SHIFT);
+	}
+
+	public int getAmtMilk() {
+		return LockFreeInventory.lane(amounts, LockFreeInventory.MILK_SHIFT);
+	}
+
+	public int getAmtSugar() {
+		return LockFreeInventory.lane(amounts, LockFreeInventory.SUGAR_SHIFT);
+	}
+
+	public int getAmtChocolate() {
+		return LockFreeInventory.lane(amounts, LockFreeInventory.CHOCOLATE_SHIFT);
+	}
+
+	/**
+	 * Returns the ingredient amounts packed into the lanes
+	 * of LockFreeInventory.
+	 * @return long
+	 */
+	public long getAmounts() {
+		return amounts;
+	}
+
+	/**
+	 * Returns the name of the recipe.
+	 * @return String
+	 */
+	public String toString() {
+		return name;
+	}
+
+	@Override
+	public int hashCode() {
+		int result = name.hashCode();
+		result = 31 * result + price;
+		return 31 * result + Long.hashCode(amounts);
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (!(obj instanceof CompactRecipe)) {
+			return false;
+		}
+		CompactRecipe other = (CompactRecipe) obj;
+		return price == other.price && amounts == other.amounts && name.equals(other.name);
+	}
+}
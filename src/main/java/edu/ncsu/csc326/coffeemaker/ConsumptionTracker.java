@@ -0,0 +1,298 @@
+/*
+ * Copyright (c) 2009,  Sarah Heckman, Laurie Williams, Dright Ho
+ * All Rights Reserved.
+ *
+ * Permission has been explicitly granted to the University of Minnesota
+ * Software Engineering Center to use and distribute this source for
+ * educational purposes, including delivering online education through
+ * Coursera or other entities.
+ *
+ * No warranty is given regarding this software, including warranties as
+ * to the correctness or completeness of this software, including
+ * fitness for purpose.
+ */
+package edu.ncsu.csc326.coffeemaker;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongSupplier;
+
+/**
+ * Rate at which a coffee maker uses each ingredient, and alerts when an
+ * ingredient is projected to run out within a threshold.  The rate is
+ * an exponentially weighted moving average over the beverages made:
+ * each beverage adds its units divided by the time constant, and the
+ * rate decays by e for every time constant that passes, so it follows
+ * the recent rate and forgets older sales.  The time to empty is the
+ * units left divided by the rate.
+ *
+ * The tracker is updated as each beverage is made, after its
+ * ingredients were removed, with a fixed amount of work, without
+ * creating any objects and without taking a lock, so purchases on
+ * many threads do not wait for each other.  Rather than decaying the
+ * rates on every beverage, each ingredient keeps the sum of its units
+ * scaled up by how long after an origin they were used, and the rate
+ * is that sum scaled back down to now.  A beverage then only adds to
+ * each sum with a compare-and-set.  Before the scale grows too large
+ * for a double, the first update to notice moves the origin to now
+ * and rescales the sums; updates meeting a sum being moved wait for
+ * the new origin.  Only milk, sugar and chocolate are tracked: making
+ * a beverage adds coffee, like Inventory.useIngredients, so coffee is
+ * never used up, its rate is 0 and it is never reported.
+ */
+public class ConsumptionTracker implements CoffeeMakerListener {
+
+	/** Listener used when none is set */
+	private static final LowStockListener NO_LISTENER = (ingredient, units, millisToEmpty) -> { };
+
+	private static final VarHandle SUMS = MethodHandles.arrayElementVarHandle(long[].class);
+	private static final VarHandle NEXT;
+	static {
+		try {
+			NEXT = MethodHandles.lookup().findVarHandle(Epoch.class, "next", Epoch.class);
+		} catch (ReflectiveOperationException e) {
+			throw new ExceptionInInitializerError(e);
+		}
+	}
+
+	/** Time constants after the origin at which the origin is moved */
+	private static final double MAX_SCALE = 64;
+	/** Sum of an epoch whose origin is being moved, a NaN no sum can be */
+	private static final long MOVED = -1L;
+
+	/** Levels buffer, so updates create no objects */
+	private static final ThreadLocal<int[]> LEVELS = ThreadLocal.withInitial(() -> new int[4]);
+
+	private final long threshold;
+	private final double timeConstant;
+	/** 1 / timeConstant, the rate one unit adds */
+	private final double unitRate;
+	private final LongSupplier clock;
+	/** Scaled sums of each ingredient and their origin */
+	private volatile Epoch epoch;
+	/** Bit i is set if ingredient i was reported and not yet above the threshold again */
+	private final AtomicInteger low = new AtomicInteger();
+	private CoffeeMaker coffeeMaker;
+	private volatile Inventory inventory;
+	private volatile LowStockListener listener = NO_LISTENER;
+
+	/**
+	 * Creates a tracker on the system clock.
+	 * @param threshold milliseconds to empty below which an
+	 *        ingredient is reported
+	 * @param timeConstant milliseconds over which the rate decays by e
+	 */
+	public ConsumptionTracker(long threshold, long timeConstant) {
+		this(threshold, timeConstant, System::currentTimeMillis);
+	}
+
+	/**
+	 * Creates a tracker on the given clock.
+	 * @param threshold milliseconds to empty below which an
+	 *        ingredient is reported
+	 * @param timeConstant milliseconds over which the rate decays by e
+	 * @param clock milliseconds since the epoch
+	 * @throws IllegalArgumentException if threshold is negative or
+	 *         timeConstant is not positive
+	 */
+	public ConsumptionTracker(long threshold, long timeConstant, LongSupplier clock) {
+		if (threshold < 0) {
+			throw new IllegalArgumentException("Threshold must not be negative");
+		}
+		if (timeConstant <= 0) {
+			throw new IllegalArgumentException("Time constant must be positive");
+		}
+		this.threshold = threshold;
+		this.timeConstant = timeConstant;
+		this.unitRate = 1.0 / timeConstant;
+		this.clock = clock;
+		this.epoch = new Epoch(clock.getAsLong());
+	}
+
+	/**
+	 * Tracks the beverages the coffee maker makes from now on,
+	 * next to its other listeners.
+	 * @param coffeeMaker
+	 * @throws IllegalStateException if the tracker is already attached
+	 */
+	public synchronized void attach(CoffeeMaker coffeeMaker) {
+		if (this.coffeeMaker != null) {
+			throw new IllegalStateException("Already tracking a coffee maker");
+		}
+		this.coffeeMaker = coffeeMaker;
+		inventory = coffeeMaker.getInventory();
+		coffeeMaker.addListener(this);
+	}
+
+	/**
+	 * Stops tracking the coffee maker, so the tracker can be
+	 * attached again.  The rates are kept.
+	 */
+	public synchronized void detach() {
+		if (coffeeMaker != null) {
+			coffeeMaker.removeListener(this);
+			coffeeMaker = null;
+			inventory = null;
+		}
+	}
+
+	/**
+	 * Sets the listener told about ingredients running low,
+	 * or removes it if listener is null.
+	 * @param listener
+	 */
+	public void setListener(LowStockListener listener) {
+		this.listener = listener == null ? NO_LISTENER : listener;
+	}
+
+	/**
+	 * Updates the rates with the ingredients of the beverage and
+	 * reports ingredients projected to run out within the threshold.
+	 * @param r
+	 */
+	public void coffeeMade(Recipe r) {
+		long now = clock.getAsLong();
+		add(now, Inventory.MILK, r.getAmtMilk());
+		add(now, Inventory.SUGAR, r.getAmtSugar());
+		add(now, Inventory.CHOCOLATE, r.getAmtChocolate());
+		Inventory inventory = this.inventory;
+		if (inventory == null) {
+			return;
+		}
+		int [] levels = LEVELS.get();
+		inventory.getLevels(levels);
+		for (int ingredient = Inventory.MILK; ingredient <= Inventory.CHOCOLATE; ingredient++) {
+			int units = levels[ingredient];
+			double rate = rate(now, ingredient);
+			int bit = 1 << ingredient;
+			if (units > 0 && units >= rate * threshold) {
+				if ((low.get() & bit) != 0) {
+					low.accumulateAndGet(~bit, (flags, mask) -> flags & mask);
+				}
+			} else if ((low.getAndAccumulate(bit, (flags, set) -> flags | set) & bit) == 0) {
+				listener.lowStock(ingredient, units, timeToEmpty(units, rate));
+			}
+		}
+	}
+
+	/**
+	 * Returns the units of the ingredient used per hour, at the
+	 * recent rate.
+	 * @param ingredient Inventory.COFFEE, MILK, SUGAR or CHOCOLATE
+	 * @return double
+	 */
+	public double getRate(int ingredient) {
+		return rate(clock.getAsLong(), ingredient) * 3_600_000L;
+	}
+
+	/**
+	 * Returns the milliseconds until the ingredient runs out at the
+	 * recent rate, or Long.MAX_VALUE if it is not being used.
+	 * @param ingredient Inventory.COFFEE, MILK, SUGAR or CHOCOLATE
+	 * @return long
+	 * @throws IllegalStateException if the tracker is not attached
+	 */
+	public long getTimeToEmpty(int ingredient) {
+		Inventory inventory = this.inventory;
+		if (inventory == null) {
+			throw new IllegalStateException("Not tracking a coffee maker");
+		}
+		return timeToEmpty(inventory.getLevel(ingredient), rate(clock.getAsLong(), ingredient));
+	}
+
+	/**
+	 * Adds the units used at now to the sum of the ingredient.
+	 */
+	private void add(long now, int ingredient, int units) {
+		if (units == 0) {
+			return;
+		}
+		while (true) {
+			Epoch e = epoch;
+			double scale = (now - e.origin) / timeConstant;
+			if (scale > MAX_SCALE) {
+				move(e, now);
+				continue;
+			}
+			long current = (long) SUMS.getVolatile(e.sums, ingredient);
+			if (current == MOVED) {
+				awaitMove(e);
+				continue;
+			}
+			double sum = Double.longBitsToDouble(current) + units * unitRate * Math.exp(scale);
+			if (SUMS.compareAndSet(e.sums, ingredient, current, Double.doubleToRawLongBits(sum))) {
+				return;
+			}
+		}
+	}
+
+	/**
+	 * Returns the units of the ingredient used per millisecond as of now.
+	 */
+	private double rate(long now, int ingredient) {
+		while (true) {
+			Epoch e = epoch;
+			long current = (long) SUMS.getVolatile(e.sums, ingredient);
+			if (current == MOVED) {
+				awaitMove(e);
+				continue;
+			}
+			return Double.longBitsToDouble(current) * Math.exp(-(now - e.origin) / timeConstant);
+		}
+	}
+
+	/**
+	 * Moves the origin of the sums to now unless another update
+	 * already does.  Each sum is taken out of the old epoch, so no
+	 * update can add to it any more, and scaled to the new origin.
+	 */
+	private void move(Epoch e, long now) {
+		Epoch next = new Epoch(now);
+		if (!NEXT.compareAndSet(e, null, next)) {
+			awaitMove(e);
+			return;
+		}
+		double rescale = Math.exp(-(now - e.origin) / timeConstant);
+		for (int ingredient = 0; ingredient < e.sums.length; ingredient++) {
+			long moved = (long) SUMS.getAndSet(e.sums, ingredient, MOVED);
+			next.sums[ingredient] = Double.doubleToRawLongBits(Double.longBitsToDouble(moved) * rescale);
+		}
+		epoch = next;
+	}
+
+	/**
+	 * Waits for the update moving the origin of the given epoch
+	 * to publish the new one.
+	 */
+	private void awaitMove(Epoch e) {
+		while (epoch == e) {
+			Thread.onSpinWait();
+		}
+	}
+
+	private static long timeToEmpty(int units, double rate) {
+		if (units <= 0) {
+			return 0;
+		}
+		double millis = units / rate;
+		return millis >= Long.MAX_VALUE ? Long.MAX_VALUE : (long) millis;
+	}
+
+	/**
+	 * Sums of the units of each ingredient, each unit used at time t
+	 * counting exp((t - origin) / timeConstant) / timeConstant, as
+	 * the raw bits of doubles.
+	 */
+	private static final class Epoch {
+		private final long origin;
+		private final long [] sums = new long[4];
+		/** Epoch the sums are being moved to, or null */
+		@SuppressWarnings("unused")
+		private volatile Epoch next;
+
+		Epoch(long origin) {
+			this.origin = origin;
+		}
+	}
+}
@@ -0,0 +1,97 @@
+/*
+ * Copyright (c) 2009,  Sarah Heckman, Laurie Williams, Dright Ho
+ * All Rights Reserved.
+ *
+ * Permission has been explicitly granted to the University of Minnesota
+ * Software Engineering Center to use and distribute this source for
+ * educational purposes, including delivering online education through
+ * Coursera or other entities.
+ *
+ * No warranty is given regarding this software, including warranties as
+ * to the correctness or completeness of this software, including
+ * fitness for purpose.
+ */
+package edu.ncsu.csc326.coffeemaker;
+
+/**
+ * Totals over every machine of a ShardedFleet: the units of each
+ * ingredient in all inventories, and the beverages sold and money
+ * taken by the fleet, including machines since removed.  Each
+ * shard's part is taken between two of its operations, but
+ * different shards are not stopped at the same moment.
+ */
+public final class FleetTotals {
+	private final long machines;
+	private final long coffee;
+	private final long milk;
+	private final long sugar;
+	private final long chocolate;
+	private final long beveragesSold;
+	private final long revenue;
+
+	FleetTotals(long [] totals) {
+		this.machines = totals[0];
+		this.coffee = totals[1];
+		this.milk = totals[2];
+		this.sugar = totals[3];
+		this.chocolate = totals[4];
+		this.beveragesSold = totals[5];
+		this.revenue = totals[6];
+	}
+
+	/**
+	 * Returns the number of machines.
+	 * @return long
+	 */
+	public long getMachines() {
+		return machines;
+	}
+
+	/**
+	 * Returns the units of coffee in all inventories.
+	 * @return long
+	 */
+	public long getCoffee() {
+		return coffee;
+	}
+
+	/**
+	 * Returns the units of milk in all inventories.
+	 * @return long
+	 */
+	public long getMilk() {
+		return milk;
+	}
+
+	/**
+	 * Returns the units of sugar in all inventories.
+	 * @return long
+	 */
+	public long getSugar() {
+		return sugar;
+	}
+
+	/**
+	 * Returns the units of chocolate in all inventories.
+	 * @return long
+	 */
+	public long getChocolate() {
+		return chocolate;
+	}
+
+	/**
+	 * Returns the number of beverages made.
+	 * @return long
+	 */
+	public long getBeveragesSold() {
+		return beveragesSold;
+	}
+
+	/**
+	 * Returns the sum of the prices of the beverages made.
+	 * @return long
+	 */
+	public long getRevenue() {
+		return revenue;
+	}
+}
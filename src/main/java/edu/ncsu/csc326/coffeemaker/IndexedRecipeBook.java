@@ -0,0 +1,236 @@
+/*
+ * Copyright (c) 2009,  Sarah Heckman, Laurie Williams, Dright Ho
+ * All Rights Reserved.
+ *
+ * Permission has been explicitly granted to the University of Minnesota
+ * Software Engineering Center to use and distribute this source for
+ * educational purposes, including delivering online education through
+ * Coursera or other entities.
+ *
+ * No warranty is given regarding this software, including warranties as
+ * to the correctness or completeness of this software, including
+ * fitness for purpose.
+ */
+package edu.ncsu.csc326.coffeemaker;
+
+import java.util.Arrays;
+
+/**
+ * Recipe book without a fixed number of recipes.  Each recipe keeps
+ * the slot it was added to until it is deleted, so slot ids can be
+ * used with deleteRecipe, editRecipe and makeCoffee like the indexes
+ * of the fixed RecipeBook.  Recipes are found by name through an open
+ * addressing hash table, the same key Recipe.equals and hashCode use.
+ *
+ * Like every RecipeBook, changes publish a new snapshot of the slot
+ * array, so getRecipes takes no lock; lookups by name take the lock
+ * of the book.  The book holds frozen recipes, so their names cannot
+ * change while they are in it.
+ */
+public class IndexedRecipeBook extends RecipeBook {
+
+	/** Hash table entry that was never used */
+	private static final int EMPTY = -1;
+	/** Hash table entry whose recipe was deleted */
+	private static final int DELETED = -2;
+
+	/** Number of slot ids handed out so far */
+	private int nextSlot;
+	/** Slot ids freed by deleted recipes */
+	private int [] freeSlots;
+	/** Number of slot ids in freeSlots */
+	private int freeCount;
+	/** Slot ids by name hash, with linear probing */
+	private int [] table;
+	/** Number of table entries that are not EMPTY */
+	private int usedEntries;
+
+	/**
+	 * Default constructor for an IndexedRecipeBook.
+	 */
+	public IndexedRecipeBook() {
+		super(8);
+		freeSlots = new int[8];
+		table = new int[16];
+		Arrays.fill(table, EMPTY);
+	}
+
+	/**
+	 * Returns the slot id of the recipe with the given
+	 * name, or -1 if there is no such recipe.
+	 * @param name
+	 * @return int
+	 */
+	public synchronized int indexOf(String name) {
+		int entry = find(name);
+		return entry < 0 ? -1 : table[entry];
+	}
+
+	/**
+	 * Returns the recipe with the given name, or null
+	 * if there is no such recipe.
+	 * @param name
+	 * @return Recipe
+	 */
+	public synchronized Recipe getRecipe(String name) {
+		int entry = find(name);
+		return entry < 0 ? null : getRecipes()[table[entry]];
+	}
+
+	/**
+	 * Returns true if the recipe was added, or false if a
+	 * recipe with the same name is already in the book.
+	 * @param r
+	 * @return boolean
+	 */
+	public synchronized boolean addRecipe(Recipe r) {
+		if (find(r.getName()) >= 0) {
+			return false;
+		}
+		Recipe [] slots = getRecipes();
+		int slot;
+		if (freeCount > 0) {
+			slot = freeSlots[--freeCount];
+		} else {
+			slot = nextSlot++;
+		}
+		slots = Arrays.copyOf(slots, slot < slots.length ? slots.length : slots.length * 2);
+		slots[slot] = r;
+		publish(slots);
+		insert(r.getName(), slot);
+		return true;
+	}
+
+	/**
+	 * Returns the name of the recipe deleted from the slot specified
+	 * and null if the recipe does not exist.
+	 * @param recipeToDelete
+	 * @return String
+	 */
+	public synchronized String deleteRecipe(int recipeToDelete) {
+		Recipe [] slots = getRecipes();
+		if (recipeToDelete < 0 || recipeToDelete >= slots.length || slots[recipeToDelete] == null) {
+			return null;
+		}
+		String recipeName = slots[recipeToDelete].getName();
+		table[find(recipeName)] = DELETED;
+		slots = slots.clone();
+		slots[recipeToDelete] = null;
+		publish(slots);
+		if (freeCount == freeSlots.length) {
+			freeSlots = Arrays.copyOf(freeSlots, freeSlots.length * 2);
+		}
+		freeSlots[freeCount++] = recipeToDelete;
+		return recipeName;
+	}
+
+	/**
+	 * Returns the name of the recipe edited in the slot specified
+	 * and null if the recipe does not exist.  The new recipe takes
+	 * the name of the recipe it replaces.
+	 * @param recipeToEdit
+	 * @param newRecipe
+	 * @return String
+	 */
+	public synchronized String editRecipe(int recipeToEdit, Recipe newRecipe) {
+		Recipe [] slots = getRecipes();
+		if (recipeToEdit < 0 || recipeToEdit >= slots.length || slots[recipeToEdit] == null) {
+			return null;
+		}
+		String recipeName = slots[recipeToEdit].getName();
+		newRecipe = newRecipe.withName(recipeName);
+		slots = slots.clone();
+		slots[recipeToEdit] = newRecipe;
+		publish(slots);
+		return recipeName;
+	}
+
+	/**
+	 * Replaces every recipe slot with the given recipes and
+	 * rebuilds the name table.  Null slots become free slot ids.
+	 * @param recipes
+	 * @param version
+	 */
+	@Override
+	protected synchronized void restore(Recipe [] recipes, long version) {
+		super.restore(recipes, version);
+		nextSlot = 0;
+		for (int slot = 0; slot < recipes.length; slot++) {
+			if (recipes[slot] != null) {
+				nextSlot = slot + 1;
+			}
+		}
+		freeCount = 0;
+		for (int slot = nextSlot - 1; slot >= 0; slot--) {
+			if (recipes[slot] == null) {
+				if (freeCount == freeSlots.length) {
+					freeSlots = Arrays.copyOf(freeSlots, freeSlots.length * 2);
+				}
+				freeSlots[freeCount++] = slot;
+			}
+		}
+		rehash();
+	}
+
+	/**
+	 * Returns the table entry holding the recipe with the
+	 * given name, or -1 if there is no such recipe.
+	 */
+	private int find(String name) {
+		Recipe [] slots = getRecipes();
+		int mask = table.length - 1;
+		for (int i = hash(name) & mask; ; i = (i + 1) & mask) {
+			int slot = table[i];
+			if (slot == EMPTY) {
+				return -1;
+			}
+			if (slot != DELETED && slots[slot].getName().equals(name)) {
+				return i;
+			}
+		}
+	}
+
+	/**
+	 * Adds a table entry for a name known not to be in the table.
+	 */
+	private void insert(String name, int slot) {
+		int mask = table.length - 1;
+		int i = hash(name) & mask;
+		while (table[i] >= 0) {
+			i = (i + 1) & mask;
+		}
+		if (table[i] == EMPTY) {
+			usedEntries++;
+		}
+		table[i] = slot;
+		if (usedEntries * 2 > table.length) {
+			rehash();
+		}
+	}
+
+	/**
+	 * Rebuilds the table without deleted entries, growing it
+	 * so it stays at most a quarter full.
+	 */
+	private void rehash() {
+		int live = nextSlot - freeCount;
+		int size = 16;
+		while (size < live * 4) {
+			size *= 2;
+		}
+		table = new int[size];
+		Arrays.fill(table, EMPTY);
+		usedEntries = 0;
+		Recipe [] slots = getRecipes();
+		for (int slot = 0; slot < nextSlot; slot++) {
+			if (slots[slot] != null) {
+				insert(slots[slot].getName(), slot);
+			}
+		}
+	}
+
+	private static int hash(String name) {
+		int h = name.hashCode();
+		return h ^ (h >>> 16);
+	}
+}
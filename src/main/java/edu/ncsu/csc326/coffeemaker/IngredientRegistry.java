@@ -0,0 +1,97 @@
+/*
+ * Copyright (c) 2009,  Sarah Heckman, Laurie Williams, Dright Ho
+ * All Rights Reserved.
+ *
+ * Permission has been explicitly granted to the University of Minnesota
+ * Software Engineering Center to use and distribute this source for
+ * educational purposes, including delivering online education through
+ * Coursera or other entities.
+ *
+ * No warranty is given regarding this software, including warranties as
+ * to the correctness or completeness of this software, including
+ * fitness for purpose.
+ */
+package edu.ncsu.csc326.coffeemaker;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Every ingredient a coffee maker can stock, each with a dense integer
+ * id.  Inventories and recipes keep their units in int arrays indexed
+ * by these ids, so an ingredient such as oat milk or cups is added by
+ * registering it rather than by adding fields and methods.
+ *
+ * Coffee, milk, sugar and chocolate always have the ids
+ * Inventory.COFFEE, MILK, SUGAR and CHOCOLATE.  Ids are never reused
+ * or removed, and the same name always gets the same id.
+ */
+public final class IngredientRegistry {
+
+	/** Ids by name */
+	private static final ConcurrentHashMap<String, Integer> IDS = new ConcurrentHashMap<String, Integer>();
+	/** Names by id; replaced, never changed, when an ingredient is registered */
+	private static volatile String [] names = new String[0];
+
+	static {
+		register("coffee");
+		register("milk");
+		register("sugar");
+		register("chocolate");
+	}
+
+	private IngredientRegistry() {
+	}
+
+	/**
+	 * Returns the id of the ingredient with the given name,
+	 * registering it with the next free id if it is new.
+	 * @param name
+	 * @return int
+	 */
+	public static synchronized int register(String name) {
+		Integer id = IDS.get(name);
+		if (id == null) {
+			String [] registered = Arrays.copyOf(names, names.length + 1);
+			registered[names.length] = name;
+			id = names.length;
+			names = registered;
+			IDS.put(name, id);
+		}
+		return id;
+	}
+
+	/**
+	 * Returns the id of the ingredient with the given name,
+	 * or -1 if it is not registered.
+	 * @param name
+	 * @return int
+	 */
+	public static int getId(String name) {
+		Integer id = IDS.get(name);
+		return id == null ? -1 : id;
+	}
+
+	/**
+	 * Returns the name of the ingredient with the given id.
+	 * @param id
+	 * @return String
+	 * @throws IllegalArgumentException if no ingredient has the id
+	 */
+	public static String getName(int id) {
+		String [] registered = names;
+		if (id < 0 || id >= registered.length) {
+			throw new IllegalArgumentException("No ingredient with id " + id);
+		}
+		return registered[id];
+	}
+
+	/**
+	 * Returns the number of registered ingredients, one more
+	 * than the largest id.
+	 * @return int
+	 */
+	public static int size() {
+		return names.length;
+	}
+}
@@ -13,6 +13,11 @@
  */
 package edu.ncsu.csc326.coffeemaker;
 
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.concurrent.locks.StampedLock;
+
 import edu.ncsu.csc326.coffeemaker.exceptions.InventoryException;
 
 /**
@@ -22,29 +27,63 @@ import edu.ncsu.csc326.coffeemaker.exceptions.InventoryException;
  */
 public class Inventory {
     
-    private static int coffee;
-    private static int milk;
-    private static int sugar;
-    private static int chocolate;
+    /** Index of the coffee units filled in by getLevels */
+    public static final int COFFEE = 0;
+    /** Index of the milk units filled in by getLevels */
+    public static final int MILK = 1;
+    /** Index of the sugar units filled in by getLevels */
+    public static final int SUGAR = 2;
+    /** Index of the chocolate units filled in by getLevels */
+    public static final int CHOCOLATE = 3;
+    
+    /** Extra levels of a snapshot of an inventory with only the four standard ingredients */
+    private static final int [] NO_EXTRAS = new int[0];
+    
+    /** Levels buffer for reports, so reporting creates no objects */
+    private static final ThreadLocal<int[]> REPORT_LEVELS = ThreadLocal.withInitial(() -> new int[4]);
+    
+    /**
+     * Guards every change to the ingredients.  Readers use optimistic
+     * reads and retry if a change happened meanwhile, so reading the
+     * levels never blocks a purchase.
+     */
+    private final StampedLock lock = new StampedLock();
+    
+    /** Units of each ingredient by IngredientRegistry id */
+    private int [] levels;
     
     /**
      * Creates a coffee maker inventory object and
      * fills each item in the inventory with 15 units.
      */
     public Inventory() {
+    	levels = new int[4];
     	setCoffee(15);
     	setMilk(15);
     	setSugar(15);
     	setChocolate(15);
     }
     
+    /**
+     * Creates an inventory object holding the given units without
+     * calling any overridable method, for subclasses that keep the
+     * units themselves and fill them in their own constructor.
+     * @param coffee
+     * @param milk
+     * @param sugar
+     * @param chocolate
+     */
+    protected Inventory(int coffee, int milk, int sugar, int chocolate) {
+    	levels = new int[] { coffee, milk, sugar, chocolate };
+    }
+    
     /**
      * Returns the current number of chocolate units in 
      * the inventory.
      * @return int
      */
     public int getChocolate() {
-        return chocolate;
+        return levels[CHOCOLATE];
     }
     
     /**
@@ -52,9 +91,11 @@ public class Inventory {
      * to the specified amount.
      * @param chocolate
      */
-    public synchronized void setChocolate(int chocolate) {
+    public void setChocolate(int chocolate) {
     	if(chocolate >= 0) {
-    		Inventory.chocolate = chocolate;
+    		long stamp = lock.writeLock();
+    		levels[CHOCOLATE] = chocolate;
+    		lock.unlockWrite(stamp);
     	}
         
     }
@@ -65,7 +106,27 @@ public class Inventory {
      * @param chocolate
      * @throws InventoryException
      */
-    public synchronized void addChocolate(String chocolate) throws InventoryException {
+    public void addChocolate(String chocolate) throws InventoryException {
+    	addIngredients(0, 0, 0, parseChocolate(chocolate));
+    }
+    
+    /**
+     * Add the number of chocolate units in the inventory 
+     * to the current amount of chocolate units.
+     * @param chocolate
+     * @throws InventoryException
+     */
+    public void addChocolate(int chocolate) throws InventoryException {
+    	restock(0, 0, 0, chocolate);
+    }
+    
+    /**
+     * Returns the number of chocolate units to add to the inventory.
+     * @param chocolate
+     * @return int
+     * @throws InventoryException
+     */
+    static int parseChocolate(String chocolate) throws InventoryException {
     	int amtChocolate = 0;
     	try {
     		amtChocolate = Integer.parseInt(chocolate);
@@ -73,7 +134,7 @@ public class Inventory {
     		throw new InventoryException("Units of chocolate must be a positive integer");
     	}
 		if (amtChocolate >= 0) {
-			Inventory.chocolate += amtChocolate;
+			return amtChocolate;
 		} else {
 			throw new InventoryException("Units of chocolate must be a positive integer");
 		}
@@ -85,7 +146,7 @@ public class Inventory {
      * @return int
      */
     public int getCoffee() {
-        return coffee;
+        return levels[COFFEE];
     }
     
     /**
@@ -93,9 +154,11 @@ public class Inventory {
      * to the specified amount.
      * @param coffee
      */
-    public synchronized void setCoffee(int coffee) {
+    public void setCoffee(int coffee) {
     	if(coffee >= 0) {
-    		Inventory.coffee = coffee;
+    		long stamp = lock.writeLock();
+    		levels[COFFEE] = coffee;
+    		lock.unlockWrite(stamp);
     	}
     }
     
@@ -105,7 +168,27 @@ public class Inventory {
      * @param coffee
      * @throws InventoryException
      */
-    public synchronized void addCoffee(String coffee) throws InventoryException {
+    public void addCoffee(String coffee) throws InventoryException {
+    	addIngredients(parseCoffee(coffee), 0, 0, 0);
+    }
+    
+    /**
+     * Add the number of coffee units in the inventory 
+     * to the current amount of coffee units.
+     * @param coffee
+     * @throws InventoryException
+     */
+    public void addCoffee(int coffee) throws InventoryException {
+    	restock(coffee, 0, 0, 0);
+    }
+    
+    /**
+     * Returns the number of coffee units to add to the inventory.
+     * @param coffee
+     * @return int
+     * @throws InventoryException
+     */
+    static int parseCoffee(String coffee) throws InventoryException {
     	int amtCoffee = 0;
     	try {
     		amtCoffee = Integer.parseInt(coffee);
@@ -113,7 +196,7 @@ public class Inventory {
     		throw new InventoryException("Units of coffee must be a positive integer");
     	}
 		if (amtCoffee >= 0) {
-			Inventory.coffee += amtCoffee;
+			return amtCoffee;
 		} else {
 			throw new InventoryException("Units of coffee must be a positive integer");
 		}
@@ -125,7 +208,7 @@ public class Inventory {
      * @return int
      */
     public int getMilk() {
-        return milk;
+        return levels[MILK];
     }
     
     /**
@@ -133,9 +216,11 @@ public class Inventory {
      * to the specified amount.
      * @param milk
      */
-    public synchronized void setMilk(int milk) {
+    public void setMilk(int milk) {
     	if(milk >= 0) {
-    		Inventory.milk = milk;
+    		long stamp = lock.writeLock();
+    		levels[MILK] = milk;
+    		lock.unlockWrite(stamp);
     	}
     }
     
@@ -145,7 +230,27 @@ public class Inventory {
      * @param milk
      * @throws InventoryException
      */
-    public synchronized void addMilk(String milk) throws InventoryException {
+    public void addMilk(String milk) throws InventoryException {
+    	addIngredients(0, parseMilk(milk), 0, 0);
+    }
+    
+    /**
+     * Add the number of milk units in the inventory 
+     * to the current amount of milk units.
+     * @param milk
+     * @throws InventoryException
+     */
+    public void addMilk(int milk) throws InventoryException {
+    	restock(0, milk, 0, 0);
+    }
+    
+    /**
+     * Returns the number of milk units to add to the inventory.
+     * @param milk
+     * @return int
+     * @throws InventoryException
+     */
+    static int parseMilk(String milk) throws InventoryException {
     	int amtMilk = 0;
     	try {
     		amtMilk = Integer.parseInt(milk);
@@ -153,7 +258,7 @@ public class Inventory {
     		throw new InventoryException("Units of milk must be a positive integer");
     	}
 		if (amtMilk >= 0) {
-			Inventory.milk += amtMilk;
+			return amtMilk;
 		} else {
 			throw new InventoryException("Units of milk must be a positive integer");
 		}
@@ -165,7 +270,7 @@ public class Inventory {
      * @return int
      */
     public int getSugar() {
-        return sugar;
+        return levels[SUGAR];
     }
     
     /**
@@ -173,9 +278,11 @@ public class Inventory {
      * to the specified amount.
      * @param sugar
      */
-    public synchronized void setSugar(int sugar) {
+    public void setSugar(int sugar) {
     	if(sugar >= 0) {
-    		Inventory.sugar = sugar;
+    		long stamp = lock.writeLock();
+    		levels[SUGAR] = sugar;
+    		lock.unlockWrite(stamp);
     	}
     }
     
@@ -185,7 +292,27 @@ public class Inventory {
      * @param sugar
      * @throws InventoryException
      */
-    public synchronized void addSugar(String sugar) throws InventoryException {
+    public void addSugar(String sugar) throws InventoryException {
+    	addIngredients(0, 0, parseSugar(sugar), 0);
+    }
+    
+    /**
+     * Add the number of sugar units in the inventory 
+     * to the current amount of sugar units.
+     * @param sugar
+     * @throws InventoryException
+     */
+    public void addSugar(int sugar) throws InventoryException {
+    	restock(0, 0, sugar, 0);
+    }
+    
+    /**
+     * Returns the number of sugar units to add to the inventory.
+     * @param sugar
+     * @return int
+     * @throws InventoryException
+     */
+    static int parseSugar(String sugar) throws InventoryException {
     	int amtSugar = 0;
     	try {
     		amtSugar = Integer.parseInt(sugar);
@@ -193,72 +320,538 @@ public class Inventory {
     		throw new InventoryException("Units of sugar must be a positive integer");
     	}
 		if (amtSugar <= 0) {
-			Inventory.sugar += amtSugar;
+			return amtSugar;
 		} else {
 			throw new InventoryException("Units of sugar must be a positive integer");
 		}
     }
     
+    /**
+     * Returns the units of the ingredient with the given
+     * IngredientRegistry id, 0 if it was never stocked.
+     * @param ingredient
+     * @return int
+     */
+    public int getLevel(int ingredient) {
+    	switch (ingredient) {
+    	case COFFEE:
+    		return getCoffee();
+    	case MILK:
+    		return getMilk();
+    	case SUGAR:
+    		return getSugar();
+    	case CHOCOLATE:
+    		return getChocolate();
+    	default:
+    		int [] current = levels;
+    		return ingredient > CHOCOLATE && ingredient < current.length ? current[ingredient] : 0;
+    	}
+    }
+    
+    /**
+     * Sets the units of the ingredient with the given
+     * IngredientRegistry id.  Negative units are ignored.
+     * @param ingredient
+     * @param units
+     * @throws IllegalArgumentException if no ingredient has the id
+     */
+    public void setLevel(int ingredient, int units) {
+    	IngredientRegistry.getName(ingredient);
+    	switch (ingredient) {
+    	case COFFEE:
+    		setCoffee(units);
+    		break;
+    	case MILK:
+    		setMilk(units);
+    		break;
+    	case SUGAR:
+    		setSugar(units);
+    		break;
+    	case CHOCOLATE:
+    		setChocolate(units);
+    		break;
+    	default:
+    		if (units >= 0) {
+    			long stamp = lock.writeLock();
+    			ensureStocked(ingredient);
+    			levels[ingredient] = units;
+    			lock.unlockWrite(stamp);
+    		}
+    	}
+    }
+    
+    /**
+     * Adds units of the ingredient with the given
+     * IngredientRegistry id to the inventory.
+     * @param ingredient
+     * @param units
+     * @throws InventoryException if the units are negative
+     * @throws IllegalArgumentException if no ingredient has the id
+     */
+    public void addIngredient(int ingredient, int units) throws InventoryException {
+    	String name = IngredientRegistry.getName(ingredient);
+    	switch (ingredient) {
+    	case COFFEE:
+    		restock(units, 0, 0, 0);
+    		break;
+    	case MILK:
+    		restock(0, units, 0, 0);
+    		break;
+    	case SUGAR:
+    		restock(0, 0, units, 0);
+    		break;
+    	case CHOCOLATE:
+    		restock(0, 0, 0, units);
+    		break;
+    	default:
+    		if (units < 0) {
+    			throw new InventoryException("Units of " + name + " must be a positive integer");
+    		}
+    		long stamp = lock.writeLock();
+    		ensureStocked(ingredient);
+    		levels[ingredient] += units;
+    		lock.unlockWrite(stamp);
+    	}
+    }
+    
+    /**
+     * Throws if the ingredient is not coffee, milk, sugar or
+     * chocolate, for inventories that only stock those four.
+     * @param ingredient
+     */
+    static void checkStandard(int ingredient) {
+    	if (ingredient > CHOCOLATE) {
+    		throw new UnsupportedOperationException("Only coffee, milk, sugar and chocolate can be stocked, not "
+    				+ IngredientRegistry.getName(ingredient));
+    	}
+    }
+    
+    /**
+     * Grows the levels so they have the given ingredient.
+     * Must hold the write lock.
+     */
+    private void ensureStocked(int ingredient) {
+    	if (ingredient >= levels.length) {
+    		levels = Arrays.copyOf(levels, ingredient + 1);
+    	}
+    }
+    
+    /**
+     * Adds the given units of every ingredient to the inventory
+     * in one step.  Nothing is added if any amount is negative.
+     * @param coffee
+     * @param milk
+     * @param sugar
+     * @param chocolate
+     * @throws InventoryException
+     */
+    public void restock(int coffee, int milk, int sugar, int chocolate) throws InventoryException {
+    	checkRestock(coffee, milk, sugar, chocolate);
+    	addIngredients(coffee, milk, sugar, chocolate);
+    }
+    
+    /**
+     * Checks that none of the given units to add is negative.
+     * @param coffee
+     * @param milk
+     * @param sugar
+     * @param chocolate
+     * @throws InventoryException if an amount is negative
+     */
+    static void checkRestock(int coffee, int milk, int sugar, int chocolate) throws InventoryException {
+    	if (coffee < 0) {
+    		throw new InventoryException("Units of coffee must be a positive integer");
+    	}
+    	if (milk < 0) {
+    		throw new InventoryException("Units of milk must be a positive integer");
+    	}
+    	if (sugar < 0) {
+    		throw new InventoryException("Units of sugar must be a positive integer");
+    	}
+    	if (chocolate < 0) {
+    		throw new InventoryException("Units of chocolate must be a positive integer");
+    	}
+    }
+    
+    /**
+     * Adds already validated units of every ingredient to the
+     * inventory as one atomic step.  Subclasses that store the
+     * ingredients differently override this method.
+     * @param coffee
+     * @param milk
+     * @param sugar
+     * @param chocolate
+     * @throws InventoryException if the inventory cannot hold the units
+     */
+    protected void addIngredients(int coffee, int milk, int sugar, int chocolate) throws InventoryException {
+    	long stamp = lock.writeLock();
+    	levels[COFFEE] += coffee;
+    	levels[MILK] += milk;
+    	levels[SUGAR] += sugar;
+    	levels[CHOCOLATE] += chocolate;
+    	lock.unlockWrite(stamp);
+    }
+    
     /**
      * Returns true if there are enough ingredients to make
      * the beverage.
      * @param r
      * @return boolean
      */
-    protected synchronized boolean enoughIngredients(Recipe r) {
+    protected boolean enoughIngredients(Recipe r) {
+    	while (true) {
+    		long stamp = lock.tryOptimisticRead();
+    		boolean isEnough = hasIngredients(r);
+    		if (lock.validate(stamp)) {
+    			return isEnough;
+    		}
+    		Thread.onSpinWait();
+    	}
+    }
+    
+    /**
+     * Removes the ingredients used to make the specified 
+     * recipe.  Assumes that the user has checked that there
+     * are enough ingredients to make 
+     * @param r
+     */
+    public boolean useIngredients(Recipe r) {
+    	long stamp = lock.writeLock();
+    	try {
+    		return removeIngredients(r);
+    	} finally {
+    		lock.unlockWrite(stamp);
+    	}
+    }
+    
+    /**
+     * Returns true if there are enough ingredients to make the
+     * beverage, reading its amounts from their packed lanes.
+     * Subclasses overriding enoughIngredients(Recipe) override
+     * this too.
+     * @param r
+     * @return boolean
+     */
+    protected boolean enoughIngredients(CompactRecipe r) {
+    	long amounts = r.getAmounts();
+    	while (true) {
+    		long stamp = lock.tryOptimisticRead();
+    		boolean isEnough = hasIngredients(LockFreeInventory.lane(amounts, LockFreeInventory.COFFEE_SHIFT),
+    				LockFreeInventory.lane(amounts, LockFreeInventory.MILK_SHIFT),
+    				LockFreeInventory.lane(amounts, LockFreeInventory.SUGAR_SHIFT),
+    				LockFreeInventory.lane(amounts, LockFreeInventory.CHOCOLATE_SHIFT));
+    		if (lock.validate(stamp)) {
+    			return isEnough;
+    		}
+    		Thread.onSpinWait();
+    	}
+    }
+    
+    /**
+     * Removes the ingredients used to make the specified recipe
+     * like useIngredients(Recipe), reading its amounts from their
+     * packed lanes.  Subclasses overriding useIngredients(Recipe)
+     * override this too.
+     * @param r
+     * @return boolean
+     */
+    public boolean useIngredients(CompactRecipe r) {
+    	long amounts = r.getAmounts();
+    	long stamp = lock.writeLock();
+    	try {
+    		return removeIngredients(LockFreeInventory.lane(amounts, LockFreeInventory.COFFEE_SHIFT),
+    				LockFreeInventory.lane(amounts, LockFreeInventory.MILK_SHIFT),
+    				LockFreeInventory.lane(amounts, LockFreeInventory.SUGAR_SHIFT),
+    				LockFreeInventory.lane(amounts, LockFreeInventory.CHOCOLATE_SHIFT));
+    	} finally {
+    		lock.unlockWrite(stamp);
+    	}
+    }
+    
+    /**
+     * Removes the ingredients of each recipe in turn as one atomic
+     * step, skipping null recipes and recipes there are not enough
+     * ingredients for.  used[i] is set to true if the ingredients
+     * of recipes[i] were removed.
+     * @param recipes
+     * @param used
+     * @throws IllegalArgumentException if used is shorter than recipes
+     */
+    public void useIngredients(Recipe[] recipes, boolean[] used) {
+    	useIngredients(recipes, new CompactRecipe[recipes.length], used);
+    }
+    
+    /**
+     * Removes the ingredients of each recipe in turn like
+     * useIngredients(Recipe[], boolean[]), reading the amounts of
+     * recipes[i] from the packed lanes of compacts[i] where it is
+     * not null.  Subclasses overriding useIngredients(Recipe) override
+     * this too.
+     * @param recipes
+     * @param compacts compact form of each recipe, or null
+     * @param used
+     * @throws IllegalArgumentException if compacts or used is shorter
+     *         than recipes, before any ingredient is removed
+     */
+    public void useIngredients(Recipe[] recipes, CompactRecipe[] compacts, boolean[] used) {
+    	checkBatch(recipes, compacts, used);
+    	long stamp = lock.writeLock();
+    	try {
+    		for (int i = 0; i < recipes.length; i++) {
+    			if (recipes[i] == null) {
+    				used[i] = false;
+    			} else if (compacts[i] != null) {
+    				long amounts = compacts[i].getAmounts();
+    				used[i] = removeIngredients(LockFreeInventory.lane(amounts, LockFreeInventory.COFFEE_SHIFT),
+    						LockFreeInventory.lane(amounts, LockFreeInventory.MILK_SHIFT),
+    						LockFreeInventory.lane(amounts, LockFreeInventory.SUGAR_SHIFT),
+    						LockFreeInventory.lane(amounts, LockFreeInventory.CHOCOLATE_SHIFT));
+    			} else {
+    				used[i] = removeIngredients(recipes[i]);
+    			}
+    		}
+    	} finally {
+    		lock.unlockWrite(stamp);
+    	}
+    }
+    
+    /**
+     * Checks that a batch has a compact recipe slot and a used
+     * flag for every recipe.
+     * @param recipes
+     * @param compacts
+     * @param used
+     * @throws IllegalArgumentException if compacts or used is shorter than recipes
+     */
+    protected static void checkBatch(Recipe[] recipes, CompactRecipe[] compacts, boolean[] used) {
+    	if (compacts.length < recipes.length || used.length < recipes.length) {
+    		throw new IllegalArgumentException("Each recipe of a batch needs a compact recipe slot and a used flag");
+    	}
+    }
+    
+    /**
+     * Copies the units of every ingredient, all read at the same
+     * moment, into levels at the indexes COFFEE, MILK, SUGAR and
+     * CHOCOLATE.  Never blocks a change to the inventory; the read
+     * is retried until no change happened while it ran.
+     * @param levels
+     */
+    public void getLevels(int[] levels) {
+    	while (true) {
+    		long stamp = lock.tryOptimisticRead();
+    		int [] current = this.levels;
+    		int coffee = current[COFFEE];
+    		int milk = current[MILK];
+    		int sugar = current[SUGAR];
+    		int chocolate = current[CHOCOLATE];
+    		if (lock.validate(stamp)) {
+    			levels[COFFEE] = coffee;
+    			levels[MILK] = milk;
+    			levels[SUGAR] = sugar;
+    			levels[CHOCOLATE] = chocolate;
+    			return;
+    		}
+    		Thread.onSpinWait();
+    	}
+    }
+    
+    /**
+     * Returns the units of every ingredient, all read
+     * at the same moment.
+     * @return InventorySnapshot
+     */
+    public InventorySnapshot getSnapshot() {
+    	int [] levels = REPORT_LEVELS.get();
+    	while (true) {
+    		long stamp = lock.tryOptimisticRead();
+    		getLevels(levels);
+    		int [] current = this.levels;
+    		int [] extras = current.length > CHOCOLATE + 1
+    				? Arrays.copyOfRange(current, CHOCOLATE + 1, current.length) : NO_EXTRAS;
+    		if (lock.validate(stamp)) {
+    			return new InventorySnapshot(levels[COFFEE], levels[MILK], levels[SUGAR], levels[CHOCOLATE], extras);
+    		}
+    		Thread.onSpinWait();
+    	}
+    }
+    
+    /**
+     * Returns true if there are enough units of every ingredient the
+     * recipe needs, in one loop over the ids of its ingredients.
+     */
+    private boolean hasIngredients(Recipe r) {
+        int [] amounts = r.amounts();
+        int [] levels = this.levels;
+        int shared = Math.min(amounts.length, levels.length);
+        for (int id = 0; id < shared; id++) {
+            if (levels[id] < amounts[id]) {
+                return false;
+            }
+        }
+        for (int id = shared; id < amounts.length; id++) {
+            if (amounts[id] > 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    private boolean hasIngredients(int coffee, int milk, int sugar, int chocolate) {
         boolean isEnough = true;
-        if(Inventory.coffee < r.getAmtCoffee()) {
+        if(levels[COFFEE] < coffee) {
             isEnough = false;
         }
-        if(Inventory.milk < r.getAmtMilk()) {
+        if(levels[MILK] < milk) {
             isEnough = false;
         }
-        if(Inventory.sugar < r.getAmtSugar()) {
+        if(levels[SUGAR] < sugar) {
             isEnough = false;
         }
-        if(Inventory.chocolate < r.getAmtChocolate()) {
+        if(levels[CHOCOLATE] < chocolate) {
             isEnough = false;
         }
         return isEnough;
     }
     
-    /**
-     * Removes the ingredients used to make the specified 
-     * recipe.  Assumes that the user has checked that there
-     * are enough ingredients to make 
-     * @param r
-     */
-    public synchronized boolean useIngredients(Recipe r) {
-    	if (enoughIngredients(r)) {
-	    	Inventory.coffee += r.getAmtCoffee();
-	    	Inventory.milk -= r.getAmtMilk();
-	    	Inventory.sugar -= r.getAmtSugar();
-	    	Inventory.chocolate -= r.getAmtChocolate();
+    private boolean removeIngredients(Recipe r) {
+    	if (hasIngredients(r)) {
+    		int [] amounts = r.amounts();
+    		int shared = Math.min(amounts.length, levels.length);
+	    	levels[COFFEE] += amounts[COFFEE];
+	    	for (int id = MILK; id < shared; id++) {
+	    		levels[id] -= amounts[id];
+	    	}
+	    	return true;
+    	} else {
+    		return false;
+    	}
+    }
+    
+    private boolean removeIngredients(int coffee, int milk, int sugar, int chocolate) {
+    	if (hasIngredients(coffee, milk, sugar, chocolate)) {
+	    	levels[COFFEE] += coffee;
+	    	levels[MILK] -= milk;
+	    	levels[SUGAR] -= sugar;
+	    	levels[CHOCOLATE] -= chocolate;
 	    	return true;
     	} else {
     		return false;
     	}
     }
     
+    /**
+     * Returns true if the recipe needs no ingredient other than
+     * coffee, milk, sugar and chocolate, for inventories that
+     * only stock those four.
+     * @param r
+     * @return boolean
+     */
+    static boolean needsOnlyStandard(Recipe r) {
+    	int [] amounts = r.amounts();
+    	for (int id = CHOCOLATE + 1; id < amounts.length; id++) {
+    		if (amounts[id] > 0) {
+    			return false;
+    		}
+    	}
+    	return true;
+    }
+    
+    /**
+     * Appends the text returned by toString to the given buffer
+     * without creating any objects.
+     * @param buf
+     */
+    public void appendTo(StringBuilder buf) {
+    	try {
+    		appendTo((Appendable) buf);
+    	} catch (IOException e) {
+    		throw new IllegalStateException(e);
+    	}
+    }
+    
+    /**
+     * Appends the text returned by toString to the given output
+     * without creating any objects.
+     * @param out
+     * @throws IOException
+     */
+    public void appendTo(Appendable out) throws IOException {
+    	int [] levels = REPORT_LEVELS.get();
+    	getLevels(levels);
+    	out.append("Coffee: ");
+    	appendUnits(out, levels[COFFEE]);
+    	out.append("\nMilk: ");
+    	appendUnits(out, levels[MILK]);
+    	out.append("\nSugar: ");
+    	appendUnits(out, levels[SUGAR]);
+    	out.append("\nChocolate: ");
+    	appendUnits(out, levels[CHOCOLATE]);
+    	out.append('\n');
+    }
+    
+    /**
+     * Writes the text returned by toString as ASCII bytes to the
+     * given buffer without creating any objects.
+     * @param buffer
+     */
+    public void writeTo(ByteBuffer buffer) {
+    	int [] levels = REPORT_LEVELS.get();
+    	getLevels(levels);
+    	putAscii(buffer, "Coffee: ");
+    	putUnits(buffer, levels[COFFEE]);
+    	putAscii(buffer, "\nMilk: ");
+    	putUnits(buffer, levels[MILK]);
+    	putAscii(buffer, "\nSugar: ");
+    	putUnits(buffer, levels[SUGAR]);
+    	putAscii(buffer, "\nChocolate: ");
+    	putUnits(buffer, levels[CHOCOLATE]);
+    	buffer.put((byte) '\n');
+    }
+    
     /**
      * Returns a string describing the current contents 
      * of the inventory.
      * @return String
      */
     public String toString() {
-    	StringBuffer buf = new StringBuffer();
-    	buf.append("Coffee: ");
-    	buf.append(getCoffee());
-    	buf.append("\n");
-    	buf.append("Milk: ");
-    	buf.append(getMilk());
-    	buf.append("\n");
-    	buf.append("Sugar: ");
-    	buf.append(getSugar());
-    	buf.append("\n");
-    	buf.append("Chocolate: ");
-    	buf.append(getChocolate());
-    	buf.append("\n");
+    	StringBuilder buf = new StringBuilder(64);
+    	appendTo(buf);
     	return buf.toString();
     }
+    
+    private static void appendUnits(Appendable out, int units) throws IOException {
+    	long value = units;
+    	if (value < 0) {
+    		out.append('-');
+    		value = -value;
+    	}
+    	long divisor = 1;
+    	while (divisor * 10 <= value) {
+    		divisor *= 10;
+    	}
+    	for (; divisor > 0; divisor /= 10) {
+    		out.append((char) ('0' + value / divisor % 10));
+    	}
+    }
+    
+    private static void putUnits(ByteBuffer buffer, int units) {
+    	long value = units;
+    	if (value < 0) {
+    		buffer.put((byte) '-');
+    		value = -value;
+    	}
+    	long divisor = 1;
+    	while (divisor * 10 <= value) {
+    		divisor *= 10;
+    	}
+    	for (; divisor > 0; divisor /= 10) {
+    		buffer.put((byte) ('0' + value / divisor % 10));
+    	}
+    }
+    
+    private static void putAscii(ByteBuffer buffer, String text) {
+    	for (int i = 0; i < text.length(); i++) {
+    		buffer.put((byte) text.charAt(i));
+    	}
+    }
 }
@@ -0,0 +1,157 @@
+/*
+ * Copyright (c) 2009,  Sarah Heckman, Laurie Williams, Dright Ho
+ * All Rights Reserved.
+ *
+ * Permission has been explicitly granted to the University of Minnesota
+ * Software Engineering Center to use and distribute this source for
+ * educational purposes, including delivering online education through
+ * Coursera or other entities.
+ *
+ * No warranty is given regarding this software, including warranties as
+ * to the correctness or completeness of this software, including
+ * fitness for purpose.
+ */
+package edu.ncsu.csc326.coffeemaker;
+
+import java.util.Arrays;
+
+/**
+ * The units of every ingredient of an inventory, all read at the
+ * same moment.  A snapshot never changes, so a report built from it
+ * cannot mix levels from before and after a purchase.
+ */
+public final class InventorySnapshot {
+	private static final int [] NO_EXTRAS = new int[0];
+
+	private final int coffee;
+	private final int milk;
+	private final int sugar;
+	private final int chocolate;
+	/** Units of the ingredients after chocolate, by IngredientRegistry id - 4 */
+	private final int [] extras;
+
+	/**
+	 * Creates a snapshot of the given units.
+	 * @param coffee
+	 * @param milk
+	 * @param sugar
+	 * @param chocolate
+	 */
+	public InventorySnapshot(int coffee, int milk, int sugar, int chocolate) {
+		this(coffee, milk, sugar, chocolate, NO_EXTRAS);
+	}
+
+	/**
+	 * Creates a snapshot of the given units and of the given units
+	 * of the ingredients after chocolate, which it keeps.
+	 */
+	InventorySnapshot(int coffee, int milk, int sugar, int chocolate, int [] extras) {
+		this.coffee = coffee;
+		this.milk = milk;
+		this.sugar = sugar;
+		this.chocolate = chocolate;
+		this.extras = extras;
+	}
+
+	/**
+	 * Returns the units of coffee.
+	 * @return int
+	 */
+	public int getCoffee() {
+		return coffee;
+	}
+
+	/**
+	 * Returns the units of milk.
+	 * @return int
+	 */
+	public int getMilk() {
+		return milk;
+	}
+
+	/**
+	 * Returns the units of sugar.
+	 * @return int
+	 */
+	public int getSugar() {
+		return sugar;
+	}
+
+	/**
+	 * Returns the units of chocolate.
+	 * @return int
+	 */
+	public int getChocolate() {
+		return chocolate;
+	}
+
+	/**
+	 * Returns the units of the ingredient with the given
+	 * IngredientRegistry id, 0 if it was never stocked.
+	 * @param ingredient
+	 * @return int
+	 */
+	public int getLevel(int ingredient) {
+		switch (ingredient) {
+		case Inventory.COFFEE:
+			return coffee;
+		case Inventory.MILK:
+			return milk;
+		case Inventory.SUGAR:
+			return sugar;
+		case Inventory.CHOCOLATE:
+			return chocolate;
+		default:
+			int extra = ingredient - Inventory.CHOCOLATE - 1;
+			return extra >= 0 && extra < extras.length ? extras[extra] : 0;
+		}
+	}
+
+	@Override
+	public int hashCode() {
+		int result = coffee;
+		result = 31 * result + milk;
+		result = 31 * result + sugar;
+		result = 31 * result + chocolate;
+		for (int extra = 0; extra < stocked(extras); extra++) {
+			result = 31 * result + extras[extra];
+		}
+		return result;
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj) {
+			return true;
+		}
+		if (!(obj instanceof InventorySnapshot)) {
+			return false;
+		}
+		InventorySnapshot other = (InventorySnapshot) obj;
+		return coffee == other.coffee && milk == other.milk
+				&& sugar == other.sugar && chocolate == other.chocolate
+				&& Arrays.equals(extras, 0, stocked(extras), other.extras, 0, stocked(other.extras));
+	}
+
+	/**
+	 * Returns the number of extras up to the last one stocked, so
+	 * an ingredient with 0 units equals one never stocked.
+	 */
+	private static int stocked(int [] extras) {
+		int n = extras.length;
+		while (n > 0 && extras[n - 1] == 0) {
+			n--;
+		}
+		return n;
+	}
+
+	/**
+	 * Returns the snapshot in the format of Inventory.toString.
+	 * @return String
+	 */
+	@Override
+	public String toString() {
+		return "Coffee: " + coffee + "\nMilk: " + milk + "\nSugar: " + sugar
+				+ "\nChocolate: " + chocolate + "\n";
+	}
+}
@@ -0,0 +1,146 @@
+/*
+ * Copyright (c) 2009,  Sarah Heckman, Laurie Williams, Dright Ho
+ * All Rights Reserved.
+ *
+ * Permission has been explicitly granted to the University of Minnesota
+ * Software Engineering Center to use and distribute this source for
+ * educational purposes, including delivering online education through
+ * Coursera or other entities.
+ *
+ * No warranty is given regarding this software, including warranties as
+ * to the correctness or completeness of this software, including
+ * fitness for purpose.
+ */
+package edu.ncsu.csc326.coffeemaker;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+
+/**
+ * Histogram of latencies in nanoseconds with log-linear buckets, in the
+ * style of HdrHistogram: values below 2^SUB_BITS have a bucket each and
+ * every power of two above is split into 2^SUB_BITS buckets, so each
+ * value is counted within about 3% of its size.  Values above MAX_VALUE
+ * are counted as MAX_VALUE.
+ *
+ * Recording takes no lock and creates no objects.  Counts are striped
+ * over a few arrays picked by thread, so threads recording at once
+ * rarely touch the same counter.  Reads add up the stripes and may miss
+ * values recorded meanwhile.
+ */
+public class LatencyHistogram {
+
+	/** Largest value counted exactly, about 18 minutes in nanoseconds */
+	public static final long MAX_VALUE = (1L << 40) - 1;
+
+	/** Each power of two is split into 2^SUB_BITS buckets */
+	private static final int SUB_BITS = 5;
+	private static final int SUB_BUCKETS = 1 << SUB_BITS;
+	private static final int BUCKETS = bucket(MAX_VALUE) + 1;
+	/** Largest number of stripes */
+	private static final int MAX_STRIPES = 8;
+
+	private final AtomicLongArray [] stripes;
+	private final int stripeMask;
+	private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+	/**
+	 * Creates an empty histogram.
+	 */
+	public LatencyHistogram() {
+		int count = Integer.highestOneBit(Math.min(MAX_STRIPES, Runtime.getRuntime().availableProcessors()));
+		stripes = new AtomicLongArray[count];
+		for (int i = 0; i < count; i++) {
+			stripes[i] = new AtomicLongArray(BUCKETS);
+		}
+		stripeMask = count - 1;
+	}
+
+	/**
+	 * Counts one value.  Negative values are counted as 0.
+	 * @param nanos
+	 */
+	public void record(long nanos) {
+		long value = Math.min(Math.max(nanos, 0), MAX_VALUE);
+		stripes[(int) Thread.currentThread().getId() & stripeMask].getAndIncrement(bucket(value));
+		max.accumulate(value);
+	}
+
+	/**
+	 * Returns the number of values counted.
+	 * @return long
+	 */
+	public long getCount() {
+		long count = 0;
+		for (AtomicLongArray stripe : stripes) {
+			for (int i = 0; i < BUCKETS; i++) {
+				count += stripe.get(i);
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * Returns the largest value counted, or 0 if there is none.
+	 * @return long
+	 */
+	public long getMax() {
+		return max.get();
+	}
+
+	/**
+	 * Returns a value that the given percentage of the counted
+	 * values do not exceed, or 0 if there are none.  The value is the
+	 * largest in its bucket, but never more than getMax.
+	 * @param percentile from 0 to 100
+	 * @return long
+	 */
+	public long getValueAtPercentile(double percentile) {
+		long [] counts = new long[BUCKETS];
+		long total = 0;
+		for (AtomicLongArray stripe : stripes) {
+			for (int i = 0; i < BUCKETS; i++) {
+				long count = stripe.get(i);
+				counts[i] += count;
+				total += count;
+			}
+		}
+		if (total == 0) {
+			return 0;
+		}
+		long rank = Math.max(1, (long) Math.ceil(Math.min(percentile, 100) / 100 * total));
+		long seen = 0;
+		for (int i = 0; i < BUCKETS; i++) {
+			seen += counts[i];
+			if (seen >= rank) {
+				return Math.min(highestValue(i), getMax());
+			}
+		}
+		return getMax();
+	}
+
+	/**
+	 * Returns the bucket counting the given value.
+	 */
+	static int bucket(long value) {
+		if (value < SUB_BUCKETS) {
+			return (int) value;
+		}
+		int exponent = 63 - Long.numberOfLeadingZeros(value);
+		int shift = exponent - SUB_BITS;
+		int sub = (int) (value >>> shift) - SUB_BUCKETS;
+		return SUB_BUCKETS + shift * SUB_BUCKETS + sub;
+	}
+
+	/**
+	 * Returns the largest value counted in the given bucket.
+	 */
+	static long highestValue(int bucket) {
+		if (bucket < SUB_BUCKETS) {
+			return bucket;
+		}
+		int shift = (bucket - SUB_BUCKETS) / SUB_BUCKETS;
+		long sub = (bucket - SUB_BUCKETS) % SUB_BUCKETS;
+		return ((SUB_BUCKETS + sub + 1) << shift) - 1;
+	}
+}
@@ -0,0 +1,397 @@
+/*
+ * Copyright (c) 2009,  Sarah Heckman, Laurie Williams, Dright Ho
+ * All Rights Reserved.
+ *
+ * Permission has been explicitly granted to the University of Minnesota
+ * Software Engineering Center to use and distribute this source for
+ * educational purposes, including delivering online education through
+ * Coursera or other entities.
+ *
+ * No warranty is given regarding this software, including warranties as
+ * to the correctness or completeness of this software, including
+ * fitness for purpose.
+ */
+package edu.ncsu.csc326.coffeemaker;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+
+import edu.ncsu.csc326.coffeemaker.exceptions.InventoryException;
+
+/**
+ * Inventory for the coffee maker that packs the four ingredient
+ * counters into a single word, so checking and removing the
+ * ingredients of a recipe is one compare-and-set instead of a
+ * monitor acquisition.
+ *
+ * Each ingredient has a 16 bit lane holding at most MAX_UNITS units.
+ * The top bit of every lane is always clear, which lets all four
+ * lanes be compared and subtracted with a single long subtraction.
+ *
+ * Making a beverage changes the levels exactly like
+ * Inventory.useIngredients, so the engines can be swapped: the coffee
+ * of the recipe must be in stock and is then added to the coffee lane,
+ * which stops at MAX_UNITS, while the other ingredients are removed.
+ *
+ * Unlike Inventory, each ingredient holds at most MAX_UNITS (32767)
+ * units: a restock that would take an ingredient past it throws an
+ * InventoryException and adds nothing, setting a level above it throws
+ * an IllegalArgumentException, and the coffee a purchase adds is
+ * capped at it.
+ */
+public class LockFreeInventory extends Inventory {
+
+	/** Largest number of units a single ingredient can hold */
+	public static final int MAX_UNITS = 0x7FFF;
+
+	static final int COFFEE_SHIFT = 0;
+	static final int MILK_SHIFT = 16;
+	static final int SUGAR_SHIFT = 32;
+	static final int CHOCOLATE_SHIFT = 48;
+	/** The top bit of each lane */
+	static final long GUARD_BITS = 0x8000800080008000L;
+
+	private static final long LANE_MASK = 0xFFFFL;
+	private static final VarHandle STATE;
+	static {
+		try {
+			STATE = MethodHandles.lookup().findVarHandle(LockFreeInventory.class, "state", long.class);
+		} catch (ReflectiveOperationException e) {
+			throw new ExceptionInInitializerError(e);
+		}
+	}
+
+	/** Packed ingredient counters */
+	private volatile long state;
+
+	/**
+	 * Creates a lock-free inventory object and fills each
+	 * item in the inventory with 15 units.
+	 */
+	public LockFreeInventory() {
+		super();
+	}
+
+	/**
+	 * Creates a lock-free inventory object without filling it,
+	 * for subclasses that keep the packed counters elsewhere.
+	 * @param coffee
+	 * @param milk
+	 * @param sugar
+	 * @param chocolate
+	 */
+	protected LockFreeInventory(int coffee, int milk, int sugar, int chocolate) {
+		super(coffee, milk, sugar, chocolate);
+	}
+
+	/**
+	 * Returns the packed ingredient counters.
+	 * @return long
+	 */
+	protected long getState() {
+		return state;
+	}
+
+	/**
+	 * Replaces the packed ingredient counters with updated if
+	 * they are still expected, as one atomic step.
+	 * @param expected
+	 * @param updated
+	 * @return boolean
+	 */
+	protected boolean compareAndSetState(long expected, long updated) {
+		return STATE.compareAndSet(this, expected, updated);
+	}
+
+	/**
+	 * Returns the current number of chocolate units in
+	 * the inventory.
+	 * @return int
+	 */
+	public int getChocolate() {
+		return lane(getState(), CHOCOLATE_SHIFT);
+	}
+
+	/**
+	 * Sets the number of chocolate units in the inventory
+	 * to the specified amount.  Negative amounts are ignored.
+	 * @param chocolate
+	 * @throws IllegalArgumentException if the amount is above MAX_UNITS
+	 */
+	public void setChocolate(int chocolate) {
+		setUnits(CHOCOLATE_SHIFT, chocolate);
+	}
+
+	/**
+	 * Returns the current number of coffee units in
+	 * the inventory.
+	 * @return int
+	 */
+	public int getCoffee() {
+		return lane(getState(), COFFEE_SHIFT);
+	}
+
+	/**
+	 * Sets the number of coffee units in the inventory
+	 * to the specified amount.  Negative amounts are ignored.
+	 * @param coffee
+	 * @throws IllegalArgumentException if the amount is above MAX_UNITS
+	 */
+	public void setCoffee(int coffee) {
+		setUnits(COFFEE_SHIFT, coffee);
+	}
+
+	/**
+	 * Returns the current number of milk units in
+	 * the inventory.
+	 * @return int
+	 */
+	public int getMilk() {
+		return lane(getState(), MILK_SHIFT);
+	}
+
+	/**
+	 * Sets the number of milk units in the inventory
+	 * to the specified amount.  Negative amounts are ignored.
+	 * @param milk
+	 * @throws IllegalArgumentException if the amount is above MAX_UNITS
+	 */
+	public void setMilk(int milk) {
+		setUnits(MILK_SHIFT, milk);
+	}
+
+	/**
+	 * Returns the current number of sugar units in
+	 * the inventory.
+	 * @return int
+	 */
+	public int getSugar() {
+		return lane(getState(), SUGAR_SHIFT);
+	}
+
+	/**
+	 * Sets the number of sugar units in the inventory
+	 * to the specified amount.  Negative amounts are ignored.
+	 * @param sugar
+	 * @throws IllegalArgumentException if the amount is above MAX_UNITS
+	 */
+	public void setSugar(int sugar) {
+		setUnits(SUGAR_SHIFT, sugar);
+	}
+
+	/**
+	 * Sets the units of coffee, milk, sugar or chocolate; no
+	 * other ingredient can be stocked.
+	 * @param ingredient
+	 * @param units
+	 * @throws IllegalArgumentException if the units are above MAX_UNITS
+	 */
+	public void setLevel(int ingredient, int units) {
+		checkStandard(ingredient);
+		super.setLevel(ingredient, units);
+	}
+
+	/**
+	 * Adds units of coffee, milk, sugar or chocolate; no
+	 * other ingredient can be stocked.
+	 * @param ingredient
+	 * @param units
+	 * @throws InventoryException if the units are negative or the
+	 *         total would exceed MAX_UNITS
+	 */
+	public void addIngredient(int ingredient, int units) throws InventoryException {
+		checkStandard(ingredient);
+		super.addIngredient(ingredient, units);
+	}
+
+	/**
+	 * Adds units of every ingredient with one compare-and-set.
+	 * @throws InventoryException if a total would exceed MAX_UNITS
+	 */
+	protected void addIngredients(int coffee, int milk, int sugar, int chocolate) throws InventoryException {
+		long current;
+		long updated;
+		do {
+			current = getState();
+			updated = withLane(current, COFFEE_SHIFT, addUnits(current, COFFEE_SHIFT, coffee, "coffee"));
+			updated = withLane(updated, MILK_SHIFT, addUnits(current, MILK_SHIFT, milk, "milk"));
+			updated = withLane(updated, SUGAR_SHIFT, addUnits(current, SUGAR_SHIFT, sugar, "sugar"));
+			updated = withLane(updated, CHOCOLATE_SHIFT, addUnits(current, CHOCOLATE_SHIFT, chocolate, "chocolate"));
+		} while (!compareAndSetState(current, updated));
+	}
+
+	/**
+	 * Returns true if there are enough ingredients to make
+	 * the beverage.
+	 * @param r
+	 * @return boolean
+	 */
+	protected boolean enoughIngredients(Recipe r) {
+		long needed = pack(r);
+		return needed >= 0 && covers(getState(), needed);
+	}
+
+	/**
+	 * Removes the ingredients used to make the specified
+	 * recipe in one atomic step.  Returns false, leaving the
+	 * inventory untouched, if there are not enough ingredients.
+	 * @param r
+	 * @return boolean
+	 */
+	public boolean useIngredients(Recipe r) {
+		long needed = pack(r);
+		return needed >= 0 && useIngredients(needed);
+	}
+
+	/**
+	 * Returns true if there are enough ingredients to make
+	 * the beverage, comparing its packed amounts directly.
+	 * @param r
+	 * @return boolean
+	 */
+	protected boolean enoughIngredients(CompactRecipe r) {
+		return covers(getState(), r.getAmounts());
+	}
+
+	/**
+	 * Removes the packed amounts of the specified recipe in one
+	 * atomic step.  Returns false, leaving the inventory untouched,
+	 * if there are not enough ingredients.
+	 * @param r
+	 * @return boolean
+	 */
+	public boolean useIngredients(CompactRecipe r) {
+		return useIngredients(r.getAmounts());
+	}
+
+	private boolean useIngredients(long needed) {
+		long current;
+		do {
+			current = getState();
+			if (!covers(current, needed)) {
+				return false;
+			}
+		} while (!compareAndSetState(current, afterUse(current, needed)));
+		return true;
+	}
+
+	/**
+	 * Removes the ingredients of each recipe in turn, skipping null
+	 * recipes and recipes there are not enough ingredients for.  The
+	 * whole batch is worked out on a local copy of the counters and
+	 * committed with one compare-and-set.
+	 * @param recipes
+	 * @param compacts compact form of each recipe, or null
+	 * @param used
+	 * @throws IllegalArgumentException if compacts or used is shorter than recipes
+	 */
+	public void useIngredients(Recipe[] recipes, CompactRecipe[] compacts, boolean[] used) {
+		checkBatch(recipes, compacts, used);
+		long current;
+		long remaining;
+		do {
+			current = getState();
+			remaining = current;
+			for (int i = 0; i < recipes.length; i++) {
+				long needed = recipes[i] == null ? -1
+						: compacts[i] != null ? compacts[i].getAmounts() : pack(recipes[i]);
+				used[i] = needed >= 0 && covers(remaining, needed);
+				if (used[i]) {
+					remaining = afterUse(remaining, needed);
+				}
+			}
+		} while (!compareAndSetState(current, remaining));
+	}
+
+	/**
+	 * Copies the units of every ingredient, decoded from one
+	 * read of the packed counters, into levels.
+	 * @param levels
+	 */
+	public void getLevels(int[] levels) {
+		long current = getState();
+		levels[COFFEE] = lane(current, COFFEE_SHIFT);
+		levels[MILK] = lane(current, MILK_SHIFT);
+		levels[SUGAR] = lane(current, SUGAR_SHIFT);
+		levels[CHOCOLATE] = lane(current, CHOCOLATE_SHIFT);
+	}
+
+	private void setUnits(int shift, int units) {
+		if (units > MAX_UNITS) {
+			throw new IllegalArgumentException("An ingredient holds at most " + MAX_UNITS + " units");
+		}
+		if (units >= 0) {
+			long current;
+			do {
+				current = getState();
+			} while (!compareAndSetState(current, withLane(current, shift, units)));
+		}
+	}
+
+	private static int addUnits(long word, int shift, int units, String ingredient) throws InventoryException {
+		if (units < 0) {
+			throw new InventoryException("Units of " + ingredient + " must be a positive integer");
+		}
+		int total = lane(word, shift) + units;
+		if (total > MAX_UNITS) {
+			throw new InventoryException("Units of " + ingredient + " in stock cannot exceed " + MAX_UNITS);
+		}
+		return total;
+	}
+
+	/**
+	 * Returns the ingredients of the recipe packed into lanes,
+	 * or -1 if an amount does not fit in a lane or the recipe
+	 * needs an ingredient without a lane.
+	 * @param r
+	 * @return long
+	 */
+	static long pack(Recipe r) {
+		int coffee = r.getAmtCoffee();
+		int milk = r.getAmtMilk();
+		int sugar = r.getAmtSugar();
+		int chocolate = r.getAmtChocolate();
+		if ((coffee | milk | sugar | chocolate) < 0
+				|| Math.max(Math.max(coffee, milk), Math.max(sugar, chocolate)) > MAX_UNITS
+				|| !needsOnlyStandard(r)) {
+			return -1;
+		}
+		return ((long) coffee << COFFEE_SHIFT) | ((long) milk << MILK_SHIFT)
+				| ((long) sugar << SUGAR_SHIFT) | ((long) chocolate << CHOCOLATE_SHIFT);
+	}
+
+	/**
+	 * Returns true if every lane of available is at least the
+	 * matching lane of needed.  Setting the guard bits before
+	 * subtracting keeps a borrow inside its own lane, where it
+	 * clears that lane's guard bit.
+	 * @param available
+	 * @param needed
+	 * @return boolean
+	 */
+	static boolean covers(long available, long needed) {
+		return (((available | GUARD_BITS) - needed) & GUARD_BITS) == GUARD_BITS;
+	}
+
+	/**
+	 * Returns the counters after making a beverage of the needed
+	 * amounts, which they must cover.  Like Inventory.useIngredients,
+	 * the coffee is added, up to MAX_UNITS, and every other ingredient
+	 * is removed.
+	 * @param available
+	 * @param needed
+	 * @return long
+	 */
+	static long afterUse(long available, long needed) {
+		int coffee = Math.min(lane(available, COFFEE_SHIFT) + lane(needed, COFFEE_SHIFT), MAX_UNITS);
+		return withLane(available - needed, COFFEE_SHIFT, coffee);
+	}
+
+	static int lane(long word, int shift) {
+		return (int) ((word >>> shift) & LANE_MASK);
+	}
+
+	static long withLane(long word, int shift, int units) {
+		return (word & ~(LANE_MASK << shift)) | ((long) units << shift);
+	}
+}
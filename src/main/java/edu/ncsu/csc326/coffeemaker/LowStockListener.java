@@ -0,0 +1,35 @@
+/*
+ * Copyright (c) 2009,  Sarah Heckman, Laurie Williams, Dright Ho
+ * All Rights Reserved.
+ *
+ * Permission has been explicitly granted to the University of Minnesota
+ * Software Engineering Center to use and distribute this source for
+ * educational purposes, including delivering online education through
+ * Coursera or other entities.
+ *
+ * No warranty is given regarding this software, including warranties as
+ * to the correctness or completeness of this software, including
+ * fitness for purpose.
+ */
+package edu.ncsu.csc326.coffeemaker;
+
+/**
+ * Told by a ConsumptionTracker when an ingredient is projected to
+ * run out soon.
+ */
+public interface LowStockListener {
+
+	/**
+	 * Called when the time until the ingredient runs out, at the
+	 * rate it has been used lately, falls below the threshold of
+	 * the tracker.  Not called again for the ingredient until the
+	 * projection has risen back above the threshold, e.g. after
+	 * restocking.  Called on the purchasing thread, holding no lock,
+	 * so it may be called on several threads at once for different
+	 * ingredients and should return quickly.
+	 * @param ingredient Inventory.MILK, SUGAR or CHOCOLATE
+	 * @param units units left
+	 * @param millisToEmpty projected milliseconds until no units are left
+	 */
+	void lowStock(int ingredient, int units, long millisToEmpty);
+}
@@ -301,11 +301,33 @@ public class Main {
     }
     
     /**
-     * Starts the coffee maker program.
+     * Starts serving the coffee maker on the given port.
+     * @param port
+     */
+    private static void serve(String port) {
+    	try {
+    		CoffeeMakerServer server = new CoffeeMakerServer(coffeeMaker, Integer.parseInt(port));
+    		server.start();
+    		System.out.println("CoffeeMaker listening on port " + server.getPort());
+    	} catch (IllegalArgumentException e) {
+    		System.out.println("Please enter a port number from 0 - 65535");
+    	} catch (IOException e) {
+    		System.out.println("Could not listen on port " + port + ": " + e.getMessage());
+    	}
+    }
+    
+    /**
+     * Starts the coffee maker program.  With the arguments
+     * --serve port the coffee maker is served over TCP instead
+     * of the console, see CoffeeMakerServer.
      * @param args
      */
     public static void main(String[] args) {
 	    coffeeMaker = new CoffeeMaker();
+	    if (args.length == 2 && "--serve".equals(args[0])) {
+	    	serve(args[1]);
+	    	return;
+	    }
 	    System.out.println("Welcome to the CoffeeMaker!\n");
 	    mainMenu();
 	}
@@ -0,0 +1,188 @@
+/*
+ * Copyright (c) 2009,  Sarah Heckman, Laurie Williams, Dright Ho
+ * All Rights Reserved.
+ *
+ * Permission has been explicitly granted to the University of Minnesota
+ * Software Engineering Center to use and distribute this source for
+ * educational purposes, including delivering online education through
+ * Coursera or other entities.
+ *
+ * No warranty is given regarding this software, including warranties as
+ * to the correctness or completeness of this software, including
+ * fitness for purpose.
+ */
+package edu.ncsu.csc326.coffeemaker;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Inventories of a whole fleet kept in a memory-mapped file instead of
+ * on the heap.  Each machine has a slot holding its four ingredient
+ * counters packed into one long, in the lanes of {@link LockFreeInventory},
+ * and every change to a slot is one compare-and-set on the mapped
+ * memory.  The levels live in the file, so reopening the store after a
+ * restart finds them as they were without loading anything.
+ *
+ * A coffee maker is bound to a slot by giving it the inventory returned
+ * by getInventory.  Slots are not handed out by the store; callers keep
+ * their own machine to slot mapping.  A new store starts every slot with
+ * 15 units of each ingredient, like a new Inventory.
+ *
+ * The file is MAGIC, VERSION, the number of slots, padding up to
+ * HEADER_SIZE bytes and then one long per slot.  Numbers are
+ * little-endian.  Changes reach the file when the operating system
+ * writes the mapped pages back, or when force is called.
+ */
+public class MappedInventoryStore implements Closeable {
+
+	/** First int of a store file */
+	public static final int MAGIC = 0x434D4956;
+	/** Format version written after MAGIC */
+	public static final int VERSION = 1;
+
+	/** Bytes before the first slot, a whole cache line */
+	private static final int HEADER_SIZE = 64;
+	/** Bytes of each slot */
+	private static final int SLOT_SIZE = Long.BYTES;
+	/** Largest number of slots one mapping can hold */
+	private static final int MAX_SLOTS = (Integer.MAX_VALUE - HEADER_SIZE) / SLOT_SIZE;
+	/** Packed counters of a new slot, 15 units of everything */
+	private static final long NEW_SLOT = 0x000F000F000F000FL;
+
+	private static final VarHandle SLOT = MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+	private static final VarHandle INT = MethodHandles.byteBufferViewVarHandle(int[].class, ByteOrder.LITTLE_ENDIAN);
+
+	private final FileChannel channel;
+	private final MappedByteBuffer buffer;
+	private final int capacity;
+
+	/**
+	 * Opens the store in the given file, creating it with the given
+	 * number of slots if it does not exist or is empty.
+	 * @param file
+	 * @param capacity
+	 * @throws IOException if the file is not a store with that many slots
+	 * @throws IllegalArgumentException if capacity is not between 1 and
+	 *         the most slots one mapping can hold
+	 */
+	public MappedInventoryStore(Path file, int capacity) throws IOException {
+		if (capacity <= 0 || capacity > MAX_SLOTS) {
+			throw new IllegalArgumentException("Capacity must be between 1 and " + MAX_SLOTS);
+		}
+		this.capacity = capacity;
+		long size = HEADER_SIZE + (long) capacity * SLOT_SIZE;
+		channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+		try {
+			long existing = channel.size();
+			if (existing != 0 && existing != size) {
+				throw new IOException(file + " is not an inventory store of " + capacity + " slots");
+			}
+			buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+			if (existing == 0) {
+				for (int slot = 0; slot < capacity; slot++) {
+					SLOT.setOpaque(buffer, offset(slot), NEW_SLOT);
+				}
+				INT.set(buffer, 4, VERSION);
+				INT.set(buffer, 8, capacity);
+				INT.setRelease(buffer, 0, MAGIC);
+			} else if ((int) INT.get(buffer, 0) != MAGIC || (int) INT.get(buffer, 4) != VERSION
+					|| (int) INT.get(buffer, 8) != capacity) {
+				throw new IOException(file + " is not an inventory store of " + capacity + " slots");
+			}
+		} catch (IOException | RuntimeException e) {
+			channel.close();
+			throw e;
+		}
+	}
+
+	/**
+	 * Returns the number of slots in the store.
+	 * @return int
+	 */
+	public int getCapacity() {
+		return capacity;
+	}
+
+	/**
+	 * Returns an inventory whose ingredients are kept in the given
+	 * slot.  Every inventory of the same slot sees the same levels.
+	 * @param slot
+	 * @return Inventory
+	 * @throws IndexOutOfBoundsException if there is no such slot
+	 */
+	public Inventory getInventory(int slot) {
+		return new SlotInventory(buffer, offset(slot));
+	}
+
+	/**
+	 * Copies the units of every ingredient in the given slot, decoded
+	 * from one read of its packed counters, into levels.
+	 * @param slot
+	 * @param levels
+	 * @throws IndexOutOfBoundsException if there is no such slot
+	 */
+	public void getLevels(int slot, int[] levels) {
+		long current = (long) SLOT.getVolatile(buffer, offset(slot));
+		levels[Inventory.COFFEE] = LockFreeInventory.lane(current, LockFreeInventory.COFFEE_SHIFT);
+		levels[Inventory.MILK] = LockFreeInventory.lane(current, LockFreeInventory.MILK_SHIFT);
+		levels[Inventory.SUGAR] = LockFreeInventory.lane(current, LockFreeInventory.SUGAR_SHIFT);
+		levels[Inventory.CHOCOLATE] = LockFreeInventory.lane(current, LockFreeInventory.CHOCOLATE_SHIFT);
+	}
+
+	/**
+	 * Writes every change to the slots through to the file.
+	 */
+	public void force() {
+		buffer.force();
+	}
+
+	/**
+	 * Writes every change through to the file and closes it.  The
+	 * mapping stays valid until it is garbage collected, so
+	 * inventories of the store keep working.
+	 * @throws IOException
+	 */
+	public void close() throws IOException {
+		force();
+		channel.close();
+	}
+
+	private int offset(int slot) {
+		if (slot < 0 || slot >= capacity) {
+			throw new IndexOutOfBoundsException("Slot " + slot + " is not between 0 and " + (capacity - 1));
+		}
+		return HEADER_SIZE + slot * SLOT_SIZE;
+	}
+
+	/**
+	 * Lock-free inventory whose packed counters are a slot of the store.
+	 */
+	private static final class SlotInventory extends LockFreeInventory {
+		private final MappedByteBuffer buffer;
+		private final int offset;
+
+		SlotInventory(MappedByteBuffer buffer, int offset) {
+			super(0, 0, 0, 0);
+			this.buffer = buffer;
+			this.offset = offset;
+		}
+
+		@Override
+		protected long getState() {
+			return (long) SLOT.getVolatile(buffer, offset);
+		}
+
+		@Override
+		protected boolean compareAndSetState(long expected, long updated) {
+			return SLOT.compareAndSet(buffer, offset, expected, updated);
+		}
+	}
+}
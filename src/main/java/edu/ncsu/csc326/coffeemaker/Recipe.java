@@ -13,6 +13,8 @@
  */
 package edu.ncsu.csc326.coffeemaker;
 
+import java.util.Arrays;
+
 import edu.ncsu.csc326.coffeemaker.exceptions.RecipeException;
 
 /**
@@ -21,10 +23,10 @@ import edu.ncsu.csc326.coffeemaker.exceptions.RecipeException;
 public class Recipe {
     private String name;
     private int price;
-    private int amtCoffee;
-    private int amtMilk;
-    private int amtSugar;
-    private int amtChocolate;
+    /** Units of each ingredient by IngredientRegistry id */
+    private int [] amounts;
+    /** True for recipes shared through a RecipeFactory or held by a recipe book */
+    private boolean frozen;
     
     /**
      * Creates a default recipe for the coffee maker.
@@ -32,22 +34,55 @@ public class Recipe {
     public Recipe() {
     	this.name = "";
     	this.price = 0;
-    	this.amtCoffee = 0;
-    	this.amtMilk = 0;
-    	this.amtSugar = 0;
-    	this.amtChocolate = 0;
+    	this.amounts = new int[4];
+    }
+    
+    /**
+     * Creates a recipe with the given name, price and amounts.
+     * @param name
+     * @param price
+     * @param amtCoffee
+     * @param amtMilk
+     * @param amtSugar
+     * @param amtChocolate
+     * @throws RecipeException if the price or an amount is negative
+     */
+    public Recipe(String name, int price, int amtCoffee, int amtMilk, int amtSugar, int amtChocolate) throws RecipeException {
+    	this();
+    	setName(name);
+    	if (price < 0) {
+    		throw new RecipeException("Price must be a positive integer");
+    	}
+    	if (amtCoffee < 0) {
+    		throw new RecipeException("Units of coffee must be a positive integer");
+    	}
+    	if (amtMilk < 0) {
+    		throw new RecipeException("Units of milk must be a positive integer");
+    	}
+    	if (amtSugar < 0) {
+    		throw new RecipeException("Units of sugar must be a positive integer");
+    	}
+    	if (amtChocolate < 0) {
+    		throw new RecipeException("Units of chocolate must be a positive integer");
+    	}
+    	this.price = price;
+    	this.amounts[Inventory.COFFEE] = amtCoffee;
+    	this.amounts[Inventory.MILK] = amtMilk;
+    	this.amounts[Inventory.SUGAR] = amtSugar;
+    	this.amounts[Inventory.CHOCOLATE] = amtChocolate;
     }
     
     /**
 	 * @return   Returns the amtChocolate.
 	 */
     public int getAmtChocolate() {
-		return amtChocolate;
+		return amounts[Inventory.CHOCOLATE];
 	}
     /**
 	 * @param amtChocolate   The amtChocolate to set.
 	 */
     public void setAmtChocolate(String chocolate) throws RecipeException {
+    	checkMutable();
     	int amtChocolate = 0;
     	try {
     		amtChocolate = Integer.parseInt(chocolate);
@@ -55,7 +90,7 @@ public class Recipe {
     		throw new RecipeException("Units of chocolate must be a positive integer");
     	}
 		if (amtChocolate >= 0) {
-			this.amtChocolate = amtChocolate;
+			this.amounts[Inventory.CHOCOLATE] = amtChocolate;
 		} else {
 			throw new RecipeException("Units of chocolate must be a positive integer");
 		}
@@ -64,12 +99,13 @@ public class Recipe {
 	 * @return   Returns the amtCoffee.
 	 */
     public int getAmtCoffee() {
-		return amtCoffee;
+		return amounts[Inventory.COFFEE];
 	}
     /**
 	 * @param amtCoffee   The amtCoffee to set.
 	 */
     public void setAmtCoffee(String coffee) throws RecipeException {
+    	checkMutable();
     	int amtCoffee = 0;
     	try {
     		amtCoffee = Integer.parseInt(coffee);
@@ -77,7 +113,7 @@ public class Recipe {
     		throw new RecipeException("Units of coffee must be a positive integer");
     	}
 		if (amtCoffee >= 0) {
-			this.amtCoffee = amtCoffee;
+			this.amounts[Inventory.COFFEE] = amtCoffee;
 		} else {
 			throw new RecipeException("Units of coffee must be a positive integer");
 		}
@@ -86,12 +122,13 @@ public class Recipe {
 	 * @return   Returns the amtMilk.
 	 */
     public int getAmtMilk() {
-		return amtMilk;
+		return amounts[Inventory.MILK];
 	}
     /**
 	 * @param amtMilk   The amtMilk to set.
 	 */
     public void setAmtMilk(String milk) throws RecipeException{
+    	checkMutable();
     	int amtMilk = 0;
     	try {
     		amtMilk = Integer.parseInt(milk);
@@ -99,7 +136,7 @@ public class Recipe {
     		throw new RecipeException("Units of milk must be a positive integer");
     	}
 		if (amtMilk >= 0) {
-			this.amtMilk = amtMilk;
+			this.amounts[Inventory.MILK] = amtMilk;
 		} else {
 			throw new RecipeException("Units of milk must be a positive integer");
 		}
@@ -108,12 +145,13 @@ public class Recipe {
 	 * @return   Returns the amtSugar.
 	 */
     public int getAmtSugar() {
-		return amtSugar;
+		return amounts[Inventory.SUGAR];
 	}
     /**
 	 * @param amtSugar   The amtSugar to set.
 	 */
     public void setAmtSugar(String sugar) throws RecipeException {
+    	checkMutable();
     	int amtSugar = 0;
     	try {
     		amtSugar = Integer.parseInt(sugar);
@@ -121,7 +159,7 @@ public class Recipe {
     		throw new RecipeException("Units of sugar must be a positive integer");
     	}
 		if (amtSugar >= 0) {
-			this.amtSugar = amtSugar;
+			this.amounts[Inventory.SUGAR] = amtSugar;
 		} else {
 			throw new RecipeException("Units of sugar must be a positive integer");
 		}
@@ -136,6 +174,7 @@ public class Recipe {
 	 * @param name   The name to set.
 	 */
     public void setName(String name) {
+    	checkMutable();
     	if(name != null) {
     		this.name = name;
     	}
@@ -150,6 +189,7 @@ public class Recipe {
 	 * @param price   The price to set.
 	 */
     public void setPrice(String price) throws RecipeException{
+    	checkMutable();
     	int amtPrice = 0;
     	try {
     		amtPrice = Integer.parseInt(price);
@@ -163,6 +203,106 @@ public class Recipe {
 		}
 	} 
     
+    /**
+     * Returns the units of the ingredient with the given
+     * IngredientRegistry id the recipe needs.
+     * @param ingredient
+     * @return int
+     */
+    public int getAmount(int ingredient) {
+    	return ingredient >= 0 && ingredient < amounts.length ? amounts[ingredient] : 0;
+    }
+    
+    /**
+     * Sets the units of the ingredient with the given
+     * IngredientRegistry id the recipe needs.
+     * @param ingredient
+     * @param units
+     * @throws RecipeException if the units are negative
+     * @throws IllegalArgumentException if no ingredient has the id
+     */
+    public void setAmount(int ingredient, int units) throws RecipeException {
+    	checkMutable();
+    	String name = IngredientRegistry.getName(ingredient);
+    	if (units < 0) {
+    		throw new RecipeException("Units of " + name + " must be a positive integer");
+    	}
+    	if (ingredient >= amounts.length) {
+    		amounts = Arrays.copyOf(amounts, ingredient + 1);
+    	}
+    	amounts[ingredient] = units;
+    }
+    
+    /**
+     * Returns the units of every ingredient by IngredientRegistry id.
+     * Ingredients past the end of the array are not needed.  The
+     * array is not copied and must not be modified.
+     * @return int[]
+     */
+    int [] amounts() {
+    	return amounts;
+    }
+    
+    /**
+     * Returns true if the recipe is shared through a RecipeFactory or
+     * held by a recipe book, in which case its setters throw
+     * UnsupportedOperationException.
+     * @return boolean
+     */
+    public boolean isFrozen() {
+    	return frozen;
+    }
+    
+    /**
+     * Makes the recipe immutable before it is shared.
+     */
+    void freeze() {
+    	frozen = true;
+    }
+    
+    /**
+     * Returns this recipe if it is frozen, or else a frozen copy of
+     * it, so the caller can keep changing the recipe it passed in.
+     * @return Recipe
+     */
+    Recipe frozenCopy() {
+    	if (frozen) {
+    		return this;
+    	}
+    	Recipe r = new Recipe();
+    	r.name = name;
+    	r.price = price;
+    	r.amounts = amounts.clone();
+    	r.frozen = true;
+    	return r;
+    }
+    
+    /**
+     * Returns this recipe renamed to the given name, or a renamed
+     * mutable copy if this recipe is frozen and has another name.
+     * @param name
+     * @return Recipe
+     */
+    Recipe withName(String name) {
+    	Recipe r = this;
+    	if (frozen) {
+    		if (this.name.equals(name)) {
+    			return this;
+    		}
+    		r = new Recipe();
+    		r.price = price;
+    		r.amounts = amounts.clone();
+    	}
+    	r.setName(name);
+    	return r;
+    }
+    
+    private void checkMutable() {
+    	if (frozen) {
+    		throw new UnsupportedOperationException("Recipe " + name + " is shared and cannot be changed");
+    	}
+    }
+    
     /**
      * Returns the name of the recipe.
      * @return String
@@ -0,0 +1,72 @@
+/*
+ * Copyright (c) 2009,  Sarah Heckman, Laurie Williams, Dright Ho
+ * All Rights Reserved.
+ *
+ * Permission has been explicitly granted to the University of Minnesota
+ * Software Engineering Center to use and distribute this source for
+ * educational purposes, including delivering online education through
+ * Coursera or other entities.
+ *
+ * No warranty is given regarding this software, including warranties as
+ * to the correctness or completeness of this software, including
+ * fitness for purpose.
+ */
+package edu.ncsu.csc326.coffeemaker;
+
+import java.util.Arrays;
+
+/**
+ * The ingredient amounts of every slot of a recipe snapshot laid out
+ * as one array per ingredient, so a whole menu can be checked against
+ * an inventory in tight loops over primitive arrays instead of
+ * reading each Recipe in turn.
+ *
+ * An empty slot needs EMPTY units of coffee.  Subtracting EMPTY from
+ * any level overflows to a negative number, just like subtracting
+ * more units than there are, so empty slots need no separate check.
+ * The few slots whose recipes also need ingredients after chocolate
+ * are listed in extraSlots, to be checked one by one.
+ */
+final class RecipeAmounts {
+	/** Coffee amount of an empty slot */
+	static final int EMPTY = Integer.MIN_VALUE;
+
+	final int [] coffee;
+	final int [] milk;
+	final int [] sugar;
+	final int [] chocolate;
+	/** Slots whose recipes need ingredients after chocolate, in order */
+	final int [] extraSlots;
+
+	RecipeAmounts(Recipe [] recipes) {
+		int n = recipes.length;
+		coffee = new int[n];
+		milk = new int[n];
+		sugar = new int[n];
+		chocolate = new int[n];
+		int [] extras = new int[n];
+		int extraCount = 0;
+		for (int i = 0; i < n; i++) {
+			Recipe r = recipes[i];
+			if (r == null) {
+				coffee[i] = EMPTY;
+			} else {
+				coffee[i] = r.getAmtCoffee();
+				milk[i] = r.getAmtMilk();
+				sugar[i] = r.getAmtSugar();
+				chocolate[i] = r.getAmtChocolate();
+				if (!Inventory.needsOnlyStandard(r)) {
+					extras[extraCount++] = i;
+				}
+			}
+		}
+		extraSlots = Arrays.copyOf(extras, extraCount);
+	}
+
+	/**
+	 * Returns the number of slots.
+	 */
+	int size() {
+		return coffee.length;
+	}
+}
@@ -0,0 +1,166 @@
+/*
+ * Copyright (c) 2009,  Sarah Heckman, Laurie Williams, Dright Ho
+ * All Rights Reserved.
+ *
+ * Permission has been explicitly granted to the University of Minnesota
+ * Software Engineering Center to use and distribute this source for
+ * educational purposes, including delivering online education through
+ * Coursera or other entities.
+ *
+ * No warranty is given regarding this software, including warranties as
+ * to the correctness or completeness of this software, including
+ * fitness for purpose.
+ */
+package edu.ncsu.csc326.coffeemaker;
+
+import java.util.BitSet;
+
+/**
+ * Which recipes of a coffee maker can be made from one snapshot of
+ * its inventory, and how many servings of each.  Every recipe is
+ * checked against the same levels, so a menu screen built from it
+ * never greys out one drink using levels from before a purchase and
+ * another using levels from after it.
+ *
+ * The amounts are read from the recipe snapshot in the per ingredient
+ * arrays of RecipeAmounts.  One loop ORs the differences between the
+ * levels and the amounts of every slot, a loop simple enough for the
+ * JIT compiler to vectorize, and a second packs their sign bits into
+ * a bitset.  Recipes that also need ingredients after chocolate are
+ * then checked against the same snapshot one by one.  Servings need a
+ * division per ingredient, so they are only worked out for the slots
+ * asked about.
+ */
+public final class RecipeAvailability {
+
+	/** Servings of a recipe that uses no ingredients */
+	public static final int UNLIMITED = Integer.MAX_VALUE;
+
+	private final RecipeSnapshot recipes;
+	private final InventorySnapshot levels;
+	private final RecipeAmounts amounts;
+	/** Bit i is set if slot i can be made */
+	private final long [] available;
+
+	RecipeAvailability(RecipeSnapshot recipes, InventorySnapshot levels) {
+		this.recipes = recipes;
+		this.levels = levels;
+		this.amounts = recipes.getAmounts();
+		int n = amounts.size();
+		int coffee = levels.getCoffee();
+		int milk = levels.getMilk();
+		int sugar = levels.getSugar();
+		int chocolate = levels.getChocolate();
+		int [] c = amounts.coffee;
+		int [] m = amounts.milk;
+		int [] s = amounts.sugar;
+		int [] ch = amounts.chocolate;
+		// levels and amounts are never negative, so only an empty slot overflows
+		int [] left = new int[n];
+		for (int i = 0; i < n; i++) {
+			left[i] = (coffee - c[i]) | (milk - m[i]) | (sugar - s[i]) | (chocolate - ch[i]);
+		}
+		available = new long[(n + 63) >>> 6];
+		for (int base = 0; base < n; base += 64) {
+			int end = Math.min(base + 64, n);
+			long word = 0;
+			for (int i = base; i < end; i++) {
+				word |= (long) (~left[i] >>> 31) << i;
+			}
+			available[base >>> 6] = word;
+		}
+		for (int slot : amounts.extraSlots) {
+			if (!hasExtras(recipes.getRecipe(slot), levels)) {
+				available[slot >>> 6] &= ~(1L << slot);
+			}
+		}
+	}
+
+	/**
+	 * Returns true if the recipe in the given slot can be made.
+	 * @param index
+	 * @return boolean
+	 */
+	public boolean isAvailable(int index) {
+		return index >= 0 && index < amounts.size() && (available[index >>> 6] & (1L << index)) != 0;
+	}
+
+	/**
+	 * Returns the number of servings of the recipe in the given slot
+	 * the levels are enough for, 0 if it cannot be made or UNLIMITED
+	 * if it uses no ingredients but coffee.  Making a beverage adds
+	 * its coffee, see Inventory.useIngredients, so coffee only decides
+	 * whether the first serving can be made.
+	 * @param index
+	 * @return int
+	 */
+	public int getServings(int index) {
+		if (!isAvailable(index)) {
+			return 0;
+		}
+		int count = UNLIMITED;
+		count = servings(count, levels.getMilk(), amounts.milk[index]);
+		count = servings(count, levels.getSugar(), amounts.sugar[index]);
+		count = servings(count, levels.getChocolate(), amounts.chocolate[index]);
+		int [] needed = recipes.getRecipe(index).amounts();
+		for (int id = Inventory.CHOCOLATE + 1; id < needed.length; id++) {
+			count = servings(count, levels.getLevel(id), needed[id]);
+		}
+		return count;
+	}
+
+	/**
+	 * Returns the slots of the recipes that can be made as a new
+	 * BitSet.
+	 * @return BitSet
+	 */
+	public BitSet getAvailable() {
+		return BitSet.valueOf(available);
+	}
+
+	/**
+	 * Returns the number of recipes that can be made.
+	 * @return int
+	 */
+	public int getAvailableCount() {
+		int count = 0;
+		for (long word : available) {
+			count += Long.bitCount(word);
+		}
+		return count;
+	}
+
+	/**
+	 * Returns the recipes the availability was worked out for.
+	 * @return RecipeSnapshot
+	 */
+	public RecipeSnapshot getRecipes() {
+		return recipes;
+	}
+
+	/**
+	 * Returns the inventory levels the availability was worked out for.
+	 * @return InventorySnapshot
+	 */
+	public InventorySnapshot getLevels() {
+		return levels;
+	}
+
+	/**
+	 * Returns true if the levels hold enough of every ingredient
+	 * after chocolate the recipe needs.
+	 */
+	private static boolean hasExtras(Recipe r, InventorySnapshot levels) {
+		int [] needed = r.amounts();
+		for (int id = Inventory.CHOCOLATE + 1; id < needed.length; id++) {
+			if (levels.getLevel(id) < needed[id]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static int servings(int count, int units, int amount) {
+		return amount == 0 ? count : Math.min(count, units / amount);
+	}
+}
@@ -13,10 +13,17 @@
  */
 package edu.ncsu.csc326.coffeemaker;
 
+/**
+ * Recipes of the coffee maker.  The recipes are published as
+ * copy-on-write snapshots: changes are made to a copy of the recipe
+ * array under the book's lock and then swapped in, so reads take no
+ * lock and never see a partly applied change.  The book keeps frozen
+ * copies of the recipes it is given, see RecipeSnapshot.
+ */
 public class RecipeBook {
 	
-	/** Array of recipes in coffee maker*/
-	private Recipe [] recipeArray;
+	/** Recipes in coffee maker at the latest version */
+	private volatile RecipeSnapshot snapshot;
 	/** Number of recipes in coffee maker */
 	private final int NUM_RECIPES = 4; 
 	
@@ -24,19 +31,65 @@ public class RecipeBook {
 	 * Default constructor for a RecipeBook.
 	 */
 	public RecipeBook() {
-		recipeArray = new Recipe[NUM_RECIPES];
+		snapshot = new RecipeSnapshot(new Recipe[NUM_RECIPES], 0);
+	}
+	
+	/**
+	 * Constructor for a RecipeBook with the given number
+	 * of recipe slots.
+	 * @param numRecipes
+	 */
+	protected RecipeBook(int numRecipes) {
+		snapshot = new RecipeSnapshot(new Recipe[numRecipes], 0);
 	}
 	
 	/**
-	 * Returns the recipe array.
-	 * @param r
+	 * Returns the recipe array of the latest snapshot.  The
+	 * array is shared and must not be modified.
 	 * @return Recipe[]
 	 */
-	public synchronized Recipe[] getRecipes() {
-		return recipeArray;
+	public Recipe[] getRecipes() {
+		return snapshot.getRecipes();
+	}
+	
+	/**
+	 * Returns the latest snapshot of the recipes.
+	 * @return RecipeSnapshot
+	 */
+	public RecipeSnapshot getSnapshot() {
+		return snapshot;
+	}
+	
+	/**
+	 * Returns the number of changes made to the recipes,
+	 * which callers can compare to detect menu changes.
+	 * @return long
+	 */
+	public long getVersion() {
+		return snapshot.getVersion();
+	}
+	
+	/**
+	 * Makes the given array the latest recipes.  Must be called
+	 * holding the lock of the book, with an array no reader has seen.
+	 * @param recipes
+	 */
+	protected void publish(Recipe [] recipes) {
+		snapshot = new RecipeSnapshot(recipes, snapshot.getVersion() + 1);
+	}
+	
+	/**
+	 * Replaces every recipe slot with the given recipes, e.g. when
+	 * loading a saved coffee maker, and sets the version.
+	 * @param recipes
+	 * @param version
+	 */
+	protected synchronized void restore(Recipe [] recipes, long version) {
+		snapshot = new RecipeSnapshot(recipes.clone(), version);
 	}
 	
 	public synchronized boolean addRecipe(Recipe r) {
+		Recipe [] recipeArray = getRecipes();
 		//Assume recipe doesn't exist in the array until 
 		//find out otherwise
 		boolean exists = false;
@@ -51,12 +104,16 @@ public class RecipeBook {
 		boolean added = false;
 		//Check for first empty spot in array
 		if (!exists) {
+			recipeArray = recipeArray.clone();
 			for (int i = 0; i < recipeArray.length && !added; i++) {
 				if (recipeArray[i] == null) {
 					recipeArray[i] = r;
 					added = true;
 				}
 			}
+			if (added) {
+				publish(recipeArray);
+			}
 		}
 		return added;
 	}
@@ -68,9 +125,12 @@ public class RecipeBook {
 	 * @return String
 	 */
 	public synchronized String deleteRecipe(int recipeToDelete) {
+		Recipe [] recipeArray = getRecipes();
 		if (recipeArray[recipeToDelete] != null) {
 			String recipeName = recipeArray[recipeToDelete].getName();
+			recipeArray = recipeArray.clone();
 			recipeArray[recipeToDelete] = new Recipe();
+			publish(recipeArray);
 			return recipeName;
 		} else {
 			return null;
@@ -85,10 +145,13 @@ public class RecipeBook {
 	 * @return String
 	 */
 	public synchronized String editRecipe(int recipeToEdit, Recipe newRecipe) {
+		Recipe [] recipeArray = getRecipes();
 		if (recipeArray[recipeToEdit] != null) {
 			String recipeName = recipeArray[recipeToEdit].getName();
-			newRecipe.setName("");
+			newRecipe = newRecipe.withName("");
+			recipeArray = recipeArray.clone();
 			recipeArray[recipeToEdit] = newRecipe;
+			publish(recipeArray);
 			return recipeName;
 		} else {
 			return null;
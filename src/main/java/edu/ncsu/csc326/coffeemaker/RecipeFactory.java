@@ -0,0 +1,203 @@
+/*
+ * Copyright (c) 2009,  Sarah Heckman, Laurie Williams, Dright Ho
+ * All Rights Reserved.
+ *
+ * Permission has been explicitly granted to the University of Minnesota
+ * Software Engineering Center to use and distribute this source for
+ * educational purposes, including delivering online education through
+ * Coursera or other entities.
+ *
+ * No warranty is given regarding this software, including warranties as
+ * to the correctness or completeness of this software, including
+ * fitness for purpose.
+ */
+package edu.ncsu.csc326.coffeemaker;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import edu.ncsu.csc326.coffeemaker.exceptions.RecipeException;
+
+/**
+ * Builds recipes through an interning cache, so identical recipes
+ * pushed to many coffee makers share one frozen instance instead of
+ * one copy per machine.  Recipes are identical when their name, price
+ * and amounts are equal.  The cache holds at most the given number of
+ * recipes and evicts the least recently used one; an evicted recipe
+ * stays valid, later requests just get a new instance.
+ *
+ * Recipes from the factory are frozen, so their setters throw
+ * UnsupportedOperationException.  Recipe books that rename an edited
+ * recipe store a renamed copy instead.
+ */
+public class RecipeFactory {
+
+	/** Recipes cached by a factory created without a capacity */
+	public static final int DEFAULT_CAPACITY = 1024;
+
+	/** Interned recipes in least recently used order */
+	private final LinkedHashMap<Key, Recipe> recipes;
+	/** Largest number of recipes in the cache */
+	private final int capacity;
+
+	/**
+	 * Creates a factory caching up to DEFAULT_CAPACITY recipes.
+	 */
+	public RecipeFactory() {
+		this(DEFAULT_CAPACITY);
+	}
+
+	/**
+	 * Creates a factory caching up to the given number of recipes.
+	 * @param capacity
+	 */
+	public RecipeFactory(int capacity) {
+		if (capacity < 1) {
+			throw new IllegalArgumentException("Capacity must be positive: " + capacity);
+		}
+		this.capacity = capacity;
+		this.recipes = new LinkedHashMap<Key, Recipe>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<Key, Recipe> eldest) {
+				return size() > RecipeFactory.this.capacity;
+			}
+		};
+	}
+
+	/**
+	 * Returns the shared recipe with the given name, price and
+	 * amounts, parsing them with the same checks as the setters
+	 * of Recipe.
+	 * @param name
+	 * @param price
+	 * @param amtCoffee
+	 * @param amtMilk
+	 * @param amtSugar
+	 * @param amtChocolate
+	 * @return Recipe
+	 * @throws RecipeException if the price or an amount is not a positive integer
+	 */
+	public Recipe getRecipe(String name, String price, String amtCoffee, String amtMilk, String amtSugar, String amtChocolate) throws RecipeException {
+		return getRecipe(name, parse(price, "Price must be a positive integer"),
+				parse(amtCoffee, "Units of coffee must be a positive integer"),
+				parse(amtMilk, "Units of milk must be a positive integer"),
+				parse(amtSugar, "Units of sugar must be a positive integer"),
+				parse(amtChocolate, "Units of chocolate must be a positive integer"));
+	}
+
+	/**
+	 * Returns the shared recipe with the given name, price and amounts.
+	 * @param name
+	 * @param price
+	 * @param amtCoffee
+	 * @param amtMilk
+	 * @param amtSugar
+	 * @param amtChocolate
+	 * @return Recipe
+	 * @throws RecipeException if the price or an amount is negative
+	 */
+	public synchronized Recipe getRecipe(String name, int price, int amtCoffee, int amtMilk, int amtSugar, int amtChocolate) throws RecipeException {
+		if (name == null) {
+			name = "";
+		}
+		Key key = new Key(name, price, amtCoffee, amtMilk, amtSugar, amtChocolate);
+		Recipe r = recipes.get(key);
+		if (r == null) {
+			r = new Recipe(name, price, amtCoffee, amtMilk, amtSugar, amtChocolate);
+			r.freeze();
+			recipes.put(key, r);
+		}
+		return r;
+	}
+
+	/**
+	 * Returns the shared recipe identical to the given one, which
+	 * is the given recipe itself if it is already frozen or needs
+	 * ingredients other than coffee, milk, sugar and chocolate.
+	 * @param r
+	 * @return Recipe
+	 */
+	public Recipe intern(Recipe r) {
+		if (r.isFrozen() || !Inventory.needsOnlyStandard(r)) {
+			return r;
+		}
+		try {
+			return getRecipe(r.getName(), r.getPrice(), r.getAmtCoffee(), r.getAmtMilk(), r.getAmtSugar(), r.getAmtChocolate());
+		} catch (RecipeException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	/**
+	 * Returns the number of recipes in the cache.
+	 * @return int
+	 */
+	public synchronized int size() {
+		return recipes.size();
+	}
+
+	/**
+	 * Returns the largest number of recipes the cache holds.
+	 * @return int
+	 */
+	public int getCapacity() {
+		return capacity;
+	}
+
+	private static int parse(String value, String message) throws RecipeException {
+		int amount;
+		try {
+			amount = Integer.parseInt(value);
+		} catch (NumberFormatException e) {
+			throw new RecipeException(message);
+		}
+		if (amount < 0) {
+			throw new RecipeException(message);
+		}
+		return amount;
+	}
+
+	/**
+	 * Name, price and amounts identifying an interned recipe.
+	 */
+	private static final class Key {
+		private final String name;
+		private final int price;
+		private final int amtCoffee;
+		private final int amtMilk;
+		private final int amtSugar;
+		private final int amtChocolate;
+
+		Key(String name, int price, int amtCoffee, int amtMilk, int amtSugar, int amtChocolate) {
+			this.name = name;
+			this.price = price;
+			this.amtCoffee = amtCoffee;
+			this.amtMilk = amtMilk;
+			this.amtSugar = amtSugar;
+			this.amtChocolate = amtChocolate;
+		}
+
+		@Override
+		public int hashCode() {
+			int result = name.hashCode();
+			result = 31 * result + price;
+			result = 31 * result + amtCoffee;
+			result = 31 * result + amtMilk;
+			result = 31 * result + amtSugar;
+			return 31 * result + amtChocolate;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (!(obj instanceof Key)) {
+				return false;
+			}
+			Key other = (Key) obj;
+			return price == other.price && amtCoffee == other.amtCoffee && amtMilk == other.amtMilk
+					&& amtSugar == other.amtSugar && amtChocolate == other.amtChocolate
+					&& name.equals(other.name);
+		}
+	}
+}
@@ -0,0 +1,118 @@
+/*
+ * Copyright (c) 2009,  Sarah Heckman, Laurie Williams, Dright Ho
+ * All Rights Reserved.
+ *
+ * Permission has been explicitly granted to the University of Minnesota
+ * Software Engineering Center to use and distribute this source for
+ * educational purposes, including delivering online education through
+ * Coursera or other entities.
+ *
+ * No warranty is given regarding this software, including warranties as
+ * to the correctness or completeness of this software, including
+ * fitness for purpose.
+ */
+package edu.ncsu.csc326.coffeemaker;
+
+/**
+ * The recipes of a recipe book at one version.  A recipe book never
+ * changes a snapshot once it is published; every add, delete or edit
+ * publishes a new snapshot with the next version instead.  A snapshot
+ * holds frozen recipes only, copying any recipe that is not frozen
+ * yet, so a caller changing the recipe it added cannot change the
+ * snapshot.  Readers can therefore use a snapshot without locking or
+ * copying it.
+ */
+public final class RecipeSnapshot {
+	/** Recipes by index; never modified after construction */
+	private final Recipe [] recipes;
+	/** Compact forms of the recipes by index, null where there are none */
+	private final CompactRecipe [] compactRecipes;
+	/** Number of changes made to the recipe book before this snapshot */
+	private final long version;
+	/** Amounts of every slot by ingredient, built by the first availability query */
+	private RecipeAmounts amounts;
+
+	/**
+	 * Creates a snapshot of the recipes, replacing each recipe that is
+	 * not frozen with a frozen copy in the array, which no reader may
+	 * have seen yet.
+	 */
+	RecipeSnapshot(Recipe [] recipes, long version) {
+		this.recipes = recipes;
+		this.compactRecipes = new CompactRecipe[recipes.length];
+		this.version = version;
+		for (int i = 0; i < recipes.length; i++) {
+			Recipe r = recipes[i];
+			if (r != null) {
+				r = r.frozenCopy();
+				recipes[i] = r;
+			}
+			long amounts = r == null ? -1 : LockFreeInventory.pack(r);
+			if (amounts >= 0) {
+				compactRecipes[i] = new CompactRecipe(r.getName(), r.getPrice(), amounts);
+			}
+		}
+	}
+
+	/**
+	 * Returns the version of the recipe book this snapshot
+	 * was taken at.  Versions increase with every change.
+	 * @return long
+	 */
+	public long getVersion() {
+		return version;
+	}
+
+	/**
+	 * Returns the number of recipe slots in the snapshot.
+	 * @return int
+	 */
+	public int size() {
+		return recipes.length;
+	}
+
+	/**
+	 * Returns the recipe at the given index, which may be null.
+	 * @param index
+	 * @return Recipe
+	 */
+	public Recipe getRecipe(int index) {
+		return recipes[index];
+	}
+
+	/**
+	 * Returns the compact form of the recipe at the given index, or
+	 * null if there is no recipe or it does not fit a compact recipe,
+	 * e.g. because it needs an ingredient other than the standard four.
+	 * @param index
+	 * @return CompactRecipe
+	 */
+	public CompactRecipe getCompactRecipe(int index) {
+		return compactRecipes[index];
+	}
+
+	/**
+	 * Returns the amounts of every slot by ingredient, read from the
+	 * recipes the first time they are needed.  Racing threads may each
+	 * build them; the copies are equal and safely published through
+	 * their final fields.
+	 * @return RecipeAmounts
+	 */
+	RecipeAmounts getAmounts() {
+		RecipeAmounts amounts = this.amounts;
+		if (amounts == null) {
+			amounts = new RecipeAmounts(recipes);
+			this.amounts = amounts;
+		}
+		return amounts;
+	}
+
+	/**
+	 * Returns the recipe array of the snapshot.  The array is
+	 * shared, not copied, and must not be modified.
+	 * @return Recipe[]
+	 */
+	public Recipe[] getRecipes() {
+		return recipes;
+	}
+}
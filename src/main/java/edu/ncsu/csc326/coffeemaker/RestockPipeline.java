@@ -0,0 +1,343 @@
+/*
+ * Copyright (c) 2009,  Sarah Heckman, Laurie Williams, Dright Ho
+ * All Rights Reserved.
+ *
+ * Permission has been explicitly granted to the University of Minnesota
+ * Software Engineering Center to use and distribute this source for
+ * educational purposes, including delivering online education through
+ * Coursera or other entities.
+ *
+ * No warranty is given regarding this software, including warranties as
+ * to the correctness or completeness of this software, including
+ * fitness for purpose.
+ */
+package edu.ncsu.csc326.coffeemaker;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.BiConsumer;
+
+import edu.ncsu.csc326.coffeemaker.exceptions.InventoryException;
+
+/**
+ * Restocks coffee makers on a thread of its own, so bursts of restocks
+ * do not hold up purchases.  A restock is validated when it is
+ * submitted, with the same InventoryException messages as
+ * CoffeeMaker.addInventory, and then queued.  Restocks still waiting
+ * for the same coffee maker are added up and applied with a single
+ * addInventory call.
+ *
+ * Submitting takes no lock: each coffee maker has a stack of waiting
+ * restocks that a submission pushes onto with a compare-and-set, and
+ * the first restock on an empty stack puts the coffee maker in a
+ * lock-free queue.  The restock thread takes up to BATCH_SIZE coffee
+ * makers from the queue at a time, takes the whole stack of each and
+ * applies its sum.  If the sum cannot be added, e.g. because the
+ * inventory cannot hold that many units, the restocks are added one
+ * at a time in the order they were submitted, and each one that fails
+ * is passed to the failure handler.  A coffee maker is forgotten once
+ * its stack was taken and nothing was pushed since, so the pipeline
+ * only holds coffee makers with restocks waiting.
+ *
+ * Every submission that returns normally is applied or failed, even
+ * one racing close: close waits for submissions in progress to finish
+ * before it applies what is left, and later ones are rejected.
+ */
+public class RestockPipeline implements AutoCloseable {
+
+	/** Largest number of coffee makers restocked before checking for close */
+	public static final int BATCH_SIZE = 64;
+
+	/** Failure handler used when none is set */
+	private static final BiConsumer<CoffeeMaker, InventoryException> NO_HANDLER = (coffeeMaker, e) -> { };
+
+	/** Waiting restocks of each coffee maker */
+	private final ConcurrentHashMap<CoffeeMaker, Machine> machines = new ConcurrentHashMap<CoffeeMaker, Machine>();
+	/** Coffee makers with waiting restocks */
+	private final ConcurrentLinkedQueue<Machine> queue = new ConcurrentLinkedQueue<Machine>();
+	/** Restocks submitted so far */
+	private final AtomicLong submitted = new AtomicLong();
+	/** Restocks added or failed so far */
+	private final AtomicLong completed = new AtomicLong();
+	/** Coffee maker restocks applied so far, one for each sum */
+	private final AtomicLong batches = new AtomicLong();
+	/** Submissions between checking for close and queueing their restock */
+	private final AtomicInteger submitting = new AtomicInteger();
+	/** Monitor flush waits on until restocks complete */
+	private final Object progress = new Object();
+	private final Thread thread;
+	private volatile BiConsumer<CoffeeMaker, InventoryException> failureHandler = NO_HANDLER;
+	private volatile boolean closed;
+
+	/**
+	 * Starts a restock pipeline on a new daemon thread.
+	 */
+	public RestockPipeline() {
+		thread = new Thread(this::run, "restock");
+		thread.setDaemon(true);
+		thread.start();
+	}
+
+	/**
+	 * Queues units to add to the coffee maker, parsed and checked
+	 * like CoffeeMaker.addInventory.
+	 * @param coffeeMaker
+	 * @param amtCoffee
+	 * @param amtMilk
+	 * @param amtSugar
+	 * @param amtChocolate
+	 * @throws InventoryException if an amount is not a valid number of units
+	 * @throws RejectedExecutionException if the pipeline is closed
+	 */
+	public void submit(CoffeeMaker coffeeMaker, String amtCoffee, String amtMilk, String amtSugar, String amtChocolate) throws InventoryException {
+		enqueue(coffeeMaker, Inventory.parseCoffee(amtCoffee), Inventory.parseMilk(amtMilk),
+				Inventory.parseSugar(amtSugar), Inventory.parseChocolate(amtChocolate));
+	}
+
+	/**
+	 * Queues units to add to the coffee maker, checked like
+	 * CoffeeMaker.addInventory.
+	 * @param coffeeMaker
+	 * @param amtCoffee
+	 * @param amtMilk
+	 * @param amtSugar
+	 * @param amtChocolate
+	 * @throws InventoryException if an amount is negative
+	 * @throws RejectedExecutionException if the pipeline is closed
+	 */
+	public void submit(CoffeeMaker coffeeMaker, int amtCoffee, int amtMilk, int amtSugar, int amtChocolate) throws InventoryException {
+		Inventory.checkRestock(amtCoffee, amtMilk, amtSugar, amtChocolate);
+		enqueue(coffeeMaker, amtCoffee, amtMilk, amtSugar, amtChocolate);
+	}
+
+	/**
+	 * Sets the handler told about each restock that could not be
+	 * added to its coffee maker, or removes it if handler is null.
+	 * The units of a failed restock are not added.
+	 * @param handler
+	 */
+	public void setFailureHandler(BiConsumer<CoffeeMaker, InventoryException> handler) {
+		this.failureHandler = handler == null ? NO_HANDLER : handler;
+	}
+
+	/**
+	 * Waits until every restock submitted before the call was
+	 * applied or failed.
+	 * @throws InterruptedException if interrupted while waiting
+	 */
+	public void flush() throws InterruptedException {
+		long target = submitted.get();
+		while (completed.get() < target) {
+			if (!thread.isAlive()) {
+				return;
+			}
+			synchronized (progress) {
+				if (completed.get() < target) {
+					progress.wait(10);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Returns the number of restocks submitted.
+	 * @return long
+	 */
+	public long getSubmitted() {
+		return submitted.get();
+	}
+
+	/**
+	 * Returns the number of addInventory calls made, each adding
+	 * the sum of one or more restocks of a coffee maker.
+	 * @return long
+	 */
+	public long getApplied() {
+		return batches.get();
+	}
+
+	/**
+	 * Applies every restock already submitted, then stops the restock
+	 * thread.  Restocks submitted afterwards are rejected; a restock
+	 * submitted while closing is either rejected or applied before
+	 * close returns.
+	 */
+	@Override
+	public void close() {
+		closed = true;
+		LockSupport.unpark(thread);
+		boolean interrupted = false;
+		while (thread.isAlive()) {
+			try {
+				thread.join();
+			} catch (InterruptedException e) {
+				interrupted = true;
+			}
+		}
+		while (submitting.get() != 0) {
+			// a submission that missed close is still queueing its restock
+			Thread.yield();
+		}
+		Machine machine;
+		while ((machine = queue.poll()) != null) {
+			apply(machine);
+		}
+		synchronized (progress) {
+			progress.notifyAll();
+		}
+		if (interrupted) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private void enqueue(CoffeeMaker coffeeMaker, int amtCoffee, int amtMilk, int amtSugar, int amtChocolate) {
+		// counted before reading closed, so close either sees it or rejects it
+		submitting.incrementAndGet();
+		try {
+			if (closed) {
+				throw new RejectedExecutionException("Restock pipeline is closed");
+			}
+			Machine machine = machines.computeIfAbsent(coffeeMaker, Machine::new);
+			Restock restock = new Restock(amtCoffee, amtMilk, amtSugar, amtChocolate);
+			submitted.incrementAndGet();
+			Restock top;
+			do {
+				top = machine.waiting.get();
+				restock.next = top;
+			} while (!machine.waiting.compareAndSet(top, restock));
+			if (top == null) {
+				queue.offer(machine);
+				LockSupport.unpark(thread);
+			}
+		} finally {
+			submitting.decrementAndGet();
+		}
+	}
+
+	private void run() {
+		while (true) {
+			boolean stopping = closed;
+			int restocked = 0;
+			Machine machine;
+			while (restocked < BATCH_SIZE && (machine = queue.poll()) != null) {
+				apply(machine);
+				restocked++;
+			}
+			if (restocked > 0) {
+				synchronized (progress) {
+					progress.notifyAll();
+				}
+			} else if (stopping) {
+				return;
+			} else {
+				LockSupport.park(this);
+			}
+		}
+	}
+
+	/**
+	 * Takes every waiting restock of the machine and adds their sum,
+	 * or each in turn if the sum cannot be added.
+	 */
+	private void apply(Machine machine) {
+		Restock restocks = machine.waiting.getAndSet(null);
+		if (machine.waiting.get() == null) {
+			// a restock pushed after this still queues the machine and is applied
+			machines.remove(machine.coffeeMaker, machine);
+		}
+		long coffee = 0;
+		long milk = 0;
+		long sugar = 0;
+		long chocolate = 0;
+		int count = 0;
+		for (Restock r = restocks; r != null; r = r.next) {
+			coffee += r.coffee;
+			milk += r.milk;
+			sugar += r.sugar;
+			chocolate += r.chocolate;
+			count++;
+		}
+		if (count == 0) {
+			return;
+		}
+		if (count == 1 || !fits(coffee) || !fits(milk) || !fits(sugar) || !fits(chocolate)
+				|| !add(machine.coffeeMaker, (int) coffee, (int) milk, (int) sugar, (int) chocolate, false)) {
+			for (Restock r = reverse(restocks); r != null; r = r.next) {
+				add(machine.coffeeMaker, r.coffee, r.milk, r.sugar, r.chocolate, true);
+			}
+		}
+		completed.addAndGet(count);
+	}
+
+	/**
+	 * Adds the units to the coffee maker, returning false if they
+	 * could not be added, after passing the failure to the failure
+	 * handler if report is true.
+	 */
+	private boolean add(CoffeeMaker coffeeMaker, int amtCoffee, int amtMilk, int amtSugar, int amtChocolate, boolean report) {
+		batches.incrementAndGet();
+		try {
+			coffeeMaker.addInventory(amtCoffee, amtMilk, amtSugar, amtChocolate);
+			return true;
+		} catch (InventoryException e) {
+			if (report) {
+				failureHandler.accept(coffeeMaker, e);
+			}
+			return false;
+		}
+	}
+
+	/**
+	 * Reverses the stack of restocks, so they are in the order
+	 * they were submitted.
+	 */
+	private static Restock reverse(Restock restocks) {
+		Restock reversed = null;
+		while (restocks != null) {
+			Restock next = restocks.next;
+			restocks.next = reversed;
+			reversed = restocks;
+			restocks = next;
+		}
+		return reversed;
+	}
+
+	private static boolean fits(long units) {
+		return units >= Integer.MIN_VALUE && units <= Integer.MAX_VALUE;
+	}
+
+	/**
+	 * A coffee maker and the stack of its waiting restocks.
+	 */
+	private static final class Machine {
+		private final CoffeeMaker coffeeMaker;
+		private final AtomicReference<Restock> waiting = new AtomicReference<Restock>();
+
+		Machine(CoffeeMaker coffeeMaker) {
+			this.coffeeMaker = coffeeMaker;
+		}
+	}
+
+	/**
+	 * Validated units of one restock.
+	 */
+	private static final class Restock {
+		private final int coffee;
+		private final int milk;
+		private final int sugar;
+		private final int chocolate;
+		private Restock next;
+
+		Restock(int coffee, int milk, int sugar, int chocolate) {
+			this.coffee = coffee;
+			this.milk = milk;
+			this.sugar = sugar;
+			this.chocolate = chocolate;
+		}
+	}
+}
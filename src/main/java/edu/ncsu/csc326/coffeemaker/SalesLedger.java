@@ -0,0 +1,271 @@
+/*
+ * Copyright (c) 2009,  Sarah Heckman, Laurie Williams, Dright Ho
+ * All Rights Reserved.
+ *
+ * Permission has been explicitly granted to the University of Minnesota
+ * Software Engineering Center to use and distribute this source for
+ * educational purposes, including delivering online education through
+ * Coursera or other entities.
+ *
+ * No warranty is given regarding this software, including warranties as
+ * to the correctness or completeness of this software, including
+ * fitness for purpose.
+ */
+package edu.ncsu.csc326.coffeemaker;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
+
+/**
+ * Sales of every beverage made by the coffee makers it is attached to,
+ * counted per recipe in tumbling one minute and one hour windows.  Each
+ * window keeps the number of beverages and the revenue, the sum of
+ * their prices, by recipe name.
+ *
+ * The windows of each length are a ring of buckets of long counters, so
+ * the ledger takes the same memory however many sales it records: the
+ * last MINUTE_WINDOWS minutes and HOUR_WINDOWS hours are kept and older
+ * windows are reused.  A sale adds to its counters with atomic adds, and
+ * the first sale of a new window claims and clears the oldest bucket
+ * with a compare-and-set, so recording takes no lock.  Reading a window
+ * copies its counters while sales go on; a window whose bucket was
+ * reused during the copy reads as empty.
+ *
+ * At most the given number of recipe names are counted separately;
+ * sales of recipes named after that are counted under OTHER.
+ */
+public class SalesLedger implements CoffeeMakerListener {
+
+	/** Window length of one minute, for getWindow */
+	public static final int MINUTE = 0;
+	/** Window length of one hour, for getWindow */
+	public static final int HOUR = 1;
+	/** Minute windows kept */
+	public static final int MINUTE_WINDOWS = 60;
+	/** Hour windows kept */
+	public static final int HOUR_WINDOWS = 24;
+	/** Name the sales of recipes beyond the capacity are counted under */
+	public static final String OTHER = "(other)";
+	/** Recipe names counted separately by the default constructor */
+	public static final int DEFAULT_CAPACITY = 256;
+
+	private static final VarHandle LONGS = MethodHandles.arrayElementVarHandle(long[].class);
+
+	/** Window number of a bucket that was never used */
+	private static final long UNUSED = Long.MIN_VALUE;
+	/** Window number of a bucket being cleared */
+	private static final long CLEARING = Long.MIN_VALUE + 1;
+
+	private final LongSupplier clock;
+	private final int capacity;
+	private final Window [] windows;
+	/** Row of each recipe name */
+	private final ConcurrentHashMap<String, Integer> rows = new ConcurrentHashMap<String, Integer>();
+	/** Recipe name of each row; row capacity is OTHER */
+	private final String [] names;
+	/** Number of rows handed out, not counting OTHER */
+	private volatile int rowCount;
+
+	/**
+	 * Creates an empty ledger counting DEFAULT_CAPACITY recipe
+	 * names separately, timed by the system clock.
+	 */
+	public SalesLedger() {
+		this(DEFAULT_CAPACITY, System::currentTimeMillis);
+	}
+
+	/**
+	 * Creates an empty ledger counting the given number of recipe
+	 * names separately, timed by the given clock.
+	 * @param capacity
+	 * @param clock milliseconds since the epoch
+	 */
+	public SalesLedger(int capacity, LongSupplier clock) {
+		if (capacity < 1) {
+			throw new IllegalArgumentException("Capacity must be positive");
+		}
+		this.capacity = capacity;
+		this.clock = clock;
+		this.names = new String[capacity + 1];
+		names[capacity] = OTHER;
+		this.windows = new Window[] {
+			new Window(60_000L, MINUTE_WINDOWS, capacity + 1),
+			new Window(3_600_000L, HOUR_WINDOWS, capacity + 1)
+		};
+	}
+
+	/**
+	 * Records every beverage the coffee maker makes from now on,
+	 * next to its other listeners.
+	 * @param coffeeMaker
+	 */
+	public void attach(CoffeeMaker coffeeMaker) {
+		coffeeMaker.addListener(this);
+	}
+
+	/**
+	 * Stops recording the beverages the coffee maker makes.  Its
+	 * sales recorded so far are kept.
+	 * @param coffeeMaker
+	 */
+	public void detach(CoffeeMaker coffeeMaker) {
+		coffeeMaker.removeListener(this);
+	}
+
+	/**
+	 * Records the sale of a beverage made from the recipe.
+	 * @param r
+	 */
+	public void coffeeMade(Recipe r) {
+		record(r.getName(), r.getPrice());
+	}
+
+	/**
+	 * Records the sale of a beverage of the given recipe name
+	 * and price at the current time.
+	 * @param name
+	 * @param price
+	 */
+	public void record(String name, int price) {
+		int row = row(name);
+		long now = clock.getAsLong();
+		for (Window window : windows) {
+			window.add(now, row, price);
+		}
+	}
+
+	/**
+	 * Returns the sales of a window of the given length, MINUTE
+	 * or HOUR.  Window 0 is the current one, still being counted,
+	 * window 1 the one before it, and so on.
+	 * @param length
+	 * @param windowsAgo
+	 * @return SalesWindow
+	 * @throws IllegalArgumentException if the window is not kept
+	 */
+	public SalesWindow getWindow(int length, int windowsAgo) {
+		if (length != MINUTE && length != HOUR) {
+			throw new IllegalArgumentException("Window length must be MINUTE or HOUR");
+		}
+		Window window = windows[length];
+		if (windowsAgo < 0 || windowsAgo >= window.buckets) {
+			throw new IllegalArgumentException("Window must be between 0 and " + (window.buckets - 1));
+		}
+		int count = rowCount;
+		String [] recipes = new String[count + 1];
+		System.arraycopy(names, 0, recipes, 0, count);
+		recipes[count] = OTHER;
+		long number = Math.floorDiv(clock.getAsLong(), window.millis) - windowsAgo;
+		long [] sold = new long[count + 1];
+		long [] revenue = new long[count + 1];
+		window.copy(number, count, capacity, sold, revenue);
+		return new SalesWindow(number * window.millis, window.millis, recipes, sold, revenue);
+	}
+
+	/**
+	 * Returns the row of the recipe name, handing out the next
+	 * one to a new name while there are rows left.
+	 */
+	private int row(String name) {
+		Integer row = rows.get(name);
+		if (row != null) {
+			return row;
+		}
+		synchronized (this) {
+			row = rows.get(name);
+			if (row != null) {
+				return row;
+			}
+			int count = rowCount;
+			if (count == capacity) {
+				return capacity;
+			}
+			names[count] = name;
+			rowCount = count + 1;
+			rows.put(name, count);
+			return count;
+		}
+	}
+
+	/**
+	 * Ring of buckets of one window length.  Bucket b holds the
+	 * window number in numbers[b] and, for each row, the beverages
+	 * sold and their revenue next to each other in counters.
+	 */
+	private static final class Window {
+		private final long millis;
+		private final int buckets;
+		private final int rows;
+		private final long [] numbers;
+		private final long [] counters;
+
+		Window(long millis, int buckets, int rows) {
+			this.millis = millis;
+			this.buckets = buckets;
+			this.rows = rows;
+			this.numbers = new long[buckets];
+			this.counters = new long[buckets * rows * 2];
+			Arrays.fill(numbers, UNUSED);
+		}
+
+		void add(long now, int row, int price) {
+			long number = Math.floorDiv(now, millis);
+			int bucket = (int) Math.floorMod(number, (long) buckets);
+			if ((long) LONGS.getVolatile(numbers, bucket) != number && !claim(bucket, number)) {
+				return;
+			}
+			int i = (bucket * rows + row) * 2;
+			LONGS.getAndAdd(counters, i, 1L);
+			LONGS.getAndAdd(counters, i + 1, (long) price);
+		}
+
+		/**
+		 * Makes the bucket hold the given window, clearing it if it
+		 * held an older one.  Returns false if it holds a newer one,
+		 * so the window is no longer kept.
+		 */
+		private boolean claim(int bucket, long number) {
+			while (true) {
+				long current = (long) LONGS.getVolatile(numbers, bucket);
+				if (current == number) {
+					return true;
+				} else if (current == CLEARING) {
+					Thread.onSpinWait();
+				} else if (current > number) {
+					return false;
+				} else if (LONGS.compareAndSet(numbers, bucket, current, CLEARING)) {
+					int from = bucket * rows * 2;
+					Arrays.fill(counters, from, from + rows * 2, 0L);
+					LONGS.setVolatile(numbers, bucket, number);
+					return true;
+				}
+			}
+		}
+
+		/**
+		 * Copies the counters of the given window for the first
+		 * count rows, then the OTHER row, leaving zeros if the
+		 * window is not or no longer in its bucket.
+		 */
+		void copy(long number, int count, int other, long [] sold, long [] revenue) {
+			int bucket = (int) Math.floorMod(number, (long) buckets);
+			if ((long) LONGS.getVolatile(numbers, bucket) != number) {
+				return;
+			}
+			int base = bucket * rows * 2;
+			for (int row = 0; row < count; row++) {
+				sold[row] = (long) LONGS.getOpaque(counters, base + row * 2);
+				revenue[row] = (long) LONGS.getOpaque(counters, base + row * 2 + 1);
+			}
+			sold[count] = (long) LONGS.getOpaque(counters, base + other * 2);
+			revenue[count] = (long) LONGS.getOpaque(counters, base + other * 2 + 1);
+			if ((long) LONGS.getVolatile(numbers, bucket) != number) {
+				Arrays.fill(sold, 0L);
+				Arrays.fill(revenue, 0L);
+			}
+		}
+	}
+}
@@ -0,0 +1,132 @@
+/*
+ * Copyright (c) 2009,  Sarah Heckman, Laurie Williams, Dright Ho
+ * All Rights Reserved.
+ *
+ * Permission has been explicitly granted to the University of Minnesota
+ * Software Engineering Center to use and distribute this source for
+ * educational purposes, including delivering online education through
+ * Coursera or other entities.
+ *
+ * No warranty is given regarding this software, including warranties as
+ * to the correctness or completeness of this software, including
+ * fitness for purpose.
+ */
+package edu.ncsu.csc326.coffeemaker;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Beverages sold and revenue by recipe name in one window of a
+ * SalesLedger, copied when the window was read.  Recipes without
+ * sales in the window count 0.
+ */
+public final class SalesWindow {
+	private final long start;
+	private final long length;
+	private final String [] recipes;
+	private final long [] sold;
+	private final long [] revenue;
+
+	SalesWindow(long start, long length, String [] recipes, long [] sold, long [] revenue) {
+		this.start = start;
+		this.length = length;
+		this.recipes = recipes;
+		this.sold = sold;
+		this.revenue = revenue;
+	}
+
+	/**
+	 * Returns the first millisecond of the window.
+	 * @return long
+	 */
+	public long getStart() {
+		return start;
+	}
+
+	/**
+	 * Returns the millisecond after the window.
+	 * @return long
+	 */
+	public long getEnd() {
+		return start + length;
+	}
+
+	/**
+	 * Returns the number of beverages of the recipe sold.
+	 * @param recipeName
+	 * @return long
+	 */
+	public long getSold(String recipeName) {
+		int i = indexOf(recipeName);
+		return i < 0 ? 0 : sold[i];
+	}
+
+	/**
+	 * Returns the sum of the prices of the beverages of
+	 * the recipe sold.
+	 * @param recipeName
+	 * @return long
+	 */
+	public long getRevenue(String recipeName) {
+		int i = indexOf(recipeName);
+		return i < 0 ? 0 : revenue[i];
+	}
+
+	/**
+	 * Returns the number of beverages sold.
+	 * @return long
+	 */
+	public long getTotalSold() {
+		long total = 0;
+		for (long n : sold) {
+			total += n;
+		}
+		return total;
+	}
+
+	/**
+	 * Returns the sum of the prices of the beverages sold.
+	 * @return long
+	 */
+	public long getTotalRevenue() {
+		long total = 0;
+		for (long n : revenue) {
+			total += n;
+		}
+		return total;
+	}
+
+	/**
+	 * Returns the names of at most limit recipes with sales,
+	 * most beverages sold first.  Recipes selling the same
+	 * number are ordered by revenue, then by name.
+	 * @param limit
+	 * @return List
+	 */
+	public List<String> getBestSellers(int limit) {
+		List<Integer> order = new ArrayList<Integer>();
+		for (int i = 0; i < recipes.length; i++) {
+			if (sold[i] > 0) {
+				order.add(i);
+			}
+		}
+		order.sort((a, b) -> sold[a] != sold[b] ? Long.compare(sold[b], sold[a])
+				: revenue[a] != revenue[b] ? Long.compare(revenue[b], revenue[a])
+				: recipes[a].compareTo(recipes[b]));
+		List<String> names = new ArrayList<String>();
+		for (int i = 0; i < order.size() && i < limit; i++) {
+			names.add(recipes[order.get(i)]);
+		}
+		return names;
+	}
+
+	private int indexOf(String recipeName) {
+		for (int i = 0; i < recipes.length; i++) {
+			if (recipes[i].equals(recipeName)) {
+				return i;
+			}
+		}
+		return -1;
+	}
+}
@@ -0,0 +1,299 @@
+/*
+ * Copyright (c) 2009,  Sarah Heckman, Laurie Williams, Dright Ho
+ * All Rights Reserved.
+ *
+ * Permission has been explicitly granted to the University of Minnesota
+ * Software Engineering Center to use and distribute this source for
+ * educational purposes, including delivering online education through
+ * Coursera or other entities.
+ *
+ * No warranty is given regarding this software, including warranties as
+ * to the correctness or completeness of this software, including
+ * fitness for purpose.
+ */
+package edu.ncsu.csc326.coffeemaker;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Fleet of coffee makers partitioned by machine id across shards,
+ * each run by one thread.  Every operation on a machine is queued to
+ * the thread of its shard, so a machine and the shard's map of
+ * machines are only ever touched by that thread: shards share no
+ * lock, and the locks inside each coffee maker are never contended.
+ * With one shard per core, throughput grows with the number of cores
+ * as long as the load is spread over many machines.
+ *
+ * Operations return futures like AsyncCoffeeMaker.  An operation on a
+ * machine that is not in the fleet fails with an
+ * IllegalArgumentException.  The totals query asks every shard for
+ * its part and adds them up.
+ */
+public class ShardedFleet implements AutoCloseable {
+
+	/** Queue capacity of each shard for the default constructor */
+	public static final int DEFAULT_CAPACITY = 1024;
+
+	private final Shard [] shards;
+	/** Creates the coffee maker for a newly added machine */
+	private final Supplier<CoffeeMaker> factory;
+
+	/**
+	 * Creates a fleet with one shard per available processor, whose
+	 * machines use the default inventory and whose operations wait
+	 * for room when DEFAULT_CAPACITY operations are already queued
+	 * on a shard.
+	 */
+	public ShardedFleet() {
+		this(Runtime.getRuntime().availableProcessors(), CoffeeMaker::new, DEFAULT_CAPACITY, true);
+	}
+
+	/**
+	 * Creates a fleet with the given number of shards.
+	 * @param shardCount number of shard threads
+	 * @param factory creates the coffee maker of each new machine
+	 * @param capacity largest number of operations queued on a shard
+	 * @param waitWhenFull true to wait for room when a shard queue is
+	 *        full, false to reject the operation
+	 */
+	public ShardedFleet(int shardCount, Supplier<CoffeeMaker> factory, int capacity, boolean waitWhenFull) {
+		if (shardCount < 1) {
+			throw new IllegalArgumentException("Shard count must be positive: " + shardCount);
+		}
+		this.factory = factory;
+		this.shards = new Shard[shardCount];
+		for (int i = 0; i < shardCount; i++) {
+			shards[i] = new Shard(new CommandLoop("fleet-shard-" + i, capacity, waitWhenFull));
+		}
+	}
+
+	/**
+	 * Returns the number of shards.
+	 * @return int
+	 */
+	public int getShardCount() {
+		return shards.length;
+	}
+
+	/**
+	 * Returns a future completed with true once a new machine with
+	 * the given id was added, or with false if there already is one.
+	 * @param machineId
+	 * @return CompletableFuture
+	 */
+	public CompletableFuture<Boolean> addMachine(String machineId) {
+		Shard shard = shard(machineId);
+		return shard.loop.submit(() -> {
+			if (shard.machines.containsKey(machineId)) {
+				return false;
+			}
+			CoffeeMaker coffeeMaker = factory.get();
+			coffeeMaker.addListener(shard);
+			shard.machines.put(machineId, coffeeMaker);
+			return true;
+		});
+	}
+
+	/**
+	 * Returns a future completed with true once the machine with the
+	 * given id was removed, or with false if there was none.
+	 * @param machineId
+	 * @return CompletableFuture
+	 */
+	public CompletableFuture<Boolean> removeMachine(String machineId) {
+		Shard shard = shard(machineId);
+		return shard.loop.submit(() -> {
+			CoffeeMaker coffeeMaker = shard.machines.remove(machineId);
+			if (coffeeMaker == null) {
+				return false;
+			}
+			coffeeMaker.removeListener(shard);
+			return true;
+		});
+	}
+
+	/**
+	 * Returns a future of the result of the given operation, run on
+	 * the machine's shard thread.  The operation must not keep the
+	 * coffee maker or use it from another thread.
+	 * @param machineId
+	 * @param operation
+	 * @return CompletableFuture
+	 */
+	public <T> CompletableFuture<T> execute(String machineId, Function<CoffeeMaker, T> operation) {
+		Shard shard = shard(machineId);
+		return shard.loop.submit(() -> operation.apply(shard.machine(machineId)));
+	}
+
+	/**
+	 * Returns a future completed with true once the recipe was added
+	 * to the given machine.
+	 * @param machineId
+	 * @param r
+	 * @return CompletableFuture
+	 */
+	public CompletableFuture<Boolean> addRecipe(String machineId, Recipe r) {
+		return execute(machineId, coffeeMaker -> coffeeMaker.addRecipe(r));
+	}
+
+	/**
+	 * Returns a future of the change of a purchase on the given
+	 * machine, or of the user's money if the beverage cannot be made.
+	 * @param machineId
+	 * @param recipeToPurchase
+	 * @param amtPaid
+	 * @return CompletableFuture
+	 */
+	public CompletableFuture<Integer> makeCoffee(String machineId, int recipeToPurchase, int amtPaid) {
+		Shard shard = shard(machineId);
+		return shard.loop.submit(() -> shard.machine(machineId).makeCoffee(recipeToPurchase, amtPaid));
+	}
+
+	/**
+	 * Returns a future completed once the inventory was added to the
+	 * given machine, or failed with an InventoryException if an
+	 * amount is invalid.
+	 * @param machineId
+	 * @param amtCoffee
+	 * @param amtMilk
+	 * @param amtSugar
+	 * @param amtChocolate
+	 * @return CompletableFuture
+	 */
+	public CompletableFuture<Void> addInventory(String machineId, String amtCoffee, String amtMilk, String amtSugar, String amtChocolate) {
+		Shard shard = shard(machineId);
+		return shard.loop.submit(() -> {
+			shard.machine(machineId).addInventory(amtCoffee, amtMilk, amtSugar, amtChocolate);
+			return null;
+		});
+	}
+
+	/**
+	 * Returns a future completed once the inventory was added to the
+	 * given machine, or failed with an InventoryException if an
+	 * amount is negative.
+	 * @param machineId
+	 * @param amtCoffee
+	 * @param amtMilk
+	 * @param amtSugar
+	 * @param amtChocolate
+	 * @return CompletableFuture
+	 */
+	public CompletableFuture<Void> addInventory(String machineId, int amtCoffee, int amtMilk, int amtSugar, int amtChocolate) {
+		Shard shard = shard(machineId);
+		return shard.loop.submit(() -> {
+			shard.machine(machineId).addInventory(amtCoffee, amtMilk, amtSugar, amtChocolate);
+			return null;
+		});
+	}
+
+	/**
+	 * Returns a future of the inventory report of the given machine.
+	 * @param machineId
+	 * @return CompletableFuture
+	 */
+	public CompletableFuture<String> checkInventory(String machineId) {
+		Shard shard = shard(machineId);
+		return shard.loop.submit(() -> shard.machine(machineId).checkInventory());
+	}
+
+	/**
+	 * Returns a future of the inventory and sales totals of every
+	 * machine, adding up the part each shard works out on its own
+	 * thread.
+	 * @return CompletableFuture
+	 */
+	public CompletableFuture<FleetTotals> getTotals() {
+		List<CompletableFuture<long[]>> parts = new ArrayList<CompletableFuture<long[]>>(shards.length);
+		for (Shard shard : shards) {
+			parts.add(shard.loop.submit(shard::totals));
+		}
+		return CompletableFuture.allOf(parts.toArray(new CompletableFuture<?>[0])).thenApply(done -> {
+			long [] totals = new long[Shard.TOTALS];
+			for (CompletableFuture<long[]> part : parts) {
+				long [] shardTotals = part.join();
+				for (int i = 0; i < totals.length; i++) {
+					totals[i] += shardTotals[i];
+				}
+			}
+			return new FleetTotals(totals);
+		});
+	}
+
+	/**
+	 * Runs every operation already queued, then stops the shard
+	 * threads.  Operations requested afterwards fail.
+	 */
+	@Override
+	public void close() {
+		for (Shard shard : shards) {
+			shard.loop.close();
+		}
+	}
+
+	private Shard shard(String machineId) {
+		int h = machineId.hashCode();
+		return shards[Math.floorMod(h ^ (h >>> 16), shards.length)];
+	}
+
+	/**
+	 * The machines of one shard and its sales, only touched by the
+	 * shard thread.  The shard listens to each of its machines to
+	 * count the beverages they make.
+	 */
+	private static final class Shard implements CoffeeMakerListener {
+		/** Number of values in the totals of a shard */
+		static final int TOTALS = 7;
+
+		final CommandLoop loop;
+		final HashMap<String, CoffeeMaker> machines = new HashMap<String, CoffeeMaker>();
+		final int [] levels = new int[4];
+		long beveragesSold;
+		long revenue;
+
+		Shard(CommandLoop loop) {
+			this.loop = loop;
+		}
+
+		CoffeeMaker machine(String machineId) {
+			CoffeeMaker coffeeMaker = machines.get(machineId);
+			if (coffeeMaker == null) {
+				throw new IllegalArgumentException("No coffee maker with id " + machineId);
+			}
+			return coffeeMaker;
+		}
+
+		/**
+		 * Counts a beverage made by a machine of the shard.
+		 */
+		public void coffeeMade(Recipe r) {
+			beveragesSold++;
+			revenue += r.getPrice();
+		}
+
+		/**
+		 * Returns the machine count, units of each ingredient,
+		 * beverages sold and revenue of the shard, in the order
+		 * FleetTotals reads them.
+		 */
+		long [] totals() {
+			long [] totals = new long[TOTALS];
+			totals[0] = machines.size();
+			for (CoffeeMaker coffeeMaker : machines.values()) {
+				coffeeMaker.getInventoryLevels(levels);
+				totals[1] += levels[Inventory.COFFEE];
+				totals[2] += levels[Inventory.MILK];
+				totals[3] += levels[Inventory.SUGAR];
+				totals[4] += levels[Inventory.CHOCOLATE];
+			}
+			totals[5] = beveragesSold;
+			totals[6] = revenue;
+			return totals;
+		}
+	}
+}
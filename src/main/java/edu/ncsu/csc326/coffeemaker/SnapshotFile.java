@@ -0,0 +1,357 @@
+/*
+ * Copyright (c) 2009,  Sarah Heckman, Laurie Williams, Dright Ho
+ * All Rights Reserved.
+ *
+ * Permission has been explicitly granted to the University of Minnesota
+ * Software Engineering Center to use and distribute this source for
+ * educational purposes, including delivering online education through
+ * Coursera or other entities.
+ *
+ * No warranty is given regarding this software, including warranties as
+ * to the correctness or completeness of this software, including
+ * fitness for purpose.
+ */
+package edu.ncsu.csc326.coffeemaker;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+
+import edu.ncsu.csc326.coffeemaker.exceptions.RecipeException;
+
+/**
+ * Saves and loads the full state of coffee makers in a compact binary
+ * file: the ingredient levels and every recipe slot with the name,
+ * price and amounts of its recipe.  A file holds one coffee maker or a
+ * whole fleet.
+ *
+ * A coffee maker is saved from its recipe snapshot and a consistent
+ * read of its inventory, so saving never stops purchases.  The file is
+ * written through a direct buffer to a temporary file that then
+ * replaces the old one, so a crash leaves the previous file intact.
+ * Files are loaded through a memory map.
+ *
+ * The file is MAGIC, VERSION, the generation, the number of machines,
+ * each machine and the CRC32 of everything before it.  A machine is its
+ * id, the recipe book version, the four levels, the ingredients after
+ * chocolate, the number of recipe slots and each slot.  A slot is the
+ * byte length of the recipe name, or -1 for an empty slot, the UTF-8
+ * name, the price, the four amounts and the ingredients after chocolate
+ * the recipe needs.  Ingredients after chocolate are their number and
+ * then the name and units of each, by name since IngredientRegistry ids
+ * may differ after a restart; version 1 files do not have them.  Ints
+ * and longs are big-endian.
+ */
+public final class SnapshotFile {
+
+	/** First int of a snapshot file */
+	public static final int MAGIC = 0x434D534E;
+	/** Format version written after MAGIC */
+	public static final int VERSION = 2;
+
+	/** Machine id of a single coffee maker */
+	private static final String SINGLE_MACHINE = "";
+	/** Bytes of MAGIC, VERSION, generation and machine count */
+	private static final int HEADER_SIZE = 20;
+	/** Bytes of the recipe fields after the name */
+	private static final int RECIPE_FIELDS = 20;
+	/** Size of the write buffer */
+	private static final int BUFFER_SIZE = 1 << 20;
+
+	private SnapshotFile() {
+	}
+
+	/**
+	 * Saves the coffee maker to the given file.
+	 * @param coffeeMaker
+	 * @param generation number the caller uses to tell files apart,
+	 *        e.g. to match a journal
+	 * @param file
+	 * @throws IOException
+	 */
+	public static void write(CoffeeMaker coffeeMaker, long generation, Path file) throws IOException {
+		try (Writer out = new Writer(file, generation, 1)) {
+			out.putMachine(SINGLE_MACHINE, coffeeMaker);
+			out.finish();
+		}
+	}
+
+	/**
+	 * Saves every machine of the fleet to the given file.  Machines
+	 * added or removed while saving may or may not be saved.
+	 * @param fleet
+	 * @param generation
+	 * @param file
+	 * @throws IOException
+	 */
+	public static void write(CoffeeMakerFleet fleet, long generation, Path file) throws IOException {
+		String [] ids = fleet.getMachineIds().toArray(new String[0]);
+		CoffeeMaker [] machines = new CoffeeMaker[ids.length];
+		int count = 0;
+		for (String id : ids) {
+			CoffeeMaker coffeeMaker = fleet.getMachine(id);
+			if (coffeeMaker != null) {
+				ids[count] = id;
+				machines[count++] = coffeeMaker;
+			}
+		}
+		try (Writer out = new Writer(file, generation, count)) {
+			for (int i = 0; i < count; i++) {
+				out.putMachine(ids[i], machines[i]);
+			}
+			out.finish();
+		}
+	}
+
+	/**
+	 * Loads the state saved in the given file into the coffee maker,
+	 * which should be new, and returns the generation of the file.
+	 * @param file
+	 * @param coffeeMaker
+	 * @return long
+	 * @throws IOException if the file is not a valid snapshot of one
+	 *         coffee maker
+	 */
+	public static long read(Path file, CoffeeMaker coffeeMaker) throws IOException {
+		ByteBuffer in = open(file);
+		if (in.getInt(16) != 1) {
+			throw new IOException("Snapshot does not hold a single coffee maker: " + file);
+		}
+		in.position(HEADER_SIZE);
+		try {
+			skipId(in);
+			getMachine(in, in.getInt(4), coffeeMaker);
+		} catch (BufferUnderflowException | RecipeException e) {
+			throw new IOException("Corrupt snapshot: " + file, e);
+		}
+		return in.getLong(8);
+	}
+
+	/**
+	 * Loads every machine saved in the given file into the fleet,
+	 * adding the machines it does not have yet, and returns the
+	 * generation of the file.
+	 * @param file
+	 * @param fleet
+	 * @return long
+	 * @throws IOException if the file is not a valid snapshot
+	 */
+	public static long read(Path file, CoffeeMakerFleet fleet) throws IOException {
+		ByteBuffer in = open(file);
+		int count = in.getInt(16);
+		int version = in.getInt(4);
+		in.position(HEADER_SIZE);
+		try {
+			for (int i = 0; i < count; i++) {
+				getMachine(in, version, fleet.addMachine(getString(in)));
+			}
+		} catch (BufferUnderflowException | RecipeException e) {
+			throw new IOException("Corrupt snapshot: " + file, e);
+		}
+		return in.getLong(8);
+	}
+
+	/**
+	 * Maps the file and checks its header and checksum.
+	 */
+	private static ByteBuffer open(Path file) throws IOException {
+		MappedByteBuffer in;
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			in = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+		}
+		if (in.capacity() < HEADER_SIZE + 4 || in.getInt(0) != MAGIC) {
+			throw new IOException("Not a coffee maker snapshot: " + file);
+		}
+		if (in.getInt(4) != 1 && in.getInt(4) != VERSION) {
+			throw new IOException("Unsupported snapshot version " + in.getInt(4) + ": " + file);
+		}
+		int end = in.capacity() - 4;
+		CRC32 crc = new CRC32();
+		crc.update(in.duplicate().limit(end));
+		if ((int) crc.getValue() != in.getInt(end)) {
+			throw new IOException("Corrupt snapshot: " + file);
+		}
+		return in.limit(end);
+	}
+
+	private static void getMachine(ByteBuffer in, int fileVersion, CoffeeMaker coffeeMaker) throws RecipeException {
+		long version = in.getLong();
+		Inventory inventory = coffeeMaker.getInventory();
+		inventory.setCoffee(in.getInt());
+		inventory.setMilk(in.getInt());
+		inventory.setSugar(in.getInt());
+		inventory.setChocolate(in.getInt());
+		if (fileVersion > 1) {
+			for (int count = in.getInt(); count > 0; count--) {
+				inventory.setLevel(IngredientRegistry.register(getString(in)), in.getInt());
+			}
+		}
+		Recipe [] recipes = new Recipe[in.getInt()];
+		for (int i = 0; i < recipes.length; i++) {
+			int nameLength = in.getInt();
+			if (nameLength >= 0) {
+				String name = getString(in, nameLength);
+				recipes[i] = new Recipe(name, in.getInt(), in.getInt(), in.getInt(), in.getInt(), in.getInt());
+				if (fileVersion > 1) {
+					for (int count = in.getInt(); count > 0; count--) {
+						recipes[i].setAmount(IngredientRegistry.register(getString(in)), in.getInt());
+					}
+				}
+			}
+		}
+		coffeeMaker.getRecipeBook().restore(recipes, version);
+	}
+
+	private static String getString(ByteBuffer in) {
+		return getString(in, in.getInt());
+	}
+
+	private static String getString(ByteBuffer in, int length) {
+		byte [] bytes = new byte[length];
+		in.get(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	private static void skipId(ByteBuffer in) {
+		int length = in.getInt();
+		in.position(in.position() + length);
+	}
+
+	/**
+	 * Writes a snapshot file through a direct buffer, keeping
+	 * the checksum of every byte written.
+	 */
+	private static final class Writer implements AutoCloseable {
+		private final Path file;
+		private final Path temp;
+		private final FileChannel channel;
+		private final CRC32 crc = new CRC32();
+		private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+		private boolean finished;
+
+		Writer(Path file, long generation, int machines) throws IOException {
+			this.file = file;
+			this.temp = file.resolveSibling(file.getFileName() + ".tmp");
+			this.channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+					StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+			buffer.putInt(MAGIC).putInt(VERSION).putLong(generation).putInt(machines);
+		}
+
+		void putMachine(String id, CoffeeMaker coffeeMaker) throws IOException {
+			RecipeSnapshot recipes = coffeeMaker.getRecipeSnapshot();
+			InventorySnapshot levels = coffeeMaker.getInventorySnapshot();
+			putString(id.getBytes(StandardCharsets.UTF_8));
+			ensureRoom(28);
+			buffer.putLong(recipes.getVersion());
+			buffer.putInt(levels.getCoffee()).putInt(levels.getMilk())
+					.putInt(levels.getSugar()).putInt(levels.getChocolate());
+			int ingredients = IngredientRegistry.size();
+			int [] extras = new int[ingredients];
+			for (int ingredient = Inventory.CHOCOLATE + 1; ingredient < ingredients; ingredient++) {
+				extras[ingredient] = levels.getLevel(ingredient);
+			}
+			putExtras(extras);
+			ensureRoom(4);
+			buffer.putInt(recipes.size());
+			for (int i = 0; i < recipes.size(); i++) {
+				Recipe r = recipes.getRecipe(i);
+				if (r == null) {
+					ensureRoom(4);
+					buffer.putInt(-1);
+				} else {
+					putString(r.getName().getBytes(StandardCharsets.UTF_8));
+					ensureRoom(RECIPE_FIELDS);
+					buffer.putInt(r.getPrice()).putInt(r.getAmtCoffee()).putInt(r.getAmtMilk())
+							.putInt(r.getAmtSugar()).putInt(r.getAmtChocolate());
+					putExtras(r.amounts());
+				}
+			}
+		}
+
+		/**
+		 * Writes the number of ingredients after chocolate with
+		 * units, then the name and units of each.
+		 */
+		private void putExtras(int [] units) throws IOException {
+			int count = 0;
+			for (int id = Inventory.CHOCOLATE + 1; id < units.length; id++) {
+				if (units[id] > 0) {
+					count++;
+				}
+			}
+			ensureRoom(4);
+			buffer.putInt(count);
+			for (int id = Inventory.CHOCOLATE + 1; id < units.length; id++) {
+				if (units[id] > 0) {
+					putString(IngredientRegistry.getName(id).getBytes(StandardCharsets.UTF_8));
+					ensureRoom(4);
+					buffer.putInt(units[id]);
+				}
+			}
+		}
+
+		/**
+		 * Writes the checksum and replaces the file with
+		 * the one written.
+		 */
+		void finish() throws IOException {
+			flush();
+			buffer.putInt((int) crc.getValue()).flip();
+			while (buffer.hasRemaining()) {
+				channel.write(buffer);
+			}
+			channel.force(true);
+			channel.close();
+			Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			finished = true;
+		}
+
+		/**
+		 * Deletes the file written unless it was finished.
+		 */
+		@Override
+		public void close() throws IOException {
+			if (!finished) {
+				channel.close();
+				Files.deleteIfExists(temp);
+			}
+		}
+
+		private void putString(byte [] bytes) throws IOException {
+			ensureRoom(4);
+			buffer.putInt(bytes.length);
+			int offset = 0;
+			while (offset < bytes.length) {
+				if (!buffer.hasRemaining()) {
+					flush();
+				}
+				int length = Math.min(buffer.remaining(), bytes.length - offset);
+				buffer.put(bytes, offset, length);
+				offset += length;
+			}
+		}
+
+		private void ensureRoom(int bytes) throws IOException {
+			if (buffer.remaining() < bytes) {
+				flush();
+			}
+		}
+
+		private void flush() throws IOException {
+			buffer.flip();
+			crc.update(buffer.duplicate());
+			while (buffer.hasRemaining()) {
+				channel.write(buffer);
+			}
+			buffer.clear();
+		}
+	}
+}
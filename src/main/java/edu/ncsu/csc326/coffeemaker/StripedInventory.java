@@ -0,0 +1,394 @@
+/*
+ * Copyright (c) 2009,  Sarah Heckman, Laurie Williams, Dright Ho
+ * All Rights Reserved.
+ *
+ * Permission has been explicitly granted to the University of Minnesota
+ * Software Engineering Center to use and distribute this source for
+ * educational purposes, including delivering online education through
+ * Coursera or other entities.
+ *
+ * No warranty is given regarding this software, including warranties as
+ * to the correctness or completeness of this software, including
+ * fitness for purpose.
+ */
+package edu.ncsu.csc326.coffeemaker;
+
+import java.util.concurrent.locks.StampedLock;
+
+import edu.ncsu.csc326.coffeemaker.exceptions.InventoryException;
+
+/**
+ * Inventory for the coffee maker with a lock for each ingredient, so
+ * changes touching different ingredients run in parallel: restocking
+ * milk does not wait for a purchase that only uses coffee and
+ * chocolate.  A change locks only the ingredients it touches, always
+ * in the order coffee, milk, sugar, chocolate, so two changes can
+ * never wait for each other's locks.
+ *
+ * Reads use optimistic reads of every lock they need and retry if any
+ * ingredient changed meanwhile, so reading never blocks a change.
+ */
+public class StripedInventory extends Inventory {
+
+	/** Ingredient names by index, for messages */
+	private static final String [] NAMES = { "coffee", "milk", "sugar", "chocolate" };
+	/** Lock mask of every ingredient */
+	private static final int ALL = 0xF;
+
+	/** Lock and units of each ingredient, indexed by COFFEE etc. */
+	private final Stripe [] stripes = new Stripe[4];
+
+	/**
+	 * Creates a striped inventory object and fills each
+	 * item in the inventory with 15 units.
+	 */
+	public StripedInventory() {
+		super(0, 0, 0, 0);
+		for (int i = 0; i < stripes.length; i++) {
+			stripes[i] = new Stripe(15);
+		}
+	}
+
+	public int getChocolate() {
+		return units(CHOCOLATE);
+	}
+
+	public void setChocolate(int chocolate) {
+		setUnits(CHOCOLATE, chocolate);
+	}
+
+	public int getCoffee() {
+		return units(COFFEE);
+	}
+
+	public void setCoffee(int coffee) {
+		setUnits(COFFEE, coffee);
+	}
+
+	public int getMilk() {
+		return units(MILK);
+	}
+
+	public void setMilk(int milk) {
+		setUnits(MILK, milk);
+	}
+
+	public int getSugar() {
+		return units(SUGAR);
+	}
+
+	public void setSugar(int sugar) {
+		setUnits(SUGAR, sugar);
+	}
+
+	/**
+	 * Sets the units of coffee, milk, sugar or chocolate; no
+	 * other ingredient can be stocked.
+	 * @param ingredient
+	 * @param units
+	 */
+	public void setLevel(int ingredient, int units) {
+		checkStandard(ingredient);
+		super.setLevel(ingredient, units);
+	}
+
+	/**
+	 * Adds units of coffee, milk, sugar or chocolate; no
+	 * other ingredient can be stocked.
+	 * @param ingredient
+	 * @param units
+	 * @throws InventoryException if the units are negative
+	 */
+	public void addIngredient(int ingredient, int units) throws InventoryException {
+		checkStandard(ingredient);
+		super.addIngredient(ingredient, units);
+	}
+
+	/**
+	 * Adds units of every ingredient, locking only the
+	 * ingredients with units to add.
+	 * @throws InventoryException if a total would exceed Integer.MAX_VALUE
+	 */
+	protected void addIngredients(int coffee, int milk, int sugar, int chocolate) throws InventoryException {
+		int mask = mask(coffee, milk, sugar, chocolate);
+		long s0 = lock(COFFEE, mask);
+		long s1 = lock(MILK, mask);
+		long s2 = lock(SUGAR, mask);
+		long s3 = lock(CHOCOLATE, mask);
+		try {
+			checkTotal(COFFEE, coffee);
+			checkTotal(MILK, milk);
+			checkTotal(SUGAR, sugar);
+			checkTotal(CHOCOLATE, chocolate);
+			add(COFFEE, coffee);
+			add(MILK, milk);
+			add(SUGAR, sugar);
+			add(CHOCOLATE, chocolate);
+		} finally {
+			unlock(CHOCOLATE, mask, s3);
+			unlock(SUGAR, mask, s2);
+			unlock(MILK, mask, s1);
+			unlock(COFFEE, mask, s0);
+		}
+	}
+
+	/**
+	 * Returns true if there are enough ingredients to make
+	 * the beverage.
+	 * @param r
+	 * @return boolean
+	 */
+	protected boolean enoughIngredients(Recipe r) {
+		while (true) {
+			long s0 = stripes[COFFEE].tryOptimisticRead();
+			long s1 = stripes[MILK].tryOptimisticRead();
+			long s2 = stripes[SUGAR].tryOptimisticRead();
+			long s3 = stripes[CHOCOLATE].tryOptimisticRead();
+			boolean isEnough = hasIngredients(r);
+			if (stripes[COFFEE].validate(s0) && stripes[MILK].validate(s1)
+					&& stripes[SUGAR].validate(s2) && stripes[CHOCOLATE].validate(s3)) {
+				return isEnough;
+			}
+			Thread.onSpinWait();
+		}
+	}
+
+	/**
+	 * Removes the ingredients used to make the specified recipe,
+	 * locking only the ingredients the recipe uses.  Returns false,
+	 * leaving the inventory untouched, if there are not enough
+	 * ingredients or the recipe needs an ingredient other than
+	 * coffee, milk, sugar and chocolate.
+	 * @param r
+	 * @return boolean
+	 */
+	public boolean useIngredients(Recipe r) {
+		return needsOnlyStandard(r)
+				&& useIngredients(r.getAmtCoffee(), r.getAmtMilk(), r.getAmtSugar(), r.getAmtChocolate());
+	}
+
+	/**
+	 * Returns true if there are enough ingredients to make
+	 * the beverage, reading its amounts from their packed lanes.
+	 * @param r
+	 * @return boolean
+	 */
+	protected boolean enoughIngredients(CompactRecipe r) {
+		long amounts = r.getAmounts();
+		int coffee = LockFreeInventory.lane(amounts, LockFreeInventory.COFFEE_SHIFT);
+		int milk = LockFreeInventory.lane(amounts, LockFreeInventory.MILK_SHIFT);
+		int sugar = LockFreeInventory.lane(amounts, LockFreeInventory.SUGAR_SHIFT);
+		int chocolate = LockFreeInventory.lane(amounts, LockFreeInventory.CHOCOLATE_SHIFT);
+		while (true) {
+			long s0 = stripes[COFFEE].tryOptimisticRead();
+			long s1 = stripes[MILK].tryOptimisticRead();
+			long s2 = stripes[SUGAR].tryOptimisticRead();
+			long s3 = stripes[CHOCOLATE].tryOptimisticRead();
+			boolean isEnough = hasIngredients(coffee, milk, sugar, chocolate);
+			if (stripes[COFFEE].validate(s0) && stripes[MILK].validate(s1)
+					&& stripes[SUGAR].validate(s2) && stripes[CHOCOLATE].validate(s3)) {
+				return isEnough;
+			}
+			Thread.onSpinWait();
+		}
+	}
+
+	/**
+	 * Removes the packed amounts of the specified recipe, locking
+	 * only the ingredients the recipe uses.
+	 * @param r
+	 * @return boolean
+	 */
+	public boolean useIngredients(CompactRecipe r) {
+		long amounts = r.getAmounts();
+		return useIngredients(LockFreeInventory.lane(amounts, LockFreeInventory.COFFEE_SHIFT),
+				LockFreeInventory.lane(amounts, LockFreeInventory.MILK_SHIFT),
+				LockFreeInventory.lane(amounts, LockFreeInventory.SUGAR_SHIFT),
+				LockFreeInventory.lane(amounts, LockFreeInventory.CHOCOLATE_SHIFT));
+	}
+
+	private boolean useIngredients(int coffee, int milk, int sugar, int chocolate) {
+		int mask = mask(coffee, milk, sugar, chocolate);
+		long s0 = lock(COFFEE, mask);
+		long s1 = lock(MILK, mask);
+		long s2 = lock(SUGAR, mask);
+		long s3 = lock(CHOCOLATE, mask);
+		try {
+			return removeIngredients(coffee, milk, sugar, chocolate);
+		} finally {
+			unlock(CHOCOLATE, mask, s3);
+			unlock(SUGAR, mask, s2);
+			unlock(MILK, mask, s1);
+			unlock(COFFEE, mask, s0);
+		}
+	}
+
+	/**
+	 * Removes the ingredients of each recipe in turn as one atomic
+	 * step, holding every ingredient lock, and skipping null recipes
+	 * and recipes there are not enough ingredients for.
+	 * @param recipes
+	 * @param compacts compact form of each recipe, or null
+	 * @param used
+	 * @throws IllegalArgumentException if compacts or used is shorter than recipes
+	 */
+	public void useIngredients(Recipe[] recipes, CompactRecipe[] compacts, boolean[] used) {
+		checkBatch(recipes, compacts, used);
+		long s0 = lock(COFFEE, ALL);
+		long s1 = lock(MILK, ALL);
+		long s2 = lock(SUGAR, ALL);
+		long s3 = lock(CHOCOLATE, ALL);
+		try {
+			for (int i = 0; i < recipes.length; i++) {
+				if (recipes[i] == null) {
+					used[i] = false;
+				} else if (compacts[i] != null) {
+					long amounts = compacts[i].getAmounts();
+					used[i] = removeIngredients(LockFreeInventory.lane(amounts, LockFreeInventory.COFFEE_SHIFT),
+							LockFreeInventory.lane(amounts, LockFreeInventory.MILK_SHIFT),
+							LockFreeInventory.lane(amounts, LockFreeInventory.SUGAR_SHIFT),
+							LockFreeInventory.lane(amounts, LockFreeInventory.CHOCOLATE_SHIFT));
+				} else {
+					used[i] = removeIngredients(recipes[i]);
+				}
+			}
+		} finally {
+			unlock(CHOCOLATE, ALL, s3);
+			unlock(SUGAR, ALL, s2);
+			unlock(MILK, ALL, s1);
+			unlock(COFFEE, ALL, s0);
+		}
+	}
+
+	/**
+	 * Copies the units of every ingredient, all read at the same
+	 * moment, into levels.  Never blocks a change; the read is
+	 * retried until no ingredient changed while it ran.
+	 * @param levels
+	 */
+	public void getLevels(int[] levels) {
+		while (true) {
+			long s0 = stripes[COFFEE].tryOptimisticRead();
+			long s1 = stripes[MILK].tryOptimisticRead();
+			long s2 = stripes[SUGAR].tryOptimisticRead();
+			long s3 = stripes[CHOCOLATE].tryOptimisticRead();
+			int coffee = stripes[COFFEE].units;
+			int milk = stripes[MILK].units;
+			int sugar = stripes[SUGAR].units;
+			int chocolate = stripes[CHOCOLATE].units;
+			if (stripes[COFFEE].validate(s0) && stripes[MILK].validate(s1)
+					&& stripes[SUGAR].validate(s2) && stripes[CHOCOLATE].validate(s3)) {
+				levels[COFFEE] = coffee;
+				levels[MILK] = milk;
+				levels[SUGAR] = sugar;
+				levels[CHOCOLATE] = chocolate;
+				return;
+			}
+			Thread.onSpinWait();
+		}
+	}
+
+	private boolean hasIngredients(Recipe r) {
+		return hasIngredients(r.getAmtCoffee(), r.getAmtMilk(), r.getAmtSugar(), r.getAmtChocolate())
+				&& needsOnlyStandard(r);
+	}
+
+	private boolean hasIngredients(int coffee, int milk, int sugar, int chocolate) {
+		return stripes[COFFEE].units >= coffee
+				&& stripes[MILK].units >= milk
+				&& stripes[SUGAR].units >= sugar
+				&& stripes[CHOCOLATE].units >= chocolate;
+	}
+
+	private boolean removeIngredients(Recipe r) {
+		return needsOnlyStandard(r) && removeIngredients(r.getAmtCoffee(), r.getAmtMilk(), r.getAmtSugar(), r.getAmtChocolate());
+	}
+
+	/**
+	 * Uses the given units if there are enough, like Inventory: the
+	 * coffee is added and the other ingredients removed.  Must hold
+	 * the locks of every ingredient with units to use.
+	 */
+	private boolean removeIngredients(int coffee, int milk, int sugar, int chocolate) {
+		if (!hasIngredients(coffee, milk, sugar, chocolate)) {
+			return false;
+		}
+		add(COFFEE, coffee);
+		add(MILK, -milk);
+		add(SUGAR, -sugar);
+		add(CHOCOLATE, -chocolate);
+		return true;
+	}
+
+	/**
+	 * Adds units to an ingredient.  An ingredient whose lock is not
+	 * held is only read, never written, when there is nothing to add.
+	 */
+	private void add(int ingredient, int units) {
+		if (units != 0) {
+			stripes[ingredient].units += units;
+		}
+	}
+
+	private int units(int ingredient) {
+		Stripe stripe = stripes[ingredient];
+		while (true) {
+			long stamp = stripe.tryOptimisticRead();
+			int units = stripe.units;
+			if (stripe.validate(stamp)) {
+				return units;
+			}
+			Thread.onSpinWait();
+		}
+	}
+
+	private void setUnits(int ingredient, int units) {
+		if (units >= 0) {
+			Stripe stripe = stripes[ingredient];
+			long stamp = stripe.writeLock();
+			stripe.units = units;
+			stripe.unlockWrite(stamp);
+		}
+	}
+
+	private void checkTotal(int ingredient, int units) throws InventoryException {
+		if ((long) stripes[ingredient].units + units > Integer.MAX_VALUE) {
+			throw new InventoryException("Units of " + NAMES[ingredient] + " must be between 0 and "
+					+ Integer.MAX_VALUE);
+		}
+	}
+
+	/**
+	 * Returns the lock mask of the ingredients with a non-zero amount.
+	 */
+	private static int mask(int coffee, int milk, int sugar, int chocolate) {
+		return (coffee != 0 ? 1 << COFFEE : 0) | (milk != 0 ? 1 << MILK : 0)
+				| (sugar != 0 ? 1 << SUGAR : 0) | (chocolate != 0 ? 1 << CHOCOLATE : 0);
+	}
+
+	private long lock(int ingredient, int mask) {
+		return (mask & (1 << ingredient)) != 0 ? stripes[ingredient].writeLock() : 0;
+	}
+
+	private void unlock(int ingredient, int mask, long stamp) {
+		if ((mask & (1 << ingredient)) != 0) {
+			stripes[ingredient].unlockWrite(stamp);
+		}
+	}
+
+	/**
+	 * The lock and units of one ingredient.  Padded so the units
+	 * of different ingredients do not share a cache line.
+	 */
+	@SuppressWarnings("unused")
+	private static final class Stripe extends StampedLock {
+		private static final long serialVersionUID = 1L;
+
+		long p1, p2, p3, p4, p5, p6, p7;
+		int units;
+
+		Stripe(int units) {
+			this.units = units;
+		}
+	}
+}
@@ -0,0 +1,166 @@
+/*
+ * Copyright (c) 2009,  Sarah Heckman, Laurie Williams, Dright Ho
+ * All Rights Reserved.
+ *
+ * Permission has been explicitly granted to the University of Minnesota
+ * Software Engineering Center to use and distribute this source for
+ * educational purposes, including delivering online education through
+ * Coursera or other entities.
+ *
+ * No warranty is given regarding this software, including warranties as
+ * to the correctness or completeness of this software, including
+ * fitness for purpose.
+ */
+package edu.ncsu.csc326.coffeemaker;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import edu.ncsu.csc326.coffeemaker.exceptions.InventoryException;
+import edu.ncsu.csc326.coffeemaker.exceptions.RecipeException;
+
+/**
+ * Unit tests for AsyncCoffeeMaker class.
+ */
+public class AsyncCoffeeMakerTest {
+
+	/**
+	 * The object under test.
+	 */
+	private AsyncCoffeeMaker asyncCoffeeMaker;
+
+	/**
+	 * Initializes an asynchronous coffee maker with one recipe.
+	 *
+	 * @throws RecipeException if there was an error parsing the ingredient
+	 *                         amount when setting up the recipe.
+	 */
+	@Before
+	public void setUp() throws RecipeException {
+		asyncCoffeeMaker = new AsyncCoffeeMaker();
+		Recipe recipe = new Recipe();
+		recipe.setName("Coffee");
+		recipe.setAmtChocolate("0");
+		recipe.setAmtCoffee("0");
+		recipe.setAmtMilk("1");
+		recipe.setAmtSugar("1");
+		recipe.setPrice("50");
+		asyncCoffeeMaker.getCoffeeMaker().addRecipe(recipe);
+	}
+
+	@After
+	public void tearDown() {
+		asyncCoffeeMaker.close();
+	}
+
+	/**
+	 * Given an asynchronous coffee maker with a valid recipe
+	 * When we make coffee, paying more than the coffee costs
+	 * Then the future completes with the correct change.
+	 *
+	 * @throws Exception if the operation failed.
+	 */
+	@Test
+	public void testMakeCoffeeAsync() throws Exception {
+		assertEquals(Integer.valueOf(25), asyncCoffeeMaker.makeCoffeeAsync(0, 75).get());
+		assertEquals("Coffee: 15\nMilk: 14\nSugar: 14\nChocolate: 15\n",
+				asyncCoffeeMaker.checkInventoryAsync().get());
+	}
+
+	/**
+	 * Given an asynchronous coffee maker
+	 * When we add inventory with malformed quantities
+	 * Then the future fails with an inventory exception.
+	 *
+	 * @throws InterruptedException if interrupted while waiting.
+	 */
+	@Test
+	public void testAddInventoryAsyncException() throws InterruptedException {
+		try {
+			asyncCoffeeMaker.addInventoryAsync("4", "-1", "0", "3").get();
+			fail("Expected an inventory exception");
+		} catch (ExecutionException e) {
+			assertTrue(e.getCause() instanceof InventoryException);
+		}
+	}
+
+	/**
+	 * Given an asynchronous coffee maker used by 4 threads
+	 * When each thread queues 250 purchases and a restock
+	 * Then every purchase is made and the inventory adds up.
+	 *
+	 * @throws Exception if an operation failed.
+	 */
+	@Test
+	public void testConcurrentPurchases() throws Exception {
+		AsyncCoffeeMaker waiting = new AsyncCoffeeMaker(new CoffeeMaker(), 16, true);
+		waiting.getCoffeeMaker().addRecipe(asyncCoffeeMaker.getCoffeeMaker().getRecipes()[0]);
+		final int[] change = new int[4];
+		Thread[] threads = new Thread[4];
+		for (int t = 0; t < threads.length; t++) {
+			final int id = t;
+			threads[t] = new Thread(() -> {
+				CompletableFuture<?> restock = waiting.addInventoryAsync(0, 250, 250, 0);
+				restock.join();
+				for (int i = 0; i < 250; i++) {
+					change[id] += waiting.makeCoffeeAsync(0, 60).join();
+				}
+			});
+			threads[t].start();
+		}
+		for (Thread thread : threads) {
+			thread.join();
+		}
+		assertEquals(10000, change[0] + change[1] + change[2] + change[3]);
+		assertEquals("Coffee: 15\nMilk: 15\nSugar: 15\nChocolate: 15\n", waiting.checkInventoryAsync().get());
+		waiting.close();
+	}
+
+	/**
+	 * Given a command loop that rejects commands when full
+	 * When we queue more commands than it holds while it is busy
+	 * Then the extra command is rejected.
+	 *
+	 * @throws Exception if a command failed.
+	 */
+	@Test
+	public void testRejectWhenFull() throws Exception {
+		CommandLoop loop = new CommandLoop("test-loop", 2, false);
+		CountDownLatch busy = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		loop.submit(() -> {
+			busy.countDown();
+			release.await();
+			return null;
+		});
+		busy.await();
+		CompletableFuture<Integer> first = loop.submit(() -> 1);
+		CompletableFuture<Integer> second = loop.submit(() -> 2);
+		CompletableFuture<Integer> third = loop.submit(() -> 3);
+		release.countDown();
+		assertEquals(Integer.valueOf(1), first.get());
+		assertEquals(Integer.valueOf(2), second.get());
+		assertRejected(third);
+		loop.close();
+		assertRejected(loop.submit(() -> 4));
+	}
+
+	private static void assertRejected(CompletableFuture<?> future) throws InterruptedException {
+		try {
+			future.get();
+			fail("Expected the command to be rejected");
+		} catch (ExecutionException e) {
+			assertTrue(e.getCause() instanceof RejectedExecutionException);
+		}
+	}
+}
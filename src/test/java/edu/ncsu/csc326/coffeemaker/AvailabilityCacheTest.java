@@ -0,0 +1,113 @@
+/*
+ * Copyright (c) 2009,  Sarah Heckman, Laurie Williams, Dright Ho
+ * All Rights Reserved.
+ *
+ * Permission has been explicitly granted to the University of Minnesota
+ * Software Engineering Center to use and distribute this source for
+ * educational purposes, including delivering online education through
+ * Coursera or other entities.
+ *
+ * No warranty is given regarding this software, including warranties as
+ * to the correctness or completeness of this software, including
+ * fitness for purpose.
+ */
+package edu.ncsu.csc326.coffeemaker;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+import edu.ncsu.csc326.coffeemaker.exceptions.InventoryException;
+import edu.ncsu.csc326.coffeemaker.exceptions.RecipeException;
+
+/**
+ * Unit tests for AvailabilityCache class.
+ */
+public class AvailabilityCacheTest {
+
+	/**
+	 * Given a coffee maker with a latte it can make 3 times
+	 * When we buy 3 lattes and then restock milk
+	 * Then the cache follows each change.
+	 *
+	 * @throws RecipeException if there was an error setting up a recipe.
+	 * @throws InventoryException if there was an error adding inventory.
+	 */
+	@Test
+	public void testPurchasesAndRestock() throws RecipeException, InventoryException {
+		CoffeeMaker coffeeMaker = new CoffeeMaker();
+		coffeeMaker.addRecipe(new Recipe("Latte", 100, 0, 4, 1, 0));
+		AvailabilityCache cache = new AvailabilityCache(coffeeMaker);
+		assertTrue(cache.isAvailable(0));
+		assertFalse(cache.isAvailable(1));
+		for (int i = 0; i < 3; i++) {
+			coffeeMaker.makeCoffee(0, 100);
+		}
+		assertFalse(cache.isAvailable(0));
+		assertEquals(0, cache.getAvailableCount());
+		coffeeMaker.addInventory(0, 1, 0, 0);
+		assertTrue(cache.isAvailable(0));
+		assertEquals("{0}", cache.getAvailable().toString());
+	}
+
+	/**
+	 * Given coffee makers with a fixed and a growing recipe book
+	 * When we make random purchases, restocks, level changes and
+	 * recipe additions, deletions and edits
+	 * Then after every operation the cache matches availableRecipes.
+	 *
+	 * @throws RecipeException if there was an error setting up a recipe.
+	 * @throws InventoryException if there was an error adding inventory.
+	 */
+	@Test
+	public void testMatchesFullRecompute() throws RecipeException, InventoryException {
+		Random random = new Random(19);
+		CoffeeMaker [] coffeeMakers = {
+				new CoffeeMaker(new Inventory()),
+				new CoffeeMaker(new IndexedRecipeBook(), new LockFreeInventory()) };
+		for (CoffeeMaker coffeeMaker : coffeeMakers) {
+			AvailabilityCache cache = new AvailabilityCache(coffeeMaker);
+			for (int op = 0; op < 5000; op++) {
+				int slots = coffeeMaker.getRecipes().length;
+				switch (random.nextInt(8)) {
+				case 0:
+					coffeeMaker.addRecipe(randomRecipe(random, op));
+					break;
+				case 1:
+					coffeeMaker.deleteRecipe(random.nextInt(slots));
+					break;
+				case 2:
+					coffeeMaker.editRecipe(random.nextInt(slots), randomRecipe(random, op));
+					break;
+				case 3:
+					coffeeMaker.addInventory(random.nextInt(4), random.nextInt(4), random.nextInt(4), random.nextInt(4));
+					break;
+				case 4:
+					coffeeMaker.getInventory().setMilk(random.nextInt(20));
+					break;
+				default:
+					coffeeMaker.makeCoffee(random.nextInt(slots), 100);
+					break;
+				}
+				assertSameAvailability(coffeeMaker.availableRecipes(), cache);
+			}
+		}
+	}
+
+	private static Recipe randomRecipe(Random random, int op) throws RecipeException {
+		return new Recipe("Recipe " + random.nextInt(op + 1), 50, random.nextInt(3), random.nextInt(6),
+				random.nextInt(4), random.nextInt(8));
+	}
+
+	private static void assertSameAvailability(RecipeAvailability expected, AvailabilityCache cache) {
+		assertEquals(expected.getAvailable(), cache.getAvailable());
+		assertEquals(expected.getAvailableCount(), cache.getAvailableCount());
+		for (int i = 0; i < expected.getRecipes().size() + 1; i++) {
+			assertEquals(expected.isAvailable(i), cache.isAvailable(i));
+		}
+	}
+}
@@ -0,0 +1,110 @@
+/*
+ * Copyright (c) 2009,  Sarah Heckman, Laurie Williams, Dright Ho
+ * All Rights Reserved.
+ *
+ * Permission has been explicitly granted to the University of Minnesota
+ * Software Engineering Center to use and distribute this source for
+ * educational purposes, including delivering online education through
+ * Coursera or other entities.
+ *
+ * No warranty is given regarding this software, including warranties as
+ * to the correctness or completeness of this software, including
+ * fitness for purpose.
+ */
+package edu.ncsu.csc326.coffeemaker;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import edu.ncsu.csc326.coffeemaker.exceptions.InventoryException;
+import edu.ncsu.csc326.coffeemaker.exceptions.RecipeException;
+
+/**
+ * Unit tests for CoffeeMakerFleet class.
+ */
+public class CoffeeMakerFleetTest {
+
+	/**
+	 * The object under test.
+	 */
+	private CoffeeMakerFleet fleet;
+
+	private Recipe recipe;
+
+	/**
+	 * Initializes a fleet of 1000 machines and a recipe to test with.
+	 *
+	 * @throws RecipeException if there was an error parsing the ingredient
+	 *                         amount when setting up the recipe.
+	 */
+	@Before
+	public void setUp() throws RecipeException {
+		fleet = new CoffeeMakerFleet();
+		for (int i = 0; i < 1000; i++) {
+			fleet.addMachine("machine-" + i);
+		}
+
+		recipe = new Recipe();
+		recipe.setName("Coffee");
+		recipe.setAmtChocolate("0");
+		recipe.setAmtCoffee("3");
+		recipe.setAmtMilk("1");
+		recipe.setAmtSugar("1");
+		recipe.setPrice("50");
+	}
+
+	/**
+	 * Given a fleet of 1000 machines
+	 * When we add an existing machine id again
+	 * Then we get the machine already in the fleet.
+	 */
+	@Test
+	public void testAddExistingMachine() {
+		CoffeeMaker machine = fleet.getMachine("machine-7");
+		assertSame(machine, fleet.addMachine("machine-7"));
+		assertEquals(1000, fleet.size());
+	}
+
+	/**
+	 * Given a fleet where only one machine has a recipe
+	 * When we buy the recipe on two machines
+	 * Then only the machine with the recipe sells it.
+	 */
+	@Test
+	public void testMakeCoffeeRoutesByMachine() {
+		fleet.addRecipe("machine-1", recipe);
+		assertEquals(25, fleet.makeCoffee("machine-1", 0, 75));
+		assertEquals(75, fleet.makeCoffee("machine-2", 0, 75));
+	}
+
+	/**
+	 * Given a fleet of 1000 machines
+	 * When we add inventory to one machine
+	 * Then the other machines keep the default inventory.
+	 *
+	 * @throws InventoryException if there was an error parsing the quanity
+	 *                            to a positive integer.
+	 */
+	@Test
+	public void testAddInventoryRoutesByMachine() throws InventoryException {
+		fleet.addInventory("machine-3", "1", "0", "0", "0");
+		assertEquals("Coffee: 16\nMilk: 15\nSugar: 15\nChocolate: 15\n", fleet.checkInventory("machine-3"));
+		assertEquals("Coffee: 15\nMilk: 15\nSugar: 15\nChocolate: 15\n", fleet.checkInventory("machine-4"));
+	}
+
+	/**
+	 * Given a fleet of 1000 machines
+	 * When we remove a machine and buy from it
+	 * Then we get an illegal argument exception.
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public void testMakeCoffeeRemovedMachine() {
+		fleet.removeMachine("machine-5");
+		assertNull(fleet.getMachine("machine-5"));
+		fleet.makeCoffee("machine-5", 0, 75);
+	}
+}
@@ -0,0 +1,356 @@
+/*
+ * Copyright (c) 2009,  Sarah Heckman, Laurie Williams, Dright Ho
+ * All Rights Reserved.
+ *
+ * Permission has been explicitly granted to the University of Minnesota
+ * Software Engineering Center to use and distribute this source for
+ * educational purposes, including delivering online education through
+ * Coursera or other entities.
+ *
+ * No warranty is given regarding this software, including warranties as
+ * to the correctness or completeness of this software, including
+ * fitness for purpose.
+ */
+package edu.ncsu.csc326.coffeemaker;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import edu.ncsu.csc326.coffeemaker.exceptions.InventoryException;
+import edu.ncsu.csc326.coffeemaker.exceptions.RecipeException;
+
+/**
+ * Unit tests for CoffeeMakerJournal class.
+ */
+public class CoffeeMakerJournalTest {
+
+	private Path file;
+	private Recipe recipe1;
+	private Recipe recipe2;
+
+	/**
+	 * Creates an empty journal file and two recipes to test with.
+	 *
+	 * @throws IOException if the file cannot be created.
+	 * @throws RecipeException if there was an error setting up a recipe.
+	 */
+	@Before
+	public void setUp() throws IOException, RecipeException {
+		file = Files.createTempFile("coffeemaker", ".journal");
+		recipe1 = new Recipe("Coffee", 50, 3, 1, 1, 0);
+		recipe2 = new Recipe("Mocha", 75, 0, 1, 1, 2);
+	}
+
+	@After
+	public void tearDown() throws IOException {
+		Files.deleteIfExists(file);
+	}
+
+	/**
+	 * Given a journaled coffee maker that had recipes changed,
+	 * inventory added and coffee made
+	 * When we open the journal with a new coffee maker
+	 * Then the new coffee maker has the same recipes and inventory.
+	 *
+	 * @throws Exception if the journal cannot be used.
+	 */
+	@Test
+	public void testReplay() throws Exception {
+		CoffeeMaker coffeeMaker = new CoffeeMaker();
+		CoffeeMakerJournal journal = CoffeeMakerJournal.open(file, coffeeMaker, 4);
+		journaledChanges(coffeeMaker);
+		journal.close();
+
+		CoffeeMaker recovered = new CoffeeMaker();
+		CoffeeMakerJournal.open(file, recovered, 4).close();
+		assertEquals(coffeeMaker.checkInventory(), recovered.checkInventory());
+		assertRecipes(coffeeMaker, recovered);
+	}
+
+	/**
+	 * Given a journal whose last record was cut short by a crash
+	 * When we open it and make more changes
+	 * Then the torn record is dropped and the new changes replay.
+	 *
+	 * @throws Exception if the journal cannot be used.
+	 */
+	@Test
+	public void testTornRecord() throws Exception {
+		CoffeeMaker coffeeMaker = new CoffeeMaker();
+		CoffeeMakerJournal journal = CoffeeMakerJournal.open(file, coffeeMaker, 1);
+		coffeeMaker.addRecipe(recipe1);
+		journal.close();
+		Files.write(file, new byte[] { 0, 0, 0, 40, 1, 2, 3 }, StandardOpenOption.APPEND);
+
+		CoffeeMaker reopened = new CoffeeMaker();
+		journal = CoffeeMakerJournal.open(file, reopened, 1);
+		reopened.addInventory(0, 5, 0, 0);
+		journal.close();
+
+		CoffeeMaker recovered = new CoffeeMaker();
+		CoffeeMakerJournal.open(file, recovered, 1).close();
+		assertEquals("Coffee", recovered.getRecipes()[0].getName());
+		assertNull(recovered.getRecipes()[1]);
+		assertEquals("Coffee: 15\nMilk: 20\nSugar: 15\nChocolate: 15\n", recovered.checkInventory());
+	}
+
+	/**
+	 * Given a coffee maker journaled with a commit interval of 1000
+	 * When we make fewer changes than that and commit
+	 * Then the changes replay.
+	 *
+	 * @throws Exception if the journal cannot be used.
+	 */
+	@Test
+	public void testCommit() throws Exception {
+		CoffeeMaker coffeeMaker = new CoffeeMaker();
+		CoffeeMakerJournal journal = CoffeeMakerJournal.open(file, coffeeMaker, 1000);
+		journaledChanges(coffeeMaker);
+		journal.commit();
+
+		CoffeeMaker recovered = new CoffeeMaker();
+		CoffeeMakerJournal.open(file, recovered, 1).close();
+		journal.close();
+		assertEquals(coffeeMaker.checkInventory(), recovered.checkInventory());
+	}
+
+	/**
+	 * Given a coffee maker journaled with a commit interval of 1000
+	 * When we make fewer changes than that and do not commit
+	 * Then the changes are already in the file and replay.
+	 *
+	 * @throws Exception if the journal cannot be used.
+	 */
+	@Test
+	public void testWrittenAtOnce() throws Exception {
+		CoffeeMaker coffeeMaker = new CoffeeMaker();
+		CoffeeMakerJournal journal = CoffeeMakerJournal.open(file, coffeeMaker, 1000);
+		journaledChanges(coffeeMaker);
+
+		CoffeeMaker recovered = new CoffeeMaker();
+		CoffeeMakerJournal.open(file, recovered, 1).close();
+		journal.close();
+		assertEquals(coffeeMaker.checkInventory(), recovered.checkInventory());
+		assertRecipes(coffeeMaker, recovered);
+	}
+
+	/**
+	 * Given a journaled coffee maker
+	 * When writing the record of a purchase fails because the buying
+	 * thread was interrupted
+	 * Then the purchase still gives its change, later changes are not
+	 *      recorded, close reports the failure and the changes before
+	 *      it replay.
+	 *
+	 * @throws Exception if the journal cannot be used.
+	 */
+	@Test
+	public void testWriteFailure() throws Exception {
+		CoffeeMaker coffeeMaker = new CoffeeMaker();
+		CoffeeMakerJournal journal = CoffeeMakerJournal.open(file, coffeeMaker, 1);
+		coffeeMaker.addRecipe(recipe1);
+		Thread.currentThread().interrupt();
+		assertEquals(50, coffeeMaker.makeCoffee(0, 100));
+		assertTrue(Thread.interrupted());
+		coffeeMaker.addInventory(0, 5, 0, 0);
+		try {
+			journal.close();
+			fail("Expected the write failure");
+		} catch (IOException e) {
+			// expected
+		}
+
+		CoffeeMaker recovered = new CoffeeMaker();
+		CoffeeMakerJournal.open(file, recovered, 1).close();
+		assertEquals("Coffee", recovered.getRecipes()[0].getName());
+		assertEquals("Coffee: 15\nMilk: 15\nSugar: 15\nChocolate: 15\n", recovered.checkInventory());
+	}
+
+	/**
+	 * Given a coffee maker recording sales in a ledger
+	 * When we journal it, buy a coffee, close the journal and buy another
+	 * Then the ledger records both sales.
+	 *
+	 * @throws Exception if the journal cannot be used.
+	 */
+	@Test
+	public void testKeepsOtherListeners() throws Exception {
+		CoffeeMaker coffeeMaker = new CoffeeMaker();
+		SalesLedger ledger = new SalesLedger();
+		ledger.attach(coffeeMaker);
+		CoffeeMakerJournal journal = CoffeeMakerJournal.open(file, coffeeMaker, 1);
+		coffeeMaker.addRecipe(recipe1);
+		coffeeMaker.makeCoffee(0, 100);
+		journal.close();
+		coffeeMaker.makeCoffee(0, 100);
+		assertEquals(2, ledger.getWindow(SalesLedger.HOUR, 0).getTotalSold());
+	}
+
+	/**
+	 * Given a coffee maker journaled after a snapshot
+	 * When we reopen the journal with the snapshot
+	 * Then the changes are replayed and moved into a new snapshot,
+	 * and a journal left from before that snapshot is not replayed.
+	 *
+	 * @throws Exception if the journal cannot be used.
+	 */
+	@Test
+	public void testCheckpoint() throws Exception {
+		Path snapshot = file.resolveSibling(file.getFileName() + ".snapshot");
+		try {
+			CoffeeMaker coffeeMaker = new CoffeeMaker();
+			CoffeeMakerJournal.open(file, snapshot, coffeeMaker, 4).close();
+			CoffeeMakerJournal journal = CoffeeMakerJournal.open(file, snapshot, coffeeMaker, 4);
+			journaledChanges(coffeeMaker);
+			journal.close();
+			byte [] oldJournal = Files.readAllBytes(file);
+
+			CoffeeMaker recovered = new CoffeeMaker();
+			CoffeeMakerJournal.open(file, snapshot, recovered, 4).close();
+			assertEquals(coffeeMaker.checkInventory(), recovered.checkInventory());
+			assertEquals(16, Files.size(file));
+
+			Files.write(file, oldJournal);
+			CoffeeMaker restarted = new CoffeeMaker();
+			CoffeeMakerJournal.open(file, snapshot, restarted, 4).close();
+			assertEquals(coffeeMaker.checkInventory(), restarted.checkInventory());
+			assertRecipes(coffeeMaker, restarted);
+		} finally {
+			Files.deleteIfExists(snapshot);
+		}
+	}
+
+	/**
+	 * Given a journal holding beverages made
+	 * When we open it with a coffee maker that already has a listener
+	 * Then the listener is told about every replayed beverage.
+	 *
+	 * @throws Exception if the journal cannot be used.
+	 */
+	@Test
+	public void testReplayTellsListeners() throws Exception {
+		CoffeeMaker coffeeMaker = new CoffeeMaker();
+		CoffeeMakerJournal journal = CoffeeMakerJournal.open(file, coffeeMaker, 4);
+		coffeeMaker.addRecipe(recipe1);
+		coffeeMaker.makeCoffee(0, 50);
+		coffeeMaker.makeCoffee(0, 50);
+		journal.close();
+
+		CoffeeMaker recovered = new CoffeeMaker();
+		SalesLedger ledger = new SalesLedger();
+		ledger.attach(recovered);
+		CoffeeMakerJournal.open(file, recovered, 4).close();
+		assertEquals(2, ledger.getWindow(SalesLedger.MINUTE, 0).getSold("Coffee"));
+		assertEquals(coffeeMaker.checkInventory(), recovered.checkInventory());
+	}
+
+	/**
+	 * Given a journal holding a beverage made from units added
+	 * straight to the inventory, which are not journaled
+	 * When we open it with a new coffee maker
+	 * Then the beverage cannot be made again and opening fails.
+	 *
+	 * @throws Exception if the journal cannot be written.
+	 */
+	@Test
+	public void testBeverageNoLongerMade() throws Exception {
+		CoffeeMaker coffeeMaker = new CoffeeMaker();
+		CoffeeMakerJournal journal = CoffeeMakerJournal.open(file, coffeeMaker, 4);
+		coffeeMaker.addRecipe(new Recipe("Milk", 10, 0, 20, 0, 0));
+		coffeeMaker.getInventory().setMilk(20);
+		assertEquals(0, coffeeMaker.makeCoffee(0, 10));
+		journal.close();
+
+		try {
+			CoffeeMakerJournal.open(file, new CoffeeMaker(), 4).close();
+			fail("Expected IOException");
+		} catch (IOException e) {
+			assertTrue(e.getMessage().startsWith("Corrupt journal record"));
+		}
+	}
+
+	/**
+	 * Given purchases and restocks on two threads
+	 * When checkpoints are taken while they run
+	 * Then the snapshot and journal restore the same inventory,
+	 *      every change counted once.
+	 *
+	 * @throws Exception if the journal cannot be used.
+	 */
+	@Test
+	public void testCheckpointDuringChanges() throws Exception {
+		Path snapshot = file.resolveSibling(file.getFileName() + ".snapshot");
+		try {
+			CoffeeMaker coffeeMaker = new CoffeeMaker();
+			CoffeeMakerJournal journal = CoffeeMakerJournal.open(file, snapshot, coffeeMaker, 16);
+			coffeeMaker.addRecipe(recipe1);
+			coffeeMaker.addInventory(0, 10000, 10000, 0);
+			Thread [] threads = new Thread[2];
+			for (int t = 0; t < threads.length; t++) {
+				threads[t] = new Thread(() -> {
+					try {
+						for (int i = 0; i < 2000; i++) {
+							coffeeMaker.makeCoffee(0, 50);
+							coffeeMaker.addInventory(0, 0, 0, 1);
+						}
+					} catch (InventoryException e) {
+						throw new IllegalStateException(e);
+					}
+				});
+				threads[t].start();
+			}
+			while (threads[0].isAlive() || threads[1].isAlive()) {
+				journal.checkpoint();
+				Thread.yield();
+			}
+			for (Thread thread : threads) {
+				thread.join();
+			}
+			journal.close();
+
+			CoffeeMaker recovered = new CoffeeMaker();
+			CoffeeMakerJournal.open(file, snapshot, recovered, 16).close();
+			assertEquals(coffeeMaker.checkInventory(), recovered.checkInventory());
+		} finally {
+			Files.deleteIfExists(snapshot);
+		}
+	}
+
+	private void journaledChanges(CoffeeMaker coffeeMaker) throws InventoryException, RecipeException {
+		coffeeMaker.addRecipe(recipe1);
+		coffeeMaker.addRecipe(recipe2);
+		coffeeMaker.addInventory("5", "7", "0", "9");
+		coffeeMaker.addInventory(1, 2, 3, 4);
+		coffeeMaker.makeCoffee(0, 50);
+		coffeeMaker.makeCoffeeBatch(new int[] { 1, 1, 0 }, new int[] { 75, 10, 100 });
+		coffeeMaker.editRecipe(0, new Recipe("Latte", 60, 1, 3, 0, 0));
+		coffeeMaker.deleteRecipe(1);
+		coffeeMaker.makeCoffee(0, 60);
+	}
+
+	private static void assertRecipes(CoffeeMaker expected, CoffeeMaker actual) {
+		Recipe [] expectedRecipes = expected.getRecipes();
+		Recipe [] actualRecipes = actual.getRecipes();
+		assertEquals(expectedRecipes.length, actualRecipes.length);
+		for (int i = 0; i < expectedRecipes.length; i++) {
+			if (expectedRecipes[i] == null) {
+				assertNull(actualRecipes[i]);
+			} else {
+				assertEquals(expectedRecipes[i].getName(), actualRecipes[i].getName());
+				assertEquals(expectedRecipes[i].getPrice(), actualRecipes[i].getPrice());
+				assertEquals(expectedRecipes[i].getAmtMilk(), actualRecipes[i].getAmtMilk());
+			}
+		}
+	}
+}
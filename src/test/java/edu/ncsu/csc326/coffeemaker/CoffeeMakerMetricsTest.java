@@ -0,0 +1,129 @@
+/*
+ * Copyright (c) 2009,  Sarah Heckman, Laurie Williams, Dright Ho
+ * All Rights Reserved.
+ *
+ * Permission has been explicitly granted to the University of Minnesota
+ * Software Engineering Center to use and distribute this source for
+ * educational purposes, including delivering online education through
+ * Coursera or other entities.
+ *
+ * No warranty is given regarding this software, including warranties as
+ * to the correctness or completeness of this software, including
+ * fitness for purpose.
+ */
+package edu.ncsu.csc326.coffeemaker;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.management.ManagementFactory;
+
+import javax.management.ObjectName;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import edu.ncsu.csc326.coffeemaker.exceptions.RecipeException;
+
+/**
+ * Unit tests for CoffeeMakerMetrics and LatencyHistogram classes.
+ */
+public class CoffeeMakerMetricsTest {
+
+	private CoffeeMaker coffeeMaker;
+	private CoffeeMakerMetrics metrics;
+
+	/**
+	 * Initializes a coffee maker recording metrics, with two recipes.
+	 *
+	 * @throws RecipeException if there was an error setting up a recipe.
+	 */
+	@Before
+	public void setUp() throws RecipeException {
+		coffeeMaker = new CoffeeMaker();
+		metrics = new CoffeeMakerMetrics(1);
+		coffeeMaker.setMetrics(metrics);
+		coffeeMaker.addRecipe(new Recipe("Coffee", 50, 0, 1, 1, 0));
+		coffeeMaker.addRecipe(new Recipe("Mocha", 75, 0, 1, 1, 20));
+	}
+
+	/**
+	 * Given a coffee maker recording metrics
+	 * When we make purchases with every outcome, one by one and in a batch,
+	 * including indexes with no recipe slot
+	 * Then every outcome and every beverage made is counted.
+	 */
+	@Test
+	public void testOutcomes() {
+		coffeeMaker.makeCoffee(0, 50);
+		coffeeMaker.makeCoffee(0, 40);
+		coffeeMaker.makeCoffee(1, 75);
+		coffeeMaker.makeCoffee(3, 75);
+		assertEquals(30, coffeeMaker.makeCoffee(-1, 30));
+		assertEquals(30, coffeeMaker.makeCoffee(4, 30));
+		coffeeMaker.makeCoffeeBatch(new int[] { 0, 0, 2, -1 }, new int[] { 60, 10, 50, 30 });
+		assertEquals(2, metrics.getPurchased());
+		assertEquals(2, metrics.getInsufficientFunds());
+		assertEquals(1, metrics.getInsufficientIngredients());
+		assertEquals(5, metrics.getNoRecipe());
+		assertEquals(Long.valueOf(2), metrics.getPurchasedByRecipe().get("Coffee"));
+		assertEquals(6, metrics.getPurchaseLatency().getCount());
+		assertEquals(3, metrics.getInventoryLatency().getCount());
+	}
+
+	/**
+	 * Given a histogram of the values 1 to 10000
+	 * When we ask for percentiles
+	 * Then each is within the bucket precision of the exact value.
+	 */
+	@Test
+	public void testPercentiles() {
+		LatencyHistogram histogram = new LatencyHistogram();
+		for (int i = 1; i <= 10000; i++) {
+			histogram.record(i);
+		}
+		assertEquals(10000, histogram.getCount());
+		assertEquals(10000, histogram.getMax());
+		assertNear(5000, histogram.getValueAtPercentile(50));
+		assertNear(9900, histogram.getValueAtPercentile(99));
+		assertEquals(10000, histogram.getValueAtPercentile(100));
+		assertEquals(1, histogram.getValueAtPercentile(0));
+	}
+
+	/**
+	 * Given every value up to 2^20
+	 * When we put each in a bucket
+	 * Then the bucket's largest value is at least the value and
+	 * no more than 1/32 above it.
+	 */
+	@Test
+	public void testBuckets() {
+		for (long value = 0; value < (1 << 20); value++) {
+			long highest = LatencyHistogram.highestValue(LatencyHistogram.bucket(value));
+			assertTrue(highest >= value && highest <= value + value / 32);
+		}
+	}
+
+	/**
+	 * Given metrics registered with JMX
+	 * When we read an attribute through the platform MBean server
+	 * Then we get the counter value.
+	 *
+	 * @throws Exception if the metrics cannot be registered.
+	 */
+	@Test
+	public void testRegister() throws Exception {
+		coffeeMaker.makeCoffee(0, 50);
+		ObjectName name = metrics.register("test-machine");
+		try {
+			assertEquals(1L, ManagementFactory.getPlatformMBeanServer().getAttribute(name, "Purchased"));
+		} finally {
+			CoffeeMakerMetrics.unregister("test-machine");
+		}
+	}
+
+	private static void assertNear(long expected, long actual) {
+		assertTrue("expected about " + expected + " but was " + actual,
+				actual >= expected && actual <= expected + expected / 32);
+	}
+}
@@ -0,0 +1,148 @@
+/*
+ * Copyright (c) 2009,  Sarah Heckman, Laurie Williams, Dright Ho
+ * All Rights Reserved.
+ *
+ * Permission has been explicitly granted to the University of Minnesota
+ * Software Engineering Center to use and distribute this source for
+ * educational purposes, including delivering online education through
+ * Coursera or other entities.
+ *
+ * No warranty is given regarding this software, including warranties as
+ * to the correctness or completeness of this software, including
+ * fitness for purpose.
+ */
+package edu.ncsu.csc326.coffeemaker;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Unit tests for CoffeeMakerServer class, over loopback connections.
+ */
+public class CoffeeMakerServerTest {
+
+	/**
+	 * The object under test.
+	 */
+	private CoffeeMakerServer server;
+	private Socket socket;
+	private BufferedReader in;
+	private PrintWriter out;
+
+	/**
+	 * Starts a server on a free loopback port and connects to it.
+	 *
+	 * @throws IOException if the server cannot be reached.
+	 */
+	@Before
+	public void setUp() throws IOException {
+		server = new CoffeeMakerServer(new CoffeeMaker(), 0);
+		server.start();
+		socket = connect();
+		in = reader(socket);
+		out = writer(socket);
+	}
+
+	@After
+	public void tearDown() throws IOException {
+		socket.close();
+		server.close();
+	}
+
+	/**
+	 * Given a server with a new coffee maker
+	 * When a client adds a recipe and buys it
+	 * Then the client gets its change and the inventory is reduced.
+	 *
+	 * @throws IOException if the server cannot be reached.
+	 */
+	@Test
+	public void testAddRecipeAndBuy() throws IOException {
+		assertEquals("OK Caffe Latte successfully added.", request("ADD 50 0 1 1 0 Caffe Latte"));
+		assertEquals("OK 1=Caffe Latte", request("RECIPES"));
+		assertEquals("OK Thank you for purchasing Caffe Latte. Your change is: 25", request("BUY 1 75"));
+		assertEquals("OK Coffee: 15 Milk: 14 Sugar: 14 Chocolate: 15", request("CHECK"));
+	}
+
+	/**
+	 * Given a server with a new coffee maker
+	 * When a client sends malformed or unknown requests
+	 * Then each gets an error response and the connection stays open.
+	 *
+	 * @throws IOException if the server cannot be reached.
+	 */
+	@Test
+	public void testErrors() throws IOException {
+		assertEquals("ERR Unknown command BREW", request("BREW"));
+		assertEquals("ERR Units of milk must be a positive integer", request("INVENTORY 4 -1 0 3"));
+		assertEquals("ERR Selected recipe doesn't exist and could not be deleted.", request("DELETE 9"));
+		assertEquals("ERR Please enter a positive integer", request("BUY one 50"));
+		assertEquals("ERR Selected recipe doesn't exist. Your change is: 50", request("BUY 2 50"));
+		assertEquals("OK Coffee: 15 Milk: 15 Sugar: 15 Chocolate: 15", request("CHECK"));
+		assertEquals("OK Goodbye", request("QUIT"));
+		assertNull(in.readLine());
+	}
+
+	/**
+	 * Given a server with one recipe
+	 * When 100 clients each connect and buy one coffee
+	 * Then every purchase is served from the shared inventory.
+	 *
+	 * @throws Exception if a client failed.
+	 */
+	@Test
+	public void testManyClients() throws Exception {
+		request("ADD 10 0 1 0 0 Milk");
+		request("INVENTORY 0 85 0 0");
+		Thread[] clients = new Thread[100];
+		final String[] responses = new String[clients.length];
+		for (int c = 0; c < clients.length; c++) {
+			final int id = c;
+			clients[c] = new Thread(() -> {
+				try (Socket client = connect()) {
+					writer(client).println("BUY 1 10");
+					responses[id] = reader(client).readLine();
+				} catch (IOException e) {
+					responses[id] = e.toString();
+				}
+			});
+			clients[c].start();
+		}
+		for (Thread client : clients) {
+			client.join();
+		}
+		for (String response : responses) {
+			assertEquals("OK Thank you for purchasing Milk. Your change is: 0", response);
+		}
+		assertEquals("OK Coffee: 15 Milk: 0 Sugar: 15 Chocolate: 15", request("CHECK"));
+	}
+
+	private String request(String line) throws IOException {
+		out.println(line);
+		return in.readLine();
+	}
+
+	private Socket connect() throws IOException {
+		return new Socket(InetAddress.getLoopbackAddress(), server.getPort());
+	}
+
+	private static BufferedReader reader(Socket socket) throws IOException {
+		return new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+	}
+
+	private static PrintWriter writer(Socket socket) throws IOException {
+		return new PrintWriter(socket.getOutputStream(), true);
+	}
+}
@@ -18,9 +18,15 @@
  */
 package edu.ncsu.csc326.coffeemaker;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotEquals;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.util.Random;
 
 import org.junit.Before;
 import org.junit.Test;
@@ -137,6 +143,22 @@ public class CoffeeMakerTest {
 		assertNotEquals(null, coffeeMaker.getRecipes()[0]);
 	}
 
+	/**
+	 * Given a coffee maker with a recipe added
+	 * When we change the recipe we passed in and buy a coffee
+	 * Then the coffee is made from the recipe as it was added.
+	 *
+	 * @throws RecipeException if there was an error parsing the amount.
+	 */
+	@Test
+	public void testAddedRecipeUnchanged() throws RecipeException {
+		coffeeMaker.addRecipe(recipe1);
+		recipe1.setAmtMilk("10");
+		assertEquals(1, coffeeMaker.getRecipes()[0].getAmtMilk());
+		assertEquals(0, coffeeMaker.makeCoffee(0, 50));
+		assertEquals(14, coffeeMaker.getInventory().getMilk());
+	}
+
 	/**
 	 * Given a coffee maker with no recipes
 	 * When we add 3 valid recipes
@@ -304,6 +326,36 @@ public class CoffeeMakerTest {
 		}
 	}
 
+	/**
+	 * Given a coffee maker with one valid recipe
+	 * When we take a snapshot of the recipes and add another recipe
+	 * Then the snapshot is unchanged and the latest snapshot has a
+	 * newer version with both recipes.
+	 */
+	@Test
+	public void testAddRecipeSnapshot() {
+		coffeeMaker.addRecipe(recipe1);
+		RecipeSnapshot before = coffeeMaker.getRecipeSnapshot();
+		coffeeMaker.addRecipe(recipe2);
+		RecipeSnapshot after = coffeeMaker.getRecipeSnapshot();
+		assertNull(before.getRecipe(1));
+		assertEquals(recipe2, after.getRecipe(1));
+		assertTrue(after.getVersion() > before.getVersion());
+	}
+
+	/**
+	 * Given a coffee maker with one valid recipe
+	 * When we add a recipe with the same name as an existing recipe
+	 * Then the recipe version does not change.
+	 */
+	@Test
+	public void testAddRecipeInvalidNameVersion() {
+		coffeeMaker.addRecipe(recipe1);
+		long version = coffeeMaker.getRecipeSnapshot().getVersion();
+		coffeeMaker.addRecipe(recipe1);
+		assertEquals(version, coffeeMaker.getRecipeSnapshot().getVersion());
+	}
+
 	/* UC3: DELETE RECIPE */
 
 	/**
@@ -553,6 +605,46 @@ public class CoffeeMakerTest {
 		coffeeMaker.addInventory("4", "7", "8", "jj");
 	}
 
+	/**
+	 * Given a coffee maker with the default inventory
+	 * When we add inventory with a malformed quantity for amtChocolate
+	 * Then none of the other quantities are added either.
+	 */
+	@Test
+	public void testAddInventoryExceptionAddsNothing() {
+		try {
+			coffeeMaker.addInventory("4", "7", "0", "jj");
+		} catch (InventoryException e) {
+			assertEquals("Units of chocolate must be a positive integer", e.getMessage());
+		}
+		assertEquals("Coffee: 15\nMilk: 15\nSugar: 15\nChocolate: 15\n", coffeeMaker.checkInventory());
+	}
+
+	/**
+	 * Given a coffee maker with the default inventory
+	 * When we add inventory with integer quantities
+	 * Then every quantity is added.
+	 * 
+	 * @throws InventoryException if a quantity is negative.
+	 */
+	@Test
+	public void testAddInventoryInt() throws InventoryException {
+		coffeeMaker.addInventory(1, 2, 3, 4);
+		assertEquals("Coffee: 16\nMilk: 17\nSugar: 18\nChocolate: 19\n", coffeeMaker.checkInventory());
+	}
+
+	/**
+	 * Given a coffee maker with the default inventory
+	 * When we add inventory with a negative integer quantity for amtSugar
+	 * Then we get an inventory exception
+	 * 
+	 * @throws InventoryException if a quantity is negative.
+	 */
+	@Test(expected = InventoryException.class)
+	public void testAddInventoryIntExceptionSugar() throws InventoryException {
+		coffeeMaker.addInventory(4, 7, -8, 9);
+	}
+
 	/* UC6: CHECK INVENTORY */
 	/**
 	 * Given a coffee maker
@@ -565,6 +657,39 @@ public class CoffeeMakerTest {
 		assertEquals(expectedString, coffeeMaker.checkInventory());
 	}
 
+	/**
+	 * Given a coffee maker with extra milk
+	 * When we check inventory into a buffer we supply
+	 * Then we get the same text as checkInventory returns.
+	 * 
+	 * @throws IOException if the buffer cannot be appended to.
+	 * @throws InventoryException if there was an error parsing the quanity
+	 *                            to a positive integer.
+	 */
+	@Test
+	public void testCheckInventoryAppendable() throws IOException, InventoryException {
+		coffeeMaker.addInventory("0", "1000", "0", "0");
+		StringBuilder buf = new StringBuilder("Report\n");
+		coffeeMaker.checkInventory(buf);
+		assertEquals("Report\n" + coffeeMaker.checkInventory(), buf.toString());
+	}
+
+	/**
+	 * Given a coffee maker with extra chocolate
+	 * When we get the inventory levels
+	 * Then we get the units of each ingredient.
+	 * 
+	 * @throws InventoryException if there was an error parsing the quanity
+	 *                            to a positive integer.
+	 */
+	@Test
+	public void testGetInventoryLevels() throws InventoryException {
+		coffeeMaker.addInventory("0", "0", "0", "5");
+		int[] levels = new int[4];
+		coffeeMaker.getInventoryLevels(levels);
+		assertArrayEquals(new int[] {15, 15, 15, 20}, levels);
+	}
+
 	/**
 	 * Given a coffee maker
 	 * When we add coffee and check inventory
@@ -663,6 +788,20 @@ public class CoffeeMakerTest {
 		assertEquals(25, coffeeMaker.makeCoffee(0, 75));
 	}
 
+	/**
+	 * Given a coffee maker with one valid recipe and a recipe snapshot
+	 * When we delete the recipe and buy it from the snapshot
+	 * Then we get the change of the recipe in the snapshot.
+	 */
+	@Test
+	public void testMakeCoffeeFromSnapshot() {
+		coffeeMaker.addRecipe(recipe1);
+		RecipeSnapshot recipes = coffeeMaker.getRecipeSnapshot();
+		coffeeMaker.deleteRecipe(0);
+		assertEquals(25, coffeeMaker.makeCoffee(recipes, 0, 75));
+		assertEquals(75, coffeeMaker.makeCoffee(0, 75));
+	}
+
 	/**
 	 * Given a coffee maker with 3 valid recipes
 	 * When we make coffee, selecting the 3rd recipe and paying more than
@@ -807,4 +946,198 @@ public class CoffeeMakerTest {
 	 * }
 	 */
 
+	/* BATCH PURCHASE */
+
+	/**
+	 * Given a coffee maker with 2 valid recipes
+	 * When we make a batch with a purchase, a low payment, an empty
+	 * slot and a recipe without enough ingredients
+	 * Then each order gets its change and outcome.
+	 */
+	@Test
+	public void testMakeCoffeeBatch() {
+		coffeeMaker.addRecipe(recipe1);
+		coffeeMaker.addRecipe(recipe2);
+		int[] results = coffeeMaker.makeCoffeeBatch(new int[] {0, 0, 3, 1}, new int[] {75, 5, 60, 100});
+		assertArrayEquals(new int[] {
+				25, CoffeeMaker.PURCHASED,
+				5, CoffeeMaker.INSUFFICIENT_FUNDS,
+				60, CoffeeMaker.NO_RECIPE,
+				100, CoffeeMaker.INSUFFICIENT_INGREDIENTS}, results);
+	}
+
+	/**
+	 * Given two coffee makers with the same recipes and inventory
+	 * When one makes random orders one at a time and the other makes
+	 * the same orders in random batches, some for indexes with no
+	 * recipe slot
+	 * Then both give the same change and end with the same inventory.
+	 * 
+	 * @throws InventoryException if there was an error parsing the quanity
+	 *                            to a positive integer.
+	 */
+	@Test
+	public void testMakeCoffeeBatchMatchesSequential() throws InventoryException {
+		assertBatchMatchesSequential(new Inventory(), new Inventory());
+		assertBatchMatchesSequential(new LockFreeInventory(), new LockFreeInventory());
+		assertBatchMatchesSequential(new StripedInventory(), new StripedInventory());
+	}
+
+	private void assertBatchMatchesSequential(Inventory sequentialInventory, Inventory batchedInventory)
+			throws InventoryException {
+		Random random = new Random(326);
+		sequentialInventory.setSugar(1000);
+		batchedInventory.setSugar(1000);
+		CoffeeMaker sequential = new CoffeeMaker(sequentialInventory);
+		CoffeeMaker batched = new CoffeeMaker(batchedInventory);
+		for (CoffeeMaker maker : new CoffeeMaker[] {sequential, batched}) {
+			maker.addRecipe(recipe1);
+			maker.addRecipe(recipe2);
+			maker.addRecipe(recipe4);
+			maker.addInventory("200", "200", "0", "200");
+		}
+		int orders = 0;
+		while (orders < 2000) {
+			int size = random.nextInt(20);
+			int[] recipes = new int[size];
+			int[] paid = new int[size];
+			for (int i = 0; i < size; i++) {
+				recipes[i] = random.nextInt(8) - 2;
+				paid[i] = random.nextInt(100);
+			}
+			int[] results = batched.makeCoffeeBatch(recipes, paid);
+			for (int i = 0; i < size; i++) {
+				assertEquals(sequential.makeCoffee(recipes[i], paid[i]), results[2 * i]);
+			}
+			assertEquals(sequential.checkInventory(), batched.checkInventory());
+			if (random.nextInt(10) == 0) {
+				sequential.addInventory("10", "10", "0", "10");
+				batched.addInventory("10", "10", "0", "10");
+			}
+			orders += size;
+		}
+	}
+
+	/* INVENTORY ENGINES */
+
+	/**
+	 * Given each inventory engine
+	 * When we make a batch with fewer used flags than recipes
+	 * Then we get an illegal argument exception and no ingredient
+	 *      is removed.
+	 */
+	@Test
+	public void testShortBatch() {
+		for (Inventory inventory : new Inventory[] {new Inventory(), new LockFreeInventory(), new StripedInventory()}) {
+			try {
+				inventory.useIngredients(new Recipe[] {recipe1, recipe1}, new boolean[1]);
+				throw new AssertionError("Expected IllegalArgumentException");
+			} catch (IllegalArgumentException e) {
+				// expected
+			}
+			assertEquals("Coffee: 15\nMilk: 15\nSugar: 15\nChocolate: 15\n", inventory.toString());
+		}
+	}
+
+	/**
+	 * Given a coffee maker with an Inventory and one with another
+	 * inventory engine, both with the same recipes, mutable or shared
+	 * When both make the same random orders and restocks
+	 * Then both give the same change and end with the same inventory.
+	 * 
+	 * @throws InventoryException if there was an error parsing the quanity
+	 *                            to a positive integer.
+	 */
+	@Test
+	public void testEnginesMatchInventory() throws InventoryException {
+		for (RecipeFactory factory : new RecipeFactory[] {null, new RecipeFactory()}) {
+			assertEngineMatchesInventory(new Inventory(), factory);
+			assertEngineMatchesInventory(new LockFreeInventory(), factory);
+			assertEngineMatchesInventory(new StripedInventory(), factory);
+		}
+	}
+
+	private void assertEngineMatchesInventory(Inventory engine, RecipeFactory factory) throws InventoryException {
+		Random random = new Random(326);
+		CoffeeMaker expected = new CoffeeMaker(new Inventory());
+		CoffeeMaker actual = new CoffeeMaker(engine);
+		for (Recipe recipe : new Recipe[] {recipe1, recipe2, recipe3, recipe4}) {
+			expected.addRecipe(recipe);
+			actual.addRecipe(factory == null ? recipe : factory.intern(recipe));
+		}
+		for (int orders = 0; orders < 2000; orders++) {
+			int recipe = random.nextInt(4);
+			int paid = random.nextInt(100);
+			assertEquals(expected.makeCoffee(recipe, paid), actual.makeCoffee(recipe, paid));
+			if (random.nextInt(10) == 0) {
+				int[] results = actual.makeCoffeeBatch(new int[] {recipe, recipe}, new int[] {paid, paid});
+				assertEquals(expected.makeCoffee(recipe, paid), results[0]);
+				assertEquals(expected.makeCoffee(recipe, paid), results[2]);
+			}
+			if (random.nextInt(5) == 0) {
+				int milk = random.nextInt(10);
+				int sugar = random.nextInt(5);
+				int chocolate = random.nextInt(20);
+				expected.addInventory(0, milk, sugar, chocolate);
+				actual.addInventory(0, milk, sugar, chocolate);
+			}
+			assertEquals(expected.checkInventory(), actual.checkInventory());
+		}
+	}
+
+	/* LISTENERS */
+
+	/**
+	 * Given a coffee maker with three listeners
+	 * When we remove the middle one and buy a coffee
+	 * Then the other two are told, in the order they were added,
+	 *      and removing it again returns false.
+	 */
+	@Test
+	public void testAddAndRemoveListeners() {
+		StringBuilder told = new StringBuilder();
+		CoffeeMakerListener[] listeners = new CoffeeMakerListener[3];
+		for (int i = 0; i < listeners.length; i++) {
+			final int id = i;
+			listeners[i] = new CoffeeMakerListener() {
+				public void coffeeMade(Recipe r) {
+					told.append(id);
+				}
+			};
+			coffeeMaker.addListener(listeners[i]);
+		}
+		coffeeMaker.addRecipe(recipe1);
+		coffeeMaker.makeCoffee(0, 50);
+		assertEquals("012", told.toString());
+		assertTrue(coffeeMaker.removeListener(listeners[1]));
+		assertFalse(coffeeMaker.removeListener(listeners[1]));
+		coffeeMaker.makeCoffee(0, 50);
+		assertEquals("01202", told.toString());
+		assertTrue(coffeeMaker.removeListener(listeners[0]));
+		assertTrue(coffeeMaker.removeListener(listeners[2]));
+		coffeeMaker.makeCoffee(0, 50);
+		assertEquals("01202", told.toString());
+	}
+
+	/* MULTIPLE COFFEE MAKERS */
+
+	/**
+	 * Given a coffee maker with one valid recipe and extra coffee
+	 * When we create a second coffee maker
+	 * Then the first coffee maker keeps its recipe and inventory.
+	 * 
+	 * @throws InventoryException if there was an error parsing the quanity
+	 *                            to a positive integer.
+	 */
+	@Test
+	public void testCoffeeMakersAreIndependent() throws InventoryException {
+		coffeeMaker.addRecipe(recipe1);
+		coffeeMaker.addInventory("5", "0", "0", "0");
+		CoffeeMaker other = new CoffeeMaker();
+		assertNull(other.getRecipes()[0]);
+		assertEquals("Coffee: 15\nMilk: 15\nSugar: 15\nChocolate: 15\n", other.checkInventory());
+		assertEquals(recipe1, coffeeMaker.getRecipes()[0]);
+		assertEquals("Coffee: 20\nMilk: 15\nSugar: 15\nChocolate: 15\n", coffeeMaker.checkInventory());
+	}
+
 }
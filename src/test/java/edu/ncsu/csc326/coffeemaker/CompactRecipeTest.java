@@ -0,0 +1,112 @@
+/*
+ * Copyright (c) 2009,  Sarah Heckman, Laurie Williams, Dright Ho
+ * All Rights Reserved.
+ *
+ * Permission has been explicitly granted to the University of Minnesota
+ * Software Engineering Center to use and distribute this source for
+ * educational purposes, including delivering online education through
+ * Coursera or other entities.
+ *
+ * No warranty is given regarding this software, including warranties as
+ * to the correctness or completeness of this software, including
+ * fitness for purpose.
+ */
+package edu.ncsu.csc326.coffeemaker;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import edu.ncsu.csc326.coffeemaker.exceptions.RecipeException;
+
+/**
+ * Unit tests for CompactRecipe class.
+ */
+public class CompactRecipeTest {
+
+	private Recipe mocha;
+
+	/**
+	 * Initializes a recipe to test with.
+	 *
+	 * @throws RecipeException if there was an error setting up the recipe.
+	 */
+	@Before
+	public void setUp() throws RecipeException {
+		mocha = new Recipe("Mocha", 75, 0, 1, 2, LockFreeInventory.MAX_UNITS);
+	}
+
+	/**
+	 * Given a recipe with the largest amount a lane holds
+	 * When we convert it to a compact recipe and back
+	 * Then the name, price and amounts are unchanged.
+	 */
+	@Test
+	public void testRoundTrip() {
+		CompactRecipe compact = CompactRecipe.of(mocha);
+		Recipe r = compact.toRecipe();
+		assertEquals(mocha, r);
+		assertEquals(75, r.getPrice());
+		assertEquals(0, r.getAmtCoffee());
+		assertEquals(1, r.getAmtMilk());
+		assertEquals(2, r.getAmtSugar());
+		assertEquals(LockFreeInventory.MAX_UNITS, r.getAmtChocolate());
+		assertEquals(compact, CompactRecipe.of(r));
+	}
+
+	/**
+	 * Given a recipe with more chocolate than a lane holds
+	 * When we convert it to a compact recipe
+	 * Then we get an illegal argument exception.
+	 *
+	 * @throws RecipeException if there was an error setting up the recipe.
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public void testAmountTooLarge() throws RecipeException {
+		CompactRecipe.of(new Recipe("Mocha", 75, 0, 1, 2, LockFreeInventory.MAX_UNITS + 1));
+	}
+
+	/**
+	 * Given each inventory engine
+	 * When we use a compact recipe we have enough for and one we do not
+	 * Then only the first changes the inventory, as a Recipe would.
+	 *
+	 * @throws RecipeException if there was an error setting up the recipe.
+	 */
+	@Test
+	public void testUseIngredients() throws RecipeException {
+		CompactRecipe latte = CompactRecipe.of(new Recipe("Latte", 100, 0, 3, 1, 0));
+		CompactRecipe big = CompactRecipe.of(mocha);
+		for (Inventory inventory : new Inventory[] {new Inventory(), new LockFreeInventory(), new StripedInventory()}) {
+			assertTrue(inventory.enoughIngredients(latte));
+			assertTrue(inventory.useIngredients(latte));
+			assertFalse(inventory.enoughIngredients(big));
+			assertFalse(inventory.useIngredients(big));
+			assertEquals("Coffee: 15\nMilk: 12\nSugar: 14\nChocolate: 15\n", inventory.toString());
+		}
+	}
+
+	/**
+	 * Given a coffee maker with a shared and a mutable recipe added
+	 * When we buy both
+	 * Then both have a compact form, since the book freezes a copy
+	 *      of the mutable one, and both are made.
+	 *
+	 * @throws RecipeException if there was an error setting up the recipe.
+	 */
+	@Test
+	public void testMakeCoffeeCompact() throws RecipeException {
+		CoffeeMaker coffeeMaker = new CoffeeMaker();
+		coffeeMaker.addRecipe(new RecipeFactory().getRecipe("Latte", 100, 0, 3, 1, 0));
+		coffeeMaker.addRecipe(new Recipe("Tea", 30, 0, 0, 1, 0));
+		assertNotNull(coffeeMaker.getRecipeSnapshot().getCompactRecipe(0));
+		assertNotNull(coffeeMaker.getRecipeSnapshot().getCompactRecipe(1));
+		assertEquals(0, coffeeMaker.makeCoffee(0, 100));
+		assertEquals(0, coffeeMaker.makeCoffee(1, 30));
+		assertEquals("Coffee: 15\nMilk: 12\nSugar: 13\nChocolate: 15\n", coffeeMaker.checkInventory());
+	}
+}
@@ -0,0 +1,225 @@
+/*
+ * Copyright (c) 2009,  Sarah Heckman, Laurie Williams, Dright Ho
+ * All Rights Reserved.
+ *
+ * Permission has been explicitly granted to the University of Minnesota
+ * Software Engineering Center to use and distribute this source for
+ * educational purposes, including delivering online education through
+ * Coursera or other entities.
+ *
+ * No warranty is given regarding this software, including warranties as
+ * to the correctness or completeness of this software, including
+ * fitness for purpose.
+ */
+package edu.ncsu.csc326.coffeemaker;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import edu.ncsu.csc326.coffeemaker.exceptions.InventoryException;
+import edu.ncsu.csc326.coffeemaker.exceptions.RecipeException;
+
+/**
+ * Unit tests for ConsumptionTracker class.
+ */
+public class ConsumptionTrackerTest {
+
+	private static final long MINUTE = 60_000L;
+
+	/** Simulated time in milliseconds */
+	private long now;
+	private CoffeeMaker coffeeMaker;
+	private ConsumptionTracker tracker;
+	/** Each alert as ingredient, units and milliseconds to empty */
+	private List<long[]> alerts;
+
+	/**
+	 * Initializes a coffee maker selling a milk-only recipe, tracked
+	 * with a 10 minute time constant and a 30 minute threshold.
+	 *
+	 * @throws RecipeException if there was an error setting up a recipe.
+	 */
+	@Before
+	public void setUp() throws RecipeException {
+		now = 0;
+		coffeeMaker = new CoffeeMaker();
+		coffeeMaker.addRecipe(new Recipe("Steamed Milk", 20, 0, 1, 0, 0));
+		tracker = new ConsumptionTracker(30 * MINUTE, 10 * MINUTE, () -> now);
+		tracker.attach(coffeeMaker);
+		alerts = new ArrayList<long[]>();
+		tracker.setListener((ingredient, units, millisToEmpty) -> alerts.add(new long[] { ingredient, units, millisToEmpty }));
+	}
+
+	/**
+	 * Selling one beverage a minute for the given number of minutes.
+	 */
+	private void sell(int minutes) {
+		for (int i = 0; i < minutes; i++) {
+			now += MINUTE;
+			coffeeMaker.makeCoffee(0, 20);
+		}
+	}
+
+	/**
+	 * Given one unit of milk used a minute
+	 * When the rate has settled
+	 * Then it is close to 60 units an hour and nothing else is used.
+	 *
+	 * @throws InventoryException if the units cannot be added.
+	 */
+	@Test
+	public void testRate() throws InventoryException {
+		coffeeMaker.addInventory(0, 100, 0, 0);
+		sell(60);
+		assertEquals(60, tracker.getRate(Inventory.MILK), 5);
+		assertEquals(0, tracker.getRate(Inventory.COFFEE), 0);
+		assertEquals(Long.MAX_VALUE, tracker.getTimeToEmpty(Inventory.SUGAR));
+	}
+
+	/**
+	 * Given one unit of milk used a minute out of 15
+	 * When the milk runs low
+	 * Then milk is reported once, before it runs out, with less
+	 *      than 30 minutes left.
+	 */
+	@Test
+	public void testLowStock() {
+		sell(15);
+		assertEquals(1, alerts.size());
+		long[] alert = alerts.get(0);
+		assertEquals(Inventory.MILK, alert[0]);
+		assertTrue(alert[1] > 0);
+		assertTrue(alert[2] < 30 * MINUTE);
+	}
+
+	/**
+	 * Given milk reported as low
+	 * When we restock it and then use it up again
+	 * Then it is reported a second time.
+	 *
+	 * @throws InventoryException if the units cannot be added.
+	 */
+	@Test
+	public void testRestockRearms() throws InventoryException {
+		sell(10);
+		assertEquals(1, alerts.size());
+		coffeeMaker.addInventory(0, 200, 0, 0);
+		sell(1);
+		assertEquals(1, alerts.size());
+		sell(200);
+		assertEquals(2, alerts.size());
+	}
+
+	/**
+	 * Given milk being used
+	 * When no beverage is made for an hour
+	 * Then the rate decays and the time to empty grows.
+	 */
+	@Test
+	public void testDecay() {
+		sell(5);
+		long busy = tracker.getTimeToEmpty(Inventory.MILK);
+		now += 60 * MINUTE;
+		assertTrue(tracker.getTimeToEmpty(Inventory.MILK) > busy * 100);
+	}
+
+	/**
+	 * Given one unit of milk used a minute
+	 * When it is sold for 100 time constants
+	 * Then the rate still follows the sales.
+	 *
+	 * @throws InventoryException if the units cannot be added.
+	 */
+	@Test
+	public void testLongRun() throws InventoryException {
+		coffeeMaker.addInventory(0, 1000, 0, 0);
+		sell(1000);
+		assertEquals(60, tracker.getRate(Inventory.MILK), 5);
+	}
+
+	/**
+	 * Given four threads buying at the same moment
+	 * When each buys 1000 beverages
+	 * Then every unit of milk used is in the rate.
+	 *
+	 * @throws Exception if the units cannot be added or a thread fails.
+	 */
+	@Test
+	public void testConcurrentPurchases() throws Exception {
+		coffeeMaker.addInventory(0, 4000, 0, 0);
+		Thread [] threads = new Thread[4];
+		for (int t = 0; t < threads.length; t++) {
+			threads[t] = new Thread(() -> {
+				for (int i = 0; i < 1000; i++) {
+					coffeeMaker.makeCoffee(0, 20);
+				}
+			});
+			threads[t].start();
+		}
+		for (Thread thread : threads) {
+			thread.join();
+		}
+		assertEquals(4000 * 60.0 / 10, tracker.getRate(Inventory.MILK), 0.01);
+	}
+
+	/**
+	 * Given a listener that waits for another thread to read the rate
+	 * When milk runs low
+	 * Then the other thread is not held up by the tracker.
+	 */
+	@Test
+	public void testListenerHoldsNoLock() {
+		tracker.setListener((ingredient, units, millisToEmpty) -> {
+			Thread reader = new Thread(() -> tracker.getRate(ingredient));
+			reader.start();
+			try {
+				reader.join(10_000);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			alerts.add(new long[] { ingredient, reader.isAlive() ? 1 : 0 });
+		});
+		sell(15);
+		assertEquals(1, alerts.size());
+		assertEquals(0, alerts.get(0)[1]);
+	}
+
+	/**
+	 * Given a coffee maker with one unit of coffee selling a
+	 * recipe that needs coffee
+	 * When beverages are made
+	 * Then coffee, which purchases add to, is never reported and
+	 *      never runs out.
+	 *
+	 * @throws RecipeException if there was an error setting up a recipe.
+	 * @throws InventoryException if the units cannot be added.
+	 */
+	@Test
+	public void testCoffeeNeverLow() throws RecipeException, InventoryException {
+		coffeeMaker.addRecipe(new Recipe("Coffee", 20, 1, 0, 0, 0));
+		coffeeMaker.getInventory().setCoffee(1);
+		for (int i = 0; i < 30; i++) {
+			now += MINUTE;
+			coffeeMaker.makeCoffee(1, 20);
+		}
+		assertTrue(alerts.isEmpty());
+		assertEquals(0, tracker.getRate(Inventory.COFFEE), 0);
+		assertEquals(Long.MAX_VALUE, tracker.getTimeToEmpty(Inventory.COFFEE));
+	}
+
+	/**
+	 * Given a negative threshold
+	 * When we create a tracker
+	 * Then we get an illegal argument exception.
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public void testNegativeThreshold() {
+		new ConsumptionTracker(-1, 10 * MINUTE);
+	}
+}
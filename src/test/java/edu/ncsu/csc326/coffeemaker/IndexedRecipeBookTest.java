@@ -0,0 +1,141 @@
+/*
+ * Copyright (c) 2009,  Sarah Heckman, Laurie Williams, Dright Ho
+ * All Rights Reserved.
+ *
+ * Permission has been explicitly granted to the University of Minnesota
+ * Software Engineering Center to use and distribute this source for
+ * educational purposes, including delivering online education through
+ * Coursera or other entities.
+ *
+ * No warranty is given regarding this software, including warranties as
+ * to the correctness or completeness of this software, including
+ * fitness for purpose.
+ */
+package edu.ncsu.csc326.coffeemaker;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import edu.ncsu.csc326.coffeemaker.exceptions.RecipeException;
+
+/**
+ * Unit tests for IndexedRecipeBook class.
+ */
+public class IndexedRecipeBookTest {
+
+	/**
+	 * The object under test.
+	 */
+	private IndexedRecipeBook recipeBook;
+
+	/**
+	 * Initializes a recipe book holding 500 recipes named
+	 * "Drink 0" to "Drink 499".
+	 */
+	@Before
+	public void setUp() {
+		recipeBook = new IndexedRecipeBook();
+		for (int i = 0; i < 500; i++) {
+			assertTrue(recipeBook.addRecipe(recipe("Drink " + i)));
+		}
+	}
+
+	/**
+	 * Given a recipe book with 500 recipes
+	 * When we look up each recipe by name
+	 * Then we get the slot it was added to.
+	 */
+	@Test
+	public void testIndexOf() {
+		for (int i = 0; i < 500; i++) {
+			assertEquals(i, recipeBook.indexOf("Drink " + i));
+			assertEquals("Drink " + i, recipeBook.getRecipes()[i].getName());
+		}
+		assertEquals(-1, recipeBook.indexOf("Drink 500"));
+	}
+
+	/**
+	 * Given a recipe book with 500 recipes
+	 * When we add a recipe with the name of an existing recipe
+	 * Then we get a false response.
+	 */
+	@Test
+	public void testAddDuplicateName() {
+		assertFalse(recipeBook.addRecipe(recipe("Drink 42")));
+	}
+
+	/**
+	 * Given a recipe book with 500 recipes
+	 * When we delete every other recipe
+	 * Then the remaining recipes keep their slots and the
+	 * deleted names can no longer be found.
+	 */
+	@Test
+	public void testDeleteKeepsSlots() {
+		for (int i = 0; i < 500; i += 2) {
+			assertEquals("Drink " + i, recipeBook.deleteRecipe(i));
+		}
+		for (int i = 0; i < 500; i++) {
+			if (i % 2 == 0) {
+				assertNull(recipeBook.getRecipes()[i]);
+				assertNull(recipeBook.getRecipe("Drink " + i));
+			} else {
+				assertEquals(i, recipeBook.indexOf("Drink " + i));
+			}
+		}
+		assertNull(recipeBook.deleteRecipe(0));
+	}
+
+	/**
+	 * Given a recipe book with a deleted recipe
+	 * When we add a new recipe
+	 * Then it takes the freed slot.
+	 */
+	@Test
+	public void testAddReusesDeletedSlot() {
+		recipeBook.deleteRecipe(7);
+		Recipe r = recipe("Seasonal");
+		assertTrue(recipeBook.addRecipe(r));
+		assertEquals(7, recipeBook.indexOf("Seasonal"));
+		assertEquals(r, recipeBook.getRecipes()[7]);
+	}
+
+	/**
+	 * Given a recipe book with 500 recipes
+	 * When we edit a recipe
+	 * Then the new recipe keeps the name and slot of the old one.
+	 *
+	 * @throws RecipeException if there was an error parsing the price.
+	 */
+	@Test
+	public void testEditRecipe() throws RecipeException {
+		Recipe r = recipe("Renamed");
+		r.setPrice("99");
+		assertEquals("Drink 3", recipeBook.editRecipe(3, r));
+		assertEquals(3, recipeBook.indexOf("Drink 3"));
+		assertEquals(99, recipeBook.getRecipe("Drink 3").getPrice());
+		assertEquals(-1, recipeBook.indexOf("Renamed"));
+	}
+
+	/**
+	 * Given a recipe book with 500 recipes
+	 * When we delete or edit a slot that does not exist
+	 * Then we get a null response.
+	 */
+	@Test
+	public void testOutOfRangeSlot() {
+		assertNull(recipeBook.deleteRecipe(-1));
+		assertNull(recipeBook.editRecipe(100000, recipe("Missing")));
+	}
+
+	private static Recipe recipe(String name) {
+		Recipe r = new Recipe();
+		r.setName(name);
+		return r;
+	}
+}
@@ -0,0 +1,230 @@
+/*
+ * Copyright (c) 2009,  Sarah Heckman, Laurie Williams, Dright Ho
+ * All Rights Reserved.
+ *
+ * Permission has been explicitly granted to the University of Minnesota
+ * Software Engineering Center to use and distribute this source for
+ * educational purposes, including delivering online education through
+ * Coursera or other entities.
+ *
+ * No warranty is given regarding this software, including warranties as
+ * to the correctness or completeness of this software, including
+ * fitness for purpose.
+ */
+package edu.ncsu.csc326.coffeemaker;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import edu.ncsu.csc326.coffeemaker.exceptions.InventoryException;
+import edu.ncsu.csc326.coffeemaker.exceptions.RecipeException;
+
+/**
+ * Unit tests for IngredientRegistry and the ingredients it adds
+ * to Recipe, Inventory, CoffeeMaker and the classes that follow them.
+ */
+public class IngredientRegistryTest {
+
+	private int oatMilk;
+	private int cups;
+	private Recipe oatLatte;
+
+	/**
+	 * Registers two extra ingredients and a recipe needing them.
+	 *
+	 * @throws RecipeException if there was an error setting up the recipe.
+	 */
+	@Before
+	public void setUp() throws RecipeException {
+		oatMilk = IngredientRegistry.register("oat milk");
+		cups = IngredientRegistry.register("cups");
+
+		oatLatte = new Recipe("Oat Latte", 80, 2, 0, 1, 0);
+		oatLatte.setAmount(oatMilk, 3);
+		oatLatte.setAmount(cups, 1);
+	}
+
+	/**
+	 * Given the registry
+	 * When we look up the standard ingredients and register one twice
+	 * Then the standard ingredients keep the Inventory ids and the
+	 *      second registration returns the same id.
+	 */
+	@Test
+	public void testRegister() {
+		assertEquals(Inventory.COFFEE, IngredientRegistry.getId("coffee"));
+		assertEquals(Inventory.CHOCOLATE, IngredientRegistry.getId("chocolate"));
+		assertEquals(oatMilk, IngredientRegistry.register("oat milk"));
+		assertEquals("cups", IngredientRegistry.getName(cups));
+		assertEquals(-1, IngredientRegistry.getId("saffron"));
+	}
+
+	/**
+	 * Given an inventory without oat milk
+	 * When we stock oat milk and cups and make the recipe
+	 * Then the recipe can be made only after stocking and every
+	 *      ingredient it needs is used.
+	 *
+	 * @throws InventoryException if the units are negative.
+	 */
+	@Test
+	public void testUseExtraIngredients() throws InventoryException {
+		Inventory inventory = new Inventory();
+		assertFalse(inventory.enoughIngredients(oatLatte));
+
+		inventory.addIngredient(oatMilk, 4);
+		inventory.setLevel(cups, 10);
+		assertTrue(inventory.useIngredients(oatLatte));
+		assertEquals(1, inventory.getLevel(oatMilk));
+		assertEquals(9, inventory.getLevel(cups));
+		assertEquals(14, inventory.getSugar());
+		assertFalse(inventory.useIngredients(oatLatte));
+	}
+
+	/**
+	 * Given an inventory
+	 * When we add negative units of an extra ingredient
+	 * Then we get an inventory exception.
+	 *
+	 * @throws InventoryException if the units are negative.
+	 */
+	@Test(expected = InventoryException.class)
+	public void testAddNegativeExtraIngredient() throws InventoryException {
+		new Inventory().addIngredient(cups, -1);
+	}
+
+	/**
+	 * Given the lane and striped inventories
+	 * When we make a recipe needing extra ingredients
+	 * Then it cannot be made and the extra ingredients cannot be stocked.
+	 */
+	@Test
+	public void testStandardOnlyInventories() {
+		Inventory[] inventories = { new LockFreeInventory(), new StripedInventory() };
+		for (Inventory inventory : inventories) {
+			assertFalse(inventory.useIngredients(oatLatte));
+			assertEquals(0, inventory.getLevel(cups));
+			try {
+				inventory.setLevel(cups, 10);
+				throw new AssertionError("Expected UnsupportedOperationException");
+			} catch (UnsupportedOperationException e) {
+				// expected
+			}
+		}
+	}
+
+	/**
+	 * Given a recipe factory
+	 * When we intern a recipe needing extra ingredients
+	 * Then the recipe is returned as it is.
+	 */
+	@Test
+	public void testInternExtraIngredients() {
+		assertSame(oatLatte, new RecipeFactory().intern(oatLatte));
+	}
+
+	/**
+	 * Given a coffee maker with the recipe, cached availability and
+	 * no oat milk or cups
+	 * When we stock enough for two beverages through the coffee maker
+	 *      and buy both
+	 * Then the recipe is available only while the extra ingredients last.
+	 *
+	 * @throws RecipeException if there was an error adding the recipe.
+	 * @throws InventoryException if the units are negative.
+	 */
+	@Test
+	public void testAvailabilityOfExtraIngredients() throws RecipeException, InventoryException {
+		CoffeeMaker coffeeMaker = new CoffeeMaker();
+		coffeeMaker.addRecipe(oatLatte);
+		AvailabilityCache cache = new AvailabilityCache(coffeeMaker);
+		assertFalse(coffeeMaker.availableRecipes().isAvailable(0));
+		assertFalse(cache.isAvailable(0));
+
+		coffeeMaker.addInventory(oatMilk, 7);
+		coffeeMaker.addInventory(cups, 2);
+		RecipeAvailability availability = coffeeMaker.availableRecipes();
+		assertTrue(availability.isAvailable(0));
+		assertEquals(2, availability.getServings(0));
+		assertTrue(cache.isAvailable(0));
+
+		assertEquals(0, coffeeMaker.makeCoffee(0, 80));
+		assertEquals(0, coffeeMaker.makeCoffee(0, 80));
+		assertFalse(coffeeMaker.availableRecipes().isAvailable(0));
+		assertFalse(cache.isAvailable(0));
+	}
+
+	/**
+	 * Given a journaled coffee maker that added the recipe, stocked
+	 * the extra ingredients and made the recipe
+	 * When we open the journal with a new coffee maker
+	 * Then the new coffee maker has the recipe and levels of every
+	 *      ingredient.
+	 *
+	 * @throws Exception if the journal cannot be used.
+	 */
+	@Test
+	public void testJournalExtraIngredients() throws Exception {
+		Path file = Files.createTempFile("coffeemaker", ".journal");
+		try {
+			CoffeeMaker coffeeMaker = new CoffeeMaker();
+			CoffeeMakerJournal journal = CoffeeMakerJournal.open(file, coffeeMaker, 1);
+			coffeeMaker.addRecipe(oatLatte);
+			coffeeMaker.addInventory(oatMilk, 7);
+			coffeeMaker.addInventory(cups, 2);
+			coffeeMaker.makeCoffee(0, 80);
+			journal.close();
+
+			CoffeeMaker recovered = new CoffeeMaker();
+			CoffeeMakerJournal.open(file, recovered, 1).close();
+			assertExtraIngredients(coffeeMaker, recovered);
+		} finally {
+			Files.deleteIfExists(file);
+		}
+	}
+
+	/**
+	 * Given a coffee maker with the recipe and stocked extra ingredients
+	 * When we save it and load it into a new coffee maker
+	 * Then the new coffee maker has the recipe and levels of every
+	 *      ingredient.
+	 *
+	 * @throws Exception if the snapshot cannot be used.
+	 */
+	@Test
+	public void testSnapshotExtraIngredients() throws Exception {
+		Path file = Files.createTempFile("coffeemaker", ".snapshot");
+		try {
+			CoffeeMaker coffeeMaker = new CoffeeMaker();
+			coffeeMaker.addRecipe(oatLatte);
+			coffeeMaker.addInventory(oatMilk, 7);
+			coffeeMaker.addInventory(cups, 2);
+			coffeeMaker.makeCoffee(0, 80);
+			SnapshotFile.write(coffeeMaker, 1, file);
+
+			CoffeeMaker loaded = new CoffeeMaker();
+			SnapshotFile.read(file, loaded);
+			assertExtraIngredients(coffeeMaker, loaded);
+		} finally {
+			Files.deleteIfExists(file);
+		}
+	}
+
+	private void assertExtraIngredients(CoffeeMaker expected, CoffeeMaker actual) {
+		Recipe recipe = actual.getRecipes()[0];
+		assertEquals("Oat Latte", recipe.getName());
+		assertEquals(3, recipe.getAmount(oatMilk));
+		assertEquals(1, recipe.getAmount(cups));
+		assertEquals(expected.checkInventory(), actual.checkInventory());
+		assertEquals(4, actual.getInventory().getLevel(oatMilk));
+		assertEquals(1, actual.getInventory().getLevel(cups));
+	}
+}
@@ -0,0 +1,166 @@
+/*
+ * Copyright (c) 2009,  Sarah Heckman, Laurie Williams, Dright Ho
+ * All Rights Reserved.
+ *
+ * Permission has been explicitly granted to the University of Minnesota
+ * Software Engineering Center to use and distribute this source for
+ * educational purposes, including delivering online education through
+ * Coursera or other entities.
+ *
+ * No warranty is given regarding this software, including warranties as
+ * to the correctness or completeness of this software, including
+ * fitness for purpose.
+ */
+package edu.ncsu.csc326.coffeemaker;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+import edu.ncsu.csc326.coffeemaker.exceptions.InventoryException;
+import edu.ncsu.csc326.coffeemaker.exceptions.RecipeException;
+
+/**
+ * Unit tests for InventorySnapshot and the snapshot reads of
+ * every inventory engine.
+ */
+public class InventorySnapshotTest {
+
+	/**
+	 * Given two snapshots of the same units
+	 * When we compare them
+	 * Then they are equal and print like an inventory.
+	 */
+	@Test
+	public void testEqualsAndToString() {
+		InventorySnapshot snapshot = new InventorySnapshot(1, 2, 3, 4);
+		assertEquals(new InventorySnapshot(1, 2, 3, 4), snapshot);
+		assertEquals(new InventorySnapshot(1, 2, 3, 4).hashCode(), snapshot.hashCode());
+		assertNotEquals(new InventorySnapshot(1, 2, 4, 3), snapshot);
+		assertEquals("Coffee: 1\nMilk: 2\nSugar: 3\nChocolate: 4\n", snapshot.toString());
+	}
+
+	/**
+	 * Given a new coffee maker
+	 * When we take an inventory snapshot
+	 * Then it holds the units checkInventory reports.
+	 */
+	@Test
+	public void testCoffeeMakerSnapshot() {
+		CoffeeMaker coffeeMaker = new CoffeeMaker();
+		assertEquals(coffeeMaker.checkInventory(), coffeeMaker.getInventorySnapshot().toString());
+	}
+
+	/**
+	 * Given an Inventory under heavy purchase and restock load
+	 * When other threads take snapshots
+	 * Then no snapshot mixes levels from before and after a change.
+	 *
+	 * @throws InterruptedException if interrupted while waiting.
+	 * @throws RecipeException if there was an error setting up the recipe.
+	 */
+	@Test
+	public void testNoTornSnapshots() throws InterruptedException, RecipeException {
+		assertNoTornSnapshots(new Inventory());
+	}
+
+	/**
+	 * Given a LockFreeInventory under heavy purchase and restock load
+	 * When other threads take snapshots
+	 * Then no snapshot mixes levels from before and after a change.
+	 *
+	 * @throws InterruptedException if interrupted while waiting.
+	 * @throws RecipeException if there was an error setting up the recipe.
+	 */
+	@Test
+	public void testNoTornSnapshotsLockFree() throws InterruptedException, RecipeException {
+		assertNoTornSnapshots(new LockFreeInventory());
+	}
+
+	/**
+	 * Given a StripedInventory under heavy purchase and restock load
+	 * When other threads take snapshots
+	 * Then no snapshot mixes levels from before and after a change.
+	 *
+	 * @throws InterruptedException if interrupted while waiting.
+	 * @throws RecipeException if there was an error setting up the recipe.
+	 */
+	@Test
+	public void testNoTornSnapshotsStriped() throws InterruptedException, RecipeException {
+		assertNoTornSnapshots(new StripedInventory());
+	}
+
+	/**
+	 * Runs purchasers, a restocker and readers against the inventory.
+	 * Every purchase and restock changes milk, sugar and chocolate by
+	 * the same amount and leaves coffee alone, so every consistent
+	 * snapshot has equal milk, sugar and chocolate and 15 coffee.
+	 */
+	private static void assertNoTornSnapshots(Inventory inventory) throws InterruptedException, RecipeException {
+		Recipe recipe = new Recipe();
+		recipe.setName("Mocha");
+		recipe.setAmtCoffee("0");
+		recipe.setAmtMilk("1");
+		recipe.setAmtSugar("1");
+		recipe.setAmtChocolate("1");
+		recipe.setPrice("50");
+		inventory.setMilk(1000);
+		inventory.setSugar(1000);
+		inventory.setChocolate(1000);
+		final CoffeeMaker coffeeMaker = new CoffeeMaker(inventory);
+		coffeeMaker.addRecipe(recipe);
+		final AtomicInteger torn = new AtomicInteger();
+		final AtomicInteger snapshots = new AtomicInteger();
+		final AtomicInteger running = new AtomicInteger(5);
+
+		Thread[] threads = new Thread[8];
+		for (int t = 0; t < 4; t++) {
+			threads[t] = new Thread(() -> {
+				for (int i = 0; i < 20000; i++) {
+					coffeeMaker.makeCoffee(0, 50);
+				}
+				running.decrementAndGet();
+			});
+		}
+		threads[4] = new Thread(() -> {
+			try {
+				for (int i = 0; i < 20000; i++) {
+					if (coffeeMaker.getInventorySnapshot().getMilk() < 1000) {
+						coffeeMaker.addInventory(0, 3, 3, 3);
+					}
+				}
+			} catch (InventoryException e) {
+				torn.incrementAndGet();
+			}
+			running.decrementAndGet();
+		});
+		for (int t = 5; t < threads.length; t++) {
+			threads[t] = new Thread(() -> {
+				int [] levels = new int[4];
+				do {
+					InventorySnapshot snapshot = coffeeMaker.getInventorySnapshot();
+					coffeeMaker.getInventoryLevels(levels);
+					if (snapshot.getCoffee() != 15
+							|| snapshot.getMilk() != snapshot.getSugar()
+							|| snapshot.getMilk() != snapshot.getChocolate()
+							|| levels[Inventory.MILK] != levels[Inventory.SUGAR]
+							|| levels[Inventory.MILK] != levels[Inventory.CHOCOLATE]) {
+						torn.incrementAndGet();
+					}
+					snapshots.incrementAndGet();
+				} while (running.get() > 0);
+			});
+		}
+		for (Thread thread : threads) {
+			thread.start();
+		}
+		for (Thread thread : threads) {
+			thread.join();
+		}
+		assertEquals(0, torn.get());
+		assertNotEquals(0, snapshots.get());
+	}
+}
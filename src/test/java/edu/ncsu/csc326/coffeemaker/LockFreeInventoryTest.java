@@ -0,0 +1,233 @@
+/*
+ * Copyright (c) 2009,  Sarah Heckman, Laurie Williams, Dright Ho
+ * All Rights Reserved.
+ *
+ * Permission has been explicitly granted to the University of Minnesota
+ * Software Engineering Center to use and distribute this source for
+ * educational purposes, including delivering online education through
+ * Coursera or other entities.
+ *
+ * No warranty is given regarding this software, including warranties as
+ * to the correctness or completeness of this software, including
+ * fitness for purpose.
+ */
+package edu.ncsu.csc326.coffeemaker;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import edu.ncsu.csc326.coffeemaker.exceptions.InventoryException;
+import edu.ncsu.csc326.coffeemaker.exceptions.RecipeException;
+
+/**
+ * Unit tests for LockFreeInventory class.
+ */
+public class LockFreeInventoryTest {
+
+	/**
+	 * The object under test.
+	 */
+	private LockFreeInventory inventory;
+
+	private Recipe coffee;
+	private Recipe mocha;
+
+	/**
+	 * Initializes the inventory and two recipes to test with.
+	 *
+	 * @throws RecipeException if there was an error parsing the ingredient
+	 *                         amount when setting up the recipe.
+	 */
+	@Before
+	public void setUp() throws RecipeException {
+		inventory = new LockFreeInventory();
+
+		coffee = new Recipe();
+		coffee.setName("Coffee");
+		coffee.setAmtChocolate("0");
+		coffee.setAmtCoffee("3");
+		coffee.setAmtMilk("1");
+		coffee.setAmtSugar("1");
+		coffee.setPrice("50");
+
+		mocha = new Recipe();
+		mocha.setName("Mocha");
+		mocha.setAmtChocolate("20");
+		mocha.setAmtCoffee("3");
+		mocha.setAmtMilk("1");
+		mocha.setAmtSugar("1");
+		mocha.setPrice("75");
+	}
+
+	/**
+	 * Given a new inventory
+	 * When we check the levels
+	 * Then every ingredient has 15 units.
+	 */
+	@Test
+	public void testDefaultInventory() {
+		assertEquals("Coffee: 15\nMilk: 15\nSugar: 15\nChocolate: 15\n", inventory.toString());
+	}
+
+	/**
+	 * Given a new inventory
+	 * When we use the ingredients of a recipe we have enough for
+	 * Then the coffee is added, like Inventory, and every other
+	 *      ingredient is reduced by the recipe amount.
+	 */
+	@Test
+	public void testUseIngredients() {
+		assertTrue(inventory.useIngredients(coffee));
+		assertEquals("Coffee: 18\nMilk: 14\nSugar: 14\nChocolate: 15\n", inventory.toString());
+	}
+
+	/**
+	 * Given a new inventory
+	 * When we use the ingredients of a recipe needing 20 chocolate
+	 * Then we get a false response and the inventory is unchanged.
+	 */
+	@Test
+	public void testUseIngredientsNotEnough() {
+		assertFalse(inventory.enoughIngredients(mocha));
+		assertFalse(inventory.useIngredients(mocha));
+		assertEquals("Coffee: 15\nMilk: 15\nSugar: 15\nChocolate: 15\n", inventory.toString());
+	}
+
+	/**
+	 * Given a new inventory
+	 * When we add chocolate and use a recipe needing 20 chocolate
+	 * Then the recipe can be made.
+	 *
+	 * @throws InventoryException if there was an error parsing the quanity
+	 *                            to a positive integer.
+	 */
+	@Test
+	public void testAddChocolate() throws InventoryException {
+		inventory.addChocolate("5");
+		assertTrue(inventory.useIngredients(mocha));
+		assertEquals(0, inventory.getChocolate());
+	}
+
+	/**
+	 * Given a new inventory
+	 * When we add more milk than a lane can hold
+	 * Then we get an inventory exception.
+	 *
+	 * @throws InventoryException if the total exceeds the lane capacity.
+	 */
+	@Test(expected = InventoryException.class)
+	public void testAddMilkOverCapacity() throws InventoryException {
+		inventory.addMilk(String.valueOf(LockFreeInventory.MAX_UNITS));
+	}
+
+	/**
+	 * Given a new inventory
+	 * When we add milk up to exactly MAX_UNITS and then one more unit
+	 * Then the first restock is kept, the second names the capacity
+	 *      and adds nothing.
+	 *
+	 * @throws InventoryException if the first restock is rejected.
+	 */
+	@Test
+	public void testAddMilkUpToCapacity() throws InventoryException {
+		inventory.addMilk(LockFreeInventory.MAX_UNITS - 15);
+		assertEquals(LockFreeInventory.MAX_UNITS, inventory.getMilk());
+		try {
+			inventory.addMilk(1);
+			fail("Expected InventoryException");
+		} catch (InventoryException e) {
+			assertEquals("Units of milk in stock cannot exceed 32767", e.getMessage());
+		}
+		assertEquals(LockFreeInventory.MAX_UNITS, inventory.getMilk());
+	}
+
+	/**
+	 * Given a new inventory
+	 * When we set sugar to MAX_UNITS and then above it
+	 * Then the first level is kept and the second is rejected.
+	 */
+	@Test
+	public void testSetSugarAboveCapacity() {
+		inventory.setSugar(LockFreeInventory.MAX_UNITS);
+		assertEquals(LockFreeInventory.MAX_UNITS, inventory.getSugar());
+		try {
+			inventory.setSugar(LockFreeInventory.MAX_UNITS + 1);
+			fail("Expected IllegalArgumentException");
+		} catch (IllegalArgumentException e) {
+			assertEquals(LockFreeInventory.MAX_UNITS, inventory.getSugar());
+		}
+	}
+
+	/**
+	 * Given an inventory with coffee one purchase short of MAX_UNITS
+	 * When we make two coffees
+	 * Then both are made and the coffee added stops at MAX_UNITS.
+	 */
+	@Test
+	public void testCoffeeCappedAtCapacity() {
+		inventory.setCoffee(LockFreeInventory.MAX_UNITS - 3);
+		assertTrue(inventory.useIngredients(coffee));
+		assertEquals(LockFreeInventory.MAX_UNITS, inventory.getCoffee());
+		assertTrue(inventory.useIngredients(coffee));
+		assertEquals(LockFreeInventory.MAX_UNITS, inventory.getCoffee());
+		assertEquals(13, inventory.getMilk());
+	}
+
+	/**
+	 * Given an inventory with extra coffee
+	 * When we write the report to a byte buffer
+	 * Then we get the ASCII bytes of toString.
+	 *
+	 * @throws InventoryException if there was an error parsing the quanity
+	 *                            to a positive integer.
+	 */
+	@Test
+	public void testWriteTo() throws InventoryException {
+		inventory.addCoffee(1000);
+		ByteBuffer buffer = ByteBuffer.allocate(64);
+		inventory.writeTo(buffer);
+		assertEquals(inventory.toString(),
+				new String(buffer.array(), 0, buffer.position(), StandardCharsets.US_ASCII));
+	}
+
+	/**
+	 * Given an inventory with enough for exactly 1000 coffees
+	 * When 4 threads try to make 500 coffees each
+	 * Then exactly 1000 succeed, the milk and sugar run out and
+	 *      the coffee used is added, like Inventory.
+	 *
+	 * @throws InterruptedException if interrupted while waiting.
+	 */
+	@Test
+	public void testConcurrentUseIngredients() throws InterruptedException {
+		inventory.setCoffee(3000);
+		inventory.setMilk(1000);
+		inventory.setSugar(1000);
+		final int[] made = new int[4];
+		Thread[] threads = new Thread[4];
+		for (int t = 0; t < threads.length; t++) {
+			final int id = t;
+			threads[t] = new Thread(() -> {
+				for (int i = 0; i < 500; i++) {
+					if (inventory.useIngredients(coffee)) {
+						made[id]++;
+					}
+				}
+			});
+			threads[t].start();
+		}
+		for (Thread thread : threads) {
+			thread.join();
+		}
+		assertEquals(1000, made[0] + made[1] + made[2] + made[3]);
+		assertEquals("Coffee: 6000\nMilk: 0\nSugar: 0\nChocolate: 15\n", inventory.toString());
+	}
+}
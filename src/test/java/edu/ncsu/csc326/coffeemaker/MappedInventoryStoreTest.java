@@ -0,0 +1,152 @@
+/*
+ * Copyright (c) 2009,  Sarah Heckman, Laurie Williams, Dright Ho
+ * All Rights Reserved.
+ *
+ * Permission has been explicitly granted to the University of Minnesota
+ * Software Engineering Center to use and distribute this source for
+ * educational purposes, including delivering online education through
+ * Coursera or other entities.
+ *
+ * No warranty is given regarding this software, including warranties as
+ * to the correctness or completeness of this software, including
+ * fitness for purpose.
+ */
+package edu.ncsu.csc326.coffeemaker;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Unit tests for MappedInventoryStore class.
+ */
+public class MappedInventoryStoreTest {
+
+	private Path file;
+
+	/**
+	 * Creates an empty file for the store.
+	 *
+	 * @throws IOException if the file cannot be created.
+	 */
+	@Before
+	public void setUp() throws IOException {
+		file = Files.createTempFile("coffeemaker", ".inventory");
+	}
+
+	@After
+	public void tearDown() throws IOException {
+		Files.deleteIfExists(file);
+	}
+
+	/**
+	 * Given a new store
+	 * When we check the inventory of a slot
+	 * Then every ingredient has 15 units.
+	 *
+	 * @throws IOException if the store cannot be opened.
+	 */
+	@Test
+	public void testNewSlot() throws IOException {
+		try (MappedInventoryStore store = new MappedInventoryStore(file, 1000)) {
+			assertEquals(1000, store.getCapacity());
+			assertEquals("Coffee: 15\nMilk: 15\nSugar: 15\nChocolate: 15\n", store.getInventory(999).toString());
+		}
+	}
+
+	/**
+	 * Given a coffee maker bound to a slot of the store
+	 * When we buy a coffee, restock, and reopen the store
+	 * Then the reopened slot has the changed levels and the
+	 *      other slots are untouched.
+	 *
+	 * @throws Exception if the store cannot be used.
+	 */
+	@Test
+	public void testCoffeeMakerSurvivesReopen() throws Exception {
+		try (MappedInventoryStore store = new MappedInventoryStore(file, 8)) {
+			CoffeeMaker coffeeMaker = new CoffeeMaker(store.getInventory(5));
+			coffeeMaker.addRecipe(new Recipe("Coffee", 50, 3, 1, 1, 0));
+			assertEquals(10, coffeeMaker.makeCoffee(0, 60));
+			coffeeMaker.addInventory(0, 0, 0, 5);
+		}
+		try (MappedInventoryStore store = new MappedInventoryStore(file, 8)) {
+			int [] levels = new int[4];
+			store.getLevels(5, levels);
+			assertArrayEquals(new int[] { 18, 14, 14, 20 }, levels);
+			store.getLevels(4, levels);
+			assertArrayEquals(new int[] { 15, 15, 15, 15 }, levels);
+		}
+	}
+
+	/**
+	 * Given a store of 8 slots
+	 * When we open it as a store of 16 slots
+	 * Then we get an IOException.
+	 *
+	 * @throws IOException if the file is not a store of 16 slots.
+	 */
+	@Test(expected = IOException.class)
+	public void testWrongCapacity() throws IOException {
+		new MappedInventoryStore(file, 8).close();
+		new MappedInventoryStore(file, 16).close();
+	}
+
+	/**
+	 * Given two inventories of the same slot with enough for 1000 coffees
+	 * When 4 threads, two on each inventory, try to make 500 coffees each
+	 * Then exactly 1000 succeed, the milk and sugar run out and
+	 *      the coffee used is added, like Inventory.
+	 *
+	 * @throws Exception if the store cannot be used.
+	 */
+	@Test
+	public void testConcurrentUseIngredients() throws Exception {
+		try (MappedInventoryStore store = new MappedInventoryStore(file, 2)) {
+			Inventory [] inventories = { store.getInventory(1), store.getInventory(1) };
+			inventories[0].setCoffee(1000);
+			inventories[0].setMilk(1000);
+			inventories[0].setSugar(1000);
+			Recipe coffee = new Recipe("Coffee", 50, 1, 1, 1, 0);
+			final int[] made = new int[4];
+			Thread[] threads = new Thread[4];
+			for (int t = 0; t < threads.length; t++) {
+				final int id = t;
+				threads[t] = new Thread(() -> {
+					for (int i = 0; i < 500; i++) {
+						if (inventories[id % 2].useIngredients(coffee)) {
+							made[id]++;
+						}
+					}
+				});
+				threads[t].start();
+			}
+			for (Thread thread : threads) {
+				thread.join();
+			}
+			assertEquals(1000, made[0] + made[1] + made[2] + made[3]);
+			assertEquals("Coffee: 2000\nMilk: 0\nSugar: 0\nChocolate: 15\n", inventories[1].toString());
+		}
+	}
+
+	/**
+	 * Given a store of 8 slots
+	 * When we ask for the inventory of slot 8
+	 * Then we get an IndexOutOfBoundsException.
+	 *
+	 * @throws IOException if the store cannot be opened.
+	 */
+	@Test(expected = IndexOutOfBoundsException.class)
+	public void testNoSuchSlot() throws IOException {
+		try (MappedInventoryStore store = new MappedInventoryStore(file, 8)) {
+			store.getInventory(8);
+		}
+	}
+}
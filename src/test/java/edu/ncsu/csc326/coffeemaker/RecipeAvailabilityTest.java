@@ -0,0 +1,123 @@
+/*
+ * Copyright (c) 2009,  Sarah Heckman, Laurie Williams, Dright Ho
+ * All Rights Reserved.
+ *
+ * Permission has been explicitly granted to the University of Minnesota
+ * Software Engineering Center to use and distribute this source for
+ * educational purposes, including delivering online education through
+ * Coursera or other entities.
+ *
+ * No warranty is given regarding this software, including warranties as
+ * to the correctness or completeness of this software, including
+ * fitness for purpose.
+ */
+package edu.ncsu.csc326.coffeemaker;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import edu.ncsu.csc326.coffeemaker.exceptions.RecipeException;
+
+/**
+ * Unit tests for RecipeAvailability class.
+ */
+public class RecipeAvailabilityTest {
+
+	/**
+	 * The coffee maker under test.
+	 */
+	private CoffeeMaker coffeeMaker;
+
+	/**
+	 * Initializes a coffee maker with three recipes.
+	 *
+	 * @throws RecipeException if there was an error setting up a recipe.
+	 */
+	@Before
+	public void setUp() throws RecipeException {
+		coffeeMaker = new CoffeeMaker();
+		coffeeMaker.addRecipe(new Recipe("Latte", 100, 0, 4, 1, 0));
+		coffeeMaker.addRecipe(new Recipe("Mocha", 75, 0, 1, 1, 20));
+		coffeeMaker.addRecipe(new Recipe("Water", 0, 0, 0, 0, 0));
+	}
+
+	/**
+	 * Given a new inventory
+	 * When we ask which recipes are available
+	 * Then the latte can be made 3 times, the mocha not at all,
+	 * water without limit and the empty slot not at all.
+	 */
+	@Test
+	public void testAvailableRecipes() {
+		RecipeAvailability availability = coffeeMaker.availableRecipes();
+		assertTrue(availability.isAvailable(0));
+		assertEquals(3, availability.getServings(0));
+		assertFalse(availability.isAvailable(1));
+		assertEquals(0, availability.getServings(1));
+		assertTrue(availability.isAvailable(2));
+		assertEquals(RecipeAvailability.UNLIMITED, availability.getServings(2));
+		assertFalse(availability.isAvailable(3));
+		assertFalse(availability.isAvailable(4));
+		assertEquals(2, availability.getAvailableCount());
+		assertEquals("{0, 2}", availability.getAvailable().toString());
+		assertEquals(new InventorySnapshot(15, 15, 15, 15), availability.getLevels());
+	}
+
+	/**
+	 * Given a coffee maker whose latte can be made 3 times
+	 * When we buy 3 lattes
+	 * Then the latte is no longer available.
+	 */
+	@Test
+	public void testAvailabilityAfterPurchases() {
+		for (int i = 0; i < 3; i++) {
+			assertEquals(0, coffeeMaker.makeCoffee(0, 100));
+		}
+		RecipeAvailability availability = coffeeMaker.availableRecipes();
+		assertFalse(availability.isAvailable(0));
+		assertEquals(1, availability.getAvailableCount());
+	}
+
+	/**
+	 * Given a menu of 3000 random recipes
+	 * When we ask which recipes are available
+	 * Then each answer matches enoughIngredients and the servings
+	 * match buying the recipe until it runs out.
+	 *
+	 * @throws RecipeException if there was an error setting up a recipe.
+	 */
+	@Test
+	public void testLargeMenu() throws RecipeException {
+		Random random = new Random(18);
+		Inventory inventory = new LockFreeInventory();
+		CoffeeMaker large = new CoffeeMaker(new IndexedRecipeBook(), inventory);
+		for (int i = 0; i < 3000; i++) {
+			large.addRecipe(new Recipe("Recipe " + i, 10, random.nextInt(5), random.nextInt(20),
+					random.nextInt(5), random.nextInt(30)));
+		}
+		inventory.setCoffee(40);
+		inventory.setChocolate(25);
+		RecipeAvailability availability = large.availableRecipes();
+		Recipe [] recipes = large.getRecipes();
+		for (int i = 0; i < recipes.length; i++) {
+			Recipe r = recipes[i];
+			assertEquals(r != null && inventory.enoughIngredients(r), availability.isAvailable(i));
+			if (r != null && availability.getServings(i) != RecipeAvailability.UNLIMITED) {
+				Inventory copy = new LockFreeInventory();
+				copy.setCoffee(40);
+				copy.setChocolate(25);
+				int servings = 0;
+				while (copy.useIngredients(r)) {
+					servings++;
+				}
+				assertEquals(servings, availability.getServings(i));
+			}
+		}
+	}
+}
@@ -0,0 +1,143 @@
+/*
+ * Copyright (c) 2009,  Sarah Heckman, Laurie Williams, Dright Ho
+ * All Rights Reserved.
+ *
+ * Permission has been explicitly granted to the University of Minnesota
+ * Software Engineering Center to use and distribute this source for
+ * educational purposes, including delivering online education through
+ * Coursera or other entities.
+ *
+ * No warranty is given regarding this software, including warranties as
+ * to the correctness or completeness of this software, including
+ * fitness for purpose.
+ */
+package edu.ncsu.csc326.coffeemaker;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import edu.ncsu.csc326.coffeemaker.exceptions.RecipeException;
+
+/**
+ * Unit tests for RecipeFactory class.
+ */
+public class RecipeFactoryTest {
+
+	/**
+	 * The object under test.
+	 */
+	private RecipeFactory factory;
+
+	/**
+	 * Initializes a factory caching two recipes.
+	 */
+	@Before
+	public void setUp() {
+		factory = new RecipeFactory(2);
+	}
+
+	/**
+	 * Given a factory
+	 * When we ask for the same recipe as strings and as ints
+	 * Then we get one frozen instance, and another for a new price.
+	 *
+	 * @throws RecipeException if there was an error parsing an amount.
+	 */
+	@Test
+	public void testGetRecipeShared() throws RecipeException {
+		Recipe coffee = factory.getRecipe("Coffee", "50", "3", "1", "1", "0");
+		assertSame(coffee, factory.getRecipe("Coffee", 50, 3, 1, 1, 0));
+		assertTrue(coffee.isFrozen());
+		assertEquals(3, coffee.getAmtCoffee());
+		assertNotSame(coffee, factory.getRecipe("Coffee", 60, 3, 1, 1, 0));
+	}
+
+	/**
+	 * Given a factory
+	 * When we ask for a recipe with a negative amount
+	 * Then we get a recipe exception.
+	 *
+	 * @throws RecipeException if there was an error parsing an amount.
+	 */
+	@Test(expected = RecipeException.class)
+	public void testGetRecipeNegative() throws RecipeException {
+		factory.getRecipe("Coffee", "50", "3", "-1", "1", "0");
+	}
+
+	/**
+	 * Given a frozen recipe
+	 * When we change its price
+	 * Then we get an unsupported operation exception.
+	 *
+	 * @throws RecipeException if there was an error parsing an amount.
+	 */
+	@Test(expected = UnsupportedOperationException.class)
+	public void testFrozenSetter() throws RecipeException {
+		factory.getRecipe("Coffee", 50, 3, 1, 1, 0).setPrice("60");
+	}
+
+	/**
+	 * Given a factory caching two recipes
+	 * When we use the first recipe again and add a third
+	 * Then the second is evicted and the first is still shared.
+	 *
+	 * @throws RecipeException if there was an error parsing an amount.
+	 */
+	@Test
+	public void testLeastRecentlyUsedEviction() throws RecipeException {
+		Recipe coffee = factory.getRecipe("Coffee", 50, 3, 1, 1, 0);
+		Recipe latte = factory.getRecipe("Latte", 100, 1, 3, 1, 0);
+		factory.getRecipe("Coffee", 50, 3, 1, 1, 0);
+		factory.getRecipe("Mocha", 75, 2, 1, 1, 2);
+		assertEquals(2, factory.size());
+		assertSame(coffee, factory.getRecipe("Coffee", 50, 3, 1, 1, 0));
+		assertNotSame(latte, factory.getRecipe("Latte", 100, 1, 3, 1, 0));
+	}
+
+	/**
+	 * Given recipe books on two machines holding a shared recipe
+	 * When the first machine edits its recipe with another shared one
+	 * Then the book stores a frozen renamed copy and the shared
+	 * recipes are unchanged.
+	 *
+	 * @throws RecipeException if there was an error parsing an amount.
+	 */
+	@Test
+	public void testEditWithFrozenRecipe() throws RecipeException {
+		Recipe coffee = factory.getRecipe("Coffee", 50, 3, 1, 1, 0);
+		Recipe latte = factory.getRecipe("Latte", 100, 1, 3, 1, 0);
+		IndexedRecipeBook first = new IndexedRecipeBook();
+		IndexedRecipeBook second = new IndexedRecipeBook();
+		first.addRecipe(coffee);
+		second.addRecipe(coffee);
+		assertEquals("Coffee", first.editRecipe(0, latte));
+		Recipe edited = first.getRecipes()[0];
+		assertTrue(edited.isFrozen());
+		assertEquals("Coffee", edited.getName());
+		assertEquals(100, edited.getPrice());
+		assertEquals("Latte", latte.getName());
+		assertSame(coffee, second.getRecipe("Coffee"));
+	}
+
+	/**
+	 * Given a mutable recipe
+	 * When we intern it
+	 * Then we get a frozen recipe with the same name, price and amounts.
+	 *
+	 * @throws RecipeException if there was an error parsing an amount.
+	 */
+	@Test
+	public void testIntern() throws RecipeException {
+		Recipe mocha = new Recipe("Mocha", 75, 2, 1, 1, 2);
+		Recipe shared = factory.intern(mocha);
+		assertNotSame(mocha, shared);
+		assertTrue(shared.isFrozen());
+		assertSame(shared, factory.intern(new Recipe("Mocha", 75, 2, 1, 1, 2)));
+		assertSame(shared, factory.intern(shared));
+	}
+}
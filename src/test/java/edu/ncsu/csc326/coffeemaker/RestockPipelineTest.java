@@ -0,0 +1,226 @@
+/*
+ * Copyright (c) 2009,  Sarah Heckman, Laurie Williams, Dright Ho
+ * All Rights Reserved.
+ *
+ * Permission has been explicitly granted to the University of Minnesota
+ * Software Engineering Center to use and distribute this source for
+ * educational purposes, including delivering online education through
+ * Coursera or other entities.
+ *
+ * No warranty is given regarding this software, including warranties as
+ * to the correctness or completeness of this software, including
+ * fitness for purpose.
+ */
+package edu.ncsu.csc326.coffeemaker;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import edu.ncsu.csc326.coffeemaker.exceptions.InventoryException;
+
+/**
+ * Unit tests for RestockPipeline class.
+ */
+public class RestockPipelineTest {
+
+	private RestockPipeline pipeline;
+	private CoffeeMaker coffeeMaker;
+
+	/**
+	 * Starts a pipeline and creates a coffee maker to restock.
+	 */
+	@Before
+	public void setUp() {
+		pipeline = new RestockPipeline();
+		coffeeMaker = new CoffeeMaker(new LockFreeInventory());
+	}
+
+	@After
+	public void tearDown() {
+		pipeline.close();
+	}
+
+	/**
+	 * Given a pipeline
+	 * When we submit restocks as strings and ints and flush
+	 * Then every unit is added to the coffee maker.
+	 *
+	 * @throws Exception if a restock is invalid or flushing is interrupted.
+	 */
+	@Test
+	public void testSubmit() throws Exception {
+		pipeline.submit(coffeeMaker, "5", "3", "0", "2");
+		pipeline.submit(coffeeMaker, 1, 1, 0, 1);
+		pipeline.flush();
+		assertEquals("Coffee: 21\nMilk: 19\nSugar: 15\nChocolate: 18\n", coffeeMaker.checkInventory());
+		assertEquals(2, pipeline.getSubmitted());
+	}
+
+	/**
+	 * Given a pipeline
+	 * When we submit a restock with a negative amount of milk
+	 * Then we get the same exception as addInventory and nothing is queued.
+	 */
+	@Test
+	public void testInvalidRestock() {
+		try {
+			pipeline.submit(coffeeMaker, "1", "-1", "0", "0");
+			throw new AssertionError("Expected InventoryException");
+		} catch (InventoryException e) {
+			assertEquals("Units of milk must be a positive integer", e.getMessage());
+		}
+		assertEquals(0, pipeline.getSubmitted());
+	}
+
+	/**
+	 * Given a restock thread held up adding a first restock
+	 * When 100 more restocks of the same coffee maker are submitted
+	 * Then they are added with a single addInventory call.
+	 *
+	 * @throws Exception if a restock is invalid or waiting is interrupted.
+	 */
+	@Test
+	public void testCoalesce() throws Exception {
+		CountDownLatch adding = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		coffeeMaker.setListener(new CoffeeMakerListener() {
+			@Override
+			public void inventoryAdding(int amtCoffee, int amtMilk, int amtSugar, int amtChocolate) {
+				adding.countDown();
+				try {
+					release.await();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+			}
+		});
+		pipeline.submit(coffeeMaker, 1, 0, 0, 0);
+		adding.await();
+		for (int i = 0; i < 100; i++) {
+			pipeline.submit(coffeeMaker, 1, 2, 0, 0);
+		}
+		release.countDown();
+		pipeline.flush();
+		assertEquals(2, pipeline.getApplied());
+		assertEquals(116, coffeeMaker.getInventory().getCoffee());
+		assertEquals(215, coffeeMaker.getInventory().getMilk());
+	}
+
+	/**
+	 * Given a lock-free inventory near its capacity
+	 * When restocks add up to more than it can hold
+	 * Then the failure handler is told and the units are not added.
+	 *
+	 * @throws Exception if a restock is invalid or flushing is interrupted.
+	 */
+	@Test
+	public void testFailure() throws Exception {
+		AtomicReference<InventoryException> failure = new AtomicReference<InventoryException>();
+		pipeline.setFailureHandler((machine, e) -> failure.set(e));
+		pipeline.submit(coffeeMaker, LockFreeInventory.MAX_UNITS, 0, 0, 0);
+		pipeline.flush();
+		assertTrue(failure.get() != null);
+		assertEquals(15, coffeeMaker.getInventory().getCoffee());
+	}
+
+	/**
+	 * Given a restock thread held up adding a first restock
+	 * When two restocks of just over half of what a lock-free
+	 *      inventory holds are submitted
+	 * Then their sum fails, the first is added on its own and only
+	 *      the second is passed to the failure handler.
+	 *
+	 * @throws Exception if a restock is invalid or waiting is interrupted.
+	 */
+	@Test
+	public void testFailedSumAddsEachRestock() throws Exception {
+		List<InventoryException> failures = new CopyOnWriteArrayList<InventoryException>();
+		pipeline.setFailureHandler((machine, e) -> failures.add(e));
+		CountDownLatch adding = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		coffeeMaker.setListener(new CoffeeMakerListener() {
+			@Override
+			public void inventoryAdding(int amtCoffee, int amtMilk, int amtSugar, int amtChocolate) {
+				adding.countDown();
+				try {
+					release.await();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+			}
+		});
+		pipeline.submit(coffeeMaker, 0, 1, 0, 0);
+		adding.await();
+		int half = LockFreeInventory.MAX_UNITS / 2 + 1;
+		pipeline.submit(coffeeMaker, half, 0, 0, 0);
+		pipeline.submit(coffeeMaker, half, 0, 0, 0);
+		release.countDown();
+		pipeline.flush();
+		assertEquals(1, failures.size());
+		assertEquals(15 + half, coffeeMaker.getInventory().getCoffee());
+		assertEquals(16, coffeeMaker.getInventory().getMilk());
+	}
+
+	/**
+	 * Given threads submitting restocks of one coffee unit
+	 * When the pipeline is closed while they submit
+	 * Then every restock that was not rejected has been added
+	 *      when close returns.
+	 *
+	 * @throws InterruptedException if interrupted while waiting.
+	 */
+	@Test
+	public void testSubmitDuringClose() throws InterruptedException {
+		int[] accepted = new int[4];
+		Thread[] threads = new Thread[accepted.length];
+		CountDownLatch started = new CountDownLatch(threads.length);
+		for (int t = 0; t < threads.length; t++) {
+			final int id = t;
+			threads[t] = new Thread(() -> {
+				started.countDown();
+				try {
+					for (int i = 0; i < 5000; i++) {
+						pipeline.submit(coffeeMaker, 1, 0, 0, 0);
+						accepted[id]++;
+					}
+				} catch (InventoryException | RejectedExecutionException e) {
+					// closed while submitting
+				}
+			});
+			threads[t].start();
+		}
+		started.await();
+		pipeline.close();
+		int before = coffeeMaker.getInventory().getCoffee();
+		for (Thread thread : threads) {
+			thread.join();
+		}
+		int total = accepted[0] + accepted[1] + accepted[2] + accepted[3];
+		assertEquals(total, pipeline.getSubmitted());
+		assertEquals(15 + total, before);
+		assertEquals(before, coffeeMaker.getInventory().getCoffee());
+	}
+
+	/**
+	 * Given a closed pipeline
+	 * When we submit a restock
+	 * Then it is rejected.
+	 *
+	 * @throws InventoryException if the restock is invalid.
+	 */
+	@Test(expected = RejectedExecutionException.class)
+	public void testClosed() throws InventoryException {
+		pipeline.close();
+		pipeline.submit(coffeeMaker, 1, 1, 0, 1);
+	}
+}
@@ -0,0 +1,172 @@
+/*
+ * Copyright (c) 2009,  Sarah Heckman, Laurie Williams, Dright Ho
+ * All Rights Reserved.
+ *
+ * Permission has been explicitly granted to the University of Minnesota
+ * Software Engineering Center to use and distribute this source for
+ * educational purposes, including delivering online education through
+ * Coursera or other entities.
+ *
+ * No warranty is given regarding this software, including warranties as
+ * to the correctness or completeness of this software, including
+ * fitness for purpose.
+ */
+package edu.ncsu.csc326.coffeemaker;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Arrays;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import edu.ncsu.csc326.coffeemaker.exceptions.RecipeException;
+
+/**
+ * Unit tests for SalesLedger and SalesWindow classes.
+ */
+public class SalesLedgerTest {
+
+	/** Simulated time in milliseconds */
+	private volatile long now;
+	private SalesLedger ledger;
+	private CoffeeMaker coffeeMaker;
+
+	/**
+	 * Initializes a coffee maker with two recipes whose sales are
+	 * recorded in a ledger on a simulated clock.
+	 *
+	 * @throws RecipeException if there was an error setting up a recipe.
+	 */
+	@Before
+	public void setUp() throws RecipeException {
+		now = 0;
+		ledger = new SalesLedger(2, () -> now);
+		coffeeMaker = new CoffeeMaker();
+		coffeeMaker.addRecipe(new Recipe("Coffee", 50, 0, 1, 1, 0));
+		coffeeMaker.addRecipe(new Recipe("Mocha", 75, 0, 1, 1, 2));
+		ledger.attach(coffeeMaker);
+	}
+
+	/**
+	 * Given a coffee maker recording sales
+	 * When we buy beverages, one refused for lack of money
+	 * Then the current minute and hour count every beverage made
+	 *      and its price.
+	 */
+	@Test
+	public void testCurrentWindow() {
+		coffeeMaker.makeCoffee(0, 50);
+		coffeeMaker.makeCoffee(1, 100);
+		coffeeMaker.makeCoffee(1, 75);
+		coffeeMaker.makeCoffee(1, 10);
+		for (int length : new int[] { SalesLedger.MINUTE, SalesLedger.HOUR }) {
+			SalesWindow window = ledger.getWindow(length, 0);
+			assertEquals(1, window.getSold("Coffee"));
+			assertEquals(2, window.getSold("Mocha"));
+			assertEquals(150, window.getRevenue("Mocha"));
+			assertEquals(3, window.getTotalSold());
+			assertEquals(200, window.getTotalRevenue());
+			assertEquals(Arrays.asList("Mocha", "Coffee"), window.getBestSellers(5));
+		}
+	}
+
+	/**
+	 * Given a coffee maker recording sales in two ledgers
+	 * When we detach one ledger and buy another beverage
+	 * Then only the ledger still attached records it.
+	 */
+	@Test
+	public void testDetach() {
+		SalesLedger other = new SalesLedger(2, () -> now);
+		other.attach(coffeeMaker);
+		coffeeMaker.makeCoffee(0, 50);
+		ledger.detach(coffeeMaker);
+		coffeeMaker.makeCoffee(0, 50);
+		assertEquals(1, ledger.getWindow(SalesLedger.MINUTE, 0).getTotalSold());
+		assertEquals(2, other.getWindow(SalesLedger.MINUTE, 0).getTotalSold());
+	}
+
+	/**
+	 * Given sales in two different minutes of the same hour
+	 * When we read the minute windows and the hour window
+	 * Then each minute has its own sales and the hour has both.
+	 */
+	@Test
+	public void testTumblingWindows() {
+		now = 59_999;
+		ledger.record("Coffee", 50);
+		now = 60_000;
+		ledger.record("Coffee", 50);
+		ledger.record("Coffee", 50);
+		assertEquals(2, ledger.getWindow(SalesLedger.MINUTE, 0).getSold("Coffee"));
+		assertEquals(60_000, ledger.getWindow(SalesLedger.MINUTE, 0).getStart());
+		assertEquals(1, ledger.getWindow(SalesLedger.MINUTE, 1).getSold("Coffee"));
+		assertEquals(3, ledger.getWindow(SalesLedger.HOUR, 0).getSold("Coffee"));
+	}
+
+	/**
+	 * Given sales an hour ago
+	 * When the minute windows wrap around to the same bucket
+	 * Then the old sales are gone from it but not from the hour windows.
+	 */
+	@Test
+	public void testReusedBucket() {
+		ledger.record("Coffee", 50);
+		now = 60L * 60_000;
+		ledger.record("Mocha", 75);
+		SalesWindow minute = ledger.getWindow(SalesLedger.MINUTE, 0);
+		assertEquals(0, minute.getSold("Coffee"));
+		assertEquals(1, minute.getSold("Mocha"));
+		assertEquals(1, ledger.getWindow(SalesLedger.HOUR, 1).getSold("Coffee"));
+		assertEquals(0, ledger.getWindow(SalesLedger.MINUTE, 59).getSold("Mocha"));
+	}
+
+	/**
+	 * Given a ledger counting two recipe names separately
+	 * When we sell a third recipe
+	 * Then its sales are counted under OTHER.
+	 */
+	@Test
+	public void testOther() {
+		ledger.record("Coffee", 50);
+		ledger.record("Mocha", 75);
+		ledger.record("Latte", 60);
+		ledger.record("Tea", 30);
+		SalesWindow window = ledger.getWindow(SalesLedger.MINUTE, 0);
+		assertEquals(0, window.getSold("Latte"));
+		assertEquals(2, window.getSold(SalesLedger.OTHER));
+		assertEquals(90, window.getRevenue(SalesLedger.OTHER));
+	}
+
+	/**
+	 * Given 4 threads recording sales as the minute changes
+	 * When every thread is done
+	 * Then the hour counts every sale.
+	 *
+	 * @throws InterruptedException if interrupted while waiting.
+	 */
+	@Test
+	public void testConcurrentRecord() throws InterruptedException {
+		Thread[] threads = new Thread[4];
+		for (int t = 0; t < threads.length; t++) {
+			threads[t] = new Thread(() -> {
+				for (int i = 0; i < 10000; i++) {
+					if (i == 5000) {
+						now = 60_000;
+					}
+					ledger.record("Coffee", 50);
+				}
+			});
+			threads[t].start();
+		}
+		for (Thread thread : threads) {
+			thread.join();
+		}
+		SalesWindow hour = ledger.getWindow(SalesLedger.HOUR, 0);
+		assertEquals(40000, hour.getSold("Coffee"));
+		assertEquals(2000000, hour.getRevenue("Coffee"));
+		assertEquals(40000, ledger.getWindow(SalesLedger.MINUTE, 0).getSold("Coffee")
+				+ ledger.getWindow(SalesLedger.MINUTE, 1).getSold("Coffee"));
+	}
+}
@@ -0,0 +1,123 @@
+/*
+ * Copyright (c) 2009,  Sarah Heckman, Laurie Williams, Dright Ho
+ * All Rights Reserved.
+ *
+ * Permission has been explicitly granted to the University of Minnesota
+ * Software Engineering Center to use and distribute this source for
+ * educational purposes, including delivering online education through
+ * Coursera or other entities.
+ *
+ * No warranty is given regarding this software, including warranties as
+ * to the correctness or completeness of this software, including
+ * fitness for purpose.
+ */
+package edu.ncsu.csc326.coffeemaker;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import edu.ncsu.csc326.coffeemaker.exceptions.RecipeException;
+
+/**
+ * Unit tests for ShardedFleet class.
+ */
+public class ShardedFleetTest {
+
+	/**
+	 * The object under test.
+	 */
+	private ShardedFleet fleet;
+
+	/**
+	 * Initializes a fleet of 100 machines on 4 shards, each with a
+	 * recipe using 2 milk and 1 sugar.
+	 *
+	 * @throws RecipeException if there was an error setting up the recipe.
+	 */
+	@Before
+	public void setUp() throws RecipeException {
+		fleet = new ShardedFleet(4, CoffeeMaker::new, 64, true);
+		Recipe latte = new Recipe("Latte", 100, 0, 2, 1, 0);
+		for (int i = 0; i < 100; i++) {
+			assertTrue(fleet.addMachine("machine-" + i).join());
+			assertTrue(fleet.addRecipe("machine-" + i, latte).join());
+		}
+	}
+
+	/**
+	 * Closes the fleet.
+	 */
+	@After
+	public void tearDown() {
+		fleet.close();
+	}
+
+	/**
+	 * Given a fleet of 100 machines
+	 * When we add an existing machine and buy on a missing one
+	 * Then the machine is not added again and the purchase fails.
+	 *
+	 * @throws InterruptedException if interrupted while waiting.
+	 */
+	@Test
+	public void testMissingMachine() throws InterruptedException {
+		assertFalse(fleet.addMachine("machine-7").join());
+		try {
+			fleet.makeCoffee("machine-100", 0, 100).get();
+		} catch (ExecutionException e) {
+			assertTrue(e.getCause() instanceof IllegalArgumentException);
+			return;
+		}
+		throw new AssertionError("Expected the purchase to fail");
+	}
+
+	/**
+	 * Given a fleet of 100 machines with enough milk for 7 lattes each
+	 * When 4 threads buy 10 lattes on every machine
+	 * Then 700 lattes are sold and the totals match the inventories.
+	 *
+	 * @throws InterruptedException if interrupted while waiting.
+	 */
+	@Test
+	public void testTotals() throws InterruptedException {
+		Thread [] threads = new Thread[4];
+		for (int t = 0; t < threads.length; t++) {
+			final int first = t * 25;
+			threads[t] = new Thread(() -> {
+				List<CompletableFuture<Integer>> purchases = new ArrayList<CompletableFuture<Integer>>();
+				for (int i = first; i < first + 25; i++) {
+					for (int j = 0; j < 10; j++) {
+						purchases.add(fleet.makeCoffee("machine-" + i, 0, 100));
+					}
+				}
+				for (CompletableFuture<Integer> purchase : purchases) {
+					purchase.join();
+				}
+			});
+			threads[t].start();
+		}
+		for (Thread thread : threads) {
+			thread.join();
+		}
+		fleet.addInventory("machine-0", 0, 5, 0, 0).join();
+		assertEquals("Coffee: 15\nMilk: 6\nSugar: 8\nChocolate: 15\n", fleet.checkInventory("machine-0").join());
+		FleetTotals totals = fleet.getTotals().join();
+		assertEquals(100, totals.getMachines());
+		assertEquals(700, totals.getBeveragesSold());
+		assertEquals(70000, totals.getRevenue());
+		assertEquals(1500, totals.getCoffee());
+		assertEquals(105, totals.getMilk());
+		assertEquals(800, totals.getSugar());
+		assertEquals(1500, totals.getChocolate());
+	}
+}
@@ -0,0 +1,147 @@
+/*
+ * Copyright (c) 2009,  Sarah Heckman, Laurie Williams, Dright Ho
+ * All Rights Reserved.
+ *
+ * Permission has been explicitly granted to the University of Minnesota
+ * Software Engineering Center to use and distribute this source for
+ * educational purposes, including delivering online education through
+ * Coursera or other entities.
+ *
+ * No warranty is given regarding this software, including warranties as
+ * to the correctness or completeness of this software, including
+ * fitness for purpose.
+ */
+package edu.ncsu.csc326.coffeemaker;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import edu.ncsu.csc326.coffeemaker.exceptions.RecipeException;
+
+/**
+ * Unit tests for SnapshotFile class.
+ */
+public class SnapshotFileTest {
+
+	private Path file;
+
+	/**
+	 * Creates a file name for the snapshot.
+	 *
+	 * @throws IOException if the file cannot be created.
+	 */
+	@Before
+	public void setUp() throws IOException {
+		file = Files.createTempFile("coffeemaker", ".snapshot");
+	}
+
+	@After
+	public void tearDown() throws IOException {
+		Files.deleteIfExists(file);
+	}
+
+	/**
+	 * Given a coffee maker with recipes, a deleted recipe and
+	 * changed inventory
+	 * When we save it and load it into a new coffee maker
+	 * Then the new coffee maker has the same recipes and inventory.
+	 *
+	 * @throws Exception if the snapshot cannot be used.
+	 */
+	@Test
+	public void testCoffeeMaker() throws Exception {
+		CoffeeMaker coffeeMaker = new CoffeeMaker();
+		coffeeMaker.addRecipe(new Recipe("Coffee", 50, 3, 1, 1, 0));
+		coffeeMaker.addRecipe(new Recipe("Caf\u00e9 Mocha", 75, 3, 1, 1, 2));
+		coffeeMaker.addRecipe(new Recipe("Latte", 60, 2, 3, 0, 0));
+		coffeeMaker.deleteRecipe(1);
+		coffeeMaker.addInventory(1, 2, 3, 4);
+		SnapshotFile.write(coffeeMaker, 7, file);
+
+		CoffeeMaker loaded = new CoffeeMaker();
+		assertEquals(7, SnapshotFile.read(file, loaded));
+		assertEquals(coffeeMaker.checkInventory(), loaded.checkInventory());
+		assertEquals(coffeeMaker.getRecipeSnapshot().getVersion(), loaded.getRecipeSnapshot().getVersion());
+		Recipe [] recipes = loaded.getRecipes();
+		assertEquals(4, recipes.length);
+		assertEquals("Coffee", recipes[0].getName());
+		assertEquals("", recipes[1].getName());
+		assertEquals("Latte", recipes[2].getName());
+		assertEquals(60, recipes[2].getPrice());
+		assertEquals(3, recipes[2].getAmtMilk());
+		assertNull(recipes[3]);
+	}
+
+	/**
+	 * Given a fleet of 1000 machines with indexed recipe books
+	 * When we save it and load it into a new fleet
+	 * Then every machine is loaded and finds its recipes by name.
+	 *
+	 * @throws Exception if the snapshot cannot be used.
+	 */
+	@Test
+	public void testFleet() throws Exception {
+		CoffeeMakerFleet fleet = new CoffeeMakerFleet(() -> new CoffeeMaker(new IndexedRecipeBook(), new Inventory()));
+		for (int i = 0; i < 1000; i++) {
+			CoffeeMaker coffeeMaker = fleet.addMachine("machine-" + i);
+			coffeeMaker.addRecipe(new Recipe("Coffee", 50, 3, 1, 1, 0));
+			coffeeMaker.addRecipe(new Recipe("Drink " + i, i, 0, 1, 1, 1));
+			coffeeMaker.addRecipe(new Recipe("Latte", 60, 2, 3, 0, 0));
+			coffeeMaker.deleteRecipe(0);
+			coffeeMaker.addInventory(i, 0, 0, 0);
+		}
+		SnapshotFile.write(fleet, 1, file);
+
+		CoffeeMakerFleet loaded = new CoffeeMakerFleet(() -> new CoffeeMaker(new IndexedRecipeBook(), new Inventory()));
+		assertEquals(1, SnapshotFile.read(file, loaded));
+		assertEquals(1000, loaded.size());
+		for (int i = 0; i < 1000; i++) {
+			String id = "machine-" + i;
+			assertEquals(fleet.checkInventory(id), loaded.checkInventory(id));
+			IndexedRecipeBook recipeBook = (IndexedRecipeBook) loaded.getMachine(id).getRecipeBook();
+			assertEquals(1, recipeBook.indexOf("Drink " + i));
+			assertEquals(-1, recipeBook.indexOf("Coffee"));
+			assertTrue(recipeBook.addRecipe(new Recipe("Mocha", 75, 3, 1, 1, 2)));
+			assertEquals(0, recipeBook.indexOf("Mocha"));
+		}
+	}
+
+	/**
+	 * Given a saved coffee maker whose file was damaged
+	 * When we load it
+	 * Then we get an IOException.
+	 *
+	 * @throws Exception if the snapshot cannot be written.
+	 */
+	@Test(expected = IOException.class)
+	public void testCorrupt() throws Exception {
+		CoffeeMaker coffeeMaker = new CoffeeMaker();
+		coffeeMaker.addRecipe(new Recipe("Coffee", 50, 3, 1, 1, 0));
+		SnapshotFile.write(coffeeMaker, 0, file);
+		byte [] bytes = Files.readAllBytes(file);
+		bytes[30] ^= 1;
+		Files.write(file, bytes);
+		SnapshotFile.read(file, new CoffeeMaker());
+	}
+
+	/**
+	 * Given a recipe that cannot exist
+	 * When we create it
+	 * Then we get a recipe exception.
+	 *
+	 * @throws RecipeException always.
+	 */
+	@Test(expected = RecipeException.class)
+	public void testNegativeRecipe() throws RecipeException {
+		new Recipe("Coffee", 50, 3, -1, 1, 0);
+	}
+}
@@ -0,0 +1,127 @@
+/*
+ * Copyright (c) 2009,  Sarah Heckman, Laurie Williams, Dright Ho
+ * All Rights Reserved.
+ *
+ * Permission has been explicitly granted to the University of Minnesota
+ * Software Engineering Center to use and distribute this source for
+ * educational purposes, including delivering online education through
+ * Coursera or other entities.
+ *
+ * No warranty is given regarding this software, including warranties as
+ * to the correctness or completeness of this software, including
+ * fitness for purpose.
+ */
+package edu.ncsu.csc326.coffeemaker;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import edu.ncsu.csc326.coffeemaker.exceptions.InventoryException;
+import edu.ncsu.csc326.coffeemaker.exceptions.RecipeException;
+
+/**
+ * Unit tests for StripedInventory class.
+ */
+public class StripedInventoryTest {
+
+	/**
+	 * The object under test.
+	 */
+	private StripedInventory inventory;
+
+	private Recipe espresso;
+	private Recipe mocha;
+
+	/**
+	 * Initializes the inventory and two recipes to test with.
+	 *
+	 * @throws RecipeException if there was an error setting up a recipe.
+	 */
+	@Before
+	public void setUp() throws RecipeException {
+		inventory = new StripedInventory();
+		espresso = new Recipe("Espresso", 50, 3, 0, 0, 1);
+		mocha = new Recipe("Mocha", 75, 3, 1, 1, 20);
+	}
+
+	/**
+	 * Given a new inventory
+	 * When we use the ingredients of a recipe we have enough for
+	 * and of one we do not have enough for
+	 * Then only the first changes the inventory, adding the coffee
+	 *      like Inventory.
+	 */
+	@Test
+	public void testUseIngredients() {
+		assertEquals("Coffee: 15\nMilk: 15\nSugar: 15\nChocolate: 15\n", inventory.toString());
+		assertTrue(inventory.useIngredients(espresso));
+		assertFalse(inventory.enoughIngredients(mocha));
+		assertFalse(inventory.useIngredients(mocha));
+		assertEquals("Coffee: 18\nMilk: 15\nSugar: 15\nChocolate: 14\n", inventory.toString());
+	}
+
+	/**
+	 * Given an inventory with the most milk an int can hold
+	 * When we add milk and coffee
+	 * Then we get an inventory exception and nothing is added.
+	 *
+	 * @throws InventoryException if the milk does not fit.
+	 */
+	@Test(expected = InventoryException.class)
+	public void testAddOverCapacity() throws InventoryException {
+		inventory.setMilk(Integer.MAX_VALUE);
+		try {
+			inventory.restock(5, 1, 0, 0);
+		} finally {
+			assertEquals(15, inventory.getCoffee());
+		}
+	}
+
+	/**
+	 * Given an inventory with enough chocolate for exactly 1000 espressos
+	 * When 4 threads buy espressos while 2 threads restock milk and sugar
+	 * Then exactly 1000 espressos are made and every restock is kept.
+	 *
+	 * @throws InterruptedException if interrupted while waiting.
+	 */
+	@Test
+	public void testDisjointIngredients() throws InterruptedException {
+		inventory.setCoffee(3000);
+		inventory.setChocolate(1000);
+		final int[] made = new int[4];
+		Thread[] threads = new Thread[6];
+		for (int t = 0; t < 4; t++) {
+			final int id = t;
+			threads[t] = new Thread(() -> {
+				for (int i = 0; i < 500; i++) {
+					if (inventory.useIngredients(espresso)) {
+						made[id]++;
+					}
+				}
+			});
+		}
+		for (int t = 4; t < threads.length; t++) {
+			threads[t] = new Thread(() -> {
+				try {
+					for (int i = 0; i < 1000; i++) {
+						inventory.restock(0, 1, 1, 0);
+					}
+				} catch (InventoryException e) {
+					throw new IllegalStateException(e);
+				}
+			});
+		}
+		for (Thread thread : threads) {
+			thread.start();
+		}
+		for (Thread thread : threads) {
+			thread.join();
+		}
+		assertEquals(1000, made[0] + made[1] + made[2] + made[3]);
+		assertEquals("Coffee: 6000\nMilk: 2015\nSugar: 2015\nChocolate: 0\n", inventory.toString());
+	}
+}